@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) MuleSoft, Inc. All rights reserved. http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.md file.
+ */
+
+package org.mule.modules.neo4j;
+
+import java.util.concurrent.TimeUnit;
+
+import org.mule.api.MuleException;
+import org.mule.modules.neo4j.Neo4jConnector.HttpTransportType;
+import org.mule.modules.neo4j.model.CypherQueryResult;
+import org.mule.modules.neo4j.model.Node;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the throughput of complete processor invocations against {@link StubNeo4jServer},
+ * through the POOLED HTTP transport. Run with <code>-prof gc</code> to get the allocation rate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Threads(4)
+@Fork(1)
+public class ConnectorBenchmark
+{
+    private StubNeo4jServer stubNeo4jServer;
+    private Neo4jConnector neo4jConnector;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception
+    {
+        stubNeo4jServer = new StubNeo4jServer();
+        stubNeo4jServer.start();
+
+        // DevKit applies the @Default values, which need to be set explicitly here
+        neo4jConnector = new Neo4jConnector();
+        neo4jConnector.setStreaming(true);
+        neo4jConnector.setTransportType(HttpTransportType.POOLED);
+        neo4jConnector.setMaxConnectionsPerHost(20);
+        neo4jConnector.setMaxTotalConnections(50);
+        neo4jConnector.setConnectionTimeoutMillis(10000);
+        neo4jConnector.setReadTimeoutMillis(60000);
+        neo4jConnector.setIdleConnectionTimeoutMillis(30000);
+        neo4jConnector.setAsyncThreads(1);
+        neo4jConnector.setAsyncQueueSize(1);
+        neo4jConnector.setMetrics(true);
+        neo4jConnector.connect(stubNeo4jServer.getBaseUri());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception
+    {
+        neo4jConnector.disconnect();
+        stubNeo4jServer.stop();
+    }
+
+    @Benchmark
+    public Node getNodeById() throws MuleException
+    {
+        return neo4jConnector.getNodeById(42L, true);
+    }
+
+    @Benchmark
+    public CypherQueryResult runCypherQuery() throws MuleException
+    {
+        return neo4jConnector.runCypherQuery("MATCH (n) RETURN id(n), n.name, n.weight LIMIT 100", null,
+            false, false);
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) MuleSoft, Inc. All rights reserved. http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.md file.
+ */
+
+package org.mule.modules.neo4j;
+
+import java.io.ByteArrayInputStream;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.codehaus.jackson.type.TypeReference;
+import org.mule.api.MuleException;
+import org.mule.modules.neo4j.model.CypherQuery;
+import org.mule.modules.neo4j.model.CypherQueryParams;
+import org.mule.modules.neo4j.model.CypherQueryResult;
+import org.mule.modules.neo4j.model.Node;
+import org.mule.modules.neo4j.model.Path;
+import org.mule.modules.neo4j.transport.HttpTransportResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the request building and response parsing steps every processor goes through, without
+ * any network involved.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class SerializationBenchmark
+{
+    private static final TypeReference<Node> NODE_TYPE_REFERENCE = new TypeReference<Node>()
+    {
+        // NOOP
+    };
+    private static final TypeReference<CypherQueryResult> CYPHER_QUERY_RESULT_TYPE_REFERENCE = new TypeReference<CypherQueryResult>()
+    {
+        // NOOP
+    };
+    private static final TypeReference<Collection<Path>> PATHS_TYPE_REFERENCE = new TypeReference<Collection<Path>>()
+    {
+        // NOOP
+    };
+
+    private Neo4jConnector neo4jConnector;
+    private StubNeo4jServer stubNeo4jServer;
+    private CypherQuery cypherQuery;
+    private byte[] nodePayload;
+    private byte[] cypherQueryResultPayload;
+    private byte[] pathsPayload;
+
+    @Setup
+    public void setUp() throws Exception
+    {
+        neo4jConnector = new Neo4jConnector();
+
+        // only used to load the payloads, it is never started
+        stubNeo4jServer = new StubNeo4jServer();
+        nodePayload = stubNeo4jServer.loadPayload("node.json");
+        cypherQueryResultPayload = stubNeo4jServer.loadPayload("cypher_query_result.json");
+        pathsPayload = stubNeo4jServer.loadPayload("paths.json");
+
+        final Map<String, Object> params = new HashMap<String, Object>();
+        params.put("name", "node-42");
+        params.put("ids", Collections.nCopies(100, 42L));
+        final CypherQueryParams cypherQueryParams = new CypherQueryParams();
+        cypherQueryParams.getAdditionalProperties().putAll(params);
+        cypherQuery = new CypherQuery().withQuery("MATCH (n) WHERE n.name = {name} AND id(n) IN {ids} RETURN n")
+            .withParams(cypherQueryParams);
+    }
+
+    @Benchmark
+    public String buildUri()
+    {
+        return neo4jConnector.buildUri(stubNeo4jServer.getBaseUri() + "/index/node/anIndex", "query",
+            "name:node-42 AND code:C00042", "order", "relevance");
+    }
+
+    @Benchmark
+    public String serializeCypherQuery() throws MuleException
+    {
+        return neo4jConnector.serializeEntityToJson(cypherQuery);
+    }
+
+    @Benchmark
+    public Node deserializeNode() throws MuleException
+    {
+        return neo4jConnector.deserializeJsonToEntity(NODE_TYPE_REFERENCE, newResponse(nodePayload));
+    }
+
+    @Benchmark
+    public CypherQueryResult deserializeCypherQueryResult() throws MuleException
+    {
+        return neo4jConnector.deserializeJsonToEntity(CYPHER_QUERY_RESULT_TYPE_REFERENCE,
+            newResponse(cypherQueryResultPayload));
+    }
+
+    @Benchmark
+    public Collection<Path> deserializePaths() throws MuleException
+    {
+        return neo4jConnector.deserializeJsonToEntity(PATHS_TYPE_REFERENCE, newResponse(pathsPayload));
+    }
+
+    private static HttpTransportResponse newResponse(final byte[] payload)
+    {
+        return new HttpTransportResponse(200, Collections.<String, String> emptyMap(),
+            new ByteArrayInputStream(payload));
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) MuleSoft, Inc. All rights reserved. http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.md file.
+ */
+
+package org.mule.modules.neo4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.mule.util.IOUtils;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A local HTTP server answering the few Neo4j REST requests exercised by the benchmarks with canned
+ * payloads, so the measurements only include the connector and the network stack.
+ */
+final class StubNeo4jServer
+{
+    private static final String BASE_PATH = "/db/data";
+    private static final String BASE_URI_TOKEN = "{baseUri}";
+
+    private final HttpServer httpServer;
+    private final ExecutorService executor;
+    private final String baseUri;
+    private final Map<String, byte[]> payloadsByRoute = new HashMap<String, byte[]>();
+
+    StubNeo4jServer() throws IOException
+    {
+        httpServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        baseUri = "http://localhost:" + httpServer.getAddress().getPort() + BASE_PATH;
+
+        payloadsByRoute.put("GET " + BASE_PATH + "/", loadPayload("service_root.json"));
+        payloadsByRoute.put("GET " + BASE_PATH + "/node/42", loadPayload("node.json"));
+        payloadsByRoute.put("POST " + BASE_PATH + "/cypher", loadPayload("cypher_query_result.json"));
+
+        httpServer.createContext(BASE_PATH, new HttpHandler()
+        {
+            public void handle(final HttpExchange exchange) throws IOException
+            {
+                respond(exchange);
+            }
+        });
+
+        executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        httpServer.setExecutor(executor);
+    }
+
+    void start()
+    {
+        httpServer.start();
+    }
+
+    void stop()
+    {
+        httpServer.stop(0);
+        executor.shutdownNow();
+    }
+
+    String getBaseUri()
+    {
+        return baseUri;
+    }
+
+    /**
+     * @return the named payload, with its URIs pointing to this server.
+     */
+    byte[] loadPayload(final String name) throws IOException
+    {
+        final InputStream payload = getClass().getResourceAsStream("/payloads/" + name);
+
+        try
+        {
+            return IOUtils.toString(payload, "UTF-8").replace(BASE_URI_TOKEN, baseUri).getBytes("UTF-8");
+        }
+        finally
+        {
+            IOUtils.closeQuietly(payload);
+        }
+    }
+
+    private void respond(final HttpExchange exchange) throws IOException
+    {
+        try
+        {
+            // drain the request so the connection can be kept alive
+            IOUtils.copy(exchange.getRequestBody(), new OutputStream()
+            {
+                @Override
+                public void write(final int b)
+                {
+                    // NOOP
+                }
+            });
+
+            final byte[] payload = payloadsByRoute.get(exchange.getRequestMethod() + " "
+                                                       + exchange.getRequestURI().getPath());
+
+            if (payload == null)
+            {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+            exchange.sendResponseHeaders(200, payload.length);
+            exchange.getResponseBody().write(payload);
+        }
+        finally
+        {
+            exchange.close();
+        }
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) MuleSoft, Inc. All rights reserved. http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.md file.
+ */
+
+package org.mule.modules.neo4j;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.mule.modules.neo4j.model.BatchJob;
+import org.mule.modules.neo4j.model.BatchJobResult;
+import org.mule.modules.neo4j.model.Data;
+
+/**
+ * Merges groups of batch jobs submitted by different callers into a single batch, and splits its
+ * results back into groups.
+ * <p>
+ * The jobs of the merged batch are numbered from 0, in group order. Within a group, a job can refer
+ * to the result of a previous job of the same group with the <code>{id}</code> syntax of the batch
+ * API, in its target or in the strings of its body: these references are renumbered so they keep
+ * pointing to the same job, and the results get back the ids the jobs had in their group.
+ */
+final class BatchJobMerger
+{
+    private static final Pattern JOB_REFERENCE_PATTERN = Pattern.compile("\\{(\\d+)\\}");
+
+    private BatchJobMerger()
+    {
+        // static methods only
+    }
+
+    static List<BatchJob> merge(final List<List<BatchJob>> groups)
+    {
+        final List<BatchJob> jobs = new ArrayList<BatchJob>();
+
+        for (final List<BatchJob> group : groups)
+        {
+            final Map<Integer, Integer> mergedIds = new HashMap<Integer, Integer>();
+            for (int i = 0; i < group.size(); i++)
+            {
+                final Integer id = group.get(i).getId();
+                if (id != null)
+                {
+                    mergedIds.put(id, jobs.size() + i);
+                }
+            }
+
+            for (final BatchJob job : group)
+            {
+                jobs.add(new BatchJob().withId(jobs.size())
+                    .withMethod(job.getMethod())
+                    .withTo((String) renumberReferences(job.getTo(), mergedIds))
+                    .withBody(renumberReferences(job.getBody(), mergedIds)));
+            }
+        }
+
+        return jobs;
+    }
+
+    /**
+     * @return the results of the merged batch of these groups, correlated by id, in one list per
+     *         group, where the results of the jobs that got none are null.
+     */
+    static List<List<BatchJobResult>> split(final List<List<BatchJob>> groups,
+                                            final Collection<BatchJobResult> results)
+    {
+        int jobCount = 0;
+        for (final List<BatchJob> group : groups)
+        {
+            jobCount += group.size();
+        }
+
+        final BatchJobResult[] resultsByMergedId = new BatchJobResult[jobCount];
+        for (final BatchJobResult result : results)
+        {
+            if ((result.getId() != null) && (result.getId() >= 0) && (result.getId() < jobCount))
+            {
+                resultsByMergedId[result.getId()] = result;
+            }
+        }
+
+        final List<List<BatchJobResult>> groupResults = new ArrayList<List<BatchJobResult>>(groups.size());
+        int mergedId = 0;
+        for (final List<BatchJob> group : groups)
+        {
+            final List<BatchJobResult> groupResult = new ArrayList<BatchJobResult>(group.size());
+            for (final BatchJob job : group)
+            {
+                final BatchJobResult result = resultsByMergedId[mergedId++];
+                if (result != null)
+                {
+                    result.setId(job.getId());
+                }
+                groupResult.add(result);
+            }
+            groupResults.add(groupResult);
+        }
+
+        return groupResults;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object renumberReferences(final Object value, final Map<Integer, Integer> mergedIds)
+    {
+        if ((value == null) || (mergedIds.isEmpty()))
+        {
+            return value;
+        }
+        else if (value instanceof String)
+        {
+            return renumberReferences((String) value, mergedIds);
+        }
+        else if (value instanceof Data)
+        {
+            final Data data = new Data();
+            data.getAdditionalProperties().putAll(
+                (Map<String, Object>) renumberReferences(((Data) value).getAdditionalProperties(), mergedIds));
+            return data;
+        }
+        else if (value instanceof Map)
+        {
+            final Map<Object, Object> map = new LinkedHashMap<Object, Object>();
+            for (final Entry<?, ?> entry : ((Map<?, ?>) value).entrySet())
+            {
+                map.put(entry.getKey(), renumberReferences(entry.getValue(), mergedIds));
+            }
+            return map;
+        }
+        else if (value instanceof Collection)
+        {
+            final List<Object> list = new ArrayList<Object>();
+            for (final Object element : (Collection<?>) value)
+            {
+                list.add(renumberReferences(element, mergedIds));
+            }
+            return list;
+        }
+        else
+        {
+            return value;
+        }
+    }
+
+    private static String renumberReferences(final String value, final Map<Integer, Integer> mergedIds)
+    {
+        final Matcher matcher = JOB_REFERENCE_PATTERN.matcher(value);
+        final StringBuffer renumbered = new StringBuffer();
+
+        while (matcher.find())
+        {
+            final Integer mergedId = toMergedId(matcher.group(1), mergedIds);
+            matcher.appendReplacement(renumbered,
+                Matcher.quoteReplacement(mergedId == null ? matcher.group() : "{" + mergedId + "}"));
+        }
+
+        matcher.appendTail(renumbered);
+        return renumbered.toString();
+    }
+
+    private static Integer toMergedId(final String id, final Map<Integer, Integer> mergedIds)
+    {
+        try
+        {
+            return mergedIds.get(Integer.valueOf(id));
+        }
+        catch (final NumberFormatException nfe)
+        {
+            // too large to be a job id
+            return null;
+        }
+    }
+}
@@ -0,0 +1,300 @@
+/*
+ * Copyright (c) MuleSoft, Inc. All rights reserved. http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.md file.
+ */
+
+package org.mule.modules.neo4j;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.lang.Validate;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.mule.api.DefaultMuleException;
+import org.mule.api.MuleException;
+import org.mule.util.concurrent.DaemonThreadFactory;
+
+/**
+ * Imports the records read by an {@link ImportRecordReader} in chunks of <code>chunkSize</code>
+ * rows, written by up to <code>writers</code> concurrent {@link ChunkWriter}s while the next chunks
+ * are being read. A chunk that fails to be written doesn't stop the import: its failure is reported
+ * in the summary, as are records that are malformed or can't be mapped to rows. Progress is logged
+ * every {@value #PROGRESS_LOG_INTERVAL_SECONDS} seconds.
+ */
+final class BulkImporter
+{
+    private static final Log LOGGER = LogFactory.getLog(BulkImporter.class);
+
+    private static final long PROGRESS_LOG_INTERVAL_SECONDS = 10L;
+    private static final int MAX_REPORTED_FAILURES = 100;
+    private static final long WRITERS_TERMINATION_POLL_SECONDS = 60L;
+
+    interface RowMapper
+    {
+        /**
+         * @return the row to write for the record.
+         * @throws IllegalArgumentException if the record can't be mapped.
+         */
+        Map<String, Object> map(Map<String, Object> record);
+    }
+
+    interface ChunkWriter
+    {
+        /**
+         * @return the statistics of the write, like the number of nodes created, by name.
+         */
+        Map<String, Long> write(List<Map<String, Object>> rows) throws MuleException;
+    }
+
+    private final ChunkWriter chunkWriter;
+    private final int chunkSize;
+    private final int writers;
+    private final String name;
+
+    private final AtomicLong rowsImported = new AtomicLong();
+    private final AtomicLong failedChunks = new AtomicLong();
+    private final Map<String, Long> statistics = new LinkedHashMap<String, Long>();
+    private final List<Map<String, Object>> failures = new ArrayList<Map<String, Object>>();
+
+    BulkImporter(final ChunkWriter chunkWriter, final int chunkSize, final int writers, final String name)
+    {
+        Validate.isTrue(chunkSize > 0, "chunkSize must be strictly positive");
+        Validate.isTrue(writers > 0, "writers must be strictly positive");
+
+        this.chunkWriter = chunkWriter;
+        this.chunkSize = chunkSize;
+        this.writers = writers;
+        this.name = name;
+    }
+
+    /**
+     * @return a summary of the import.
+     */
+    Map<String, Object> run(final ImportRecordReader recordReader, final RowMapper rowMapper)
+        throws MuleException
+    {
+        final long startNanos = System.nanoTime();
+        long nextProgressLogNanos = startNanos + TimeUnit.SECONDS.toNanos(PROGRESS_LOG_INTERVAL_SECONDS);
+        long rowsRead = 0L;
+        long rowsRejected = 0L;
+        long chunks = 0L;
+
+        // the bounded queue and the caller-runs policy stop reading when all writers are busy
+        final ThreadPoolExecutor writerExecutor = writers == 1 ? null : new ThreadPoolExecutor(writers, writers,
+            0L, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(writers), new DaemonThreadFactory(
+                "neo4j-import[" + name + "]"), new ThreadPoolExecutor.CallerRunsPolicy());
+
+        try
+        {
+            List<Map<String, Object>> chunk = new ArrayList<Map<String, Object>>(chunkSize);
+            long chunkFirstRow = 1L;
+
+            while (true)
+            {
+                final long row = rowsRead + 1;
+
+                try
+                {
+                    final Map<String, Object> record = readRecord(recordReader, row);
+                    if (record == null)
+                    {
+                        break;
+                    }
+
+                    rowsRead = row;
+                    chunk.add(rowMapper.map(record));
+                }
+                catch (final IllegalArgumentException iae)
+                {
+                    // the record is malformed or can't be mapped, but the next one can be read
+                    rowsRead = row;
+                    rowsRejected++;
+                    addFailure(row, row, iae.getMessage());
+                }
+
+                if (chunk.size() == chunkSize)
+                {
+                    writeChunk(writerExecutor, chunkFirstRow, rowsRead, chunk);
+                    chunks++;
+                    chunk = new ArrayList<Map<String, Object>>(chunkSize);
+                    chunkFirstRow = rowsRead + 1;
+                }
+
+                if (System.nanoTime() - nextProgressLogNanos >= 0L)
+                {
+                    logProgress(rowsRead, startNanos);
+                    nextProgressLogNanos += TimeUnit.SECONDS.toNanos(PROGRESS_LOG_INTERVAL_SECONDS);
+                }
+            }
+
+            if (!chunk.isEmpty())
+            {
+                writeChunk(writerExecutor, chunkFirstRow, rowsRead, chunk);
+                chunks++;
+            }
+        }
+        finally
+        {
+            if (writerExecutor != null)
+            {
+                awaitWriters(writerExecutor);
+            }
+        }
+
+        final Map<String, Object> summary = new LinkedHashMap<String, Object>();
+        summary.put("rowsRead", rowsRead);
+        summary.put("rowsImported", rowsImported.get());
+        summary.put("rowsRejected", rowsRejected);
+        summary.put("chunks", chunks);
+        summary.put("failedChunks", failedChunks.get());
+
+        synchronized (statistics)
+        {
+            summary.putAll(statistics);
+        }
+        synchronized (failures)
+        {
+            summary.put("failures", new ArrayList<Map<String, Object>>(failures));
+        }
+
+        summary.put("elapsedMillis", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+
+        if (LOGGER.isInfoEnabled())
+        {
+            LOGGER.info("Import " + name + " completed: " + summary);
+        }
+
+        return summary;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the record is malformed.
+     */
+    private static Map<String, Object> readRecord(final ImportRecordReader recordReader, final long row)
+        throws MuleException
+    {
+        try
+        {
+            return recordReader.next();
+        }
+        catch (final IOException ioe)
+        {
+            throw new DefaultMuleException("Failed to read import record: " + row, ioe);
+        }
+    }
+
+    private void writeChunk(final ThreadPoolExecutor writerExecutor,
+                            final long firstRow,
+                            final long lastRow,
+                            final List<Map<String, Object>> chunk)
+    {
+        final Runnable chunkWrite = new Runnable()
+        {
+            public void run()
+            {
+                try
+                {
+                    final Map<String, Long> chunkStatistics = chunkWriter.write(chunk);
+                    rowsImported.addAndGet(chunk.size());
+                    addStatistics(chunkStatistics);
+                }
+                catch (final Exception e)
+                {
+                    failedChunks.incrementAndGet();
+                    addFailure(firstRow, lastRow, e.getMessage());
+
+                    if (LOGGER.isWarnEnabled())
+                    {
+                        LOGGER.warn("Failed to import rows " + firstRow + " to " + lastRow + " of " + name, e);
+                    }
+                }
+            }
+        };
+
+        if (writerExecutor == null)
+        {
+            chunkWrite.run();
+        }
+        else
+        {
+            writerExecutor.execute(chunkWrite);
+        }
+    }
+
+    private void addStatistics(final Map<String, Long> chunkStatistics)
+    {
+        synchronized (statistics)
+        {
+            for (final Entry<String, Long> chunkStatistic : chunkStatistics.entrySet())
+            {
+                final Long total = statistics.get(chunkStatistic.getKey());
+                statistics.put(chunkStatistic.getKey(), total == null
+                                                                     ? chunkStatistic.getValue()
+                                                                     : total + chunkStatistic.getValue());
+            }
+        }
+    }
+
+    private void addFailure(final long firstRow, final long lastRow, final String error)
+    {
+        synchronized (failures)
+        {
+            if (failures.size() < MAX_REPORTED_FAILURES)
+            {
+                final Map<String, Object> failure = new LinkedHashMap<String, Object>();
+                failure.put("firstRow", firstRow);
+                failure.put("lastRow", lastRow);
+                failure.put("error", error);
+                failures.add(Collections.unmodifiableMap(failure));
+            }
+        }
+    }
+
+    private void logProgress(final long rowsRead, final long startNanos)
+    {
+        if (LOGGER.isInfoEnabled())
+        {
+            final long elapsedSeconds = Math.max(1L, TimeUnit.NANOSECONDS.toSeconds(System.nanoTime()
+                                                                                   - startNanos));
+            LOGGER.info("Import " + name + " in progress: " + rowsRead + " rows read, " + rowsImported.get()
+                        + " rows imported (" + rowsImported.get() / elapsedSeconds + " rows/s), "
+                        + failedChunks.get() + " failed chunks");
+        }
+    }
+
+    private void awaitWriters(final ThreadPoolExecutor writerExecutor) throws DefaultMuleException
+    {
+        writerExecutor.shutdown();
+
+        try
+        {
+            while (!writerExecutor.awaitTermination(WRITERS_TERMINATION_POLL_SECONDS, TimeUnit.SECONDS))
+            {
+                if (LOGGER.isInfoEnabled())
+                {
+                    LOGGER.info("Import " + name + " waiting for " + writerExecutor.getActiveCount()
+                                + " chunk writes to complete");
+                }
+            }
+        }
+        catch (final InterruptedException ie)
+        {
+            writerExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+            throw new DefaultMuleException("Interrupted while waiting for import chunk writes of: " + name, ie);
+        }
+    }
+}
@@ -0,0 +1,564 @@
+/*
+ * Copyright (c) MuleSoft, Inc. All rights reserved. http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.md file.
+ */
+
+package org.mule.modules.neo4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Lifts the string and number literals of Cypher queries into generated <code>{pN}</code>
+ * parameters, so queries that only differ by their literals share the same text and therefore the
+ * same execution plan on the server.
+ * <p>
+ * Literals in comments and quoted identifiers are left untouched, as are the numbers of
+ * variable-length relationship ranges (like <code>*1..3</code>), of multiplications and of
+ * <code>PERIODIC COMMIT</code>, where parameters are either not allowed or would change the meaning of
+ * the query. So are the literals of the <code>RETURN</code> and <code>WITH</code> items that have no
+ * <code>AS</code> alias, since the text of these items names the columns of the result. Generated
+ * names never collide with the parameters the query already refers to.
+ * <p>
+ * The templates of the {@value #MAX_CACHED_QUERIES} most recently parameterized queries are cached so
+ * tokenizing happens once per query text. Up to {@value #MAX_TRACKED_TEMPLATES} distinct templates
+ * are counted.
+ */
+final class CypherParameterizer
+{
+    private static final int MAX_CACHED_QUERIES = 1000;
+    private static final long CACHED_QUERIES_TTL_MILLIS = TimeUnit.HOURS.toMillis(1L);
+    private static final int MAX_TRACKED_TEMPLATES = 10000;
+    private static final String GENERATED_PARAMETER_PREFIX = "p";
+
+    private static final Pattern PARAMETER_PATTERN = Pattern.compile("\\{\\s*(\\w+)\\s*\\}");
+    private static final Pattern NUMBER_PATTERN = Pattern.compile("\\d+(\\.\\d+)?([eE][+-]?\\d+)?");
+    private static final Pattern HEXADECIMAL_PATTERN = Pattern.compile("0[xX][0-9a-fA-F]+");
+    private static final Set<String> PROJECTION_KEYWORDS = new HashSet<String>(Arrays.asList("RETURN", "WITH"));
+    private static final Set<String> PROJECTION_END_KEYWORDS = new HashSet<String>(Arrays.asList("ORDER", "SKIP",
+        "LIMIT", "WHERE", "UNION", "MATCH", "OPTIONAL", "CREATE", "MERGE", "SET", "DELETE", "DETACH", "REMOVE",
+        "FOREACH", "UNWIND", "CALL", "LOAD", "USING", "START"));
+
+    /**
+     * A literal lifted from a projection item, restored if the item turns out to have no alias.
+     */
+    private static final class ProjectionLiteral
+    {
+        private final String name;
+        private final int templateStart;
+        private final String text;
+
+        ProjectionLiteral(final String name, final int templateStart, final String text)
+        {
+            this.name = name;
+            this.templateStart = templateStart;
+            this.text = text;
+        }
+    }
+
+    /**
+     * A query whose literals have been replaced with parameters, and the values of these parameters.
+     */
+    static final class ParameterizedQuery
+    {
+        private final String query;
+        private final Map<String, Object> literals;
+
+        ParameterizedQuery(final String query, final Map<String, Object> literals)
+        {
+            this.query = query;
+            this.literals = literals;
+        }
+
+        String getQuery()
+        {
+            return query;
+        }
+
+        /**
+         * @return the parameters of the query, made of the provided ones and of the lifted literals.
+         */
+        Map<String, Object> mergeParams(final Map<String, Object> params)
+        {
+            if (literals.isEmpty())
+            {
+                return params;
+            }
+
+            final Map<String, Object> mergedParams = new LinkedHashMap<String, Object>();
+            if (params != null)
+            {
+                mergedParams.putAll(params);
+            }
+            mergedParams.putAll(literals);
+            return mergedParams;
+        }
+    }
+
+    private final ExpiringLruCache<String, ParameterizedQuery> parameterizedQueries = new ExpiringLruCache<String, ParameterizedQuery>(
+        MAX_CACHED_QUERIES, CACHED_QUERIES_TTL_MILLIS);
+    private final ConcurrentMap<String, Boolean> templates = new ConcurrentHashMap<String, Boolean>();
+    private final AtomicLong queries = new AtomicLong();
+    private final AtomicLong queriesWithLiterals = new AtomicLong();
+    private final AtomicLong liftedLiterals = new AtomicLong();
+
+    ParameterizedQuery parameterize(final String query)
+    {
+        queries.incrementAndGet();
+
+        ParameterizedQuery parameterizedQuery = parameterizedQueries.get(query);
+        if (parameterizedQuery == null)
+        {
+            parameterizedQuery = tokenize(query);
+            parameterizedQueries.put(query, parameterizedQuery);
+        }
+
+        if (!parameterizedQuery.literals.isEmpty())
+        {
+            queriesWithLiterals.incrementAndGet();
+            liftedLiterals.addAndGet(parameterizedQuery.literals.size());
+        }
+
+        if ((templates.size() < MAX_TRACKED_TEMPLATES) || (templates.containsKey(parameterizedQuery.query)))
+        {
+            templates.putIfAbsent(parameterizedQuery.query, Boolean.TRUE);
+        }
+
+        return parameterizedQuery;
+    }
+
+    /**
+     * @return the number of queries, of queries that had literals lifted, of lifted literals, of
+     *         distinct templates and of queries whose template came from the cache.
+     */
+    Map<String, Long> getStatistics()
+    {
+        final Map<String, Long> statistics = new LinkedHashMap<String, Long>();
+        statistics.put("queries", queries.get());
+        statistics.put("parameterizedQueries", queriesWithLiterals.get());
+        statistics.put("liftedLiterals", liftedLiterals.get());
+        statistics.put("distinctTemplates", (long) templates.size());
+        statistics.put("templateCacheHits", parameterizedQueries.getHits());
+        return statistics;
+    }
+
+    /**
+     * @return the query with its comments removed and its runs of whitespace collapsed into single
+     *         spaces, except within strings and quoted identifiers, so queries that only differ by
+     *         their layout have the same text.
+     */
+    static String normalizeWhitespace(final String query)
+    {
+        final StringBuilder normalized = new StringBuilder(query.length());
+        boolean pendingSpace = false;
+        int i = 0;
+
+        while (i < query.length())
+        {
+            final char c = query.charAt(i);
+            final int start = i;
+
+            if (Character.isWhitespace(c))
+            {
+                i++;
+                pendingSpace = true;
+                continue;
+            }
+            else if ((c == '/') && (query.startsWith("//", i)))
+            {
+                i = indexAfter(query, "\n", i + 2);
+                pendingSpace = true;
+                continue;
+            }
+            else if ((c == '/') && (query.startsWith("/*", i)))
+            {
+                i = indexAfter(query, "*/", i + 2);
+                pendingSpace = true;
+                continue;
+            }
+            else if (c == '`')
+            {
+                i = indexAfter(query, "`", i + 1);
+            }
+            else if ((c == '\'') || (c == '"'))
+            {
+                i = readString(query, i, new StringBuilder());
+
+                // unterminated string: leave the rest of the query as is
+                i = i < 0 ? query.length() : i;
+            }
+            else
+            {
+                i++;
+            }
+
+            if ((pendingSpace) && (normalized.length() > 0))
+            {
+                normalized.append(' ');
+            }
+            pendingSpace = false;
+            normalized.append(query, start, i);
+        }
+
+        return normalized.toString();
+    }
+
+    private static ParameterizedQuery tokenize(final String query)
+    {
+        final Set<String> existingParameters = getExistingParameters(query);
+        final Map<String, Object> literals = new LinkedHashMap<String, Object>();
+        final StringBuilder template = new StringBuilder(query.length());
+        final Matcher parameterMatcher = PARAMETER_PATTERN.matcher(query);
+        final Matcher numberMatcher = NUMBER_PATTERN.matcher(query);
+        final Matcher hexadecimalMatcher = HEXADECIMAL_PATTERN.matcher(query);
+        final List<ProjectionLiteral> projectionLiterals = new ArrayList<ProjectionLiteral>();
+        boolean inProjection = false;
+        boolean aliased = false;
+        int depth = 0;
+        String previousWord = null;
+        int nextParameter = 0;
+        int i = 0;
+
+        while (i < query.length())
+        {
+            final char c = query.charAt(i);
+            final int start = i;
+
+            if ((c == '/') && (query.startsWith("//", i)))
+            {
+                i = indexAfter(query, "\n", i + 2);
+            }
+            else if ((c == '/') && (query.startsWith("/*", i)))
+            {
+                i = indexAfter(query, "*/", i + 2);
+            }
+            else if (c == '`')
+            {
+                i = indexAfter(query, "`", i + 1);
+            }
+            else if ((c == '{') && (parameterMatcher.region(i, query.length()).lookingAt()))
+            {
+                i = parameterMatcher.end();
+            }
+            else if ((c == '$') || (Character.isJavaIdentifierStart(c)))
+            {
+                i++;
+                while ((i < query.length()) && (Character.isJavaIdentifierPart(query.charAt(i))))
+                {
+                    i++;
+                }
+                previousWord = query.substring(start, i);
+
+                final String keyword = previousWord.toUpperCase();
+                if ((depth == 0) && (previousSignificantChar(query, start) != '.'))
+                {
+                    if (PROJECTION_KEYWORDS.contains(keyword))
+                    {
+                        endProjectionItem(aliased, projectionLiterals, literals, template);
+                        inProjection = true;
+                        aliased = false;
+                    }
+                    else if ((inProjection) && ("AS".equals(keyword)))
+                    {
+                        aliased = true;
+                    }
+                    else if ((inProjection) && (PROJECTION_END_KEYWORDS.contains(keyword)))
+                    {
+                        endProjectionItem(aliased, projectionLiterals, literals, template);
+                        inProjection = false;
+                    }
+                }
+
+                template.append(previousWord);
+                continue;
+            }
+            else if ((c == '\'') || (c == '"'))
+            {
+                final StringBuilder value = new StringBuilder();
+                i = readString(query, i, value);
+
+                if (i > 0)
+                {
+                    final int templateStart = template.length();
+                    nextParameter = addLiteral(value.toString(), nextParameter, existingParameters, literals,
+                        template);
+                    if (inProjection)
+                    {
+                        projectionLiterals.add(new ProjectionLiteral(GENERATED_PARAMETER_PREFIX
+                                                                     + (nextParameter - 1), templateStart,
+                            query.substring(start, i)));
+                    }
+                    previousWord = null;
+                    continue;
+                }
+
+                // unterminated string: leave the rest of the query to the server
+                i = query.length();
+            }
+            else if (Character.isDigit(c))
+            {
+                if (hexadecimalMatcher.region(i, query.length()).lookingAt())
+                {
+                    i = hexadecimalMatcher.end();
+                }
+                else
+                {
+                    numberMatcher.region(i, query.length()).lookingAt();
+                    i = numberMatcher.end();
+
+                    final Number value = isParameterizableNumber(query, start, i, previousWord) ? parseNumber(query.substring(
+                        start, i)) : null;
+                    if (value != null)
+                    {
+                        final int templateStart = template.length();
+                        nextParameter = addLiteral(value, nextParameter, existingParameters, literals, template);
+                        if (inProjection)
+                        {
+                            projectionLiterals.add(new ProjectionLiteral(GENERATED_PARAMETER_PREFIX
+                                                                         + (nextParameter - 1), templateStart,
+                                query.substring(start, i)));
+                        }
+                        previousWord = null;
+                        continue;
+                    }
+                }
+            }
+            else
+            {
+                i++;
+
+                if (inProjection)
+                {
+                    if ((c == '(') || (c == '[') || (c == '{'))
+                    {
+                        depth++;
+                    }
+                    else if (((c == ')') || (c == ']') || (c == '}')) && (depth > 0))
+                    {
+                        depth--;
+                    }
+                    else if ((depth == 0) && ((c == ',') || (c == ';')))
+                    {
+                        endProjectionItem(aliased, projectionLiterals, literals, template);
+                        inProjection = c == ',';
+                        aliased = false;
+                    }
+                }
+            }
+
+            template.append(query, start, i);
+
+            if (!Character.isWhitespace(c))
+            {
+                previousWord = null;
+            }
+        }
+
+        endProjectionItem(aliased, projectionLiterals, literals, template);
+
+        return new ParameterizedQuery(literals.isEmpty() ? query : template.toString(),
+            Collections.unmodifiableMap(literals));
+    }
+
+    /**
+     * Restore the literals of a projection item that has no alias, in reverse order so that the
+     * template positions of the previous ones stay valid.
+     */
+    private static void endProjectionItem(final boolean aliased,
+                                          final List<ProjectionLiteral> projectionLiterals,
+                                          final Map<String, Object> literals,
+                                          final StringBuilder template)
+    {
+        if (!aliased)
+        {
+            for (int i = projectionLiterals.size() - 1; i >= 0; i--)
+            {
+                final ProjectionLiteral literal = projectionLiterals.get(i);
+                template.replace(literal.templateStart, literal.templateStart + literal.name.length() + 2,
+                    literal.text);
+                literals.remove(literal.name);
+            }
+        }
+        projectionLiterals.clear();
+    }
+
+    private static Set<String> getExistingParameters(final String query)
+    {
+        final Set<String> existingParameters = new HashSet<String>();
+
+        final Matcher parameterMatcher = PARAMETER_PATTERN.matcher(query);
+        while (parameterMatcher.find())
+        {
+            existingParameters.add(parameterMatcher.group(1));
+        }
+
+        int i = query.indexOf('$');
+        while (i >= 0)
+        {
+            int end = i + 1;
+            while ((end < query.length()) && (Character.isJavaIdentifierPart(query.charAt(end))))
+            {
+                end++;
+            }
+            existingParameters.add(query.substring(i + 1, end));
+            i = query.indexOf('$', end);
+        }
+
+        return existingParameters;
+    }
+
+    private static int addLiteral(final Object value,
+                                  final int nextParameter,
+                                  final Set<String> existingParameters,
+                                  final Map<String, Object> literals,
+                                  final StringBuilder template)
+    {
+        int parameter = nextParameter;
+        while (existingParameters.contains(GENERATED_PARAMETER_PREFIX + parameter))
+        {
+            parameter++;
+        }
+
+        final String name = GENERATED_PARAMETER_PREFIX + parameter;
+        literals.put(name, value);
+        template.append('{').append(name).append('}');
+        return parameter + 1;
+    }
+
+    private static int indexAfter(final String query, final String terminator, final int fromIndex)
+    {
+        final int index = query.indexOf(terminator, fromIndex);
+        return index < 0 ? query.length() : index + terminator.length();
+    }
+
+    /**
+     * @return the index after the closing quote of the string starting at <code>start</code>, whose
+     *         unescaped value is appended to <code>value</code>, or -1 if the string isn't terminated.
+     */
+    private static int readString(final String query, final int start, final StringBuilder value)
+    {
+        final char quote = query.charAt(start);
+        int i = start + 1;
+
+        while (i < query.length())
+        {
+            final char c = query.charAt(i++);
+
+            if (c == quote)
+            {
+                return i;
+            }
+            else if ((c != '\\') || (i == query.length()))
+            {
+                value.append(c);
+                continue;
+            }
+
+            final char escaped = query.charAt(i++);
+            switch (escaped)
+            {
+                case 't' :
+                    value.append('\t');
+                    break;
+                case 'b' :
+                    value.append('\b');
+                    break;
+                case 'n' :
+                    value.append('\n');
+                    break;
+                case 'r' :
+                    value.append('\r');
+                    break;
+                case 'f' :
+                    value.append('\f');
+                    break;
+                case 'u' :
+                    if ((i + 4 <= query.length()) && (query.substring(i, i + 4).matches("[0-9a-fA-F]{4}")))
+                    {
+                        value.append((char) Integer.parseInt(query.substring(i, i + 4), 16));
+                        i += 4;
+                    }
+                    else
+                    {
+                        value.append('\\').append(escaped);
+                    }
+                    break;
+                case '\\' :
+                case '\'' :
+                case '"' :
+                    value.append(escaped);
+                    break;
+                default :
+                    value.append('\\').append(escaped);
+            }
+        }
+
+        return -1;
+    }
+
+    private static boolean isParameterizableNumber(final String query,
+                                                   final int start,
+                                                   final int end,
+                                                   final String previousWord)
+    {
+        if ("COMMIT".equalsIgnoreCase(previousWord))
+        {
+            return false;
+        }
+
+        // part of a range, like *1..3 or [1..3], or of a multiplication
+        final char previous = previousSignificantChar(query, start);
+        if ((previous == '*') || (previous == '.'))
+        {
+            return false;
+        }
+
+        final String rest = query.substring(end).trim();
+        return (!rest.startsWith("..")) && (!rest.startsWith("*"))
+               && ((end == query.length()) || (!Character.isJavaIdentifierPart(query.charAt(end))));
+    }
+
+    private static char previousSignificantChar(final String query, final int index)
+    {
+        for (int i = index - 1; i >= 0; i--)
+        {
+            if (!Character.isWhitespace(query.charAt(i)))
+            {
+                return query.charAt(i);
+            }
+        }
+        return ' ';
+    }
+
+    private static Number parseNumber(final String number)
+    {
+        try
+        {
+            if ((number.indexOf('.') >= 0) || (number.indexOf('e') >= 0) || (number.indexOf('E') >= 0))
+            {
+                return Double.valueOf(number);
+            }
+            return Long.valueOf(number);
+        }
+        catch (final NumberFormatException nfe)
+        {
+            // too large for a long: leave it to the server
+            return null;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) MuleSoft, Inc. All rights reserved. http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.md file.
+ */
+
+package org.mule.modules.neo4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.codehaus.jackson.JsonParseException;
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.JsonToken;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.mule.api.MuleException;
+
+/**
+ * Incrementally parses a Cypher query result, as returned by the legacy Cypher endpoint, without
+ * ever materializing the full <code>data</code> array in memory.
+ * <p>
+ * Neo4j always renders the <code>columns</code> member before the <code>data</code> member, which
+ * is what makes it possible to hand each row to a {@link RowHandler} as soon as it has been read.
+ */
+final class CypherResultStreamParser
+{
+    /**
+     * Receives the parsed elements of a Cypher query result, in the order they are read.
+     */
+    interface RowHandler
+    {
+        void handleColumns(List<String> columns) throws MuleException;
+
+        /**
+         * Handle one row: the parser is positioned on the {@link JsonToken#START_ARRAY} of the row
+         * and must be left on the matching {@link JsonToken#END_ARRAY}.
+         */
+        void handleRow(JsonParser parser) throws IOException, MuleException;
+    }
+
+    /**
+     * Groups the rows in chunks of at most rowsPerChunk rows, each chunk being handed over as soon as
+     * it is full and the last one by {@link #flushChunk()}, once the result has been parsed.
+     */
+    abstract static class ChunkingRowHandler implements RowHandler
+    {
+        private final CypherResultStreamParser streamParser;
+        private final int rowsPerChunk;
+        private List<String> columns;
+        private List<List<Object>> chunk;
+
+        ChunkingRowHandler(final CypherResultStreamParser streamParser, final int rowsPerChunk)
+        {
+            this.streamParser = streamParser;
+            this.rowsPerChunk = rowsPerChunk;
+            this.chunk = new ArrayList<List<Object>>(rowsPerChunk);
+        }
+
+        public void handleColumns(final List<String> columns)
+        {
+            this.columns = columns;
+        }
+
+        public void handleRow(final JsonParser parser) throws IOException, MuleException
+        {
+            chunk.add(streamParser.readRow(parser));
+
+            if (chunk.size() >= rowsPerChunk)
+            {
+                flushChunk();
+            }
+        }
+
+        void flushChunk() throws MuleException
+        {
+            if (chunk.isEmpty())
+            {
+                return;
+            }
+
+            final List<List<Object>> fullChunk = chunk;
+            chunk = new ArrayList<List<Object>>(rowsPerChunk);
+            handleChunk(columns, fullChunk);
+        }
+
+        abstract void handleChunk(List<String> columns, List<List<Object>> rows) throws MuleException;
+    }
+
+    private static final String COLUMNS_FIELD = "columns";
+    private static final String DATA_FIELD = "data";
+
+    private final ObjectMapper objectMapper;
+
+    CypherResultStreamParser(final ObjectMapper objectMapper)
+    {
+        this.objectMapper = objectMapper;
+    }
+
+    void parse(final InputStream json, final RowHandler rowHandler) throws IOException, MuleException
+    {
+        final JsonParser parser = objectMapper.getJsonFactory().createJsonParser(json);
+
+        try
+        {
+            expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME)
+            {
+                final String fieldName = parser.getCurrentName();
+                final JsonToken valueToken = parser.nextToken();
+
+                if (COLUMNS_FIELD.equals(fieldName))
+                {
+                    rowHandler.handleColumns(readColumns(parser, valueToken));
+                }
+                else if (DATA_FIELD.equals(fieldName))
+                {
+                    expect(parser, valueToken, JsonToken.START_ARRAY);
+
+                    while (parser.nextToken() != JsonToken.END_ARRAY)
+                    {
+                        expect(parser, parser.getCurrentToken(), JsonToken.START_ARRAY);
+                        rowHandler.handleRow(parser);
+                    }
+                }
+                else
+                {
+                    // stats, plan and whatever may come next are not of interest here
+                    parser.skipChildren();
+                }
+            }
+        }
+        finally
+        {
+            parser.close();
+        }
+    }
+
+    /**
+     * Read the current row cell by cell, letting Jackson bind each cell to its natural type.
+     */
+    List<Object> readRow(final JsonParser parser) throws IOException
+    {
+        final List<Object> row = new ArrayList<Object>();
+
+        while (parser.nextToken() != JsonToken.END_ARRAY)
+        {
+            row.add(objectMapper.readValue(parser, Object.class));
+        }
+
+        return row;
+    }
+
+    private static List<String> readColumns(final JsonParser parser, final JsonToken valueToken)
+        throws IOException
+    {
+        expect(parser, valueToken, JsonToken.START_ARRAY);
+
+        final List<String> columns = new ArrayList<String>();
+        while (parser.nextToken() != JsonToken.END_ARRAY)
+        {
+            columns.add(parser.getText());
+        }
+        return columns;
+    }
+
+    private static void expect(final JsonParser parser, final JsonToken actual, final JsonToken expected)
+        throws JsonParseException
+    {
+        if (actual != expected)
+        {
+            throw new JsonParseException("Expected " + expected + " but got: " + actual,
+                parser.getCurrentLocation());
+        }
+    }
+}
@@ -0,0 +1,305 @@
+/*
+ * Copyright (c) MuleSoft, Inc. All rights reserved. http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.md file.
+ */
+
+package org.mule.modules.neo4j;
+
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.JsonToken;
+import org.codehaus.jackson.map.DeserializationConfig;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.codehaus.jackson.type.JavaType;
+import org.codehaus.jackson.util.TokenBuffer;
+import org.mule.api.DefaultMuleException;
+import org.mule.api.MuleException;
+import org.mule.modules.neo4j.model.BaseEntity;
+import org.mule.util.StringUtils;
+
+/**
+ * Binds the rows of a streamed Cypher query result to typed objects, reading each cell straight
+ * from the token stream into its target type instead of going through generic maps and lists.
+ * <p>
+ * With a target class, each row becomes an instance of this class whose properties are set from
+ * the columns of the same name (the part after the last dot for columns like <code>n.name</code>),
+ * unless the result has a single column that doesn't match any property in which case each value
+ * of this column is bound to an instance. Without a target class, each row becomes a {@link Map}
+ * of column names to values of the configured column types or, for other columns, of their natural
+ * JSON type.
+ * <p>
+ * Nodes and relationships bound to types that are not {@link BaseEntity} are bound from their
+ * properties.
+ */
+final class CypherRowBinder implements CypherResultStreamParser.RowHandler
+{
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper().configure(
+        DeserializationConfig.Feature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private static final String ENTITY_SELF_FIELD = "self";
+    private static final String ENTITY_DATA_FIELD = "data";
+
+    private static final ConcurrentMap<Class<?>, Map<String, PropertyDescriptor>> WRITABLE_PROPERTIES = new ConcurrentHashMap<Class<?>, Map<String, PropertyDescriptor>>();
+
+    private final Class<?> targetClass;
+    private final Map<String, Class<?>> columnTypes;
+    private final List<Object> results = new ArrayList<Object>();
+
+    private List<String> columns;
+    private JavaType[] cellTypes;
+    private Method[] cellSetters;
+    private boolean bindingCellsToTarget;
+
+    CypherRowBinder(final Class<?> targetClass, final Map<String, Class<?>> columnTypes)
+    {
+        this.targetClass = targetClass;
+        this.columnTypes = columnTypes;
+    }
+
+    List<Object> getResults()
+    {
+        return results;
+    }
+
+    public void handleColumns(final List<String> columns) throws MuleException
+    {
+        this.columns = columns;
+        cellTypes = new JavaType[columns.size()];
+        cellSetters = new Method[columns.size()];
+
+        if (targetClass == null)
+        {
+            for (int i = 0; i < columns.size(); i++)
+            {
+                final Class<?> columnType = columnTypes.get(columns.get(i));
+                cellTypes[i] = OBJECT_MAPPER.constructType(columnType == null ? Object.class : columnType);
+            }
+            return;
+        }
+
+        final Map<String, PropertyDescriptor> writableProperties = getWritableProperties(targetClass);
+
+        bindingCellsToTarget = (columns.size() == 1)
+                               && (!writableProperties.containsKey(getPropertyName(columns.get(0))));
+
+        if (bindingCellsToTarget)
+        {
+            cellTypes[0] = OBJECT_MAPPER.constructType(targetClass);
+            return;
+        }
+
+        for (int i = 0; i < columns.size(); i++)
+        {
+            final PropertyDescriptor property = writableProperties.get(getPropertyName(columns.get(i)));
+
+            // columns without matching property are skipped
+            if (property != null)
+            {
+                cellSetters[i] = property.getWriteMethod();
+                cellTypes[i] = OBJECT_MAPPER.constructType(cellSetters[i].getGenericParameterTypes()[0]);
+            }
+        }
+    }
+
+    public void handleRow(final JsonParser parser) throws IOException, MuleException
+    {
+        if (targetClass == null)
+        {
+            final Map<String, Object> row = new LinkedHashMap<String, Object>();
+            int i = 0;
+            while (parser.nextToken() != JsonToken.END_ARRAY)
+            {
+                row.put(columns.get(i), readCell(parser, cellTypes[i]));
+                i++;
+            }
+            results.add(row);
+        }
+        else if (bindingCellsToTarget)
+        {
+            while (parser.nextToken() != JsonToken.END_ARRAY)
+            {
+                results.add(readCell(parser, cellTypes[0]));
+            }
+        }
+        else
+        {
+            final Object target = newTarget();
+            int i = 0;
+            while (parser.nextToken() != JsonToken.END_ARRAY)
+            {
+                if (cellTypes[i] == null)
+                {
+                    parser.skipChildren();
+                }
+                else
+                {
+                    setProperty(target, cellSetters[i], readCell(parser, cellTypes[i]));
+                }
+                i++;
+            }
+            results.add(target);
+        }
+    }
+
+    private Object readCell(final JsonParser parser, final JavaType cellType) throws IOException
+    {
+        final Object cell;
+
+        if ((parser.getCurrentToken() == JsonToken.START_OBJECT) && (isBoundFromEntityData(cellType)))
+        {
+            cell = readEntityDataOrObject(parser, cellType);
+        }
+        else
+        {
+            cell = OBJECT_MAPPER.readValue(parser, cellType);
+        }
+
+        if (cell instanceof BaseEntity)
+        {
+            Neo4jConnector.completeEntity(cell);
+        }
+
+        return cell;
+    }
+
+    private static boolean isBoundFromEntityData(final JavaType cellType)
+    {
+        final Class<?> rawClass = cellType.getRawClass();
+
+        return (rawClass != Object.class) && (!cellType.isContainerType())
+               && (!BaseEntity.class.isAssignableFrom(rawClass)) && (!JsonNode.class.isAssignableFrom(rawClass));
+    }
+
+    /**
+     * Buffer the tokens of the current object, which is much cheaper than building a map tree, then
+     * bind either its <code>data</code> member if it is a node or relationship or the whole object
+     * otherwise.
+     */
+    private static Object readEntityDataOrObject(final JsonParser parser, final JavaType cellType)
+        throws IOException
+    {
+        final TokenBuffer tokenBuffer = new TokenBuffer(OBJECT_MAPPER);
+        tokenBuffer.copyCurrentStructure(parser);
+
+        final JsonParser bufferedParser = tokenBuffer.asParser();
+        bufferedParser.nextToken();
+
+        boolean hasSelf = false;
+        boolean hasData = false;
+        while (bufferedParser.nextToken() == JsonToken.FIELD_NAME)
+        {
+            hasSelf |= ENTITY_SELF_FIELD.equals(bufferedParser.getCurrentName());
+            hasData |= ENTITY_DATA_FIELD.equals(bufferedParser.getCurrentName());
+            bufferedParser.nextToken();
+            bufferedParser.skipChildren();
+        }
+
+        final JsonParser cellParser = tokenBuffer.asParser();
+        cellParser.nextToken();
+
+        if ((hasSelf) && (hasData))
+        {
+            while (cellParser.nextToken() == JsonToken.FIELD_NAME)
+            {
+                final boolean isData = ENTITY_DATA_FIELD.equals(cellParser.getCurrentName());
+                cellParser.nextToken();
+
+                if (isData)
+                {
+                    return OBJECT_MAPPER.readValue(cellParser, cellType);
+                }
+
+                cellParser.skipChildren();
+            }
+        }
+
+        return OBJECT_MAPPER.readValue(cellParser, cellType);
+    }
+
+    private Object newTarget() throws MuleException
+    {
+        try
+        {
+            return targetClass.newInstance();
+        }
+        catch (final InstantiationException ie)
+        {
+            throw new DefaultMuleException("Failed to instantiate: " + targetClass, ie);
+        }
+        catch (final IllegalAccessException iae)
+        {
+            throw new DefaultMuleException("Failed to instantiate: " + targetClass, iae);
+        }
+    }
+
+    private static void setProperty(final Object target, final Method setter, final Object value)
+        throws MuleException
+    {
+        if ((value == null) && (setter.getParameterTypes()[0].isPrimitive()))
+        {
+            return;
+        }
+
+        try
+        {
+            setter.invoke(target, value);
+        }
+        catch (final Exception e)
+        {
+            throw new DefaultMuleException("Failed to set: " + value + " with: " + setter, e);
+        }
+    }
+
+    private static String getPropertyName(final String column)
+    {
+        return column.indexOf('.') == -1 ? column : StringUtils.substringAfterLast(column, ".");
+    }
+
+    private static Map<String, PropertyDescriptor> getWritableProperties(final Class<?> targetClass)
+        throws MuleException
+    {
+        Map<String, PropertyDescriptor> writableProperties = WRITABLE_PROPERTIES.get(targetClass);
+        if (writableProperties != null)
+        {
+            return writableProperties;
+        }
+
+        writableProperties = new HashMap<String, PropertyDescriptor>();
+        try
+        {
+            for (final PropertyDescriptor property : Introspector.getBeanInfo(targetClass)
+                .getPropertyDescriptors())
+            {
+                if (property.getWriteMethod() != null)
+                {
+                    writableProperties.put(property.getName(), property);
+                }
+            }
+        }
+        catch (final IntrospectionException ie)
+        {
+            throw new DefaultMuleException("Failed to introspect: " + targetClass, ie);
+        }
+
+        writableProperties = Collections.unmodifiableMap(writableProperties);
+        WRITABLE_PROPERTIES.putIfAbsent(targetClass, writableProperties);
+        return writableProperties;
+    }
+}
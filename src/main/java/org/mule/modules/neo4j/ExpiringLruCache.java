@@ -0,0 +1,226 @@
+/*
+ * Copyright (c) MuleSoft, Inc. All rights reserved. http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.md file.
+ */
+
+package org.mule.modules.neo4j;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang.Validate;
+
+/**
+ * A thread-safe cache holding values up to a maximum total weight, evicting the least recently used
+ * ones when full, and expiring values <code>ttlMillis</code> after they have been put in it, unless
+ * another TTL is specified for them. Without a {@link Weigher}, each value weighs 1 so the maximum
+ * weight is a maximum number of entries. Expired values count as evictions.
+ * <p>
+ * Each invalidation starts a new generation of the cache: a value read from its source before an
+ * invalidation can be put with the generation seen before the read, so it is dropped instead of
+ * bringing back what the invalidation removed.
+ */
+final class ExpiringLruCache<K, V>
+{
+    interface Weigher<V>
+    {
+        long weigh(V value);
+    }
+
+    private static class CacheEntry<V>
+    {
+        private final V value;
+        private final long weight;
+        private final long expiresAtNanos;
+
+        public CacheEntry(final V value, final long weight, final long expiresAtNanos)
+        {
+            this.value = value;
+            this.weight = weight;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+
+        public V getValue()
+        {
+            return value;
+        }
+
+        public long getWeight()
+        {
+            return weight;
+        }
+
+        public boolean isExpired(final long nowNanos)
+        {
+            return nowNanos - expiresAtNanos >= 0;
+        }
+    }
+
+    private final long maxWeight;
+    private final long ttlMillis;
+    private final Weigher<V> weigher;
+    private final LinkedHashMap<K, CacheEntry<V>> entries = new LinkedHashMap<K, CacheEntry<V>>(16, 0.75f, true);
+
+    private long weight;
+    private long generation;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    ExpiringLruCache(final int maxEntries, final long ttlMillis)
+    {
+        this(maxEntries, ttlMillis, null);
+    }
+
+    ExpiringLruCache(final long maxWeight, final long ttlMillis, final Weigher<V> weigher)
+    {
+        Validate.isTrue(maxWeight > 0, "maxWeight must be strictly positive");
+        Validate.isTrue(ttlMillis > 0, "ttlMillis must be strictly positive");
+
+        this.maxWeight = maxWeight;
+        this.ttlMillis = ttlMillis;
+        this.weigher = weigher;
+    }
+
+    /**
+     * @return the cached value or null if there is none or it has expired.
+     */
+    synchronized V get(final K key)
+    {
+        final CacheEntry<V> entry = entries.get(key);
+
+        if (entry == null)
+        {
+            misses++;
+            return null;
+        }
+
+        if (entry.isExpired(System.nanoTime()))
+        {
+            remove(key);
+            evictions++;
+            misses++;
+            return null;
+        }
+
+        hits++;
+        return entry.getValue();
+    }
+
+    void put(final K key, final V value)
+    {
+        put(key, value, ttlMillis);
+    }
+
+    /**
+     * Put a value with a specific TTL, unless it weighs more than the whole cache.
+     */
+    synchronized void put(final K key, final V value, final long valueTtlMillis)
+    {
+        final long valueWeight = weigher == null ? 1L : weigher.weigh(value);
+
+        remove(key);
+
+        if (valueWeight > maxWeight)
+        {
+            return;
+        }
+
+        final long expiresAtNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(valueTtlMillis);
+        entries.put(key, new CacheEntry<V>(value, valueWeight, expiresAtNanos));
+        weight += valueWeight;
+
+        // iteration order is access order, so the eldest entries are the least recently used ones
+        final Iterator<CacheEntry<V>> eldestEntries = entries.values().iterator();
+        while (weight > maxWeight)
+        {
+            weight -= eldestEntries.next().getWeight();
+            eldestEntries.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Put a value read from its source after {@link #getGeneration()} returned this generation,
+     * unless the cache has been invalidated since.
+     * 
+     * @return true if the value has been put.
+     */
+    synchronized boolean putIfNotInvalidated(final K key,
+                                             final V value,
+                                             final long valueTtlMillis,
+                                             final long readGeneration)
+    {
+        if (readGeneration != generation)
+        {
+            return false;
+        }
+
+        put(key, value, valueTtlMillis);
+        return true;
+    }
+
+    boolean putIfNotInvalidated(final K key, final V value, final long readGeneration)
+    {
+        return putIfNotInvalidated(key, value, ttlMillis, readGeneration);
+    }
+
+    synchronized void invalidate(final K key)
+    {
+        remove(key);
+        generation++;
+    }
+
+    synchronized void invalidateAll()
+    {
+        entries.clear();
+        weight = 0L;
+        generation++;
+    }
+
+    /**
+     * @return the current generation, to get before reading a value that will be put in the cache.
+     */
+    synchronized long getGeneration()
+    {
+        return generation;
+    }
+
+    private void remove(final K key)
+    {
+        final CacheEntry<V> entry = entries.remove(key);
+        if (entry != null)
+        {
+            weight -= entry.getWeight();
+        }
+    }
+
+    synchronized int size()
+    {
+        return entries.size();
+    }
+
+    synchronized long getWeight()
+    {
+        return weight;
+    }
+
+    synchronized long getHits()
+    {
+        return hits;
+    }
+
+    synchronized long getMisses()
+    {
+        return misses;
+    }
+
+    synchronized long getEvictions()
+    {
+        return evictions;
+    }
+}
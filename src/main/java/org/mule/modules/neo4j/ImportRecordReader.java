@@ -0,0 +1,245 @@
+/*
+ * Copyright (c) MuleSoft, Inc. All rights reserved. http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.md file.
+ */
+
+package org.mule.modules.neo4j;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.JsonProcessingException;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.codehaus.jackson.type.TypeReference;
+import org.mule.util.StringUtils;
+
+/**
+ * Reads records one at a time from a CSV or NDJSON stream, so that arbitrarily large streams can
+ * be imported with a bounded memory footprint. A byte order mark at the start of the stream is
+ * ignored.
+ */
+abstract class ImportRecordReader
+{
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final String BYTE_ORDER_MARK = "\uFEFF";
+    private static final int MAX_REPORTED_LINE_LENGTH = 100;
+
+    private static final TypeReference<Map<String, Object>> RECORD_TYPE_REFERENCE = new TypeReference<Map<String, Object>>()
+    {
+        // NOOP
+    };
+
+    /**
+     * Reads CSV records as defined by RFC 4180, with a header line holding the column names. Values
+     * are {@link String}s and empty values are omitted.
+     */
+    private static class CsvRecordReader extends ImportRecordReader
+    {
+        private static final char QUOTE = '"';
+        private static final int END_OF_STREAM = -1;
+
+        private final BufferedReader reader;
+        private final char separator;
+        private List<String> header;
+
+        public CsvRecordReader(final BufferedReader reader, final char separator)
+        {
+            this.reader = reader;
+            this.separator = separator;
+        }
+
+        @Override
+        Map<String, Object> next() throws IOException
+        {
+            if (header == null)
+            {
+                header = readFields();
+
+                if (header == null)
+                {
+                    return null;
+                }
+
+                header.set(0, StringUtils.removeStart(header.get(0), BYTE_ORDER_MARK));
+            }
+
+            List<String> fields;
+            do
+            {
+                fields = readFields();
+            }
+            while ((fields != null) && (fields.size() == 1) && (fields.get(0).length() == 0));
+
+            if (fields == null)
+            {
+                return null;
+            }
+
+            final Map<String, Object> record = new LinkedHashMap<String, Object>();
+            for (int i = 0; (i < fields.size()) && (i < header.size()); i++)
+            {
+                if (fields.get(i).length() > 0)
+                {
+                    record.put(header.get(i), fields.get(i));
+                }
+            }
+            return record;
+        }
+
+        /**
+         * @return the fields of the next line, which spans several physical lines if quoted fields
+         *         contain line breaks, or null at the end of the stream.
+         */
+        private List<String> readFields() throws IOException
+        {
+            int c = reader.read();
+            if (c == END_OF_STREAM)
+            {
+                return null;
+            }
+
+            final List<String> fields = new ArrayList<String>();
+            final StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+
+            while (c != END_OF_STREAM)
+            {
+                if (quoted)
+                {
+                    if (c == QUOTE)
+                    {
+                        reader.mark(1);
+                        final int next = reader.read();
+
+                        if (next == QUOTE)
+                        {
+                            field.append(QUOTE);
+                        }
+                        else
+                        {
+                            quoted = false;
+                            reader.reset();
+                        }
+                    }
+                    else
+                    {
+                        field.append((char) c);
+                    }
+                }
+                else if (c == QUOTE)
+                {
+                    quoted = true;
+                }
+                else if (c == separator)
+                {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                }
+                else if (c == '\n')
+                {
+                    break;
+                }
+                else if (c == '\r')
+                {
+                    reader.mark(1);
+                    if (reader.read() != '\n')
+                    {
+                        reader.reset();
+                    }
+                    break;
+                }
+                else
+                {
+                    field.append((char) c);
+                }
+
+                c = reader.read();
+            }
+
+            fields.add(field.toString());
+            return fields;
+        }
+    }
+
+    /**
+     * Reads one JSON object per line, blank lines being ignored. Values keep their JSON types.
+     */
+    private static class NdjsonRecordReader extends ImportRecordReader
+    {
+        private final BufferedReader reader;
+        private boolean started;
+
+        public NdjsonRecordReader(final BufferedReader reader)
+        {
+            this.reader = reader;
+        }
+
+        @Override
+        Map<String, Object> next() throws IOException
+        {
+            String line;
+            do
+            {
+                line = reader.readLine();
+
+                if ((line != null) && (!started))
+                {
+                    line = StringUtils.removeStart(line, BYTE_ORDER_MARK);
+                    started = true;
+                }
+            }
+            while ((line != null) && (StringUtils.isBlank(line)));
+
+            if (line == null)
+            {
+                return null;
+            }
+
+            final JsonNode node;
+            try
+            {
+                node = OBJECT_MAPPER.readTree(line);
+            }
+            catch (final JsonProcessingException jpe)
+            {
+                throw new IllegalArgumentException("Malformed JSON: "
+                                                   + StringUtils.abbreviate(line, MAX_REPORTED_LINE_LENGTH), jpe);
+            }
+
+            if ((node == null) || (!node.isObject()))
+            {
+                throw new IllegalArgumentException("Not a JSON object: "
+                                                   + StringUtils.abbreviate(line, MAX_REPORTED_LINE_LENGTH));
+            }
+
+            return OBJECT_MAPPER.convertValue(node, RECORD_TYPE_REFERENCE);
+        }
+    }
+
+    static ImportRecordReader newCsvRecordReader(final Reader reader, final char separator)
+    {
+        return new CsvRecordReader(new BufferedReader(reader), separator);
+    }
+
+    static ImportRecordReader newNdjsonRecordReader(final Reader reader)
+    {
+        return new NdjsonRecordReader(new BufferedReader(reader));
+    }
+
+    /**
+     * @return the next record, as a {@link Map} of column names to values, or null at the end of the
+     *         stream.
+     * @throws IllegalArgumentException if the next record is malformed, in which case the following
+     *             call reads the record after it.
+     */
+    abstract Map<String, Object> next() throws IOException;
+}
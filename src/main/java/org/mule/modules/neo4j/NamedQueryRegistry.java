@@ -0,0 +1,229 @@
+/*
+ * Copyright (c) MuleSoft, Inc. All rights reserved. http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.md file.
+ */
+
+package org.mule.modules.neo4j;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import org.apache.commons.io.output.CloseShieldOutputStream;
+import org.apache.commons.lang.Validate;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.mule.modules.neo4j.transport.JsonEntityWriter;
+import org.mule.util.IOUtils;
+import org.mule.util.StringUtils;
+
+/**
+ * Holds Cypher queries by name, declared in the configuration or loaded from the
+ * <code>*{@value #QUERY_FILE_EXTENSION}</code> files of a directory, found on the file system or the
+ * classpath, each file holding one query named after the file.
+ * <p>
+ * The UTF-8 encoded JSON rendering of the text of each query is computed once, when it is registered,
+ * so running it only requires serializing its parameters.
+ */
+final class NamedQueryRegistry
+{
+    static final String QUERY_FILE_EXTENSION = ".cypher";
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final String JAR_PROTOCOL = "jar";
+    private static final String FILE_PROTOCOL = "file";
+    private static final String ENCODING = "UTF-8";
+
+    static final class NamedQuery
+    {
+        private final String name;
+        private final String query;
+        private final byte[] jsonQueryPrefix;
+
+        NamedQuery(final String name, final String query) throws IOException
+        {
+            this.name = name;
+            this.query = query;
+            jsonQueryPrefix = ("{\"query\":" + OBJECT_MAPPER.writeValueAsString(query) + ",\"params\":").getBytes(
+                ENCODING);
+        }
+
+        String getName()
+        {
+            return name;
+        }
+
+        String getQuery()
+        {
+            return query;
+        }
+
+        /**
+         * @return a writer of the JSON request entity of the cypher endpoint for this query.
+         */
+        JsonEntityWriter newJsonEntityWriter(final Map<String, Object> params)
+        {
+            return new JsonEntityWriter()
+            {
+                public void writeTo(final OutputStream out) throws IOException
+                {
+                    out.write(jsonQueryPrefix);
+                    // the JSON generator closes its target when done
+                    OBJECT_MAPPER.writeValue(new CloseShieldOutputStream(out),
+                        params == null ? Collections.emptyMap() : params);
+                    out.write('}');
+                }
+            };
+        }
+
+        @Override
+        public String toString()
+        {
+            return name + ": " + query;
+        }
+    }
+
+    private final Map<String, NamedQuery> namedQueries = new LinkedHashMap<String, NamedQuery>();
+
+    NamedQueryRegistry(final Map<String, String> declaredQueries, final String directory) throws IOException
+    {
+        if (declaredQueries != null)
+        {
+            for (final Entry<String, String> declaredQuery : declaredQueries.entrySet())
+            {
+                register(declaredQuery.getKey(), declaredQuery.getValue());
+            }
+        }
+
+        if (StringUtils.isNotBlank(directory))
+        {
+            loadDirectory(directory);
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if there is no query with this name.
+     */
+    NamedQuery get(final String name)
+    {
+        final NamedQuery namedQuery = namedQueries.get(name);
+        Validate.isTrue(namedQuery != null, "Unknown named query: " + name);
+        return namedQuery;
+    }
+
+    Collection<NamedQuery> getAll()
+    {
+        return Collections.unmodifiableCollection(namedQueries.values());
+    }
+
+    private void register(final String name, final String query) throws IOException
+    {
+        Validate.notEmpty(name, "A named query must have a name");
+        Validate.isTrue(StringUtils.isNotBlank(query), "Named query has no text: " + name);
+        Validate.isTrue(!namedQueries.containsKey(name), "Duplicate named query: " + name);
+
+        namedQueries.put(name, new NamedQuery(name, query.trim()));
+    }
+
+    private void loadDirectory(final String directory) throws IOException
+    {
+        final URL directoryUrl = IOUtils.getResourceAsUrl(directory, NamedQueryRegistry.class);
+        if (directoryUrl == null)
+        {
+            throw new IOException("Named queries directory not found: " + directory);
+        }
+
+        if (FILE_PROTOCOL.equals(directoryUrl.getProtocol()))
+        {
+            loadFileDirectory(toFile(directoryUrl));
+        }
+        else if (JAR_PROTOCOL.equals(directoryUrl.getProtocol()))
+        {
+            loadJarDirectory((JarURLConnection) directoryUrl.openConnection());
+        }
+        else
+        {
+            throw new IOException("Unsupported named queries directory: " + directoryUrl);
+        }
+    }
+
+    private void loadFileDirectory(final File directory) throws IOException
+    {
+        final File[] files = directory.listFiles();
+        if (files == null)
+        {
+            throw new IOException("Named queries directory can't be listed: " + directory);
+        }
+
+        Arrays.sort(files);
+
+        for (final File file : files)
+        {
+            if ((file.isFile()) && (file.getName().endsWith(QUERY_FILE_EXTENSION)))
+            {
+                register(StringUtils.removeEnd(file.getName(), QUERY_FILE_EXTENSION),
+                    readQuery(new FileInputStream(file)));
+            }
+        }
+    }
+
+    private void loadJarDirectory(final JarURLConnection directoryConnection) throws IOException
+    {
+        final String entryPrefix = StringUtils.removeEnd(directoryConnection.getEntryName(), "/") + "/";
+        final JarFile jarFile = directoryConnection.getJarFile();
+
+        final Enumeration<JarEntry> entries = jarFile.entries();
+        while (entries.hasMoreElements())
+        {
+            final JarEntry entry = entries.nextElement();
+            final String fileName = StringUtils.removeStart(entry.getName(), entryPrefix);
+
+            if ((!entry.isDirectory()) && (entry.getName().startsWith(entryPrefix))
+                && (fileName.indexOf('/') < 0) && (fileName.endsWith(QUERY_FILE_EXTENSION)))
+            {
+                register(StringUtils.removeEnd(fileName, QUERY_FILE_EXTENSION),
+                    readQuery(jarFile.getInputStream(entry)));
+            }
+        }
+    }
+
+    private static File toFile(final URL url) throws IOException
+    {
+        try
+        {
+            return new File(url.toURI());
+        }
+        catch (final URISyntaxException urise)
+        {
+            throw new IOException("Invalid named queries directory: " + url, urise);
+        }
+    }
+
+    private static String readQuery(final InputStream queryStream) throws IOException
+    {
+        try
+        {
+            return IOUtils.toString(queryStream, ENCODING);
+        }
+        finally
+        {
+            IOUtils.closeQuietly(queryStream);
+        }
+    }
+}
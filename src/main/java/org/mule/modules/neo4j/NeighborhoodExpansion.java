@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) MuleSoft, Inc. All rights reserved. http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.md file.
+ */
+
+package org.mule.modules.neo4j;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.mule.modules.neo4j.Neo4jConnector.RelationshipDirection;
+import org.mule.modules.neo4j.model.Neighborhood;
+import org.mule.util.StringUtils;
+
+/**
+ * Builds the Cypher query that expands the neighborhoods of seed nodes, and the
+ * {@link Neighborhood} made of its rows.
+ * <p>
+ * The query expands one hop at a time, from the distinct nodes found so far: each hop costs a pass
+ * over their relationships, instead of enumerating every path up to the maximum depth, whose number
+ * grows exponentially with the depth on dense graphs. It then returns each node found with the
+ * relationships it has in the expanded direction, among which the ones that lead out of the
+ * neighborhood are dropped with a hash set lookup of their ends.
+ */
+final class NeighborhoodExpansion
+{
+    static final String SEED_IDS_PARAMETER = "seedIds";
+
+    private NeighborhoodExpansion()
+    {
+        // static methods only
+    }
+
+    /**
+     * @return a query whose rows are the id of a node, the id, start node id, end node id and type of
+     *         each of its relationships, then the requested properties of the node.
+     */
+    static String newQuery(final RelationshipDirection direction,
+                           final String typeFilter,
+                           final int maxDepth,
+                           final List<String> nodeProperties)
+    {
+        final StringBuilder query = new StringBuilder("MATCH (n) WHERE id(n) IN {").append(SEED_IDS_PARAMETER)
+            .append("} WITH collect(DISTINCT n) AS nodes");
+
+        for (int depth = 1; depth <= maxDepth; depth++)
+        {
+            query.append(" UNWIND nodes AS m WITH DISTINCT m OPTIONAL MATCH (m)")
+                .append(direction.getCypherRelationshipPattern(typeFilter))
+                .append("(o) WITH collect(DISTINCT m) + collect(DISTINCT o) AS nodes");
+        }
+
+        query.append(" UNWIND nodes AS m WITH DISTINCT m OPTIONAL MATCH (m)")
+            .append(direction.getCypherRelationshipPattern("r" + typeFilter))
+            .append("() WITH m, collect(r) AS rs RETURN id(m),")
+            .append(" [r IN rs | [id(r), id(startNode(r)), id(endNode(r)), type(r)]]");
+
+        if (nodeProperties != null)
+        {
+            for (final String nodeProperty : nodeProperties)
+            {
+                query.append(", m.`").append(StringUtils.replace(nodeProperty, "`", "``")).append('`');
+            }
+        }
+
+        return query.toString();
+    }
+
+    static Neighborhood toNeighborhood(final List<List<Object>> rows, final List<String> nodeProperties)
+    {
+        final long[] nodeIds = new long[rows.size()];
+        final Set<Long> nodeIdSet = new HashSet<Long>();
+        final Map<String, Object[]> nodePropertyValues = new LinkedHashMap<String, Object[]>();
+        final List<String> nodePropertyNames = nodeProperties == null ? Collections.<String> emptyList()
+                                                                      : nodeProperties;
+        for (final String nodePropertyName : nodePropertyNames)
+        {
+            nodePropertyValues.put(nodePropertyName, new Object[nodeIds.length]);
+        }
+
+        for (int i = 0; i < nodeIds.length; i++)
+        {
+            final List<Object> row = rows.get(i);
+            nodeIds[i] = ((Number) row.get(0)).longValue();
+            nodeIdSet.add(nodeIds[i]);
+
+            for (int j = 0; j < nodePropertyNames.size(); j++)
+            {
+                nodePropertyValues.get(nodePropertyNames.get(j))[i] = row.get(j + 2);
+            }
+        }
+
+        // each relationship is found from both of its ends, unless it only follows one direction
+        final Set<Long> relationshipIdSet = new HashSet<Long>();
+        final List<List<?>> relationships = new ArrayList<List<?>>();
+        for (final List<Object> row : rows)
+        {
+            for (final Object relationshipObject : (List<?>) row.get(1))
+            {
+                final List<?> relationship = (List<?>) relationshipObject;
+                final long startNodeId = ((Number) relationship.get(1)).longValue();
+                final long endNodeId = ((Number) relationship.get(2)).longValue();
+
+                if ((nodeIdSet.contains(startNodeId)) && (nodeIdSet.contains(endNodeId))
+                    && (relationshipIdSet.add(((Number) relationship.get(0)).longValue())))
+                {
+                    relationships.add(relationship);
+                }
+            }
+        }
+
+        final int relationshipCount = relationships.size();
+        final long[] relationshipIds = new long[relationshipCount];
+        final long[] startNodeIds = new long[relationshipCount];
+        final long[] endNodeIds = new long[relationshipCount];
+        final String[] relationshipTypes = new String[relationshipCount];
+
+        for (int i = 0; i < relationshipCount; i++)
+        {
+            final List<?> relationship = relationships.get(i);
+            relationshipIds[i] = ((Number) relationship.get(0)).longValue();
+            startNodeIds[i] = ((Number) relationship.get(1)).longValue();
+            endNodeIds[i] = ((Number) relationship.get(2)).longValue();
+            // the few distinct types are shared by all relationships
+            relationshipTypes[i] = ((String) relationship.get(3)).intern();
+        }
+
+        return new Neighborhood(nodeIds, nodePropertyValues, relationshipIds, startNodeIds, endNodeIds,
+            relationshipTypes);
+    }
+}
@@ -8,30 +8,60 @@
 
 package org.mule.modules.neo4j;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StringReader;
 import java.io.UnsupportedEncodingException;
+import java.math.BigInteger;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URLEncoder;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import javax.inject.Inject;
 
 import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.io.output.CloseShieldOutputStream;
+import org.apache.commons.io.output.NullOutputStream;
 import org.apache.commons.lang.Validate;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.map.DeserializationConfig;
 import org.codehaus.jackson.map.ObjectMapper;
+import org.codehaus.jackson.map.annotate.JsonDeserialize;
 import org.codehaus.jackson.type.TypeReference;
 import org.mule.DefaultMuleEvent;
 import org.mule.DefaultMuleMessage;
@@ -41,7 +71,6 @@ import org.mule.api.DefaultMuleException;
 import org.mule.api.MuleContext;
 import org.mule.api.MuleEvent;
 import org.mule.api.MuleException;
-import org.mule.api.MuleMessage;
 import org.mule.api.MuleRuntimeException;
 import org.mule.api.annotations.Configurable;
 import org.mule.api.annotations.Connect;
@@ -56,10 +85,19 @@ import org.mule.api.annotations.param.Optional;
 import org.mule.api.annotations.param.RefOnly;
 import org.mule.api.callback.SourceCallback;
 import org.mule.api.context.MuleContextAware;
+import org.mule.modules.neo4j.CypherParameterizer.ParameterizedQuery;
+import org.mule.modules.neo4j.NamedQueryRegistry.NamedQuery;
+import org.mule.modules.neo4j.graph.GraphAlgorithms;
+import org.mule.modules.neo4j.graph.GraphSnapshot;
+import org.mule.modules.neo4j.graph.GraphSnapshotBuilder;
+import org.mule.modules.neo4j.metrics.MeteredHttpTransport;
 import org.mule.modules.neo4j.model.BaseEntity;
 import org.mule.modules.neo4j.model.BatchJob;
 import org.mule.modules.neo4j.model.BatchJobResult;
+import org.mule.modules.neo4j.model.CompactNode;
+import org.mule.modules.neo4j.model.CompactRelationship;
 import org.mule.modules.neo4j.model.ConfigurableBatchJob;
+import org.mule.modules.neo4j.model.ConfigurableStatement;
 import org.mule.modules.neo4j.model.CypherQuery;
 import org.mule.modules.neo4j.model.CypherQueryParams;
 import org.mule.modules.neo4j.model.CypherQueryResult;
@@ -74,6 +112,7 @@ import org.mule.modules.neo4j.model.NewRelationship;
 import org.mule.modules.neo4j.model.NewSchemaIndex;
 import org.mule.modules.neo4j.model.NewUniqueNode;
 import org.mule.modules.neo4j.model.NewUniqueRelationship;
+import org.mule.modules.neo4j.model.Neighborhood;
 import org.mule.modules.neo4j.model.Node;
 import org.mule.modules.neo4j.model.NodeIndexingRequest;
 import org.mule.modules.neo4j.model.Path;
@@ -85,16 +124,30 @@ import org.mule.modules.neo4j.model.RelationshipQuery;
 import org.mule.modules.neo4j.model.RelationshipQuery.Direction;
 import org.mule.modules.neo4j.model.SchemaIndex;
 import org.mule.modules.neo4j.model.ServiceRoot;
+import org.mule.modules.neo4j.model.Statement;
+import org.mule.modules.neo4j.model.StatementError;
+import org.mule.modules.neo4j.model.StatementResult;
+import org.mule.modules.neo4j.model.StatementResultRow;
+import org.mule.modules.neo4j.model.Statements;
+import org.mule.modules.neo4j.model.TransactionResult;
 import org.mule.modules.neo4j.model.TraversalQuery;
 import org.mule.modules.neo4j.model.TraversalScript;
+import org.mule.modules.neo4j.transport.ClusterRoutingHttpTransport;
+import org.mule.modules.neo4j.transport.HedgingHttpTransport;
+import org.mule.modules.neo4j.transport.HttpTransport;
+import org.mule.modules.neo4j.transport.HttpTransportRequest;
+import org.mule.modules.neo4j.transport.HttpTransportResponse;
+import org.mule.modules.neo4j.transport.JsonEntityWriter;
+import org.mule.modules.neo4j.transport.MuleClientHttpTransport;
+import org.mule.modules.neo4j.transport.PooledHttpTransport;
 import org.mule.transformer.types.MimeTypes;
-import org.mule.transport.http.HttpConnector;
 import org.mule.transport.http.HttpConstants;
-import org.mule.util.CaseInsensitiveHashMap;
+import org.mule.util.ClassUtils;
 import org.mule.util.CollectionUtils;
 import org.mule.util.IOUtils;
 import org.mule.util.MapUtils;
 import org.mule.util.StringUtils;
+import org.mule.util.concurrent.DaemonThreadFactory;
 
 /**
  * <p>
@@ -103,6 +156,8 @@ import org.mule.util.StringUtils;
  * {@sample.config ../../../doc/mule-module-neo4j.xml.sample neo4j:config-no-auth}
  * <p>
  * {@sample.config ../../../doc/mule-module-neo4j.xml.sample neo4j:config-auth}
+ * <p>
+ * {@sample.config ../../../doc/mule-module-neo4j.xml.sample neo4j:config-withNamedQueries}
  * 
  * @author MuleSoft Inc.
  */
@@ -124,6 +179,12 @@ public class Neo4jConnector implements MuleContextAware
             {
                 return node.getAllTypedRelationships();
             }
+
+            @Override
+            public String getCypherRelationshipPattern(final String relationship)
+            {
+                return "-[" + relationship + "]-";
+            }
         },
         IN
         {
@@ -138,6 +199,12 @@ public class Neo4jConnector implements MuleContextAware
             {
                 return node.getIncomingTypedRelationships();
             }
+
+            @Override
+            public String getCypherRelationshipPattern(final String relationship)
+            {
+                return "<-[" + relationship + "]-";
+            }
         },
         OUT
         {
@@ -152,11 +219,56 @@ public class Neo4jConnector implements MuleContextAware
             {
                 return node.getOutgoingTypedRelationships();
             }
+
+            @Override
+            public String getCypherRelationshipPattern(final String relationship)
+            {
+                return "-[" + relationship + "]->";
+            }
         };
 
         public abstract String getRelationshipsUri(Node node);
 
         public abstract String getTypeRelationshipsUriPattern(Node node);
+
+        /**
+         * @return the Cypher pattern of a relationship in this direction, made of the content of its
+         *         brackets, like <code>r:KNOWS</code>.
+         */
+        public abstract String getCypherRelationshipPattern(String relationship);
+
+        /**
+         * @return the Cypher pattern matching the relationships <code>r</code> of the node
+         *         <code>n</code> in this direction, restricted by the type filter, which can be empty.
+         */
+        public String getCypherPattern(final String typeFilter)
+        {
+            return "(n)" + getCypherRelationshipPattern("r" + typeFilter) + "()";
+        }
+    }
+
+    public static enum HttpTransportType
+    {
+        MULE_CLIENT
+        {
+            @Override
+            public HttpTransport newHttpTransport(final Neo4jConnector neo4jConnector)
+            {
+                return new MuleClientHttpTransport(neo4jConnector.muleContext, neo4jConnector.connector);
+            }
+        },
+        POOLED
+        {
+            @Override
+            public HttpTransport newHttpTransport(final Neo4jConnector neo4jConnector)
+            {
+                return new PooledHttpTransport(neo4jConnector.maxConnectionsPerHost,
+                    neo4jConnector.maxTotalConnections, neo4jConnector.connectionTimeoutMillis,
+                    neo4jConnector.readTimeoutMillis, neo4jConnector.idleConnectionTimeoutMillis);
+            }
+        };
+
+        public abstract HttpTransport newHttpTransport(Neo4jConnector neo4jConnector);
     }
 
     public static enum QueryResultOrder
@@ -169,6 +281,31 @@ public class Neo4jConnector implements MuleContextAware
         ENABLED, DISABLED
     };
 
+    public static enum ImportFormat
+    {
+        CSV
+        {
+            @Override
+            ImportRecordReader newRecordReader(final Reader reader, final String csvSeparator)
+            {
+                Validate.isTrue(StringUtils.length(csvSeparator) == 1,
+                    "csvSeparator must be a single character");
+
+                return ImportRecordReader.newCsvRecordReader(reader, csvSeparator.charAt(0));
+            }
+        },
+        NDJSON
+        {
+            @Override
+            ImportRecordReader newRecordReader(final Reader reader, final String csvSeparator)
+            {
+                return ImportRecordReader.newNdjsonRecordReader(reader);
+            }
+        };
+
+        abstract ImportRecordReader newRecordReader(Reader reader, String csvSeparator);
+    }
+
     private static enum TraversalResult
     {
         NODE, RELATIONSHIP, PATH, FULLPATH;
@@ -250,6 +387,10 @@ public class Neo4jConnector implements MuleContextAware
     {
         // NOOP
     };
+    private static final TypeReference<TransactionResult> TRANSACTION_RESULT_TYPE_REFERENCE = new TypeReference<TransactionResult>()
+    {
+        // NOOP
+    };
     private static final TypeReference<Boolean> BOOLEAN_TYPE_REFERENCE = new TypeReference<Boolean>()
     {
         // NOOP
@@ -277,7 +418,220 @@ public class Neo4jConnector implements MuleContextAware
         }
     }
 
+    /**
+     * A batched read of an entity, sent with the connector of its caller, which stays connected while
+     * waiting for it.
+     */
+    private static class EntityRead
+    {
+        private final Neo4jConnector connector;
+        private final long id;
+
+        public EntityRead(final Neo4jConnector connector, final long id)
+        {
+            this.connector = connector;
+            this.id = id;
+        }
+
+        public Neo4jConnector getConnector()
+        {
+            return connector;
+        }
+
+        public long getId()
+        {
+            return id;
+        }
+    }
+
+    /**
+     * The jobs of a write-behind operation and, if its caller doesn't wait for them, the statuses
+     * they are expected to end with, so their failures can be logged when their batch is executed.
+     */
+    private static class WriteBehindOperation
+    {
+        private final List<BatchJob> jobs;
+        private final Set<Integer> unawaitedExpectedStatusCodes;
+
+        public WriteBehindOperation(final List<BatchJob> jobs, final Set<Integer> unawaitedExpectedStatusCodes)
+        {
+            this.jobs = jobs;
+            this.unawaitedExpectedStatusCodes = unawaitedExpectedStatusCodes;
+        }
+
+        public List<BatchJob> getJobs()
+        {
+            return jobs;
+        }
+
+        public Set<Integer> getUnawaitedExpectedStatusCodes()
+        {
+            return unawaitedExpectedStatusCodes;
+        }
+    }
+
+    private class ChunkDispatchingRowHandler extends CypherResultStreamParser.ChunkingRowHandler
+    {
+        private final MuleEvent muleEvent;
+        private final SourceCallback sourceCallback;
+
+        public ChunkDispatchingRowHandler(final int rowsPerChunk,
+                                          final MuleEvent muleEvent,
+                                          final SourceCallback sourceCallback)
+        {
+            super(CYPHER_RESULT_STREAM_PARSER, rowsPerChunk);
+            this.muleEvent = muleEvent;
+            this.sourceCallback = sourceCallback;
+        }
+
+        @Override
+        void handleChunk(final List<String> columns, final List<List<Object>> rows) throws MuleException
+        {
+            final CypherQueryResult chunkResult = new CypherQueryResult().withColumns(columns).withData(rows);
+
+            final DefaultMuleEvent chunkEvent = new DefaultMuleEvent(new DefaultMuleMessage(chunkResult,
+                muleEvent.getMessage(), muleContext), muleEvent);
+
+            sourceCallback.processEvent(chunkEvent);
+        }
+    }
+
+    private class RelationshipPageDispatchingRowHandler implements CypherResultStreamParser.RowHandler
+    {
+        private final int pageSize;
+        private final MuleEvent muleEvent;
+        private final SourceCallback sourceCallback;
+        private List<Relationship> page;
+
+        public RelationshipPageDispatchingRowHandler(final int pageSize,
+                                                     final MuleEvent muleEvent,
+                                                     final SourceCallback sourceCallback)
+        {
+            this.pageSize = pageSize;
+            this.muleEvent = muleEvent;
+            this.sourceCallback = sourceCallback;
+            this.page = new ArrayList<Relationship>(pageSize);
+        }
+
+        public void handleColumns(final List<String> columns)
+        {
+            // the relationship is the only column
+        }
+
+        public void handleRow(final JsonParser parser) throws IOException, MuleException
+        {
+            final Relationship relationship = getEntityObjectMapper().convertValue(
+                CYPHER_RESULT_STREAM_PARSER.readRow(parser).get(0), Relationship.class);
+            completeEntity(relationship);
+            page.add(relationship);
+
+            if (page.size() >= pageSize)
+            {
+                dispatchPage();
+            }
+        }
+
+        public void dispatchPage() throws MuleException
+        {
+            if (page.isEmpty())
+            {
+                return;
+            }
+
+            final List<Relationship> dispatchedPage = page;
+            page = new ArrayList<Relationship>(pageSize);
+
+            final DefaultMuleEvent pageEvent = new DefaultMuleEvent(new DefaultMuleMessage(dispatchedPage,
+                muleEvent.getMessage(), muleContext), muleEvent);
+
+            sourceCallback.processEvent(pageEvent);
+        }
+    }
+
+    private static final class CypherResultCacheKey
+    {
+        private final String normalizedQuery;
+        private final Map<String, Object> params;
+        private final boolean includeStatistics;
+        private final boolean profile;
+        private final int hashCode;
+
+        public CypherResultCacheKey(final String normalizedQuery,
+                                    final Map<String, Object> params,
+                                    final boolean includeStatistics,
+                                    final boolean profile)
+        {
+            this.normalizedQuery = normalizedQuery;
+            this.params = params == null
+                                        ? Collections.<String, Object> emptyMap()
+                                        : new HashMap<String, Object>(params);
+            this.includeStatistics = includeStatistics;
+            this.profile = profile;
+
+            hashCode = Arrays.hashCode(new Object[]{normalizedQuery, this.params, includeStatistics, profile});
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(final Object obj)
+        {
+            if (!(obj instanceof CypherResultCacheKey))
+            {
+                return false;
+            }
+
+            final CypherResultCacheKey other = (CypherResultCacheKey) obj;
+            return (hashCode == other.hashCode) && (includeStatistics == other.includeStatistics)
+                   && (profile == other.profile) && (normalizedQuery.equals(other.normalizedQuery))
+                   && (params.equals(other.params));
+        }
+    }
+
+    /**
+     * Deserializes nodes and relationships as their compact variants, while keeping the exact type
+     * of their subclasses.
+     */
+    @JsonDeserialize(as = CompactNode.class)
+    private static interface CompactNodeMixIn
+    {
+        // NOOP
+    }
+
+    @JsonDeserialize(as = CompactRelationship.class)
+    private static interface CompactRelationshipMixIn
+    {
+        // NOOP
+    }
+
+    @JsonDeserialize(as = IndexedNode.class)
+    private static interface IndexedNodeMixIn
+    {
+        // NOOP
+    }
+
+    @JsonDeserialize(as = IndexedRelationship.class)
+    private static interface IndexedRelationshipMixIn
+    {
+        // NOOP
+    }
+
+    static final ExpiringLruCache.Weigher<CypherQueryResult> CYPHER_QUERY_RESULT_WEIGHER = new ExpiringLruCache.Weigher<CypherQueryResult>()
+    {
+        public long weigh(final CypherQueryResult result)
+        {
+            return estimateSizeInBytes(result.getColumns()) + estimateSizeInBytes(result.getData());
+        }
+    };
+
     private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final ObjectMapper COMPACT_OBJECT_MAPPER = newCompactObjectMapper();
+    private static final CypherResultStreamParser CYPHER_RESULT_STREAM_PARSER = new CypherResultStreamParser(
+        OBJECT_MAPPER);
     private static final Log LOGGER = LogFactory.getLog(Neo4jConnector.class);
 
     private static final Set<Integer> SC_OK = Collections.singleton(HttpConstants.SC_OK);
@@ -291,6 +645,9 @@ public class Neo4jConnector implements MuleContextAware
         Arrays.asList(HttpConstants.SC_OK, HttpConstants.SC_NO_CONTENT)));
     private static final Set<Integer> SC_OK_OR_CREATED = Collections.unmodifiableSet(new HashSet<Integer>(
         Arrays.asList(HttpConstants.SC_OK, HttpConstants.SC_CREATED)));
+    private static final Set<Integer> SC_OK_OR_BATCH_FAILURE = Collections.unmodifiableSet(new HashSet<Integer>(
+        Arrays.asList(HttpConstants.SC_OK, HttpConstants.SC_BAD_REQUEST, HttpConstants.SC_NOT_FOUND,
+            HttpConstants.SC_CONFLICT, HttpConstants.SC_INTERNAL_SERVER_ERROR)));
     private static final Set<Integer> NO_RESPONSE_STATUSES = Collections.unmodifiableSet(new HashSet<Integer>(
         Arrays.asList(HttpConstants.SC_NO_CONTENT, HttpConstants.SC_NOT_FOUND)));
     private static final Set<String> ENTITY_CARRYING_HTTP_METHODS = Collections.unmodifiableSet(new HashSet<String>(
@@ -305,6 +662,42 @@ public class Neo4jConnector implements MuleContextAware
     private static final String PAGINATION_PARAMS_TEMPLATE = "{?pageSize,leaseTime}";
     private static final String CREATE_OR_FAIL_UNIQUENESS = "create_or_fail";
     private static final String GET_OR_CREATE_UNIQUENESS = "get_or_create";
+    private static final String TRANSACTION_COMMIT_PATH = "/commit";
+    private static final String IMPORT_ROWS_PARAMETER = "rows";
+    private static final String TRANSIENT_ERROR_CODE_PREFIX = "Neo.TransientError.";
+    private static final int IMPORT_CHUNK_MAX_ATTEMPTS = 3;
+    private static final long IMPORT_CHUNK_RETRY_DELAY_MILLIS = 100L;
+    private static final String EXPLAIN_PREFIX = "EXPLAIN ";
+    private static final String COALESCING_DIGEST_ALGORITHM = "SHA-1";
+    private static final String MIN_EXPLAIN_VERSION = "2.2";
+    private static final String MIN_RELATIONSHIP_ID_SEEK_VERSION = "2.2";
+    private static final String NODE_BY_ID_START = "MATCH (n) WHERE id(n) = {nodeId}";
+    private static final String NODE_BY_ID_LEGACY_START = "START n = node({nodeId})";
+    private static final String NODES_BY_IDS_START = "MATCH (n) WHERE id(n) IN {ids}";
+    private static final String NODES_BY_IDS_LEGACY_START = "START n = node({ids})";
+    private static final String DEGREES_RETURN = " RETURN id(n), count(r)";
+    private static final String NODES_BY_IDS_QUERY = "MATCH (n) WHERE id(n) IN {ids} RETURN id(n), n";
+    private static final String NODES_BY_IDS_LEGACY_QUERY = "START n = node({ids}) RETURN id(n), n";
+    private static final String RELATIONSHIPS_BY_IDS_QUERY = "MATCH ()-[r]->() WHERE id(r) IN {ids} RETURN id(r), r";
+    private static final String RELATIONSHIPS_BY_IDS_LEGACY_QUERY = "START r = relationship({ids}) RETURN id(r), r";
+    private static final Pattern ENTITY_URI_PATTERN = Pattern.compile("^(.*/(?:node|relationship)/\\d+)(?:/.*)?$");
+    private static final Pattern READ_ONLY_POST_URI_PATTERN = Pattern.compile("^.*/(?:traverse/\\w+|paths?)$");
+    private static final Pattern PAGED_TRAVERSER_URI_PATTERN = Pattern.compile("^.*/paged/traverse/\\w+(?:/[^/]+)?$");
+    private static final Pattern WRITE_CYPHER_CLAUSE_PATTERN = Pattern.compile(
+        "\\b(?:CREATE|MERGE|SET|DELETE|REMOVE|FOREACH|DROP|CALL|LOAD\\s+CSV)\\b", Pattern.CASE_INSENSITIVE);
+    private static final long ASYNC_THREAD_KEEP_ALIVE_SECONDS = 60L;
+    private static final long ASYNC_SHUTDOWN_TIMEOUT_SECONDS = 10L;
+    private static final int MAX_CONCURRENT_ENTITY_READ_BATCHES = 4;
+
+    // shared by the pooled connectors of a configuration, so a mutation through any of them invalidates what
+    // all of them see
+    private static final SharedResources<ExpiringLruCache<String, Object>> SHARED_ENTITY_CACHES = new SharedResources<ExpiringLruCache<String, Object>>();
+    private static final SharedResources<ExpiringLruCache<String, Object>> SHARED_ENTITY_COLLECTION_CACHES = new SharedResources<ExpiringLruCache<String, Object>>();
+    private static final SharedResources<RequestCoalescer> SHARED_REQUEST_COALESCERS = new SharedResources<RequestCoalescer>();
+    private static final SharedResources<ExpiringLruCache<CypherResultCacheKey, CypherQueryResult>> SHARED_CYPHER_RESULT_CACHES = new SharedResources<ExpiringLruCache<CypherResultCacheKey, CypherQueryResult>>();
+    private static final SharedResources<ThreadPoolExecutor> SHARED_ASYNC_EXECUTORS = new SharedResources<ThreadPoolExecutor>();
+    private static final SharedResources<RequestBatcher<EntityRead, Node>> SHARED_NODE_READ_BATCHERS = new SharedResources<RequestBatcher<EntityRead, Node>>();
+    private static final SharedResources<RequestBatcher<EntityRead, Relationship>> SHARED_RELATIONSHIP_READ_BATCHERS = new SharedResources<RequestBatcher<EntityRead, Relationship>>();
 
     /**
      * The user used to authenticate to Neo4j.
@@ -336,1862 +729,5071 @@ public class Neo4jConnector implements MuleContextAware
     @Optional
     private org.mule.api.transport.Connector connector;
 
-    private MuleContext muleContext;
-    private String authorization;
-    private String baseUri;
-    private ServiceRoot serviceRoot;
-
     /**
-     * Connect to a Neo4j server.
-     * 
-     * @param baseUri the base URI of the Neo4j server API.
-     * @throws ConnectionException in case connection fails.
+     * How HTTP requests are sent to Neo4j: MULE_CLIENT goes through the HTTP/HTTPS connectors of the
+     * Mule application while POOLED uses a dedicated pool of keep-alive connections.
      */
-    @Connect
-    public void connect(@ConnectionKey @Default("http://localhost:7474/db/data") final String baseUri)
-        throws ConnectionException
-    {
-        try
-        {
-            new URI(baseUri);
-        }
-        catch (final URISyntaxException urie)
-        {
-            throw new ConnectionException(ConnectionExceptionCode.UNKNOWN_HOST, null, "Invalid baseUri: "
-                                                                                      + baseUri, urie);
-        }
+    @Configurable
+    @Optional
+    @Default("MULE_CLIENT")
+    private HttpTransportType transportType;
 
-        this.baseUri = baseUri;
+    /**
+     * A custom {@link HttpTransport} to use instead of the one selected with transportType.
+     */
+    @Configurable
+    @Optional
+    private HttpTransport httpTransport;
 
-        try
-        {
-            serviceRoot = getEntity(baseUri + "/", SERVICE_ROOT_TYPE_REFERENCE, SC_OK);
+    /**
+     * The maximum number of connections opened to a single Neo4j host by the POOLED transport.
+     */
+    @Configurable
+    @Optional
+    @Default("20")
+    private int maxConnectionsPerHost;
 
-            // this hack courtesy of: https://github.com/neo4j/neo4j/issues/848
-            final String serviceRootSelf = StringUtils.substringBeforeLast(serviceRoot.getNode(), "/node");
-            serviceRoot.setRelationship(serviceRootSelf + "/relationship");
+    /**
+     * The maximum number of connections opened to all Neo4j hosts by the POOLED transport.
+     */
+    @Configurable
+    @Optional
+    @Default("50")
+    private int maxTotalConnections;
 
-            // this is for legacy auto-index so didn't bother opening an issue for its absence
-            serviceRoot.setNodeAutoIndex(StringUtils.replace(serviceRoot.getNodeIndex(), "index/node",
-                "index/auto/node"));
+    /**
+     * The time, in milliseconds, after which the POOLED transport gives up establishing a connection
+     * or waiting for a pooled one to become available.
+     */
+    @Configurable
+    @Optional
+    @Default("10000")
+    private int connectionTimeoutMillis;
 
-            if (!isBeforeVersion2())
-            {
-                // and these ones of: https://github.com/neo4j/neo4j/issues/850
-                serviceRoot.setNodeLabels(serviceRootSelf + "/labels");
-                serviceRoot.setLabelNodes(serviceRootSelf + "/label/" + LABEL_TEMPLATE + "/nodes");
+    /**
+     * The time, in milliseconds, after which the POOLED transport gives up waiting for data from
+     * Neo4j, zero meaning forever.
+     */
+    @Configurable
+    @Optional
+    @Default("60000")
+    private int readTimeoutMillis;
 
-                // and this one of: https://github.com/neo4j/neo4j/issues/857
-                serviceRoot.setSchemaIndex(serviceRootSelf + "/schema/index/" + LABEL_TEMPLATE);
-            }
-        }
-        catch (final MuleException me)
-        {
-            throw new ConnectionException(ConnectionExceptionCode.CANNOT_REACH, null,
-                "Failed to retrieve service root from: " + baseUri, me);
-        }
-    }
+    /**
+     * The time, in milliseconds, after which the POOLED transport closes an idle connection.
+     */
+    @Configurable
+    @Optional
+    @Default("30000")
+    private int idleConnectionTimeoutMillis;
 
-    @ValidateConnection
-    public boolean isConnected()
-    {
-        return serviceRoot != null;
-    }
+    /**
+     * Should call counts, error counts, latencies and bytes exchanged be recorded for each kind of
+     * request sent to Neo4j and published as JMX MBeans.
+     */
+    @Configurable
+    @Optional
+    @Default("true")
+    private boolean metrics;
 
-    @Disconnect
-    public void disconnect() throws IOException
-    {
-        serviceRoot = null;
-    }
+    /**
+     * The name under which metrics are published, which defaults to the baseUri: set it to tell
+     * apart different configurations connecting to the same server.
+     */
+    @Configurable
+    @Optional
+    private String metricsName;
 
-    private String getNodeUri(final long nodeId)
-    {
-        return serviceRoot.getNode() + "/" + nodeId;
-    }
+    /**
+     * The comma separated base URIs of the other instances of the Neo4j HA cluster the baseUri
+     * belongs to. When set, mutations are sent to the master and read-only operations are load
+     * balanced across the slaves, which may lag slightly behind the master.
+     */
+    @Configurable
+    @Optional
+    private String clusterMembers;
 
-    private String getRelationshipUri(final long relationshipId)
-    {
-        return serviceRoot.getRelationship() + "/" + relationshipId;
-    }
+    /**
+     * The interval, in milliseconds, between two checks of the role and availability of the
+     * cluster members.
+     */
+    @Configurable
+    @Optional
+    @Default("5000")
+    private int clusterHealthCheckIntervalMillis;
+
+    /**
+     * Should read-only requests that take longer than usual be hedged, by sending a duplicate
+     * request and using the first response received. This cuts tail latencies caused by transient
+     * slowdowns of the server, like garbage collection pauses, at the cost of extra load bounded by
+     * hedgingBudgetPercent.
+     */
+    @Configurable
+    @Optional
+    @Default("false")
+    private boolean hedgedReads;
+
+    /**
+     * The percentile of the recent latencies of a kind of read-only request after which it is
+     * hedged.
+     */
+    @Configurable
+    @Optional
+    @Default("95")
+    private int hedgingPercentile;
+
+    /**
+     * The maximum number of hedging requests, in percent of the number of read-only requests.
+     */
+    @Configurable
+    @Optional
+    @Default("5")
+    private int hedgingBudgetPercent;
+
+    /**
+     * Should createNode, setNodeProperties, createRelationship, addNodeLabel and executeBatch be
+     * queued and sent to the server in batches instead of one request each, one batch at a time in
+     * the order they were queued. The jobs of executeBatch keep their ids and back-references.
+     * <p>
+     * Operations that return something wait until their batch has been executed, the others return
+     * as soon as they are queued: if they fail, the failure is logged when their batch is executed.
+     * As a batch is executed in a single transaction, the operations of a batch that fails are
+     * executed again one by one so only the failing ones fail.
+     */
+    @Configurable
+    @Optional
+    @Default("false")
+    private boolean writeBehind;
+
+    /**
+     * The number of queued operations that triggers a write-behind batch.
+     */
+    @Configurable
+    @Optional
+    @Default("100")
+    private int writeBehindBatchSize;
+
+    /**
+     * The maximum time, in milliseconds, a queued operation waits for more operations to join its
+     * write-behind batch while the previous batch is being executed. When no batch is being
+     * executed, queued operations are sent at once.
+     */
+    @Configurable
+    @Optional
+    @Default("10")
+    private int writeBehindFlushIntervalMillis;
+
+    /**
+     * Should the concurrent calls of getNodeById and getRelationshipById be gathered and sent to the
+     * server as a single Cypher query per batch instead of one request each. The batches gather the
+     * reads of all the connectors of the same base URI, with a few of them sent concurrently, and are
+     * configured by the first of these connectors. Ignored with Neo4j versions before 2.0, whose
+     * lookups fail as a whole if any entity is missing.
+     */
+    @Configurable
+    @Optional
+    @Default("false")
+    private boolean batchEntityReads;
+
+    /**
+     * The number of gathered entity reads that triggers a batch.
+     */
+    @Configurable
+    @Optional
+    @Default("100")
+    private int entityReadBatchSize;
+
+    /**
+     * The maximum time, in milliseconds, an entity read waits for other reads to join its batch while
+     * batches are being executed. When no batch is being executed, entity reads are sent at once.
+     */
+    @Configurable
+    @Optional
+    @Default("2")
+    private int entityReadBatchDelayMillis;
+
+    /**
+     * The maximum number of requests the asynchronous processors run concurrently, over all the
+     * connectors of the same base URI, whose threads are sized by the first one that connects.
+     */
+    @Configurable
+    @Optional
+    @Default("10")
+    private int asyncThreads;
+
+    /**
+     * The maximum number of asynchronous requests waiting for a thread: once reached, the caller
+     * runs the request itself, which throttles fan-outs that go faster than Neo4j can answer.
+     */
+    @Configurable
+    @Optional
+    @Default("1000")
+    private int asyncQueueSize;
+
+    /**
+     * Should nodes and relationships fetched by id, index or label be cached. The cache is shared by
+     * all the connectors of the same base URI, sized by the first one that connects. Cached entries
+     * are invalidated by the REST and batch mutations performed through these connectors, and the
+     * whole cache by the Cypher queries and transactions that may write, while changes made by other
+     * clients of the server only become visible once the entries have expired.
+     */
+    @Configurable
+    @Optional
+    @Default("false")
+    private boolean entityCache;
+
+    /**
+     * The maximum number of entities, and of collections of entities, held in the entity cache.
+     */
+    @Configurable
+    @Optional
+    @Default("10000")
+    private int entityCacheMaxEntries;
+
+    /**
+     * The time, in milliseconds, after which a cached entity expires.
+     */
+    @Configurable
+    @Optional
+    @Default("60000")
+    private int entityCacheTtlMillis;
+
+    /**
+     * Should the results of read-only Cypher queries run with runCypherQuery be cached. Queries that
+     * contain any write clause bypass the cache and, like any other mutation performed through this
+     * connector, invalidate it. The cache is shared by all the connectors of the same base URI, sized
+     * by the first one that connects.
+     */
+    @Configurable
+    @Optional
+    @Default("false")
+    private boolean cypherResultCache;
+
+    /**
+     * The approximate maximum memory, in bytes, used by cached Cypher results.
+     */
+    @Configurable
+    @Optional
+    @Default("16777216")
+    private int cypherResultCacheMaxBytes;
+
+    /**
+     * The default time, in milliseconds, after which a cached Cypher result expires.
+     */
+    @Configurable
+    @Optional
+    @Default("10000")
+    private int cypherResultCacheTtlMillis;
+
+    /**
+     * Should the string and number literals of the queries run with runCypherQuery be replaced with
+     * generated parameters, so queries built with inline literals share the same execution plan on
+     * the server.
+     */
+    @Configurable
+    @Optional
+    @Default("false")
+    private boolean autoParameterizeCypher;
+
+    /**
+     * Should identical read-only requests sent concurrently, like GETs of the same entity or read-only
+     * Cypher queries with the same parameters, share a single request to the server and its result,
+     * whichever connector of the same base URI they are sent through. Paged traversals are never
+     * coalesced, since each of their requests advances a traverser held by the server.
+     */
+    @Configurable
+    @Optional
+    @Default("false")
+    private boolean coalesceReadRequests;
+
+    /**
+     * The number of threads that run the graph algorithms on graph snapshots, zero meaning one per
+     * available processor.
+     */
+    @Configurable
+    @Optional
+    @Default("0")
+    private int graphParallelism;
+
+    /**
+     * Should the nodes and relationships received from the server be {@link CompactNode}s and
+     * {@link CompactRelationship}s, which derive their URIs when needed instead of retaining them,
+     * to reduce the memory used by large results.
+     */
+    @Configurable
+    @Optional
+    @Default("false")
+    private boolean compactEntities;
+
+    /**
+     * Cypher queries that can be run by name with executeNamedQuery.
+     */
+    @Configurable
+    @Optional
+    private Map<String, String> namedQueries;
+
+    /**
+     * A directory, on the file system or the classpath, whose *.cypher files each hold a query that
+     * can be run with executeNamedQuery, under the name of the file without its extension.
+     */
+    @Configurable
+    @Optional
+    private String namedQueriesDirectory;
+
+    /**
+     * Should named queries be checked with EXPLAIN when connecting, which fails the connection if
+     * any of them is invalid and gets their plans cached by the server before they are first run.
+     * Ignored before Neo4j 2.2, which doesn't support EXPLAIN.
+     */
+    @Configurable
+    @Optional
+    @Default("true")
+    private boolean warmUpNamedQueries;
+
+    private MuleContext muleContext;
+    private String authorization;
+    private String baseUri;
+    private String sharedResourceKey;
+    private ServiceRoot serviceRoot;
+    private HttpTransport activeHttpTransport;
+    private ClusterRoutingHttpTransport clusterRoutingHttpTransport;
+    private HedgingHttpTransport hedgingHttpTransport;
+    private RequestBatcher<WriteBehindOperation, List<BatchJobResult>> writeBehindBatcher;
+    private RequestBatcher<EntityRead, Node> nodeReadBatcher;
+    private RequestBatcher<EntityRead, Relationship> relationshipReadBatcher;
+    private ThreadPoolExecutor asyncExecutor;
+    private final Set<Future<?>> pendingAsyncRequests = Collections.newSetFromMap(
+        new ConcurrentHashMap<Future<?>, Boolean>());
+    private ThreadPoolExecutor graphExecutor;
+    private GraphAlgorithms graphAlgorithms;
+    private ExpiringLruCache<String, Object> cachedEntities;
+    private ExpiringLruCache<String, Object> cachedEntityCollections;
+    private ExpiringLruCache<CypherResultCacheKey, CypherQueryResult> cachedCypherResults;
+    private CypherParameterizer cypherParameterizer;
+    private RequestCoalescer requestCoalescer;
+    private NamedQueryRegistry namedQueryRegistry;
+
+    /**
+     * Connect to a Neo4j server.
+     * 
+     * @param baseUri the base URI of the Neo4j server API.
+     * @throws ConnectionException in case connection fails.
+     */
+    @Connect
+    public void connect(@ConnectionKey @Default("http://localhost:7474/db/data") final String baseUri)
+        throws ConnectionException
+    {
+        try
+        {
+            new URI(baseUri);
+        }
+        catch (final URISyntaxException urie)
+        {
+            throw new ConnectionException(ConnectionExceptionCode.UNKNOWN_HOST, null, "Invalid baseUri: "
+                                                                                      + baseUri, urie);
+        }
+
+        this.baseUri = baseUri;
+        sharedResourceKey = newSharedResourceKey();
+
+        activeHttpTransport = httpTransport != null ? httpTransport : transportType.newHttpTransport(this);
+
+        if (StringUtils.isNotBlank(clusterMembers))
+        {
+            final List<String> memberBaseUris = new ArrayList<String>();
+            memberBaseUris.add(baseUri);
+            memberBaseUris.addAll(Arrays.asList(StringUtils.splitAndTrim(clusterMembers, ",")));
+
+            clusterRoutingHttpTransport = new ClusterRoutingHttpTransport(activeHttpTransport, memberBaseUris,
+                clusterHealthCheckIntervalMillis, authorization, baseUri);
+            activeHttpTransport = clusterRoutingHttpTransport;
+        }
+
+        if (hedgedReads)
+        {
+            hedgingHttpTransport = new HedgingHttpTransport(activeHttpTransport, hedgingPercentile,
+                hedgingBudgetPercent, baseUri);
+            activeHttpTransport = hedgingHttpTransport;
+        }
+
+        if (metrics)
+        {
+            activeHttpTransport = new MeteredHttpTransport(activeHttpTransport, StringUtils.defaultIfEmpty(
+                metricsName, baseUri), baseUri);
+        }
+
+        try
+        {
+            activeHttpTransport.start();
+        }
+        catch (final MuleException me)
+        {
+            throw new ConnectionException(ConnectionExceptionCode.UNKNOWN, null,
+                "Failed to start HTTP transport: " + activeHttpTransport, me);
+        }
+
+        try
+        {
+            serviceRoot = getEntity(baseUri + "/", SERVICE_ROOT_TYPE_REFERENCE, SC_OK);
+
+            // this hack courtesy of: https://github.com/neo4j/neo4j/issues/848
+            final String serviceRootSelf = StringUtils.substringBeforeLast(serviceRoot.getNode(), "/node");
+            serviceRoot.setRelationship(serviceRootSelf + "/relationship");
+
+            // this is for legacy auto-index so didn't bother opening an issue for its absence
+            serviceRoot.setNodeAutoIndex(StringUtils.replace(serviceRoot.getNodeIndex(), "index/node",
+                "index/auto/node"));
+
+            if (!isBeforeVersion2())
+            {
+                // and these ones of: https://github.com/neo4j/neo4j/issues/850
+                serviceRoot.setNodeLabels(serviceRootSelf + "/labels");
+                serviceRoot.setLabelNodes(serviceRootSelf + "/label/" + LABEL_TEMPLATE + "/nodes");
+
+                // and this one of: https://github.com/neo4j/neo4j/issues/857
+                serviceRoot.setSchemaIndex(serviceRootSelf + "/schema/index/" + LABEL_TEMPLATE);
+            }
+        }
+        catch (final MuleException me)
+        {
+            activeHttpTransport.stop();
+
+            throw new ConnectionException(ConnectionExceptionCode.CANNOT_REACH, null,
+                "Failed to retrieve service root from: " + baseUri, me);
+        }
+
+        try
+        {
+            namedQueryRegistry = new NamedQueryRegistry(namedQueries, namedQueriesDirectory);
+        }
+        catch (final Exception e)
+        {
+            activeHttpTransport.stop();
+
+            throw new ConnectionException(ConnectionExceptionCode.UNKNOWN, null, "Failed to load named queries",
+                e);
+        }
+
+        if (warmUpNamedQueries)
+        {
+            explainNamedQueries();
+        }
+
+        if (writeBehind)
+        {
+            writeBehindBatcher = new RequestBatcher<WriteBehindOperation, List<BatchJobResult>>(
+                "neo4j-write-behind[" + baseUri + "]", writeBehindBatchSize, writeBehindFlushIntervalMillis,
+                new RequestBatcher.BatchExecutor<WriteBehindOperation, List<BatchJobResult>>()
+                {
+                    public List<List<BatchJobResult>> execute(final List<WriteBehindOperation> operations)
+                        throws Exception
+                    {
+                        final List<List<BatchJob>> jobGroups = new ArrayList<List<BatchJob>>(operations.size());
+                        for (final WriteBehindOperation operation : operations)
+                        {
+                            jobGroups.add(operation.getJobs());
+                        }
+
+                        final List<List<BatchJobResult>> results = executeBatchJobGroups(jobGroups);
+                        logFailedUnawaitedWrites(operations, results);
+                        return results;
+                    }
+                });
+            writeBehindBatcher.start();
+        }
+
+        if ((batchEntityReads) && (!isBeforeVersion2()))
+        {
+            nodeReadBatcher = SHARED_NODE_READ_BATCHERS.acquire(sharedResourceKey,
+                newEntityReadBatcherLifecycle("neo4j-node-reads[" + baseUri + "]", NODES_BY_IDS_QUERY, null,
+                    NODE_TYPE_REFERENCE));
+            relationshipReadBatcher = SHARED_RELATIONSHIP_READ_BATCHERS.acquire(sharedResourceKey,
+                newEntityReadBatcherLifecycle("neo4j-relationship-reads[" + baseUri + "]",
+                    getRelationshipsByIdsQuery(), getRelationshipsByIdsFallbackQuery(),
+                    RELATIONSHIP_TYPE_REFERENCE));
+        }
+
+        asyncExecutor = SHARED_ASYNC_EXECUTORS.acquire(baseUri, new SharedResources.Lifecycle<ThreadPoolExecutor>()
+        {
+            public ThreadPoolExecutor create()
+            {
+                final ThreadPoolExecutor executor = new ThreadPoolExecutor(asyncThreads, asyncThreads,
+                    ASYNC_THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(
+                        asyncQueueSize), new DaemonThreadFactory("neo4j-async[" + baseUri + "]"),
+                    new ThreadPoolExecutor.CallerRunsPolicy());
+                executor.allowCoreThreadTimeOut(true);
+                return executor;
+            }
+
+            public void dispose(final ThreadPoolExecutor executor)
+            {
+                shutdownAsyncExecutor(executor);
+            }
+        });
+
+        if (entityCache)
+        {
+            cachedEntities = SHARED_ENTITY_CACHES.acquire(sharedResourceKey, newEntityCacheLifecycle());
+            cachedEntityCollections = SHARED_ENTITY_COLLECTION_CACHES.acquire(sharedResourceKey,
+                newEntityCacheLifecycle());
+        }
+
+        if (cypherResultCache)
+        {
+            cachedCypherResults = SHARED_CYPHER_RESULT_CACHES.acquire(sharedResourceKey,
+                new SharedResources.Lifecycle<ExpiringLruCache<CypherResultCacheKey, CypherQueryResult>>()
+                {
+                    public ExpiringLruCache<CypherResultCacheKey, CypherQueryResult> create()
+                    {
+                        return new ExpiringLruCache<CypherResultCacheKey, CypherQueryResult>(
+                            cypherResultCacheMaxBytes, cypherResultCacheTtlMillis, CYPHER_QUERY_RESULT_WEIGHER);
+                    }
+
+                    public void dispose(final ExpiringLruCache<CypherResultCacheKey, CypherQueryResult> cache)
+                    {
+                        cache.invalidateAll();
+                    }
+                });
+        }
+
+        if (autoParameterizeCypher)
+        {
+            cypherParameterizer = new CypherParameterizer();
+        }
+
+        if (coalesceReadRequests)
+        {
+            requestCoalescer = SHARED_REQUEST_COALESCERS.acquire(sharedResourceKey,
+                new SharedResources.Lifecycle<RequestCoalescer>()
+                {
+                    public RequestCoalescer create()
+                    {
+                        return new RequestCoalescer();
+                    }
+
+                    public void dispose(final RequestCoalescer coalescer)
+                    {
+                        coalescer.detachAll();
+                    }
+                });
+        }
+    }
+
+    private SharedResources.Lifecycle<ExpiringLruCache<String, Object>> newEntityCacheLifecycle()
+    {
+        return new SharedResources.Lifecycle<ExpiringLruCache<String, Object>>()
+        {
+            public ExpiringLruCache<String, Object> create()
+            {
+                return new ExpiringLruCache<String, Object>(entityCacheMaxEntries, entityCacheTtlMillis);
+            }
+
+            public void dispose(final ExpiringLruCache<String, Object> cache)
+            {
+                cache.invalidateAll();
+            }
+        };
+    }
+
+    private void explainNamedQueries() throws ConnectionException
+    {
+        if ((namedQueryRegistry.getAll().isEmpty())
+            || (serviceRoot.getNeo4jVersion().compareTo(MIN_EXPLAIN_VERSION) < 0))
+        {
+            return;
+        }
+
+        final List<String> invalidQueries = new ArrayList<String>();
+
+        for (final NamedQuery namedQuery : namedQueryRegistry.getAll())
+        {
+            final ConfigurableStatement explainStatement = new ConfigurableStatement();
+            explainStatement.setStatement(EXPLAIN_PREFIX + namedQuery.getQuery());
+
+            try
+            {
+                postStatements(serviceRoot.getTransaction() + TRANSACTION_COMMIT_PATH,
+                    Collections.singletonList(explainStatement), SC_OK);
+            }
+            catch (final MuleException me)
+            {
+                invalidQueries.add(namedQuery.getName() + " (" + me.getMessage() + ")");
+            }
+        }
+
+        if (!invalidQueries.isEmpty())
+        {
+            activeHttpTransport.stop();
+
+            throw new ConnectionException(ConnectionExceptionCode.UNKNOWN, null, "Invalid named queries: "
+                                                                                + invalidQueries);
+        }
+    }
+
+    @ValidateConnection
+    public boolean isConnected()
+    {
+        return serviceRoot != null;
+    }
+
+    @Disconnect
+    public void disconnect() throws IOException
+    {
+        if (asyncExecutor != null)
+        {
+            // the executor is shared: only wait for the requests of this connector, which needs to stay
+            // connected to complete them
+            awaitPendingAsyncRequests();
+            SHARED_ASYNC_EXECUTORS.release(baseUri);
+            asyncExecutor = null;
+        }
+
+        stopGraphAlgorithms();
+
+        if (writeBehindBatcher != null)
+        {
+            writeBehindBatcher.stop();
+            writeBehindBatcher = null;
+        }
+
+        if (nodeReadBatcher != null)
+        {
+            SHARED_NODE_READ_BATCHERS.release(sharedResourceKey);
+            SHARED_RELATIONSHIP_READ_BATCHERS.release(sharedResourceKey);
+            nodeReadBatcher = null;
+            relationshipReadBatcher = null;
+        }
+
+        if (activeHttpTransport != null)
+        {
+            activeHttpTransport.stop();
+            activeHttpTransport = null;
+            clusterRoutingHttpTransport = null;
+            hedgingHttpTransport = null;
+        }
+
+        if (cachedEntities != null)
+        {
+            SHARED_ENTITY_CACHES.release(sharedResourceKey);
+            SHARED_ENTITY_COLLECTION_CACHES.release(sharedResourceKey);
+            cachedEntities = null;
+            cachedEntityCollections = null;
+        }
+
+        if (cachedCypherResults != null)
+        {
+            SHARED_CYPHER_RESULT_CACHES.release(sharedResourceKey);
+            cachedCypherResults = null;
+        }
+
+        cypherParameterizer = null;
+        if (requestCoalescer != null)
+        {
+            SHARED_REQUEST_COALESCERS.release(sharedResourceKey);
+            requestCoalescer = null;
+        }
+        namedQueryRegistry = null;
+        serviceRoot = null;
+        sharedResourceKey = null;
+    }
+
+    /**
+     * @return the key of the resources that hold what was read from the server, shared with the
+     *         connectors of the same server that authenticate with the same credentials and read the
+     *         same entities, so nobody is served what its own credentials would have been refused.
+     */
+    private String newSharedResourceKey()
+    {
+        return baseUri + " " + StringUtils.defaultString(authorization) + " " + compactEntities;
+    }
+
+    private void awaitPendingAsyncRequests()
+    {
+        final long deadlineNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(ASYNC_SHUTDOWN_TIMEOUT_SECONDS);
+
+        for (final Future<?> pendingAsyncRequest : new ArrayList<Future<?>>(pendingAsyncRequests))
+        {
+            try
+            {
+                pendingAsyncRequest.get(Math.max(0L, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+            }
+            catch (final ExecutionException ee)
+            {
+                // reported to the caller of the request
+            }
+            catch (final CancellationException ce)
+            {
+                // cancelled by the caller of the request
+            }
+            catch (final TimeoutException te)
+            {
+                LOGGER.warn("Cancelling " + pendingAsyncRequests.size()
+                            + " asynchronous requests still pending after " + ASYNC_SHUTDOWN_TIMEOUT_SECONDS
+                            + " seconds");
+                break;
+            }
+            catch (final InterruptedException ie)
+            {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        for (final Future<?> pendingAsyncRequest : new ArrayList<Future<?>>(pendingAsyncRequests))
+        {
+            pendingAsyncRequest.cancel(true);
+        }
+        pendingAsyncRequests.clear();
+    }
+
+    private static void shutdownAsyncExecutor(final ThreadPoolExecutor executor)
+    {
+        executor.shutdown();
+
+        try
+        {
+            if (!executor.awaitTermination(ASYNC_SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS))
+            {
+                LOGGER.warn("Cancelling " + executor.shutdownNow().size()
+                            + " asynchronous requests still pending after "
+                            + ASYNC_SHUTDOWN_TIMEOUT_SECONDS + " seconds");
+            }
+        }
+        catch (final InterruptedException ie)
+        {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private String getNodeUri(final long nodeId)
+    {
+        return serviceRoot.getNode() + "/" + nodeId;
+    }
+
+    private String getRelationshipUri(final long relationshipId)
+    {
+        return serviceRoot.getRelationship() + "/" + relationshipId;
+    }
 
     private String getSchemaIndexUri(final String label)
     {
-        return StringUtils.replace(serviceRoot.getSchemaIndex(), LABEL_TEMPLATE, label);
-    }
+        return StringUtils.replace(serviceRoot.getSchemaIndex(), LABEL_TEMPLATE, label);
+    }
+
+    private String getNodeIndexUri(final String indexName)
+    {
+        return serviceRoot.getNodeIndex() + "/" + indexName;
+    }
+
+    private String getRelationshipIndexUri(final String relationshipName)
+    {
+        return serviceRoot.getRelationshipIndex() + "/" + relationshipName;
+    }
+
+    private String getAutoIndexingStatusUri()
+    {
+        return serviceRoot.getNodeAutoIndex() + "/status";
+    }
+
+    private String getAutoIndexingPropertiesUri()
+    {
+        return serviceRoot.getNodeAutoIndex() + "/properties";
+    }
+
+    private <T> T getEntity(final String uri,
+                            final TypeReference<T> responseType,
+                            final Set<Integer> expectedStatusCodes,
+                            final Object... queryParameters) throws MuleException
+    {
+        return sendHttpRequest(HttpConstants.METHOD_GET, uri, null, getRequestHeaders(), responseType,
+            expectedStatusCodes, queryParameters).getEntity();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T getCachedEntity(final ExpiringLruCache<String, Object> cache,
+                                  final String uri,
+                                  final TypeReference<T> responseType,
+                                  final Set<Integer> expectedStatusCodes,
+                                  final Object... queryParameters) throws MuleException
+    {
+        if (cache == null)
+        {
+            return getEntity(uri, responseType, expectedStatusCodes, queryParameters);
+        }
+
+        final String key = buildUri(uri, queryParameters);
+        final long generation = cache.getGeneration();
+        final Object cachedEntity = cache.get(key);
+        if (cachedEntity != null)
+        {
+            return (T) cachedEntity;
+        }
+
+        // dropped if a mutation invalidated the cache while the entity was being read
+        final T entity = getEntity(uri, responseType, expectedStatusCodes, queryParameters);
+        if (entity != null)
+        {
+            cache.putIfNotInvalidated(key, entity, generation);
+        }
+        return entity;
+    }
+
+    private void invalidateCaches(final String httpMethod, final String uri)
+    {
+        if ((HttpConstants.METHOD_GET.equals(httpMethod)) || (isReadOnlyPostUri(uri)))
+        {
+            return;
+        }
+
+        if (requestCoalescer != null)
+        {
+            requestCoalescer.detachAll();
+        }
+
+        if (cachedEntities != null)
+        {
+            // mutations of sub-resources, like properties or labels, change the owning entity too
+            final Matcher entityUriMatcher = ENTITY_URI_PATTERN.matcher(uri);
+            if (entityUriMatcher.matches())
+            {
+                cachedEntities.invalidate(entityUriMatcher.group(1));
+            }
+
+            // any mutation can change the result of an index or label lookup
+            cachedEntityCollections.invalidateAll();
+        }
+
+        if (cachedCypherResults != null)
+        {
+            cachedCypherResults.invalidateAll();
+        }
+    }
+
+    private void invalidateAllCaches()
+    {
+        invalidateEntityCache();
+        invalidateCypherResultCache();
+
+        if (requestCoalescer != null)
+        {
+            requestCoalescer.detachAll();
+        }
+    }
+
+    private static boolean isReadOnlyCypher(final String query)
+    {
+        return !WRITE_CYPHER_CLAUSE_PATTERN.matcher(query).find();
+    }
+
+    private boolean isReadOnlyRequest(final String httpMethod, final String uri, final Object entityOrNull)
+    {
+        if (HttpConstants.METHOD_GET.equals(httpMethod))
+        {
+            return true;
+        }
+        else if (!HttpConstants.METHOD_POST.equals(httpMethod))
+        {
+            return false;
+        }
+        else if (uri.equals(serviceRoot.getCypher()))
+        {
+            return (entityOrNull instanceof CypherQuery)
+                   && (isReadOnlyCypher(((CypherQuery) entityOrNull).getQuery()));
+        }
+        else
+        {
+            // transactions hold state on the server that received them so they are never spread
+            return READ_ONLY_POST_URI_PATTERN.matcher(uri).matches();
+        }
+    }
+
+    private boolean isReadOnlyPostUri(final String uri)
+    {
+        // Cypher queries and transactions are analysed by the processors that send them
+        return (uri.equals(serviceRoot.getCypher()))
+               || ((serviceRoot.getTransaction() != null) && (uri.startsWith(serviceRoot.getTransaction())))
+               || (READ_ONLY_POST_URI_PATTERN.matcher(uri).matches());
+    }
+
+    /**
+     * @return true for the creation of a paged traverser and the fetching of its pages, which read the
+     *         graph but advance the traverser held by the server, so can't be sent twice.
+     */
+    private static boolean isPagedTraverserUri(final String uri)
+    {
+        return PAGED_TRAVERSER_URI_PATTERN.matcher(uri).matches();
+    }
+
+    private void deleteEntity(final String uri, final Set<Integer> expectedStatusCodes) throws MuleException
+    {
+        sendHttpRequest(HttpConstants.METHOD_DELETE, uri, null, getRequestHeaders(), null,
+            expectedStatusCodes);
+    }
+
+    private <T> T postEntity(final String uri,
+                             final Object entity,
+                             final TypeReference<T> responseType,
+                             final Set<Integer> expectedStatusCodes,
+                             final Object... queryParameters) throws MuleException
+    {
+        return sendRequestWithEntity(HttpConstants.METHOD_POST, uri, entity, responseType,
+            expectedStatusCodes, queryParameters).getEntity();
+    }
+
+    private void putEntity(final String uri,
+                           final Object entity,
+                           final Set<Integer> expectedStatusCodes,
+                           final Object... queryParameters) throws MuleException
+    {
+        sendRequestWithEntity(HttpConstants.METHOD_PUT, uri, entity, null, expectedStatusCodes,
+            queryParameters);
+    }
+
+    private IndexedNode postUniqueNodeEntity(final String indexName,
+                                             final String key,
+                                             final String value,
+                                             final Map<String, Object> properties,
+                                             final String uniqueness,
+                                             final Set<Integer> expectedStatusCodes) throws MuleException
+    {
+        final Data data = convertMapToData(properties);
+
+        final NewUniqueNode newUniqueNode = new NewUniqueNode().withKey(key)
+            .withValue(value)
+            .withProperties(data);
+
+        return postEntity(getNodeIndexUri(indexName), newUniqueNode, INDEXED_NODE_TYPE_REFERENCE,
+            expectedStatusCodes, "uniqueness", uniqueness);
+    }
+
+    private IndexedRelationship postUniqueRelationshipEntity(final String relationshipName,
+                                                             final String type,
+                                                             final String key,
+                                                             final String value,
+                                                             final Node startNode,
+                                                             final Node endNode,
+                                                             final String uniqueness,
+                                                             final Set<Integer> expectedStatusCodes)
+        throws MuleException
+    {
+        final NewUniqueRelationship newUniqueRelationship = new NewUniqueRelationship().withType(type)
+            .withKey(key)
+            .withValue(value)
+            .withStart(startNode.getSelf())
+            .withEnd(endNode.getSelf());
+
+        return postEntity(getRelationshipIndexUri(relationshipName), newUniqueRelationship,
+            INDEXED_RELATIONSHIP_TYPE_REFERENCE, expectedStatusCodes, "uniqueness", uniqueness);
+    }
+
+    private <T> HttpResponse<T> sendRequestWithEntity(final String httpMethod,
+                                                      final String uri,
+                                                      final Object entity,
+                                                      final TypeReference<T> responseType,
+                                                      final Set<Integer> expectedStatusCodes,
+                                                      final Object... queryParameters) throws MuleException
+    {
+        Validate.isTrue(ENTITY_CARRYING_HTTP_METHODS.contains(httpMethod),
+            "Only entity carrying HTTP methods are supported: " + ENTITY_CARRYING_HTTP_METHODS);
+
+        final Map<String, String> requestHeaders = getRequestHeaders();
+
+        requestHeaders.put(HttpConstants.HEADER_CONTENT_TYPE, MimeTypes.JSON);
+
+        return sendHttpRequest(httpMethod, uri, entity, requestHeaders, responseType, expectedStatusCodes,
+            queryParameters);
+    }
+
+    /**
+     * @return a {@link JsonEntityWriter} that serializes the entity straight into the HTTP request,
+     *         each time it is sent, or null if there is no entity.
+     */
+    private static JsonEntityWriter newJsonEntityWriter(final Object entityOrNull)
+    {
+        if (entityOrNull == null)
+        {
+            return null;
+        }
+
+        return new JsonEntityWriter()
+        {
+            public void writeTo(final OutputStream out) throws IOException
+            {
+                // the JSON generator closes its target when done
+                OBJECT_MAPPER.writeValue(new CloseShieldOutputStream(out), entityOrNull);
+            }
+        };
+    }
+
+    String serializeEntityToJson(final Object entity) throws MuleException
+    {
+        if (entity == null)
+        {
+            return null;
+        }
+
+        try
+        {
+            return OBJECT_MAPPER.writeValueAsString(entity);
+        }
+        catch (final IOException ioe)
+        {
+            throw new DefaultMuleException("Failed to serialize to JSON: " + entity, ioe);
+        }
+    }
+
+    private <T> HttpResponse<T> sendHttpRequest(final String httpMethod,
+                                                final String uri,
+                                                final Object entityOrNull,
+                                                final Map<String, String> requestHeaders,
+                                                final TypeReference<T> responseType,
+                                                final Set<Integer> expectedStatusCodes,
+                                                final Object... queryParameters) throws MuleException
+    {
+        final JsonEntityWriter jsonEntityWriter = newJsonEntityWriter(entityOrNull);
+        final boolean readOnly = isReadOnlyRequest(httpMethod, uri, entityOrNull);
+
+        if ((requestCoalescer == null) || (!readOnly) || (isPagedTraverserUri(uri)))
+        {
+            return readHttpResponse(dispatchHttpRequest(httpMethod, uri, jsonEntityWriter, readOnly,
+                requestHeaders, expectedStatusCodes, queryParameters), responseType);
+        }
+
+        final Object coalescingKey = newCoalescingKey(httpMethod, buildUri(uri, queryParameters),
+            jsonEntityWriter, responseType, expectedStatusCodes);
+
+        return coalesce(coalescingKey, new Callable<HttpResponse<T>>()
+        {
+            public HttpResponse<T> call() throws Exception
+            {
+                return readHttpResponse(dispatchHttpRequest(httpMethod, uri, jsonEntityWriter, true,
+                    requestHeaders, expectedStatusCodes, queryParameters), responseType);
+            }
+        });
+    }
+
+    /**
+     * @return a key that identifies a read-only request, by its method, URI, entity and expected
+     *         response, where the entity is represented by its SHA-1 digest.
+     */
+    private static Object newCoalescingKey(final String httpMethod,
+                                           final String uri,
+                                           final JsonEntityWriter jsonEntityWriterOrNull,
+                                           final TypeReference<?> responseType,
+                                           final Set<Integer> expectedStatusCodes) throws MuleException
+    {
+        final StringBuilder key = new StringBuilder(httpMethod).append(' ')
+            .append(uri)
+            .append(' ')
+            .append(responseType == null ? null : responseType.getType())
+            .append(' ')
+            .append(expectedStatusCodes);
+
+        if (jsonEntityWriterOrNull != null)
+        {
+            try
+            {
+                final MessageDigest digest = MessageDigest.getInstance(COALESCING_DIGEST_ALGORITHM);
+                jsonEntityWriterOrNull.writeTo(new DigestOutputStream(NullOutputStream.NULL_OUTPUT_STREAM, digest));
+                key.append(' ').append(new BigInteger(1, digest.digest()).toString(16));
+            }
+            catch (final NoSuchAlgorithmException nsae)
+            {
+                throw new DefaultMuleException("Failed to digest request entity", nsae);
+            }
+            catch (final IOException ioe)
+            {
+                throw new DefaultMuleException("Failed to digest request entity", ioe);
+            }
+        }
+
+        return key.toString();
+    }
+
+    private <T> T coalesce(final Object coalescingKey, final Callable<T> request) throws MuleException
+    {
+        try
+        {
+            return requestCoalescer.execute(coalescingKey, request);
+        }
+        catch (final MuleException me)
+        {
+            throw me;
+        }
+        catch (final RuntimeException re)
+        {
+            throw re;
+        }
+        catch (final Exception e)
+        {
+            throw new DefaultMuleException("Failed to execute request: " + coalescingKey, e);
+        }
+    }
+
+    private <T> HttpResponse<T> readHttpResponse(final HttpTransportResponse response,
+                                                 final TypeReference<T> responseType) throws MuleException
+    {
+        try
+        {
+            if (NO_RESPONSE_STATUSES.contains(response.getStatusCode()))
+            {
+                return new HttpResponse<T>(null, response.getHeaders());
+            }
+            else
+            {
+                final T entity = deserializeJsonToEntity(responseType, response);
+                return new HttpResponse<T>(entity, response.getHeaders());
+            }
+        }
+        finally
+        {
+            response.close();
+        }
+    }
+
+    private HttpTransportResponse dispatchHttpRequest(final String httpMethod,
+                                                      final String uri,
+                                                      final JsonEntityWriter jsonEntityWriterOrNull,
+                                                      final boolean readOnly,
+                                                      final Map<String, String> requestHeaders,
+                                                      final Set<Integer> expectedStatusCodes,
+                                                      final Object... queryParameters) throws MuleException
+    {
+        final HttpTransportRequest request = new HttpTransportRequest(httpMethod,
+            buildUri(uri, queryParameters), requestHeaders, jsonEntityWriterOrNull, readOnly,
+            (readOnly) && (!isPagedTraverserUri(uri)));
+
+        if (LOGGER.isDebugEnabled())
+        {
+            // rendering the entity is only affordable when debugging
+            LOGGER.debug(String.format(
+                "Sending HTTP request:%n  Method: %s%n  URI: %s%n  JSON Entity: %s%n  Request Headers: %s%n"
+                                + "  Expected Status Codes: %s", httpMethod, request.getUri(),
+                request.getJsonEntityOrNull(), requestHeaders, expectedStatusCodes));
+        }
+
+        final HttpTransportResponse response;
+        try
+        {
+            response = activeHttpTransport.send(request);
+        }
+        finally
+        {
+            invalidateCaches(httpMethod, uri);
+        }
+
+        if (LOGGER.isDebugEnabled())
+        {
+            LOGGER.debug("Received HTTP response: " + response);
+        }
+
+        if (!expectedStatusCodes.contains(response.getStatusCode()))
+        {
+            if (LOGGER.isDebugEnabled())
+            {
+                LOGGER.debug("Received payload with unexpected status: " + response.getBodyAsString());
+            }
+
+            response.close();
+
+            throw new DefaultMuleException("Received status code: " + response.getStatusCode()
+                                           + " but was expecting: " + expectedStatusCodes);
+        }
+
+        return response;
+    }
+
+    private void streamCypherQuery(final CypherQuery cypherQuery,
+                                   final CypherResultStreamParser.RowHandler rowHandler) throws MuleException
+    {
+        final Map<String, String> requestHeaders = getRequestHeaders();
+        requestHeaders.put(HttpConstants.HEADER_CONTENT_TYPE, MimeTypes.JSON);
+        // without it the server would render the complete result before sending the first byte
+        requestHeaders.put(HEADER_STREAMING, Boolean.TRUE.toString());
+
+        final HttpTransportResponse response = dispatchHttpRequest(HttpConstants.METHOD_POST,
+            serviceRoot.getCypher(), newJsonEntityWriter(cypherQuery), isReadOnlyCypher(cypherQuery.getQuery()),
+            requestHeaders, SC_OK);
+
+        try
+        {
+            CYPHER_RESULT_STREAM_PARSER.parse(response.getBody(), rowHandler);
+        }
+        catch (final IOException ioe)
+        {
+            throw new DefaultMuleException("Failed to stream result of Cypher query: "
+                                           + cypherQuery.getQuery(), ioe);
+        }
+        finally
+        {
+            response.close();
+        }
+
+        if (!isReadOnlyCypher(cypherQuery.getQuery()))
+        {
+            invalidateAllCaches();
+        }
+    }
+
+    <T> T deserializeJsonToEntity(final TypeReference<T> responseType, final HttpTransportResponse response)
+        throws MuleException
+    {
+        try
+        {
+            if (LOGGER.isDebugEnabled())
+            {
+                response.bufferBody();
+            }
+
+            final T entity = getEntityObjectMapper().<T> readValue(response.getBody(), responseType);
+
+            completeEntity(entity);
+
+            return entity;
+        }
+        catch (final IOException ioe)
+        {
+            throw new DefaultMuleException("Failed to deserialize to: " + responseType.getType() + " from: "
+                                           + response.getBodyAsString(), ioe);
+        }
+    }
+
+    private static ObjectMapper newCompactObjectMapper()
+    {
+        final ObjectMapper objectMapper = new ObjectMapper();
+
+        final DeserializationConfig deserializationConfig = objectMapper.getDeserializationConfig();
+        deserializationConfig.addMixInAnnotations(Node.class, CompactNodeMixIn.class);
+        deserializationConfig.addMixInAnnotations(Relationship.class, CompactRelationshipMixIn.class);
+        // class annotations are inherited, so subclasses must restore their own type
+        deserializationConfig.addMixInAnnotations(IndexedNode.class, IndexedNodeMixIn.class);
+        deserializationConfig.addMixInAnnotations(IndexedRelationship.class, IndexedRelationshipMixIn.class);
+
+        return objectMapper;
+    }
+
+    private ObjectMapper getEntityObjectMapper()
+    {
+        return compactEntities ? COMPACT_OBJECT_MAPPER : OBJECT_MAPPER;
+    }
+
+    static void completeEntity(final Object entity)
+    {
+        if ((entity instanceof CompactNode) || (entity instanceof CompactRelationship))
+        {
+            // their URIs are all derived from their self URI
+            return;
+        }
+
+        if (entity instanceof BaseEntity)
+        {
+            final BaseEntity baseEntity = (BaseEntity) entity;
+            baseEntity.setId(StringUtils.substringAfterLast(baseEntity.getSelf(), "/"));
+
+            if (baseEntity instanceof Node)
+            {
+                // hack courtesy of https://github.com/neo4j/neo4j/issues/866
+                final Node node = (Node) baseEntity;
+                node.setPath(baseEntity.getSelf() + "/path");
+                node.setPaths(baseEntity.getSelf() + "/paths");
+            }
+        }
+    }
+
+    String buildUri(final String uri, final Object... queryParameters)
+    {
+        Validate.isTrue(queryParameters.length % 2 == 0, "queryParameters must be an even array");
+
+        final Map<String, String> queryParams = new HashMap<String, String>();
+
+        for (int i = 0; i < queryParameters.length; i += 2)
+        {
+            final String name = (String) queryParameters[i];
+            final Object value = queryParameters[i + 1];
+
+            if ((StringUtils.isNotBlank(name)) && (value != null))
+            {
+                queryParams.put(name, value.toString());
+            }
+        }
+
+        if (queryParams.isEmpty())
+        {
+            return uri;
+        }
+
+        final StringBuilder queryBuilder = new StringBuilder();
+        for (final Entry<String, String> queryParam : queryParams.entrySet())
+        {
+            queryBuilder.append(queryBuilder.length() != 0 ? "&" : "?")
+                .append(urlEncode(queryParam.getKey()))
+                .append("=")
+                .append(urlEncode(queryParam.getValue()));
+        }
+
+        return uri + queryBuilder.toString();
+    }
+
+    private static String urlEncode(final String s)
+    {
+        try
+        {
+            return URLEncoder.encode(s, "UTF-8");
+        }
+        catch (final UnsupportedEncodingException uee)
+        {
+            throw new MuleRuntimeException(uee);
+        }
+    }
+
+    private Map<String, String> getRequestHeaders()
+    {
+        final Map<String, String> headers = new HashMap<String, String>();
+
+        // TODO uncomment when https://github.com/neo4j/neo4j/issues/862 is fixed
+        // headers.put(HttpConstants.HEADER_ACCEPT, MimeTypes.JSON);
+
+        headers.put(HEADER_STREAMING, Boolean.toString(streaming));
+
+        if (StringUtils.isNotBlank(authorization))
+        {
+            headers.put(HttpConstants.HEADER_AUTHORIZATION, authorization);
+        }
+
+        return headers;
+    }
+
+    private void deleteEntity(final BaseEntity entity, final boolean failIfNotFound) throws MuleException
+    {
+        deleteEntityByUri(entity.getSelf(), failIfNotFound);
+    }
+
+    private void deleteEntityByUri(final String entityUri, final boolean failIfNotFound) throws MuleException
+    {
+        deleteEntity(entityUri, failIfNotFound ? SC_NO_CONTENT : SC_NO_CONTENT_OR_NOT_FOUND);
+    }
+
+    private void setPropertiesOnEntity(final Map<String, Object> properties, final BaseEntity entity)
+        throws MuleException
+    {
+        putEntity(entity.getProperties(), properties, SC_NO_CONTENT);
+    }
+
+    private void setPropertyOnEntity(final String key, final Object value, final BaseEntity entity)
+        throws MuleException
+    {
+        putEntity(StringUtils.replace(entity.getProperty(), PROPERTY_KEY_TEMPLATE, key), value, SC_NO_CONTENT);
+    }
+
+    private void deletePropertiesFromEntity(final BaseEntity entity) throws MuleException
+    {
+        deleteEntity(entity.getProperties(), SC_NO_CONTENT);
+    }
+
+    private void deletePropertyFromEntity(final String key,
+                                          final BaseEntity entity,
+                                          final boolean failIfNotFound) throws MuleException
+    {
+        deleteEntity(StringUtils.replace(entity.getProperty(), PROPERTY_KEY_TEMPLATE, key),
+            failIfNotFound ? SC_NO_CONTENT : SC_NO_CONTENT_OR_NOT_FOUND);
+    }
+
+    private static Data convertMapToData(final Map<String, Object> properties)
+    {
+        final Data data = new Data();
+
+        if (MapUtils.isNotEmpty(properties))
+        {
+            data.getAdditionalProperties().putAll(properties);
+        }
+
+        return data;
+    }
+
+    private boolean isBeforeVersion2()
+    {
+        return serviceRoot.getNeo4jVersion().compareTo("2") < 0;
+    }
+
+    private void ensureVersion2OrAbove() throws DefaultMuleException
+    {
+        if (isBeforeVersion2())
+        {
+            throw new DefaultMuleException("This feature is only available with Neo4j version 2.0 or above");
+        }
+    }
+
+    private void logDeprecatedIn2OrAbove(final String method)
+    {
+        if (!isBeforeVersion2())
+        {
+            LOGGER.info(method + " is deprecated in Neo4j version 2.0 or above");
+        }
+    }
+
+    /**
+     * Execute groups of jobs in a single batch or, if it fails, each group in a batch of its own.
+     * 
+     * @return the results of each group, which are failures with the status code of the batch for
+     *         the groups whose batch has failed.
+     */
+    private List<List<BatchJobResult>> executeBatchJobGroups(final List<List<BatchJob>> jobGroups)
+        throws MuleException
+    {
+        final List<BatchJob> jobs = BatchJobMerger.merge(jobGroups);
+
+        final Map<String, String> requestHeaders = getRequestHeaders();
+        requestHeaders.put(HttpConstants.HEADER_CONTENT_TYPE, MimeTypes.JSON);
+
+        final HttpTransportResponse response;
+        try
+        {
+            response = dispatchHttpRequest(HttpConstants.METHOD_POST, serviceRoot.getBatch(),
+                newJsonEntityWriter(jobs), false, requestHeaders, SC_OK_OR_BATCH_FAILURE);
+        }
+        finally
+        {
+            for (final BatchJob job : jobs)
+            {
+                invalidateCaches(job.getMethod().toString(), getServiceRootUri() + job.getTo());
+            }
+        }
+
+        if (response.getStatusCode() == HttpConstants.SC_OK)
+        {
+            return BatchJobMerger.split(jobGroups,
+                readHttpResponse(response, BATCH_JOB_RESULTS_TYPE_REFERENCE).getEntity());
+        }
+
+        // the batch has been rolled back as a whole, including the groups that didn't fail it
+        final String failure = readFailureMessage(response);
+
+        if (jobGroups.size() == 1)
+        {
+            final List<BatchJobResult> failedResults = new ArrayList<BatchJobResult>();
+            for (final BatchJob job : jobGroups.get(0))
+            {
+                failedResults.add(new BatchJobResult().withId(job.getId())
+                    .withStatus(response.getStatusCode())
+                    .withMessage(failure));
+            }
+            return Collections.singletonList(failedResults);
+        }
+
+        LOGGER.warn("Executing one by one the " + jobGroups.size()
+                    + " operations of a write-behind batch that failed with: " + failure);
+
+        final List<List<BatchJobResult>> results = new ArrayList<List<BatchJobResult>>(jobGroups.size());
+        for (final List<BatchJob> jobGroup : jobGroups)
+        {
+            results.addAll(executeBatchJobGroups(Collections.singletonList(jobGroup)));
+        }
+        return results;
+    }
+
+    private static String readFailureMessage(final HttpTransportResponse response) throws MuleException
+    {
+        try
+        {
+            return response.getBody() == null ? "status code " + response.getStatusCode()
+                                              : IOUtils.toString(response.getBody());
+        }
+        catch (final IOException ioe)
+        {
+            throw new DefaultMuleException("Failed to read failure of: " + response, ioe);
+        }
+        finally
+        {
+            response.close();
+        }
+    }
+
+    /**
+     * @return the URI of the service root, from which the targets of batch jobs are resolved.
+     */
+    private String getServiceRootUri()
+    {
+        return StringUtils.substringBeforeLast(serviceRoot.getNode(), "/node");
+    }
+
+    /**
+     * @return the path and query of the URI relative to the service root, whatever the host of the
+     *         URI, which can differ from the configured one behind a proxy.
+     */
+    private String getBatchJobTarget(final String uri)
+    {
+        final String serviceRootPath = URI.create(getServiceRootUri()).getRawPath();
+        final URI targetUri = URI.create(uri);
+        final String path = StringUtils.removeStart(targetUri.getRawPath(), serviceRootPath);
+
+        return targetUri.getRawQuery() == null ? path : path + "?" + targetUri.getRawQuery();
+    }
+
+    private <T> SharedResources.Lifecycle<RequestBatcher<EntityRead, T>> newEntityReadBatcherLifecycle(
+        final String name, final String query, final String fallbackQuery, final TypeReference<T> entityType)
+    {
+        final int batchSize = entityReadBatchSize;
+        final int batchDelayMillis = entityReadBatchDelayMillis;
+
+        return new SharedResources.Lifecycle<RequestBatcher<EntityRead, T>>()
+        {
+            public RequestBatcher<EntityRead, T> create()
+            {
+                final RequestBatcher<EntityRead, T> entityReadBatcher = new RequestBatcher<EntityRead, T>(name,
+                    batchSize, batchDelayMillis, MAX_CONCURRENT_ENTITY_READ_BATCHES,
+                    new RequestBatcher.BatchExecutor<EntityRead, T>()
+                    {
+                        public List<T> execute(final List<EntityRead> reads) throws Exception
+                        {
+                            final List<Long> ids = new ArrayList<Long>(reads.size());
+                            for (final EntityRead read : reads)
+                            {
+                                ids.add(read.getId());
+                            }
+
+                            // the connector that created the batcher may have been disconnected since, and
+                            // the batcher is only shared by connectors with the same credentials and entity
+                            // representation, so any connector of the batch can read it
+                            final Map<Long, T> entities = reads.get(0).getConnector().getEntitiesByIds(ids,
+                                query, fallbackQuery, batchSize, entityType, false);
+
+                            final List<T> results = new ArrayList<T>(ids.size());
+                            for (final Long id : ids)
+                            {
+                                results.add(entities.get(id));
+                            }
+                            return results;
+                        }
+                    });
+                entityReadBatcher.start();
+                return entityReadBatcher;
+            }
+
+            public void dispose(final RequestBatcher<EntityRead, T> entityReadBatcher)
+            {
+                entityReadBatcher.stop();
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T getBatchedEntity(final RequestBatcher<EntityRead, T> entityReadBatcher,
+                                   final String uri,
+                                   final long id,
+                                   final boolean failIfNotFound) throws MuleException
+    {
+        final long generation = cachedEntities == null ? 0L : cachedEntities.getGeneration();
+        if (cachedEntities != null)
+        {
+            final Object cachedEntity = cachedEntities.get(uri);
+            if (cachedEntity != null)
+            {
+                return (T) cachedEntity;
+            }
+        }
+
+        final T entity;
+        try
+        {
+            entity = entityReadBatcher.submit(new EntityRead(this, id)).get();
+        }
+        catch (final InterruptedException ie)
+        {
+            Thread.currentThread().interrupt();
+            throw new DefaultMuleException("Interrupted while waiting for batched read of: " + uri, ie);
+        }
+        catch (final ExecutionException ee)
+        {
+            throw new DefaultMuleException("Failed to read in batch: " + uri, ee.getCause());
+        }
+
+        if (entity == null)
+        {
+            if (failIfNotFound)
+            {
+                throw new DefaultMuleException("Failed to find entity: " + uri);
+            }
+            return null;
+        }
+
+        if (cachedEntities != null)
+        {
+            cachedEntities.putIfNotInvalidated(uri, entity, generation);
+        }
+        return entity;
+    }
+
+    private <T> T writeBehind(final BatchJob.Method method,
+                              final String uri,
+                              final Object entity,
+                              final TypeReference<T> responseType,
+                              final Set<Integer> expectedStatusCodes) throws MuleException
+    {
+        final BatchJob job = new BatchJob().withMethod(method).withTo(getBatchJobTarget(uri)).withBody(entity);
+
+        if (responseType == null)
+        {
+            writeBehindBatcher.submit(new WriteBehindOperation(Collections.singletonList(job),
+                expectedStatusCodes));
+            return null;
+        }
+
+        final Future<List<BatchJobResult>> futureResults = writeBehindBatcher.submit(new WriteBehindOperation(
+            Collections.singletonList(job), null));
+
+        final BatchJobResult result = awaitWriteBehind(job, futureResults).get(0);
+        ensureWriteBehindSucceeded(job, result, expectedStatusCodes);
+
+        final T resultEntity = getEntityObjectMapper().<T> convertValue(
+            result.getBody().getAdditionalProperties(), responseType);
+        completeEntity(resultEntity);
+        return resultEntity;
+    }
+
+    private static List<BatchJobResult> awaitWriteBehind(final Object jobs,
+                                                         final Future<List<BatchJobResult>> futureResults)
+        throws MuleException
+    {
+        try
+        {
+            return futureResults.get();
+        }
+        catch (final InterruptedException ie)
+        {
+            Thread.currentThread().interrupt();
+            throw new DefaultMuleException("Interrupted while waiting for write-behind of: " + jobs, ie);
+        }
+        catch (final ExecutionException ee)
+        {
+            throw new DefaultMuleException("Failed to write-behind: " + jobs, ee.getCause());
+        }
+    }
+
+    private static void ensureWriteBehindSucceeded(final BatchJob job,
+                                                   final BatchJobResult result,
+                                                   final Set<Integer> expectedStatusCodes)
+        throws MuleException
+    {
+        if ((result == null) || (!expectedStatusCodes.contains(result.getStatus())))
+        {
+            throw new DefaultMuleException("Received batch result: " + result + " for: " + job
+                                           + " but was expecting status: " + expectedStatusCodes);
+        }
+    }
+
+    /**
+     * Log the failures of the operations of a write-behind batch whose callers didn't wait for it,
+     * since nobody else can report them.
+     */
+    private static void logFailedUnawaitedWrites(final List<WriteBehindOperation> operations,
+                                                 final List<List<BatchJobResult>> results)
+    {
+        for (int i = 0; i < operations.size(); i++)
+        {
+            final WriteBehindOperation operation = operations.get(i);
+            if (operation.getUnawaitedExpectedStatusCodes() == null)
+            {
+                continue;
+            }
+
+            for (int j = 0; j < operation.getJobs().size(); j++)
+            {
+                try
+                {
+                    ensureWriteBehindSucceeded(operation.getJobs().get(j), results.get(i).get(j),
+                        operation.getUnawaitedExpectedStatusCodes());
+                }
+                catch (final MuleException me)
+                {
+                    LOGGER.error("Write-behind operation failed", me);
+                }
+            }
+        }
+    }
+
+    /**
+     * Get service root.
+     * <p>
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:getServiceRoot}
+     * 
+     * @return the service root data.
+     */
+    @Processor
+    public ServiceRoot getServiceRoot()
+    {
+        return serviceRoot;
+    }
+
+    /**
+     * Run a cypher query, whose result is cached for cypherResultCacheTtlMillis if the Cypher result
+     * cache is enabled.
+     * 
+     * @param query the query to execute.
+     * @param params the parameters to use.
+     * @param includeStatistics defines if meta data about the query must be returned.
+     * @param profile defines if a profile of the executed query must be returned.
+     * @return a {@link CypherQueryResult}.
+     * @throws MuleException if anything goes wrong with the operation.
+     */
+    public CypherQueryResult runCypherQuery(final String query,
+                                            final Map<String, Object> params,
+                                            final boolean includeStatistics,
+                                            final boolean profile) throws MuleException
+    {
+        return runCypherQuery(query, params, includeStatistics, profile, null);
+    }
+
+    /**
+     * Run a cypher query.
+     * <p>
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:runCypherQuery}
+     * <p>
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:runCypherQuery-withParams}
+     * <p>
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:runCypherQuery-withCacheTtl}
+     * 
+     * @param query the query to execute.
+     * @param params the parameters to use.
+     * @param includeStatistics defines if meta data about the query must be returned.
+     * @param profile defines if a profile of the executed query must be returned.
+     * @param cacheTtlMillis the time, in milliseconds, after which the result of this query expires
+     *            from the Cypher result cache, zero meaning it must not be cached. Defaults to
+     *            cypherResultCacheTtlMillis.
+     * @return a {@link CypherQueryResult}.
+     * @throws MuleException if anything goes wrong with the operation.
+     */
+    @Processor
+    public CypherQueryResult runCypherQuery(final String query,
+                                            @Optional final Map<String, Object> params,
+                                            @Optional @Default("false") final boolean includeStatistics,
+                                            @Optional @Default("false") final boolean profile,
+                                            @Optional final Integer cacheTtlMillis) throws MuleException
+    {
+        String cypher = query;
+        Map<String, Object> cypherParams = params;
+
+        if (cypherParameterizer != null)
+        {
+            final ParameterizedQuery parameterizedQuery = cypherParameterizer.parameterize(query);
+            cypher = parameterizedQuery.getQuery();
+            cypherParams = parameterizedQuery.mergeParams(params);
+        }
+
+        final boolean readOnly = isReadOnlyCypher(cypher);
+
+        if ((cachedCypherResults == null) || (!readOnly) || ((cacheTtlMillis != null) && (cacheTtlMillis <= 0)))
+        {
+            final CypherQueryResult result = postEntity(serviceRoot.getCypher(),
+                newCypherQuery(cypher, cypherParams), CYPHER_QUERY_RESULT_TYPE_REFERENCE, SC_OK, "includeStats",
+                includeStatistics, "profile", profile);
+
+            if (!readOnly)
+            {
+                invalidateAllCaches();
+            }
+
+            return result;
+        }
+
+        final CypherResultCacheKey cacheKey = new CypherResultCacheKey(
+            CypherParameterizer.normalizeWhitespace(cypher), cypherParams, includeStatistics, profile);
+
+        final long generation = cachedCypherResults.getGeneration();
+        final CypherQueryResult cachedResult = cachedCypherResults.get(cacheKey);
+        if (cachedResult != null)
+        {
+            return copyCypherQueryResult(cachedResult);
+        }
+
+        final CypherQueryResult result = postEntity(serviceRoot.getCypher(),
+            newCypherQuery(cypher, cypherParams), CYPHER_QUERY_RESULT_TYPE_REFERENCE, SC_OK, "includeStats",
+            includeStatistics, "profile", profile);
+
+        // dropped if a mutation invalidated the cache while the query was running
+        final long resultTtlMillis = cacheTtlMillis == null ? cypherResultCacheTtlMillis : cacheTtlMillis;
+        cachedCypherResults.putIfNotInvalidated(cacheKey, result, resultTtlMillis, generation);
+        return copyCypherQueryResult(result);
+    }
+
+    /**
+     * @return a copy of a cached result, so a flow that modifies its result doesn't modify what the
+     *         next callers get from the cache.
+     */
+    @SuppressWarnings("unchecked")
+    static CypherQueryResult copyCypherQueryResult(final CypherQueryResult result)
+    {
+        final CypherQueryResult copy = new CypherQueryResult();
+        copy.setColumns(result.getColumns() == null ? null : new ArrayList<String>(result.getColumns()));
+        copy.setData((List<List<Object>>) copyValue(result.getData()));
+        copy.setStats(result.getStats() == null ? null : OBJECT_MAPPER.convertValue(result.getStats(),
+            result.getStats().getClass()));
+        copy.setPlan(result.getPlan() == null ? null : OBJECT_MAPPER.convertValue(result.getPlan(),
+            result.getPlan().getClass()));
+        return copy;
+    }
+
+    private static Object copyValue(final Object value)
+    {
+        if (value instanceof List)
+        {
+            final List<Object> list = new ArrayList<Object>(((List<?>) value).size());
+            for (final Object element : (List<?>) value)
+            {
+                list.add(copyValue(element));
+            }
+            return list;
+        }
+        else if (value instanceof Map)
+        {
+            final Map<Object, Object> map = new LinkedHashMap<Object, Object>();
+            for (final Entry<?, ?> entry : ((Map<?, ?>) value).entrySet())
+            {
+                map.put(entry.getKey(), copyValue(entry.getValue()));
+            }
+            return map;
+        }
+        else
+        {
+            // strings, numbers and booleans are immutable
+            return value;
+        }
+    }
+
+    /**
+     * Run a query declared in the namedQueries or loaded from the namedQueriesDirectory of the
+     * configuration.
+     * <p>
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:executeNamedQuery}
+     * 
+     * @param name the name of the query to execute.
+     * @param params the parameters to use.
+     * @param includeStatistics defines if meta data about the query must be returned.
+     * @param profile defines if a profile of the executed query must be returned.
+     * @return a {@link CypherQueryResult}.
+     * @throws MuleException if anything goes wrong with the operation.
+     */
+    @Processor
+    public CypherQueryResult executeNamedQuery(final String name,
+                                               @Optional final Map<String, Object> params,
+                                               @Optional @Default("false") final boolean includeStatistics,
+                                               @Optional @Default("false") final boolean profile)
+        throws MuleException
+    {
+        final NamedQuery namedQuery = namedQueryRegistry.get(name);
+
+        final Map<String, String> requestHeaders = getRequestHeaders();
+        requestHeaders.put(HttpConstants.HEADER_CONTENT_TYPE, MimeTypes.JSON);
+
+        final boolean readOnly = isReadOnlyCypher(namedQuery.getQuery());
+        final JsonEntityWriter jsonEntityWriter = namedQuery.newJsonEntityWriter(params);
+        final Object[] queryParameters = {"includeStats", includeStatistics, "profile", profile};
+
+        if ((requestCoalescer != null) && (readOnly))
+        {
+            final Object coalescingKey = newCoalescingKey(HttpConstants.METHOD_POST,
+                buildUri(serviceRoot.getCypher(), queryParameters), jsonEntityWriter,
+                CYPHER_QUERY_RESULT_TYPE_REFERENCE, SC_OK);
+
+            return coalesce(coalescingKey, new Callable<CypherQueryResult>()
+            {
+                public CypherQueryResult call() throws Exception
+                {
+                    final HttpTransportResponse response = dispatchHttpRequest(HttpConstants.METHOD_POST,
+                        serviceRoot.getCypher(), jsonEntityWriter, true, requestHeaders, SC_OK, queryParameters);
+                    return readHttpResponse(response, CYPHER_QUERY_RESULT_TYPE_REFERENCE).getEntity();
+                }
+            });
+        }
+
+        final HttpTransportResponse response = dispatchHttpRequest(HttpConstants.METHOD_POST,
+            serviceRoot.getCypher(), jsonEntityWriter, readOnly, requestHeaders, SC_OK, queryParameters);
+
+        final CypherQueryResult result = readHttpResponse(response, CYPHER_QUERY_RESULT_TYPE_REFERENCE)
+            .getEntity();
+
+        if (!readOnly)
+        {
+            invalidateAllCaches();
+        }
+
+        return result;
+    }
+
+    private static long estimateSizeInBytes(final Object value)
+    {
+        // rough figures for a 64-bit JVM with compressed references
+        if (value instanceof String)
+        {
+            return 40L + 2L * ((String) value).length();
+        }
+        else if (value instanceof Collection)
+        {
+            long size = 24L + 8L * ((Collection<?>) value).size();
+            for (final Object element : (Collection<?>) value)
+            {
+                size += estimateSizeInBytes(element);
+            }
+            return size;
+        }
+        else if (value instanceof Map)
+        {
+            long size = 48L + 40L * ((Map<?, ?>) value).size();
+            for (final Entry<?, ?> entry : ((Map<?, ?>) value).entrySet())
+            {
+                size += estimateSizeInBytes(entry.getKey()) + estimateSizeInBytes(entry.getValue());
+            }
+            return size;
+        }
+        else
+        {
+            return 16L;
+        }
+    }
+
+    private static CypherQuery newCypherQuery(final String query, final Map<String, Object> params)
+    {
+        final CypherQuery cypherQuery = new CypherQuery().withQuery(query);
+
+        if (MapUtils.isNotEmpty(params))
+        {
+            final CypherQueryParams cypherQueryParams = new CypherQueryParams();
+            cypherQueryParams.getAdditionalProperties().putAll(params);
+            cypherQuery.setParams(cypherQueryParams);
+        }
+
+        return cypherQuery;
+    }
+
+    /**
+     * Run a cypher query, dispatching the result rows to the rest of the flow while they are being
+     * read from the server, so the complete result is never held in memory.
+     * <p>
+     * Each dispatched message carries a {@link CypherQueryResult} made of the result columns and a
+     * chunk of at most <code>rowsPerChunk</code> rows. Nothing is dispatched for an empty result.
+     * <p>
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:runCypherQueryWithStreaming}
+     * 
+     * @param query the query to execute.
+     * @param params the parameters to use.
+     * @param rowsPerChunk the maximum number of rows dispatched in a single message.
+     * @param muleEvent the {@link MuleEvent} being processed.
+     * @param sourceCallback the {@link SourceCallback} invoked for each chunk of rows.
+     * @throws MuleException if anything goes wrong with the operation.
+     */
+    @Processor(intercepting = true)
+    @Inject
+    public void runCypherQueryWithStreaming(final String query,
+                                            @Optional final Map<String, Object> params,
+                                            @Optional @Default("1") final int rowsPerChunk,
+                                            final MuleEvent muleEvent,
+                                            final SourceCallback sourceCallback) throws MuleException
+    {
+        Validate.isTrue(rowsPerChunk > 0, "rowsPerChunk must be strictly positive");
+
+        final ChunkDispatchingRowHandler rowHandler = new ChunkDispatchingRowHandler(rowsPerChunk, muleEvent,
+            sourceCallback);
+
+        streamCypherQuery(newCypherQuery(query, params), rowHandler);
+
+        rowHandler.flushChunk();
+    }
+
+    /**
+     * Run a cypher query and bind each row of its result to a typed object while it is being read
+     * from the server, without building the intermediate lists and maps of a
+     * {@link CypherQueryResult}.
+     * <p>
+     * If a targetClass is provided, each row is bound to an instance of this class whose properties
+     * are set from the columns of the same name, the part after the last dot being used for columns
+     * like <code>n.name</code>. If the query returns a single column that doesn't match any
+     * property, each value of this column is bound to an instance of targetClass instead.
+     * <p>
+     * Otherwise each row is bound to a {@link Map} of column names to values, which are of the type
+     * configured in columnTypes or, for the other columns, of their natural JSON type.
+     * <p>
+     * Nodes and relationships bound to any other type than {@link Node} or {@link Relationship} are
+     * bound from their properties.
+     * <p>
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:runCypherQueryForObjects}
+     * <p>
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample
+     * neo4j:runCypherQueryForObjects-withColumnTypes}
+     * 
+     * @param query the query to execute.
+     * @param params the parameters to use.
+     * @param targetClass the fully qualified name of the class rows or values are bound to.
+     * @param columnTypes the fully qualified names of the classes values are bound to, by column
+     *            name, used only if targetClass is not provided.
+     * @return a {@link List} of bound rows, never null but potentially empty.
+     * @throws MuleException if anything goes wrong with the operation.
+     */
+    @Processor
+    public List<Object> runCypherQueryForObjects(final String query,
+                                                 @Optional final Map<String, Object> params,
+                                                 @Optional final String targetClass,
+                                                 @Optional final Map<String, String> columnTypes)
+        throws MuleException
+    {
+        final Map<String, Class<?>> columnClasses = new HashMap<String, Class<?>>();
+        if (MapUtils.isNotEmpty(columnTypes))
+        {
+            for (final Entry<String, String> columnType : columnTypes.entrySet())
+            {
+                columnClasses.put(columnType.getKey(), loadClass(columnType.getValue()));
+            }
+        }
+
+        final Class<?> targetClassOrNull = StringUtils.isBlank(targetClass) ? null : loadClass(targetClass);
+        final CypherRowBinder rowBinder = new CypherRowBinder(targetClassOrNull, columnClasses);
+
+        streamCypherQuery(newCypherQuery(query, params), rowBinder);
+
+        return rowBinder.getResults();
+    }
+
+    private static Class<?> loadClass(final String className) throws MuleException
+    {
+        try
+        {
+            return ClassUtils.loadClass(StringUtils.trim(className), Neo4jConnector.class);
+        }
+        catch (final ClassNotFoundException cnfe)
+        {
+            throw new DefaultMuleException("Failed to load class: " + className, cnfe);
+        }
+    }
+
+    /**
+     * Get a {@link Node}.
+     * <p>
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:getNodeById}
+     * <p>
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:getNodeById-failIfNotFound}
+     * 
+     * @param nodeId id of the node to get.
+     * @param failIfNotFound if true, an exception will be thrown if the node is not found,
+     *            otherwise null will be returned.
+     * @return a {@link Node} instance or null.
+     * @throws MuleException if anything goes wrong with the operation.
+     */
+    @Processor
+    public Node getNodeById(final long nodeId, @Optional @Default("false") final boolean failIfNotFound)
+        throws MuleException
+    {
+        if (nodeReadBatcher != null)
+        {
+            return getBatchedEntity(nodeReadBatcher, getNodeUri(nodeId), nodeId, failIfNotFound);
+        }
+
+        return getCachedEntity(cachedEntities, getNodeUri(nodeId), NODE_TYPE_REFERENCE,
+            failIfNotFound ? SC_OK : SC_OK_OR_NOT_FOUND);
+    }
+
+    /**
+     * Get many {@link Node}s with one Cypher query per chunk of ids instead of one request per id.
+     * <p>
+     * With Neo4j versions before 2.0, all the requested nodes must exist.
+     * <p>
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:getNodesByIds}
+     * 
+     * @param nodeIds ids of the nodes to get.
+     * @param chunkSize the maximum number of ids looked up by a single query.
+     * @param failIfNotFound if true, an exception will be thrown if any node is not found,
+     *            otherwise missing nodes will be absent from the result.
+     * @return a {@link Map} of {@link Node}s by id, in the same order as the requested ids, never
+     *         null but potentially empty.
+     * @throws MuleException if anything goes wrong with the operation.
+     */
+    @Processor
+    public Map<Long, Node> getNodesByIds(final List<Long> nodeIds,
+                                         @Optional @Default("1000") final int chunkSize,
+                                         @Optional @Default("false") final boolean failIfNotFound)
+        throws MuleException
+    {
+        final String query = isBeforeVersion2() ? NODES_BY_IDS_LEGACY_QUERY : NODES_BY_IDS_QUERY;
+
+        return getEntitiesByIds(nodeIds, query, null, chunkSize, NODE_TYPE_REFERENCE, failIfNotFound);
+    }
+
+    /**
+     * Create a {@link Node}.
+     * <p>
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:createNode}
+     * <p>
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:createNode-withProperties}
+     * 
+     * @param properties the properties of the node.
+     * @return the created {@link Node} instance.
+     * @throws MuleException if anything goes wrong with the operation.
+     */
+    @Processor
+    public Node createNode(@Optional final Map<String, Object> properties) throws MuleException
+    {
+        if (writeBehind)
+        {
+            return writeBehind(BatchJob.Method.POST, serviceRoot.getNode(), properties, NODE_TYPE_REFERENCE,
+                SC_CREATED);
+        }
+
+        return postEntity(serviceRoot.getNode(), properties, NODE_TYPE_REFERENCE, SC_CREATED);
+    }
+
+    /**
+     * Get or create a unique {@link Node}.
+     * <p>
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:getOrCreateUniqueNode}
+     * <p>
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample
+     * neo4j:getOrCreateUniqueNode-withProperties}
+     * 
+     * @param indexName the name of the index.
+     * @param key the key for the index.
+     * @param value the value for the index's key.
+     * @param properties the properties of the node.
+     * @return the created or pre-existing {@link Node} instance.
+     * @throws MuleException if anything goes wrong with the operation.
+     */
+    @Processor
+    public IndexedNode getOrCreateUniqueNode(final String indexName,
+                                             final String key,
+                                             final String value,
+                                             @Optional final Map<String, Object> properties)
+        throws MuleException
+    {
+        return postUniqueNodeEntity(indexName, key, value, properties, GET_OR_CREATE_UNIQUENESS,
+            SC_OK_OR_CREATED);
+    }
+
+    /**
+     * Create a unique {@link Node} or fail.
+     * <p>
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:createUniqueNodeOrFail}
+     * <p>
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample
+     * neo4j:createUniqueNodeOrFail-withProperties}
+     * 
+     * @param indexName the name of the index.
+     * @param key the key for the index.
+     * @param value the value for the index's key.
+     * @param properties the properties of the node.
+     * @return the created or pre-existing {@link Node} instance.
+     * @throws MuleException if anything goes wrong with the operation.
+     */
+    @Processor
+    public IndexedNode createUniqueNodeOrFail(final String indexName,
+                                              final String key,
+                                              final String value,
+                                              @Optional final Map<String, Object> properties)
+        throws MuleException
+    {
+        return postUniqueNodeEntity(indexName, key, value, properties, CREATE_OR_FAIL_UNIQUENESS, SC_CREATED);
+    }
+
+    /**
+     * Set the properties of a {@link Node}.
+     * <p>
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:setNodeProperties}
+     * 
+     * @param node the {@link Node} to set properties on.
+     * @param properties the properties of the node.
+     * @throws MuleException if anything goes wrong with the operation.
+     */
+    @Processor
+    public void setNodeProperties(@RefOnly final Node node, final Map<String, Object> properties)
+        throws MuleException
+    {
+        if (writeBehind)
+        {
+            writeBehind(BatchJob.Method.PUT, node.getProperties(), properties, null, SC_NO_CONTENT);
+            return;
+        }
+
+        setPropertiesOnEntity(properties, node);
+    }
+
+    /**
+     * Set a property of a {@link Node}.
+     * <p>
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:setNodeProperty}
+     * 
+     * @param node the {@link Node} to set the property on.
+     * @param key the key of the property.
+     * @param value the value of the property.
+     * @throws MuleException if anything goes wrong with the operation.
+     */
+    @Processor
+    public void setNodeProperty(@RefOnly final Node node, final String key, final Object value)
+        throws MuleException
+    {
+        setPropertyOnEntity(key, value, node);
+    }
+
+    /**
+     * Delete a property from a {@link Node}.
+     * <p>
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:deleteNodeProperty}
+     * <p>
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample
+     * neo4j:deleteNodeProperty-failIfNotFound}
+     * 
+     * @param node the {@link Node} to delete the property from.
+     * @param key the key of the property.
+     * @param failIfNotFound if true, an exception will be thrown if the property is not found and
+     *            couldn't be deleted.
+     * @throws MuleException if anything goes wrong with the operation.
+     */
+    @Processor
+    public void deleteNodeProperty(@RefOnly final Node node,
+                                   final String key,
+                                   @Optional @Default("false") final boolean failIfNotFound)
+        throws MuleException
+    {
+        deletePropertyFromEntity(key, node, failIfNotFound);
+    }
+
+    /**
+     * Delete all properties from a {@link Node}.
+     * <p>
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:deleteNodeProperties}
+     * 
+     * @param node the {@link Node} to delete properties from.
+     * @throws MuleException if anything goes wrong with the operation.
+     */
+    @Processor
+    public void deleteNodeProperties(@RefOnly final Node node) throws MuleException
+    {
+        deletePropertiesFromEntity(node);
+    }
+
+    /**
+     * Delete a {@link Node}.
+     * <p>
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:deleteNodeById}
+     * <p>
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:deleteNodeById-failIfNotFound}
+     * 
+     * @param nodeId id of the node to delete.
+     * @param failIfNotFound if true, an exception will be thrown if the node is not found and
+     *            couldn't be deleted.
+     * @throws MuleException if anything goes wrong with the operation.
+     */
+    @Processor
+    public void deleteNodeById(final long nodeId, @Optional @Default("false") final boolean failIfNotFound)
+        throws MuleException
+    {
+        deleteEntityByUri(getNodeUri(nodeId), failIfNotFound);
+    }
+
+    /**
+     * Delete a {@link Node}.
+     * <p>
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:deleteNode}
+     * <p>
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:deleteNode-failIfNotFound}
+     * 
+     * @param node the {@link Node} to delete.
+     * @param failIfNotFound if true, an exception will be thrown if the node is not found and
+     *            couldn't be deleted.
+     * @throws MuleException if anything goes wrong with the operation.
+     */
+    @Processor
+    @Inject
+    public void deleteNode(@RefOnly final Node node, @Optional @Default("false") final boolean failIfNotFound)
+        throws MuleException
+    {
+        deleteEntity(node, failIfNotFound);
+    }
+
+    /**
+     * Get a {@link Relationship}.
+     * <p>
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:getRelationshipById}
+     * <p>
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample
+     * neo4j:getRelationshipById-failIfNotFound}
+     * 
+     * @param relationshipId the ID of the relationship to retrieve.
+     * @param failIfNotFound if true, an exception will be thrown if the node is not found,
+     *            otherwise null will be returned.
+     * @return a {@link Relationship} or null.
+     * @throws MuleException if anything goes wrong with the operation.
+     */
+    @Processor
+    public Relationship getRelationshipById(final long relationshipId,
+                                            @Optional @Default("false") final boolean failIfNotFound)
+        throws MuleException
+    {
+        if (relationshipReadBatcher != null)
+        {
+            return getBatchedEntity(relationshipReadBatcher, getRelationshipUri(relationshipId), relationshipId,
+                failIfNotFound);
+        }
+
+        return getCachedEntity(cachedEntities, getRelationshipUri(relationshipId), RELATIONSHIP_TYPE_REFERENCE,
+            failIfNotFound ? SC_OK : SC_OK_OR_NOT_FOUND);
+    }
+
+    /**
+     * Get many {@link Relationship}s with one Cypher query per chunk of ids instead of one request
+     * per id.
+     * <p>
+     * With Neo4j versions before 2.0, all the requested relationships must exist.
+     * <p>
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:getRelationshipsByIds}
+     * 
+     * @param relationshipIds ids of the relationships to get.
+     * @param chunkSize the maximum number of ids looked up by a single query.
+     * @param failIfNotFound if true, an exception will be thrown if any relationship is not found,
+     *            otherwise missing relationships will be absent from the result.
+     * @return a {@link Map} of {@link Relationship}s by id, in the same order as the requested ids,
+     *         never null but potentially empty.
+     * @throws MuleException if anything goes wrong with the operation.
+     */
+    @Processor
+    public Map<Long, Relationship> getRelationshipsByIds(final List<Long> relationshipIds,
+                                                         @Optional @Default("1000") final int chunkSize,
+                                                         @Optional @Default("false") final boolean failIfNotFound)
+        throws MuleException
+    {
+        return getEntitiesByIds(relationshipIds, getRelationshipsByIdsQuery(),
+            getRelationshipsByIdsFallbackQuery(), chunkSize, RELATIONSHIP_TYPE_REFERENCE, failIfNotFound);
+    }
+
+    /**
+     * @return the query that looks relationships up by ids: before Neo4j 2.2, Cypher only seeks
+     *         relationships by id with START, and scans all of them with MATCH.
+     */
+    private String getRelationshipsByIdsQuery()
+    {
+        if (serviceRoot.getNeo4jVersion().compareTo(MIN_RELATIONSHIP_ID_SEEK_VERSION) < 0)
+        {
+            return RELATIONSHIPS_BY_IDS_LEGACY_QUERY;
+        }
+        return RELATIONSHIPS_BY_IDS_QUERY;
+    }
+
+    /**
+     * @return the query that looks up again the relationships of a chunk whose START lookup failed
+     *         because some of them are missing, or null before Neo4j 2.0, where they must all exist.
+     */
+    private String getRelationshipsByIdsFallbackQuery()
+    {
+        if ((isBeforeVersion2()) || (RELATIONSHIPS_BY_IDS_QUERY.equals(getRelationshipsByIdsQuery())))
+        {
+            return null;
+        }
+        return RELATIONSHIPS_BY_IDS_QUERY;
+    }
+
+    /**
+     * @param fallbackQuery if not null, the query that looks up again the entities of a chunk whose
+     *            query failed.
+     */
+    private <T> Map<Long, T> getEntitiesByIds(final List<Long> ids,
+                                              final String query,
+                                              final String fallbackQuery,
+                                              final int chunkSize,
+                                              final TypeReference<T> entityType,
+                                              final boolean failIfNotFound) throws MuleException
+    {
+        Validate.isTrue(chunkSize > 0, "chunkSize must be strictly positive");
+
+        final List<Long> uniqueIds = new ArrayList<Long>(new LinkedHashSet<Long>(ids));
+        final Map<Long, T> foundEntities = new HashMap<Long, T>();
+
+        for (int i = 0; i < uniqueIds.size(); i += chunkSize)
+        {
+            final List<Long> chunk = uniqueIds.subList(i, Math.min(i + chunkSize, uniqueIds.size()));
+
+            CypherQueryResult result;
+            try
+            {
+                result = postEntity(serviceRoot.getCypher(), newCypherQuery(query,
+                    Collections.<String, Object> singletonMap("ids", chunk)), CYPHER_QUERY_RESULT_TYPE_REFERENCE,
+                    SC_OK);
+            }
+            catch (final MuleException me)
+            {
+                if (fallbackQuery == null)
+                {
+                    throw me;
+                }
+
+                result = postEntity(serviceRoot.getCypher(), newCypherQuery(fallbackQuery,
+                    Collections.<String, Object> singletonMap("ids", chunk)), CYPHER_QUERY_RESULT_TYPE_REFERENCE,
+                    SC_OK);
+            }
+
+            for (final List<Object> row : result.getData())
+            {
+                final T entity = getEntityObjectMapper().<T> convertValue(row.get(1), entityType);
+                completeEntity(entity);
+                foundEntities.put(((Number) row.get(0)).longValue(), entity);
+            }
+        }
+
+        final Map<Long, T> entities = new LinkedHashMap<Long, T>();
+        final List<Long> missingIds = new ArrayList<Long>();
+
+        for (final Long id : uniqueIds)
+        {
+            final T entity = foundEntities.get(id);
+
+            if (entity != null)
+            {
+                entities.put(id, entity);
+            }
+            else
+            {
+                missingIds.add(id);
+            }
+        }
+
+        if ((failIfNotFound) && (!missingIds.isEmpty()))
+        {
+            throw new DefaultMuleException("Failed to find entities with ids: " + missingIds);
+        }
+
+        return entities;
+    }
+
+    /**
+     * Create a {@link Relationship}.
+     * <p>
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:createRelationship}
+     * <p>
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample
+     * neo4j:createRelationship-withProperties}
+     * 
+     * @param fromNode the node where the relationship starts.
+     * @param toNode the node where the relationship ends.
+     * @param type the type of relationship.
+     * @param properties the properties of the relationship.
+     * @return the created {@link Relationship} instance.
+     * @throws MuleException if anything goes wrong with the operation.
+     */
+    @Processor
+    public Relationship createRelationship(@RefOnly final Node fromNode,
+                                           @RefOnly final Node toNode,
+                                           final String type,
+                                           @Optional final Map<String, Object> properties)
+        throws MuleException
+    {
+        final Data data = convertMapToData(properties);
 
-    private String getNodeIndexUri(final String indexName)
-    {
-        return serviceRoot.getNodeIndex() + "/" + indexName;
+        final NewRelationship newRelationship = new NewRelationship().withType(type)
+            .withTo(toNode.getSelf())
+            .withData(data);
+
+        if (writeBehind)
+        {
+            return writeBehind(BatchJob.Method.POST, fromNode.getCreateRelationship(), newRelationship,
+                RELATIONSHIP_TYPE_REFERENCE, SC_CREATED);
+        }
+
+        return postEntity(fromNode.getCreateRelationship(), newRelationship, RELATIONSHIP_TYPE_REFERENCE,
+            SC_CREATED);
     }
 
-    private String getRelationshipIndexUri(final String relationshipName)
+    /**
+     * Get or create a unique {@link Relationship}.
+     * <p>
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:getOrCreateUniqueRelationship}
+     * 
+     * @param relationshipName the name of the relationship.
+     * @param type the type of the relationship.
+     * @param key the index key.
+     * @param value the index value.
+     * @param startNode the start {@link Node}.
+     * @param endNode the end {@link Node}.
+     * @return the pre-existing or created {@link Relationship} instance.
+     * @throws MuleException if anything goes wrong with the operation.
+     */
+    @Processor
+    public IndexedRelationship getOrCreateUniqueRelationship(final String relationshipName,
+                                                             final String type,
+                                                             final String key,
+                                                             final String value,
+                                                             @RefOnly final Node startNode,
+                                                             @RefOnly final Node endNode
+
+    ) throws MuleException
     {
-        return serviceRoot.getRelationshipIndex() + "/" + relationshipName;
+        return postUniqueRelationshipEntity(relationshipName, type, key, value, startNode, endNode,
+            GET_OR_CREATE_UNIQUENESS, SC_OK_OR_CREATED);
     }
 
-    private String getAutoIndexingStatusUri()
+    /**
+     * Create a unique {@link Relationship} or fail.
+     * <p>
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:createUniqueRelationshipOrFail}
+     * 
+     * @param relationshipName the name of the relationship.
+     * @param type the type of the relationship.
+     * @param key the index key.
+     * @param value the index value.
+     * @param startNode the start {@link Node}.
+     * @param endNode the end {@link Node}.
+     * @return the created {@link Relationship} instance.
+     * @throws MuleException if anything goes wrong with the operation.
+     */
+    @Processor
+    public IndexedRelationship createUniqueRelationshipOrFail(final String relationshipName,
+                                                              final String type,
+                                                              final String key,
+                                                              final String value,
+                                                              @RefOnly final Node startNode,
+                                                              @RefOnly final Node endNode
+
+    ) throws MuleException
     {
-        return serviceRoot.getNodeAutoIndex() + "/status";
+        return postUniqueRelationshipEntity(relationshipName, type, key, value, startNode, endNode,
+            CREATE_OR_FAIL_UNIQUENESS, SC_CREATED);
     }
 
-    private String getAutoIndexingPropertiesUri()
+    /**
+     * Delete a {@link Relationship}.
+     * <p>
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:deleteRelationshipById}
+     * <p>
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample
+     * neo4j:deleteRelationshipById-failIfNotFound}
+     * 
+     * @param relationshipId the ID of the relationship to delete.
+     * @param failIfNotFound if true, an exception will be thrown if the relationship is not found
+     *            and couldn't be deleted.
+     * @throws MuleException if anything goes wrong with the operation.
+     */
+    @Processor
+    public void deleteRelationshipById(final long relationshipId,
+                                       @Optional @Default("false") final boolean failIfNotFound)
+        throws MuleException
     {
-        return serviceRoot.getNodeAutoIndex() + "/properties";
+        deleteEntityByUri(getRelationshipUri(relationshipId), failIfNotFound);
     }
 
-    private <T> T getEntity(final String uri,
-                            final TypeReference<T> responseType,
-                            final Set<Integer> expectedStatusCodes,
-                            final Object... queryParameters) throws MuleException
+    /**
+     * Delete a {@link Relationship}.
+     * <p>
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:deleteRelationship}
+     * <p>
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample
+     * neo4j:deleteRelationship-failIfNotFound}
+     * 
+     * @param relationship the {@link Relationship} to delete.
+     * @param failIfNotFound if true, an exception will be thrown if the relationship is not found
+     *            and couldn't be deleted.
+     * @throws MuleException if anything goes wrong with the operation.
+     */
+    @Processor
+    public void deleteRelationship(@RefOnly final Relationship relationship,
+                                   @Optional @Default("false") final boolean failIfNotFound)
+        throws MuleException
     {
-        return sendHttpRequest(uri, null, getRequestProperties(HttpConstants.METHOD_GET), responseType,
-            expectedStatusCodes, queryParameters).getEntity();
+        deleteEntity(relationship, failIfNotFound);
     }
 
-    private void deleteEntity(final String uri, final Set<Integer> expectedStatusCodes) throws MuleException
+    /**
+     * Set the properties of a {@link Relationship}.
+     * <p>
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:setRelationshipProperties}
+     * 
+     * @param relationship the {@link Relationship} to set properties on.
+     * @param properties the properties to set.
+     * @throws MuleException if anything goes wrong with the operation.
+     */
+    @Processor
+    public void setRelationshipProperties(@RefOnly final Relationship relationship,
+                                          final Map<String, Object> properties) throws MuleException
     {
-        sendHttpRequest(uri, null, getRequestProperties(HttpConstants.METHOD_DELETE), null,
-            expectedStatusCodes);
+        setPropertiesOnEntity(properties, relationship);
     }
 
-    private <T> T postEntity(final String uri,
-                             final Object entity,
-                             final TypeReference<T> responseType,
-                             final Set<Integer> expectedStatusCodes,
-                             final Object... queryParameters) throws MuleException
+    /**
+     * Set one property of a {@link Relationship}.
+     * <p>
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:setRelationshipProperty}
+     * 
+     * @param relationship the {@link Relationship} to set a property on.
+     * @param key the property key.
+     * @param value the property value.
+     * @throws MuleException if anything goes wrong with the operation.
+     */
+    @Processor
+    public void setRelationshipProperty(@RefOnly final Relationship relationship,
+                                        final String key,
+                                        final Object value) throws MuleException
     {
-        return sendRequestWithEntity(HttpConstants.METHOD_POST, uri, entity, responseType,
-            expectedStatusCodes, queryParameters).getEntity();
+        setPropertyOnEntity(key, value, relationship);
     }
 
-    private void putEntity(final String uri,
-                           final Object entity,
-                           final Set<Integer> expectedStatusCodes,
-                           final Object... queryParameters) throws MuleException
+    /**
+     * Delete one property of a {@link Relationship}.
+     * <p>
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:deleteRelationshipProperty}
+     * 
+     * @param relationship the {@link Relationship} to delete from.
+     * @param key the key of the property.
+     * @param failIfNotFound if true, an exception will be thrown if the property is not found and
+     *            couldn't be deleted.
+     * @throws MuleException if anything goes wrong with the operation.
+     */
+    @Processor
+    public void deleteRelationshipProperty(@RefOnly final Relationship relationship,
+                                           final String key,
+                                           @Optional @Default("false") final boolean failIfNotFound)
+        throws MuleException
     {
-        sendRequestWithEntity(HttpConstants.METHOD_PUT, uri, entity, null, expectedStatusCodes,
-            queryParameters);
+        deletePropertyFromEntity(key, relationship, failIfNotFound);
     }
 
-    private IndexedNode postUniqueNodeEntity(final String indexName,
-                                             final String key,
-                                             final String value,
-                                             final Map<String, Object> properties,
-                                             final String uniqueness,
-                                             final Set<Integer> expectedStatusCodes) throws MuleException
+    /**
+     * Delete all properties of a {@link Relationship}.
+     * <p>
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:deleteRelationshipProperties}
+     * 
+     * @param relationship the {@link Relationship} to delete from.
+     * @throws MuleException if anything goes wrong with the operation.
+     */
+    @Processor
+    public void deleteRelationshipProperties(@RefOnly final Relationship relationship) throws MuleException
     {
-        final Data data = convertMapToData(properties);
-
-        final NewUniqueNode newUniqueNode = new NewUniqueNode().withKey(key)
-            .withValue(value)
-            .withProperties(data);
-
-        return postEntity(getNodeIndexUri(indexName), newUniqueNode, INDEXED_NODE_TYPE_REFERENCE,
-            expectedStatusCodes, "uniqueness", uniqueness);
+        deletePropertiesFromEntity(relationship);
     }
 
-    private IndexedRelationship postUniqueRelationshipEntity(final String relationshipName,
-                                                             final String type,
-                                                             final String key,
-                                                             final String value,
-                                                             final Node startNode,
-                                                             final Node endNode,
-                                                             final String uniqueness,
-                                                             final Set<Integer> expectedStatusCodes)
+    /**
+     * Get the relationships for a particular {@link Node}.
+     * <p>
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:getNodeRelationships}
+     * <p>
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:getNodeRelationships-singleType}
+     * <p>
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample
+     * neo4j:getNodeRelationships-multipleTypes}
+     * 
+     * @param node the {@link Node} for which relationships are considered.
+     * @param direction the {@link RelationshipDirection} to use.
+     * @param types the relationship types to look for.
+     * @return a {@link Collection} of {@link Relationship}, which can be empty but never null.
+     * @throws MuleException if anything goes wrong with the operation.
+     */
+    @Processor
+    public Collection<Relationship> getNodeRelationships(@RefOnly final Node node,
+                                                         final RelationshipDirection direction,
+                                                         @Optional final List<String> types)
         throws MuleException
     {
-        final NewUniqueRelationship newUniqueRelationship = new NewUniqueRelationship().withType(type)
-            .withKey(key)
-            .withValue(value)
-            .withStart(startNode.getSelf())
-            .withEnd(endNode.getSelf());
 
-        return postEntity(getRelationshipIndexUri(relationshipName), newUniqueRelationship,
-            INDEXED_RELATIONSHIP_TYPE_REFERENCE, expectedStatusCodes, "uniqueness", uniqueness);
-    }
+        String relationshipsUri;
 
-    private <T> HttpResponse<T> sendRequestWithEntity(final String httpMethod,
-                                                      final String uri,
-                                                      final Object entity,
-                                                      final TypeReference<T> responseType,
-                                                      final Set<Integer> expectedStatusCodes,
-                                                      final Object... queryParameters) throws MuleException
-    {
-        Validate.isTrue(ENTITY_CARRYING_HTTP_METHODS.contains(httpMethod),
-            "Only entity carrying HTTP methods are supported: " + ENTITY_CARRYING_HTTP_METHODS);
+        if (CollectionUtils.isEmpty(types))
+        {
+            relationshipsUri = direction.getRelationshipsUri(node);
+        }
+        else
+        {
+            final String relationshipsUriPattern = direction.getTypeRelationshipsUriPattern(node);
+            relationshipsUri = StringUtils.replace(relationshipsUriPattern, TYPE_LIST_TEMPLATE,
+                StringUtils.join(types, '&'));
+        }
+
+        return getEntity(relationshipsUri, RELATIONSHIPS_TYPE_REFERENCE, SC_OK);
+    }
 
-        final Map<String, Object> requestProperties = getRequestProperties(httpMethod);
+    /**
+     * Get the relationships of a particular {@link Node}, dispatching them to the rest of the flow in
+     * pages while they are being read from the server, so the relationships of nodes that have a
+     * great many of them are never held in memory all at once.
+     * <p>
+     * Each dispatched message carries a {@link List} of at most <code>pageSize</code>
+     * {@link Relationship}s. Nothing is dispatched if the node has no matching relationship.
+     * <p>
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:expandNodeRelationships}
+     * 
+     * @param node the {@link Node} for which relationships are considered.
+     * @param direction the {@link RelationshipDirection} to use.
+     * @param types the relationship types to look for.
+     * @param pageSize the maximum number of relationships dispatched in a single message.
+     * @param maxRows the maximum number of relationships to read, zero meaning no limit.
+     * @param muleEvent the {@link MuleEvent} being processed.
+     * @param sourceCallback the {@link SourceCallback} invoked for each page of relationships.
+     * @throws MuleException if anything goes wrong with the operation.
+     */
+    @Processor(intercepting = true)
+    @Inject
+    public void expandNodeRelationships(@RefOnly final Node node,
+                                        final RelationshipDirection direction,
+                                        @Optional final List<String> types,
+                                        @Optional @Default("100") final int pageSize,
+                                        @Optional @Default("0") final int maxRows,
+                                        final MuleEvent muleEvent,
+                                        final SourceCallback sourceCallback) throws MuleException
+    {
+        Validate.isTrue(pageSize > 0, "pageSize must be strictly positive");
+        Validate.isTrue(maxRows >= 0, "maxRows can not be negative");
+
+        final StringBuilder query = new StringBuilder(isBeforeVersion2() ? NODE_BY_ID_LEGACY_START
+                                                                         : NODE_BY_ID_START);
+        query.append(" MATCH ")
+            .append(direction.getCypherPattern(getCypherTypeFilter(types)))
+            .append(" RETURN r");
+
+        final Map<String, Object> params = new HashMap<String, Object>();
+        params.put("nodeId", Long.valueOf(node.getId()));
+        if (maxRows > 0)
+        {
+            query.append(" LIMIT {maxRows}");
+            params.put("maxRows", maxRows);
+        }
 
-        requestProperties.put(HttpConstants.HEADER_CONTENT_TYPE, MimeTypes.JSON);
+        final RelationshipPageDispatchingRowHandler rowHandler = new RelationshipPageDispatchingRowHandler(
+            pageSize, muleEvent, sourceCallback);
 
-        final String json = serializeEntityToJson(entity);
+        streamCypherQuery(newCypherQuery(query.toString(), params), rowHandler);
 
-        return sendHttpRequest(uri, json, requestProperties, responseType, expectedStatusCodes,
-            queryParameters);
+        rowHandler.dispatchPage();
     }
 
-    private String serializeEntityToJson(final Object entity) throws MuleException
+    private static String getCypherTypeFilter(final List<String> types)
     {
-        if (entity == null)
+        final StringBuilder typeFilter = new StringBuilder();
+        if (CollectionUtils.isNotEmpty(types))
         {
-            return null;
+            for (final String type : types)
+            {
+                typeFilter.append(typeFilter.length() == 0 ? ":`" : "|`")
+                    .append(StringUtils.replace(type, "`", "``"))
+                    .append('`');
+            }
         }
+        return typeFilter.toString();
+    }
 
-        try
-        {
-            return OBJECT_MAPPER.writeValueAsString(entity);
-        }
-        catch (final IOException ioe)
-        {
-            throw new DefaultMuleException("Failed to serialize to JSON: " + entity, ioe);
-        }
+    /**
+     * Count the relationships of a particular {@link Node} on the server, without transferring them.
+     * <p>
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:getNodeDegree}
+     * 
+     * @param node the {@link Node} for which relationships are counted.
+     * @param direction the {@link RelationshipDirection} to use.
+     * @param types the relationship types to count, all types being counted if none is provided.
+     * @return the number of matching relationships.
+     * @throws MuleException if anything goes wrong with the operation.
+     */
+    @Processor
+    public long getNodeDegree(@RefOnly final Node node,
+                              final RelationshipDirection direction,
+                              @Optional final List<String> types) throws MuleException
+    {
+        final Long nodeId = Long.valueOf(node.getId());
+        final Long degree = getNodeDegrees(Collections.singletonList(nodeId), direction, types, 1).get(nodeId);
+        return degree == null ? 0L : degree;
     }
 
-    private <T> HttpResponse<T> sendHttpRequest(final String uri,
-                                                final String jsonEntityOrNull,
-                                                final Map<String, Object> requestProperties,
-                                                final TypeReference<T> responseType,
-                                                final Set<Integer> expectedStatusCodes,
-                                                final Object... queryParameters) throws MuleException
+    /**
+     * Count the relationships of many {@link Node}s on the server, with one Cypher query per chunk of
+     * ids, without transferring the relationships.
+     * <p>
+     * With Neo4j versions before 2.0, all the requested nodes must exist.
+     * <p>
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:getNodeDegrees}
+     * 
+     * @param nodeIds ids of the nodes for which relationships are counted.
+     * @param direction the {@link RelationshipDirection} to use.
+     * @param types the relationship types to count, all types being counted if none is provided.
+     * @param chunkSize the maximum number of ids looked up by a single query.
+     * @return a {@link Map} of numbers of matching relationships by node id, in the same order as the
+     *         requested ids, from which the ids of missing nodes are absent.
+     * @throws MuleException if anything goes wrong with the operation.
+     */
+    @Processor
+    public Map<Long, Long> getNodeDegrees(final List<Long> nodeIds,
+                                          final RelationshipDirection direction,
+                                          @Optional final List<String> types,
+                                          @Optional @Default("1000") final int chunkSize) throws MuleException
     {
-        final String fullUri = buildUri(uri, queryParameters);
+        Validate.isTrue(chunkSize > 0, "chunkSize must be strictly positive");
 
-        if (LOGGER.isDebugEnabled())
+        final String typeFilter = getCypherTypeFilter(types);
+        final String query;
+        if (isBeforeVersion2())
         {
-            LOGGER.debug(String.format(
-                "Sending HTTP request:%n  URI: %s%n  JSON Entity: %s%n  Request Properties: %s%n"
-                                + "  Response Type: %s%n  Expected Status Codes: %s", fullUri,
-                jsonEntityOrNull, requestProperties, responseType == null ? null : responseType.getType(),
-                expectedStatusCodes));
+            // optional relationships are marked with a question mark before Neo4j 2.0
+            query = NODES_BY_IDS_LEGACY_START + " MATCH " + direction.getCypherPattern("?" + typeFilter)
+                    + DEGREES_RETURN;
+        }
+        else
+        {
+            query = NODES_BY_IDS_START + " OPTIONAL MATCH " + direction.getCypherPattern(typeFilter)
+                    + DEGREES_RETURN;
         }
 
-        final MuleMessage response = muleContext.getClient().send(fullUri, jsonEntityOrNull,
-            requestProperties);
+        final List<Long> uniqueIds = new ArrayList<Long>(new LinkedHashSet<Long>(nodeIds));
+        final Map<Long, Long> foundDegrees = new HashMap<Long, Long>();
 
-        @SuppressWarnings("unchecked")
-        final Map<String, String> responseHeaders = new CaseInsensitiveHashMap();
-        for (final String headerName : response.getInboundPropertyNames())
+        for (int i = 0; i < uniqueIds.size(); i += chunkSize)
         {
-            if (HttpConstants.RESPONSE_HEADER_NAMES.containsKey(headerName))
+            final List<Long> chunk = uniqueIds.subList(i, Math.min(i + chunkSize, uniqueIds.size()));
+
+            final CypherQueryResult result = postEntity(serviceRoot.getCypher(),
+                newCypherQuery(query, Collections.<String, Object> singletonMap("ids", chunk)),
+                CYPHER_QUERY_RESULT_TYPE_REFERENCE, SC_OK);
+
+            for (final List<Object> row : result.getData())
             {
-                responseHeaders.put(headerName, response.<String> getInboundProperty(headerName));
+                foundDegrees.put(((Number) row.get(0)).longValue(), ((Number) row.get(1)).longValue());
             }
         }
 
-        if (LOGGER.isDebugEnabled())
+        final Map<Long, Long> degrees = new LinkedHashMap<Long, Long>();
+        for (final Long id : uniqueIds)
         {
-            LOGGER.debug("Received HTTP response: " + response);
+            final Long degree = foundDegrees.get(id);
+            if (degree != null)
+            {
+                degrees.put(id, degree);
+            }
         }
+        return degrees;
+    }
 
-        final Integer responseStatusCode = Integer.valueOf((String) response.getInboundProperty(HttpConnector.HTTP_STATUS_PROPERTY));
+    /**
+     * Expand the neighborhoods of many seed {@link Node}s, up to a maximum depth, in a single request
+     * to the server, returning the ids of the nodes and relationships found instead of
+     * {@link Node} and {@link Relationship} instances.
+     * <p>
+     * The nodes within maxDepth hops of any seed and all the relationships that connect them,
+     * following relationships of the provided types in the provided direction only, are each returned
+     * once: the relationships between two nodes at maxDepth hops are returned too.
+     * <p>
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:expandNeighborhood}
+     * 
+     * @param seedNodeIds ids of the nodes to expand, which are part of the result if they exist.
+     * @param maxDepth the maximum number of hops from a seed.
+     * @param direction the {@link RelationshipDirection} of the followed relationships.
+     * @param types the types of the followed relationships, all types being followed if none is
+     *            provided.
+     * @param nodeProperties the names of the node properties to return.
+     * @return a {@link Neighborhood}, never null but potentially empty.
+     * @throws MuleException if anything goes wrong with the operation.
+     */
+    @Processor
+    public Neighborhood expandNeighborhood(final List<Long> seedNodeIds,
+                                           @Optional @Default("1") final int maxDepth,
+                                           @Optional @Default("ALL") final RelationshipDirection direction,
+                                           @Optional final List<String> types,
+                                           @Optional final List<String> nodeProperties) throws MuleException
+    {
+        ensureVersion2OrAbove();
+        Validate.isTrue(maxDepth > 0, "maxDepth must be strictly positive");
 
-        if (!expectedStatusCodes.contains(responseStatusCode))
-        {
-            if (LOGGER.isDebugEnabled())
-            {
-                LOGGER.debug("Received payload with unexpected status: " + renderMessageAsString(response));
-            }
+        final String typeFilter = getCypherTypeFilter(types);
+        final ConfigurableStatement statement = new ConfigurableStatement();
+        statement.setStatement(NeighborhoodExpansion.newQuery(direction, typeFilter, maxDepth, nodeProperties));
+        statement.setParameters(Collections.<String, Object> singletonMap(
+            NeighborhoodExpansion.SEED_IDS_PARAMETER, new ArrayList<Long>(new LinkedHashSet<Long>(seedNodeIds))));
 
-            throw new DefaultMuleException("Received status code: " + responseStatusCode
-                                           + " but was expecting: " + expectedStatusCodes);
-        }
+        final TransactionResult transactionResult = postStatements(serviceRoot.getTransaction()
+                                                                   + TRANSACTION_COMMIT_PATH,
+            Collections.singletonList(statement), SC_OK);
 
-        if (NO_RESPONSE_STATUSES.contains(responseStatusCode))
+        final List<List<Object>> rows = new ArrayList<List<Object>>();
+        for (final StatementResultRow row : transactionResult.getResults().get(0).getData())
         {
-            return new HttpResponse<T>(null, responseHeaders);
+            rows.add(row.getRow());
         }
-        else
+        return NeighborhoodExpansion.toNeighborhood(rows, nodeProperties);
+    }
+
+    private static String getCypherLabelFilter(final String variable, final List<String> labels)
+    {
+        final StringBuilder labelFilter = new StringBuilder();
+        for (final String label : labels)
         {
-            final T entity = deserializeJsonToEntity(responseType, response);
-            return new HttpResponse<T>(entity, responseHeaders);
+            labelFilter.append(labelFilter.length() == 0 ? "(" : " OR ")
+                .append(variable)
+                .append(":`")
+                .append(StringUtils.replace(label, "`", "``"))
+                .append('`');
         }
+        return labelFilter.append(')').toString();
     }
 
-    private <T> T deserializeJsonToEntity(final TypeReference<T> responseType, final MuleMessage response)
+    /**
+     * Load the nodes that have any of the provided labels and the relationships of the provided
+     * types between them into a {@link GraphSnapshot}, an in-memory copy of the graph on which the
+     * graph algorithm processors run without further requests to the server.
+     * <p>
+     * The nodes and the relationships are streamed by two queries, straight into the primitive
+     * arrays of the snapshot. The relationships created in-between with nodes that were not loaded
+     * are skipped.
+     * <p>
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:loadGraphSnapshot}
+     * 
+     * @param labels the labels of the nodes to load, all the nodes being loaded if none is provided.
+     * @param types the types of the relationships to load, all the types being loaded if none is
+     *            provided.
+     * @param offHeap if true the snapshot is held in direct buffers, outside of the heap.
+     * @return a {@link GraphSnapshot}.
+     * @throws MuleException if anything goes wrong with the operation.
+     */
+    @Processor
+    public GraphSnapshot loadGraphSnapshot(@Optional final List<String> labels,
+                                           @Optional final List<String> types,
+                                           @Optional @Default("false") final boolean offHeap)
         throws MuleException
     {
-        try
+        ensureVersion2OrAbove();
+
+        final GraphSnapshotBuilder builder = new GraphSnapshotBuilder(offHeap);
+
+        final StringBuilder nodesQuery = new StringBuilder("MATCH (n)");
+        final StringBuilder relationshipsQuery = new StringBuilder("MATCH (a)").append(
+            RelationshipDirection.OUT.getCypherRelationshipPattern(getCypherTypeFilter(types))).append("(b)");
+        if (CollectionUtils.isNotEmpty(labels))
         {
-            T entity;
+            nodesQuery.append(" WHERE ").append(getCypherLabelFilter("n", labels));
+            relationshipsQuery.append(" WHERE ")
+                .append(getCypherLabelFilter("a", labels))
+                .append(" AND ")
+                .append(getCypherLabelFilter("b", labels));
+        }
+        nodesQuery.append(" RETURN id(n)");
+        relationshipsQuery.append(" RETURN id(a), id(b)");
 
-            if (LOGGER.isDebugEnabled())
+        final CypherResultStreamParser.RowHandler nodeHandler = new CypherResultStreamParser.RowHandler()
+        {
+            public void handleColumns(final List<String> columns)
             {
-                response.setPayload(IOUtils.toByteArray((InputStream) response.getPayload()));
-                entity = OBJECT_MAPPER.<T> readValue((byte[]) response.getPayload(), responseType);
+                // the node id is the only column
             }
-            else
+
+            public void handleRow(final JsonParser parser) throws IOException
             {
-                entity = OBJECT_MAPPER.<T> readValue((InputStream) response.getPayload(), responseType);
+                builder.addNode(readLongColumn(parser));
+                parser.nextToken();
             }
+        };
+        streamCypherQuery(newCypherQuery(nodesQuery.toString(), null), nodeHandler);
 
-            if (entity instanceof BaseEntity)
+        final CypherResultStreamParser.RowHandler relationshipHandler = new CypherResultStreamParser.RowHandler()
+        {
+            public void handleColumns(final List<String> columns)
             {
-                final BaseEntity baseEntity = (BaseEntity) entity;
-                baseEntity.setId(StringUtils.substringAfterLast(baseEntity.getSelf(), "/"));
+                // the start and end node ids are the only columns
+            }
 
-                if (baseEntity instanceof Node)
-                {
-                    // hack courtesy of https://github.com/neo4j/neo4j/issues/866
-                    final Node node = (Node) baseEntity;
-                    node.setPath(baseEntity.getSelf() + "/path");
-                    node.setPaths(baseEntity.getSelf() + "/paths");
-                }
+            public void handleRow(final JsonParser parser) throws IOException
+            {
+                builder.addRelationship(readLongColumn(parser), readLongColumn(parser));
+                parser.nextToken();
             }
+        };
+        streamCypherQuery(newCypherQuery(relationshipsQuery.toString(), null), relationshipHandler);
 
-            return entity;
-        }
-        catch (final IOException ioe)
+        if (builder.getSkippedRelationshipCount() > 0)
         {
-            throw new DefaultMuleException("Failed to deserialize to: " + responseType.getType() + " from: "
-                                           + renderMessageAsString(response), ioe);
+            LOGGER.warn("Skipped " + builder.getSkippedRelationshipCount()
+                        + " relationships with nodes created after the graph snapshot nodes were loaded");
         }
+
+        return builder.build();
     }
 
-    private static String renderMessageAsString(final MuleMessage message)
+    private static long readLongColumn(final JsonParser parser) throws IOException
     {
-        try
-        {
-            return message.getPayloadAsString();
-        }
-        catch (final Exception e)
-        {
-            return message.toString();
-        }
+        parser.nextToken();
+        return parser.getLongValue();
     }
 
-    private String buildUri(final String uri, final Object... queryParameters)
+    /**
+     * Compute the number of hops from a source node to every node of a {@link GraphSnapshot}, with a
+     * parallel breadth-first search.
+     * <p>
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:computeBreadthFirstDistances}
+     * 
+     * @param snapshot the {@link GraphSnapshot} to search.
+     * @param sourceNodeId the id of the node the search starts from.
+     * @param direction the {@link RelationshipDirection} of the followed relationships.
+     * @param maxDepth the maximum number of hops, a negative value meaning no limit.
+     * @return the distances, indexed like the nodes of the snapshot, -1 meaning not reachable.
+     * @throws MuleException if anything goes wrong with the operation.
+     */
+    @Processor
+    public int[] computeBreadthFirstDistances(@RefOnly final GraphSnapshot snapshot,
+                                              final long sourceNodeId,
+                                              @Optional @Default("OUT") final RelationshipDirection direction,
+                                              @Optional @Default("-1") final int maxDepth) throws MuleException
     {
-        Validate.isTrue(queryParameters.length % 2 == 0, "queryParameters must be an even array");
-
-        final Map<String, String> queryParams = new HashMap<String, String>();
-
-        if (connector != null)
+        final int sourceNodeIndex = snapshot.indexOf(sourceNodeId);
+        if (sourceNodeIndex < 0)
         {
-            queryParams.put("connector", connector.getName());
+            throw new DefaultMuleException("Node is not part of the graph snapshot: " + sourceNodeId);
         }
 
-        for (int i = 0; i < queryParameters.length; i += 2)
+        final GraphSnapshot.Direction snapshotDirection;
+        if (direction == RelationshipDirection.IN)
         {
-            final String name = (String) queryParameters[i];
-            final Object value = queryParameters[i + 1];
-
-            if ((StringUtils.isNotBlank(name)) && (value != null))
-            {
-                queryParams.put(name, value.toString());
-            }
+            snapshotDirection = GraphSnapshot.Direction.IN;
         }
-
-        if (queryParams.isEmpty())
+        else if (direction == RelationshipDirection.OUT)
         {
-            return uri;
+            snapshotDirection = GraphSnapshot.Direction.OUT;
         }
-
-        final StringBuilder queryBuilder = new StringBuilder();
-        for (final Entry<String, String> queryParam : queryParams.entrySet())
+        else
         {
-            queryBuilder.append(queryBuilder.length() != 0 ? "&" : "?")
-                .append(urlEncode(queryParam.getKey()))
-                .append("=")
-                .append(urlEncode(queryParam.getValue()));
+            snapshotDirection = GraphSnapshot.Direction.BOTH;
         }
 
-        return uri + queryBuilder.toString();
+        try
+        {
+            return getGraphAlgorithms().breadthFirstDistances(snapshot, sourceNodeIndex, snapshotDirection,
+                maxDepth);
+        }
+        catch (final InterruptedException ie)
+        {
+            Thread.currentThread().interrupt();
+            throw new DefaultMuleException("Interrupted while computing breadth-first distances", ie);
+        }
     }
 
-    private static String urlEncode(final String s)
+    /**
+     * Compute the PageRank of every node of a {@link GraphSnapshot}, with parallel iterations.
+     * <p>
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:computePageRank}
+     * 
+     * @param snapshot the {@link GraphSnapshot} to rank.
+     * @param dampingFactor the probability of following a relationship rather than jumping to any
+     *            node.
+     * @param maxIterations the maximum number of iterations.
+     * @param tolerance the total change of the ranks below which iterations stop.
+     * @return the ranks, indexed like the nodes of the snapshot, summing to 1.
+     * @throws MuleException if anything goes wrong with the operation.
+     */
+    @Processor
+    public double[] computePageRank(@RefOnly final GraphSnapshot snapshot,
+                                    @Optional @Default("0.85") final double dampingFactor,
+                                    @Optional @Default("20") final int maxIterations,
+                                    @Optional @Default("0.000001") final double tolerance)
+        throws MuleException
     {
         try
         {
-            return URLEncoder.encode(s, "UTF-8");
+            return getGraphAlgorithms().pageRank(snapshot, dampingFactor, maxIterations, tolerance);
         }
-        catch (final UnsupportedEncodingException uee)
+        catch (final InterruptedException ie)
         {
-            throw new MuleRuntimeException(uee);
+            Thread.currentThread().interrupt();
+            throw new DefaultMuleException("Interrupted while computing PageRank", ie);
         }
     }
 
-    private Map<String, Object> getRequestProperties(final String method)
+    /**
+     * Compute the weakly connected components of a {@link GraphSnapshot}, with parallel label
+     * propagation.
+     * <p>
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:computeConnectedComponents}
+     * 
+     * @param snapshot the {@link GraphSnapshot} to partition.
+     * @return the components, indexed like the nodes of the snapshot, each identified by the
+     *         smallest id of its nodes.
+     * @throws MuleException if anything goes wrong with the operation.
+     */
+    @Processor
+    public long[] computeConnectedComponents(@RefOnly final GraphSnapshot snapshot) throws MuleException
     {
-        final Map<String, Object> properties = new HashMap<String, Object>();
-
-        // TODO uncomment when https://github.com/neo4j/neo4j/issues/862 is fixed
-        // properties.put(HttpConstants.HEADER_ACCEPT, MimeTypes.JSON);
-
-        properties.put(HttpConnector.HTTP_METHOD_PROPERTY, method);
-        properties.put(HEADER_STREAMING, streaming);
-
-        if (StringUtils.isNotBlank(authorization))
+        final int[] componentNodeIndexes;
+        try
         {
-            properties.put(HttpConstants.HEADER_AUTHORIZATION, authorization);
+            componentNodeIndexes = getGraphAlgorithms().connectedComponents(snapshot);
+        }
+        catch (final InterruptedException ie)
+        {
+            Thread.currentThread().interrupt();
+            throw new DefaultMuleException("Interrupted while computing connected components", ie);
         }
 
-        return properties;
-    }
-
-    private void deleteEntity(final BaseEntity entity, final boolean failIfNotFound) throws MuleException
-    {
-        deleteEntityByUri(entity.getSelf(), failIfNotFound);
+        final long[] componentNodeIds = new long[componentNodeIndexes.length];
+        for (int i = 0; i < componentNodeIds.length; i++)
+        {
+            componentNodeIds[i] = snapshot.getNodeId(componentNodeIndexes[i]);
+        }
+        return componentNodeIds;
     }
 
-    private void deleteEntityByUri(final String entityUri, final boolean failIfNotFound) throws MuleException
+    /**
+     * @return the graph algorithms, whose threads are only started when first used.
+     */
+    private synchronized GraphAlgorithms getGraphAlgorithms()
     {
-        deleteEntity(entityUri, failIfNotFound ? SC_NO_CONTENT : SC_NO_CONTENT_OR_NOT_FOUND);
-    }
+        if (serviceRoot == null)
+        {
+            throw new IllegalStateException("Graph algorithms are only available while connected");
+        }
 
-    private void setPropertiesOnEntity(final Map<String, Object> properties, final BaseEntity entity)
-        throws MuleException
-    {
-        putEntity(entity.getProperties(), properties, SC_NO_CONTENT);
-    }
+        if (graphAlgorithms == null)
+        {
+            final int graphThreads = graphParallelism > 0
+                                                         ? graphParallelism
+                                                         : Runtime.getRuntime().availableProcessors();
+            graphExecutor = new ThreadPoolExecutor(graphThreads, graphThreads, ASYNC_THREAD_KEEP_ALIVE_SECONDS,
+                TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new DaemonThreadFactory(
+                    "neo4j-graph[" + baseUri + "]"));
+            graphExecutor.allowCoreThreadTimeOut(true);
+            graphAlgorithms = new GraphAlgorithms(graphExecutor, graphThreads);
+        }
 
-    private void setPropertyOnEntity(final String key, final Object value, final BaseEntity entity)
-        throws MuleException
-    {
-        putEntity(StringUtils.replace(entity.getProperty(), PROPERTY_KEY_TEMPLATE, key), value, SC_NO_CONTENT);
+        return graphAlgorithms;
     }
 
-    private void deletePropertiesFromEntity(final BaseEntity entity) throws MuleException
+    private synchronized void stopGraphAlgorithms()
     {
-        deleteEntity(entity.getProperties(), SC_NO_CONTENT);
+        if (graphExecutor != null)
+        {
+            // the algorithms still running fail as interrupted
+            graphExecutor.shutdownNow();
+            graphExecutor = null;
+            graphAlgorithms = null;
+        }
     }
 
-    private void deletePropertyFromEntity(final String key,
-                                          final BaseEntity entity,
-                                          final boolean failIfNotFound) throws MuleException
+    /**
+     * Get all the relationship types.
+     * <p>
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:getRelationshipTypes}
+     * 
+     * @return a {@link Collection} of {@link String}, which can be empty but never null.
+     * @throws MuleException if anything goes wrong with the operation.
+     */
+    @Processor
+    public Collection<String> getRelationshipTypes() throws MuleException
     {
-        deleteEntity(StringUtils.replace(entity.getProperty(), PROPERTY_KEY_TEMPLATE, key),
-            failIfNotFound ? SC_NO_CONTENT : SC_NO_CONTENT_OR_NOT_FOUND);
+        return getEntity(getServiceRoot().getRelationshipTypes(), STRINGS_TYPE_REFERENCE, SC_OK);
     }
 
-    private static Data convertMapToData(final Map<String, Object> properties)
+    /**
+     * Add a label to a {@link Node}.
+     * <p>
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:addNodeLabel}
+     * 
+     * @param node the {@link Node} to add a label to.
+     * @param label the label to add.
+     * @throws MuleException if anything goes wrong with the operation.
+     * @since Neo4j 2.0.0
+     */
+    @Processor
+    public void addNodeLabel(@RefOnly final Node node, final String label) throws MuleException
     {
-        final Data data = new Data();
+        ensureVersion2OrAbove();
 
-        if (MapUtils.isNotEmpty(properties))
+        if (writeBehind)
         {
-            data.getAdditionalProperties().putAll(properties);
+            writeBehind(BatchJob.Method.POST, node.getLabels(), label, null, SC_NO_CONTENT);
+            return;
         }
 
-        return data;
+        postEntity(node.getLabels(), label, null, SC_NO_CONTENT);
     }
 
-    private boolean isBeforeVersion2()
+    /**
+     * Add labels to a {@link Node}.
+     * <p>
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:addNodeLabels}
+     * 
+     * @param node the {@link Node} to add labels to.
+     * @param labels a {@link List} of labels to add.
+     * @throws MuleException if anything goes wrong with the operation.
+     * @since Neo4j 2.0.0
+     */
+    @Processor
+    public void addNodeLabels(@RefOnly final Node node, final List<String> labels) throws MuleException
     {
-        return serviceRoot.getNeo4jVersion().compareTo("2") < 0;
+        ensureVersion2OrAbove();
+
+        postEntity(node.getLabels(), labels, null, SC_NO_CONTENT);
     }
 
-    private void ensureVersion2OrAbove() throws DefaultMuleException
+    /**
+     * Set labels of a {@link Node}.
+     * <p>
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:setNodeLabels}
+     * 
+     * @param node the {@link Node} to set labels of.
+     * @param labels a {@link List} of labels to set.
+     * @throws MuleException if anything goes wrong with the operation.
+     * @since Neo4j 2.0.0
+     */
+    @Processor
+    public void setNodeLabels(@RefOnly final Node node, final List<String> labels) throws MuleException
     {
-        if (isBeforeVersion2())
-        {
-            throw new DefaultMuleException("This feature is only available with Neo4j version 2.0 or above");
-        }
+        ensureVersion2OrAbove();
+
+        putEntity(node.getLabels(), labels, SC_NO_CONTENT);
     }
 
-    private void logDeprecatedIn2OrAbove(final String method)
+    /**
+     * Delete a label from a node, never failing even if the label doesn't exist.
+     * <p>
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:deleteNodeLabel}
+     * 
+     * @param node the {@link Node} to delete the label from.
+     * @param label the label to delete.
+     * @throws MuleException if anything goes wrong with the operation.
+     * @since Neo4j 2.0.0
+     */
+    @Processor
+    public void deleteNodeLabel(@RefOnly final Node node, final String label) throws MuleException
     {
-        if (!isBeforeVersion2())
-        {
-            LOGGER.info(method + " is deprecated in Neo4j version 2.0 or above");
-        }
+        ensureVersion2OrAbove();
+
+        deleteEntityByUri(node.getLabels() + "/" + label, true);
     }
 
     /**
-     * Get service root.
+     * Get all the labels of a {@link Node}.
      * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:getServiceRoot}
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:getNodeLabels}
      * 
-     * @return the service root data.
+     * @param node the {@link Node} from which to get the labels.
+     * @return a {@link Collection} of {@link String} representing the labels, never null but
+     *         possible empty.
+     * @throws MuleException if anything goes wrong with the operation.
+     * @since Neo4j 2.0.0
      */
     @Processor
-    public ServiceRoot getServiceRoot()
+    public Collection<String> getNodeLabels(@RefOnly final Node node) throws MuleException
     {
-        return serviceRoot;
+        ensureVersion2OrAbove();
+
+        return getEntity(node.getLabels(), STRINGS_TYPE_REFERENCE, SC_OK);
     }
 
     /**
-     * Run a cypher query.
+     * Get all the {@link Node}s that have a particular label and, optional, a particular property.
      * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:runCypherQuery}
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:getNodesByLabel}
      * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:runCypherQuery-withParams}
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:getNodesByLabel-property}
      * 
-     * @param query the query to execute.
-     * @param params the parameters to use.
-     * @param includeStatistics defines if meta data about the query must be returned.
-     * @param profile defines if a profile of the executed query must be returned.
-     * @return a {@link CypherQueryResult}.
+     * @param label the label to use when searching for nodes.
+     * @param propertyName the property name to use when searching for nodes.
+     * @param propertyValue the property value to use when searching for nodes.
+     * @return a {@link Collection} of {@link Node}, never null but possibly empty.
      * @throws MuleException if anything goes wrong with the operation.
+     * @since Neo4j 2.0.0
      */
     @Processor
-    public CypherQueryResult runCypherQuery(final String query,
-                                            @Optional final Map<String, Object> params,
-                                            @Optional @Default("false") final boolean includeStatistics,
-                                            @Optional @Default("false") final boolean profile)
-        throws MuleException
+    public Collection<Node> getNodesByLabel(final String label,
+                                            @Optional final String propertyName,
+                                            @Optional final Object propertyValue) throws MuleException
     {
-        final CypherQuery cypherQuery = new CypherQuery().withQuery(query);
+        ensureVersion2OrAbove();
 
-        if (MapUtils.isNotEmpty(params))
-        {
-            final CypherQueryParams cypherQueryParams = new CypherQueryParams();
-            cypherQueryParams.getAdditionalProperties().putAll(params);
-            cypherQuery.setParams(cypherQueryParams);
-        }
+        final String uri = StringUtils.replace(serviceRoot.getLabelNodes(), LABEL_TEMPLATE, label);
 
-        return postEntity(serviceRoot.getCypher(), cypherQuery, CYPHER_QUERY_RESULT_TYPE_REFERENCE, SC_OK,
-            "includeStats", includeStatistics, "profile", profile);
+        return getCachedEntity(cachedEntityCollections, uri, NODES_TYPE_REFERENCE, SC_OK_OR_NOT_FOUND,
+            propertyName, serializeEntityToJson(propertyValue));
     }
 
     /**
-     * Get a {@link Node}.
+     * Get all the labels.
      * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:getNodeById}
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:getLabels}
+     * 
+     * @return a {@link Collection} of {@link String} labels, never null but potentially empty.
+     * @throws MuleException if anything goes wrong with the operation.
+     * @since Neo4j 2.0.0
+     */
+    @Processor
+    public Collection<String> getLabels() throws MuleException
+    {
+        ensureVersion2OrAbove();
+
+        return getEntity(getServiceRoot().getNodeLabels(), STRINGS_TYPE_REFERENCE, SC_OK);
+    }
+
+    /**
+     * Create a {@link SchemaIndex}.
      * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:getNodeById-failIfNotFound}
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:createSchemaIndex}
      * 
-     * @param nodeId id of the node to get.
-     * @param failIfNotFound if true, an exception will be thrown if the node is not found,
-     *            otherwise null will be returned.
-     * @return a {@link Node} instance or null.
+     * @param label the label to create the index for.
+     * @param propertyKeys the property key or keys to index.
+     * @return the created {@link SchemaIndex}.
      * @throws MuleException if anything goes wrong with the operation.
+     * @since Neo4j 2.0.0
      */
     @Processor
-    public Node getNodeById(final long nodeId, @Optional @Default("false") final boolean failIfNotFound)
+    public SchemaIndex createSchemaIndex(final String label, final List<String> propertyKeys)
         throws MuleException
     {
-        return getEntity(getNodeUri(nodeId), NODE_TYPE_REFERENCE, failIfNotFound ? SC_OK : SC_OK_OR_NOT_FOUND);
+        ensureVersion2OrAbove();
+
+        Validate.notEmpty(propertyKeys, "propertyKeys can not be empty");
+
+        return postEntity(getSchemaIndexUri(label), new NewSchemaIndex().withPropertyKeys(propertyKeys),
+            SCHEMA_INDEX_TYPE_REFERENCE, SC_OK);
     }
 
     /**
-     * Create a {@link Node}.
-     * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:createNode}
+     * Get the {@link SchemaIndex}es for a particular label.
      * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:createNode-withProperties}
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:getSchemaIndexes}
      * 
-     * @param properties the properties of the node.
-     * @return the created {@link Node} instance.
+     * @param label the label to consider.
+     * @return a {@link Collection} of {@link SchemaIndex} instances, never null but possibly empty
      * @throws MuleException if anything goes wrong with the operation.
+     * @since Neo4j 2.0.0
      */
     @Processor
-    public Node createNode(@Optional final Map<String, Object> properties) throws MuleException
+    public Collection<SchemaIndex> getSchemaIndexes(final String label) throws MuleException
     {
-        return postEntity(serviceRoot.getNode(), properties, NODE_TYPE_REFERENCE, SC_CREATED);
+        ensureVersion2OrAbove();
+
+        return getEntity(getSchemaIndexUri(label), SCHEMA_INDEXES_TYPE_REFERENCE, SC_OK);
     }
 
     /**
-     * Get or create a unique {@link Node}.
+     * Delete a schema index.
      * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:getOrCreateUniqueNode}
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:deleteSchemaIndex}
      * <p>
      * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample
-     * neo4j:getOrCreateUniqueNode-withProperties}
+     * neo4j:deleteSchemaIndex-failIfNotFound}
      * 
-     * @param indexName the name of the index.
-     * @param key the key for the index.
-     * @param value the value for the index's key.
-     * @param properties the properties of the node.
-     * @return the created or pre-existing {@link Node} instance.
+     * @param label the label to delete the schema index from.
+     * @param propertyKey the property key to delete the schema index for.
+     * @param failIfNotFound if true, an exception will be thrown if the schema index is not found
+     *            and couldn't be deleted.
      * @throws MuleException if anything goes wrong with the operation.
+     * @since Neo4j 2.0.0
      */
     @Processor
-    public IndexedNode getOrCreateUniqueNode(final String indexName,
-                                             final String key,
-                                             final String value,
-                                             @Optional final Map<String, Object> properties)
+    public void deleteSchemaIndex(final String label,
+                                  final String propertyKey,
+                                  @Optional @Default("false") final boolean failIfNotFound)
         throws MuleException
     {
-        return postUniqueNodeEntity(indexName, key, value, properties, GET_OR_CREATE_UNIQUENESS,
-            SC_OK_OR_CREATED);
+        ensureVersion2OrAbove();
+
+        deleteEntityByUri(getSchemaIndexUri(label) + "/" + propertyKey, failIfNotFound);
+    }
+
+    private Index createLegacyIndex(final String indexUri,
+                                    final String indexName,
+                                    final String type,
+                                    final String provider) throws MuleException
+    {
+        final NewIndex newNodeIndex = new NewIndex().withName(indexName);
+
+        if ((StringUtils.isNotBlank(type)) || (StringUtils.isNotBlank(provider)))
+        {
+            newNodeIndex.setConfig(new IndexConfiguration().withType(type).withProvider(provider));
+        }
+
+        final Index nodeIndex = postEntity(indexUri, newNodeIndex, INDEX_TYPE_REFERENCE, SC_CREATED);
+        nodeIndex.setName(indexName);
+        return nodeIndex;
     }
 
     /**
-     * Create a unique {@link Node} or fail.
+     * Create a node index.
      * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:createUniqueNodeOrFail}
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:createNodeIndex}
      * <p>
      * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample
-     * neo4j:createUniqueNodeOrFail-withProperties}
+     * neo4j:createNodeIndex-withConfiguration}
      * 
-     * @param indexName the name of the index.
-     * @param key the key for the index.
-     * @param value the value for the index's key.
-     * @param properties the properties of the node.
-     * @return the created or pre-existing {@link Node} instance.
+     * @param indexName the name of the new node index to create.
+     * @param type the type of the new node index.
+     * @param provider the provider for the new node index.
+     * @return the created {@link NodeIndex}.
      * @throws MuleException if anything goes wrong with the operation.
+     * @deprecated since Neo4j 2.0.0
      */
+    @Deprecated
     @Processor
-    public IndexedNode createUniqueNodeOrFail(final String indexName,
-                                              final String key,
-                                              final String value,
-                                              @Optional final Map<String, Object> properties)
-        throws MuleException
+    public Index createNodeIndex(final String indexName,
+                                 @Optional final String type,
+                                 @Optional final String provider) throws MuleException
     {
-        return postUniqueNodeEntity(indexName, key, value, properties, CREATE_OR_FAIL_UNIQUENESS, SC_CREATED);
+        logDeprecatedIn2OrAbove("createNodeIndex");
+
+        return createLegacyIndex(serviceRoot.getNodeIndex(), indexName, type, provider);
     }
 
     /**
-     * Set the properties of a {@link Node}.
+     * Delete a node index.
      * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:setNodeProperties}
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:deleteNodeIndex}
+     * <p>
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:deleteNodeIndex-failIfNotFound}
      * 
-     * @param node the {@link Node} to set properties on.
-     * @param properties the properties of the node.
+     * @param indexName the name of the node index to delete.
+     * @param failIfNotFound if true, an exception will be thrown if the node index is not found and
+     *            couldn't be deleted.
      * @throws MuleException if anything goes wrong with the operation.
+     * @deprecated since Neo4j 2.0.0
      */
+    @Deprecated
     @Processor
-    public void setNodeProperties(@RefOnly final Node node, final Map<String, Object> properties)
+    public void deleteNodeIndex(final String indexName,
+                                @Optional @Default("false") final boolean failIfNotFound)
         throws MuleException
     {
-        setPropertiesOnEntity(properties, node);
+        logDeprecatedIn2OrAbove("deleteNodeIndex");
+
+        deleteEntityByUri(getNodeIndexUri(indexName), failIfNotFound);
     }
 
-    /**
-     * Set a property of a {@link Node}.
-     * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:setNodeProperty}
-     * 
-     * @param node the {@link Node} to set the property on.
-     * @param key the key of the property.
-     * @param value the value of the property.
-     * @throws MuleException if anything goes wrong with the operation.
-     */
-    @Processor
-    public void setNodeProperty(@RefOnly final Node node, final String key, final Object value)
-        throws MuleException
-    {
-        setPropertyOnEntity(key, value, node);
+    private Collection<Index> getLegacyIndexes(final String indexUri) throws MuleException
+    {
+        // the Neo4j returns an object instead of an array for the list of indexes
+        // so we need to manually convert it into a proper collection :(
+        final Map<String, Map<String, String>> rawNodeIndexes = getEntity(indexUri,
+            NODE_INDEXES_TYPE_REFERENCE, SC_OK_OR_NO_CONTENT);
+
+        final List<Index> nodeIndexes = new ArrayList<Index>();
+
+        if (MapUtils.isNotEmpty(rawNodeIndexes))
+        {
+            for (final Entry<String, Map<String, String>> rawNodeIndex : rawNodeIndexes.entrySet())
+            {
+                final Index nodeIndex = new Index().withName(rawNodeIndex.getKey());
+                nodeIndex.setTemplate(rawNodeIndex.getValue().get("template"));
+                nodeIndex.setProvider(rawNodeIndex.getValue().get("provider"));
+                nodeIndex.setType(rawNodeIndex.getValue().get("type"));
+                nodeIndexes.add(nodeIndex);
+            }
+        }
+
+        return nodeIndexes;
     }
 
     /**
-     * Delete a property from a {@link Node}.
-     * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:deleteNodeProperty}
+     * Get all the node indexes.
      * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample
-     * neo4j:deleteNodeProperty-failIfNotFound}
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:getNodeIndexes}
      * 
-     * @param node the {@link Node} to delete the property from.
-     * @param key the key of the property.
-     * @param failIfNotFound if true, an exception will be thrown if the property is not found and
-     *            couldn't be deleted.
+     * @return a {@link Collection} of {@link NodeIndex}es, never null but can be empty.
      * @throws MuleException if anything goes wrong with the operation.
+     * @deprecated since Neo4j 2.0.0
      */
+    @Deprecated
     @Processor
-    public void deleteNodeProperty(@RefOnly final Node node,
-                                   final String key,
-                                   @Optional @Default("false") final boolean failIfNotFound)
-        throws MuleException
+    public Collection<Index> getNodeIndexes() throws MuleException
     {
-        deletePropertyFromEntity(key, node, failIfNotFound);
+        logDeprecatedIn2OrAbove("getNodeIndexes");
+
+        return getLegacyIndexes(serviceRoot.getNodeIndex());
     }
 
     /**
-     * Delete all properties from a {@link Node}.
+     * Add a {@link Node} to an index.
      * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:deleteNodeProperties}
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:addNodeToIndex}
      * 
-     * @param node the {@link Node} to delete properties from.
+     * @param indexName the name of the index to add the node to.
+     * @param node the node to add.
+     * @param key the key to use with the index entry.
+     * @param value the value to use with the index entry.
+     * @return an {@link IndexedNode} instance.
      * @throws MuleException if anything goes wrong with the operation.
+     * @deprecated since Neo4j 2.0.0
      */
+    @Deprecated
     @Processor
-    public void deleteNodeProperties(@RefOnly final Node node) throws MuleException
+    public IndexedNode addNodeToIndex(final String indexName,
+                                      @RefOnly final Node node,
+                                      final String key,
+                                      final String value) throws MuleException
     {
-        deletePropertiesFromEntity(node);
+        logDeprecatedIn2OrAbove("addNodeToIndex");
+
+        final NodeIndexingRequest nodeIndexingRequest = new NodeIndexingRequest().withKey(key)
+            .withValue(value)
+            .withUri(node.getSelf());
+
+        return postEntity(getNodeIndexUri(indexName), nodeIndexingRequest, INDEXED_NODE_TYPE_REFERENCE,
+            SC_CREATED);
     }
 
     /**
-     * Delete a {@link Node}.
+     * Remove node index entries.
      * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:deleteNodeById}
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:removeNodeIndexEntries}
      * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:deleteNodeById-failIfNotFound}
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample
+     * neo4j:removeNodeIndexEntries-failIfNotFound}
+     * <p>
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:removeNodeIndexEntries-key}
+     * <p>
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample
+     * neo4j:removeNodeIndexEntries-keyAndValue}
      * 
-     * @param nodeId id of the node to delete.
-     * @param failIfNotFound if true, an exception will be thrown if the node is not found and
-     *            couldn't be deleted.
+     * @param indexName the name of the index to remove entries from.
+     * @param node the node for which entries will be removed.
+     * @param key the key for which entries will be removed.
+     * @param value the value for which entries will be removed.
+     * @param failIfNotFound if true, an exception will be thrown if no index entry can be deleted.
      * @throws MuleException if anything goes wrong with the operation.
+     * @deprecated since Neo4j 2.0.0
      */
+    @Deprecated
     @Processor
-    public void deleteNodeById(final long nodeId, @Optional @Default("false") final boolean failIfNotFound)
+    public void removeNodeIndexEntries(final String indexName,
+                                       @RefOnly final Node node,
+                                       @Optional final String key,
+                                       @Optional final String value,
+                                       @Optional @Default("false") final boolean failIfNotFound)
         throws MuleException
     {
-        deleteEntityByUri(getNodeUri(nodeId), failIfNotFound);
+        logDeprecatedIn2OrAbove("removeNodeIndexEntries");
+
+        final StringBuilder uriBuilder = new StringBuilder(getNodeIndexUri(indexName));
+
+        if (StringUtils.isNotBlank(key))
+        {
+            uriBuilder.append("/").append(key);
+
+            if (StringUtils.isNotBlank(value))
+            {
+                uriBuilder.append("/").append(value);
+            }
+        }
+
+        uriBuilder.append("/").append(node.getId());
+
+        deleteEntityByUri(uriBuilder.toString(), failIfNotFound);
     }
 
     /**
-     * Delete a {@link Node}.
-     * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:deleteNode}
+     * Find nodes by exact index match.
      * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:deleteNode-failIfNotFound}
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:findNodesByIndex}
      * 
-     * @param node the {@link Node} to delete.
-     * @param failIfNotFound if true, an exception will be thrown if the node is not found and
-     *            couldn't be deleted.
+     * @param indexName the name of the index to use for the search.
+     * @param key the key to use.
+     * @param value the value to use.
+     * @return a {@link Collection} of {@link IndexedNode}s, never null but possibly empty.
      * @throws MuleException if anything goes wrong with the operation.
+     * @deprecated since Neo4j 2.0.0
      */
+    @Deprecated
     @Processor
-    @Inject
-    public void deleteNode(@RefOnly final Node node, @Optional @Default("false") final boolean failIfNotFound)
-        throws MuleException
+    public Collection<IndexedNode> findNodesByIndex(final String indexName,
+                                                    final String key,
+                                                    final String value) throws MuleException
     {
-        deleteEntity(node, failIfNotFound);
+        logDeprecatedIn2OrAbove("findNodesByIndex");
+
+        return getCachedEntity(cachedEntityCollections, getNodeIndexUri(indexName) + "/" + key + "/" + value,
+            INDEXED_NODES_TYPE_REFERENCE, SC_OK);
     }
 
     /**
-     * Get a {@link Relationship}.
-     * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:getRelationshipById}
+     * Find nodes by exact match on an auto-index.
      * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample
-     * neo4j:getRelationshipById-failIfNotFound}
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:findNodesByAutoIndex}
      * 
-     * @param relationshipId the ID of the relationship to retrieve.
-     * @param failIfNotFound if true, an exception will be thrown if the node is not found,
-     *            otherwise null will be returned.
-     * @return a {@link Relationship} or null.
+     * @param key the key to use.
+     * @param value the value to use.
+     * @return a {@link Collection} of {@link IndexedNode}s, never null but possibly empty.
      * @throws MuleException if anything goes wrong with the operation.
+     * @deprecated since Neo4j 2.0.0
      */
+    @Deprecated
     @Processor
-    public Relationship getRelationshipById(final long relationshipId,
-                                            @Optional @Default("false") final boolean failIfNotFound)
+    public Collection<IndexedNode> findNodesByAutoIndex(final String key, final String value)
         throws MuleException
     {
-        return getEntity(getRelationshipUri(relationshipId), RELATIONSHIP_TYPE_REFERENCE,
-            failIfNotFound ? SC_OK : SC_OK_OR_NOT_FOUND);
+        logDeprecatedIn2OrAbove("findNodesByAutoIndex");
+
+        return getCachedEntity(cachedEntityCollections,
+            getServiceRoot().getNodeAutoIndex() + "/" + key + "/" + value, INDEXED_NODES_TYPE_REFERENCE, SC_OK);
     }
 
     /**
-     * Create a {@link Relationship}.
+     * Find nodes by index query.
      * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:createRelationship}
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:findNodesByQuery}
      * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample
-     * neo4j:createRelationship-withProperties}
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:findNodesByQuery-order}
      * 
-     * @param fromNode the node where the relationship starts.
-     * @param toNode the node where the relationship ends.
-     * @param type the type of relationship.
-     * @param properties the properties of the relationship.
-     * @return the created {@link Relationship} instance.
+     * @param indexName the name of the index to use for the search.
+     * @param query the query to run.
+     * @param order the desired {@link QueryResultOrder}.
+     * @return a {@link Collection} of {@link IndexedNode}s, never null but possibly empty.
      * @throws MuleException if anything goes wrong with the operation.
+     * @deprecated since Neo4j 2.0.0
      */
+    @Deprecated
     @Processor
-    public Relationship createRelationship(@RefOnly final Node fromNode,
-                                           @RefOnly final Node toNode,
-                                           final String type,
-                                           @Optional final Map<String, Object> properties)
+    public Collection<IndexedNode> findNodesByQuery(final String indexName,
+                                                    final String query,
+                                                    @Optional final QueryResultOrder order)
         throws MuleException
     {
-        final Data data = convertMapToData(properties);
-
-        final NewRelationship newRelationship = new NewRelationship().withType(type)
-            .withTo(toNode.getSelf())
-            .withData(data);
+        logDeprecatedIn2OrAbove("findNodesByIndex");
 
-        return postEntity(fromNode.getCreateRelationship(), newRelationship, RELATIONSHIP_TYPE_REFERENCE,
-            SC_CREATED);
+        return getCachedEntity(cachedEntityCollections, getNodeIndexUri(indexName),
+            INDEXED_NODES_TYPE_REFERENCE, SC_OK, "query", query, "order",
+            order == null ? null : order.toString().toLowerCase());
     }
 
     /**
-     * Get or create a unique {@link Relationship}.
+     * Find nodes by query on an auto-index.
      * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:getOrCreateUniqueRelationship}
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:findNodesByAutoIndexQuery}
      * 
-     * @param relationshipName the name of the relationship.
-     * @param type the type of the relationship.
-     * @param key the index key.
-     * @param value the index value.
-     * @param startNode the start {@link Node}.
-     * @param endNode the end {@link Node}.
-     * @return the pre-existing or created {@link Relationship} instance.
+     * @param query the query to run.
+     * @return a {@link Collection} of {@link IndexedNode}s, never null but possibly empty.
      * @throws MuleException if anything goes wrong with the operation.
+     * @deprecated since Neo4j 2.0.0
      */
+    @Deprecated
     @Processor
-    public IndexedRelationship getOrCreateUniqueRelationship(final String relationshipName,
-                                                             final String type,
-                                                             final String key,
-                                                             final String value,
-                                                             @RefOnly final Node startNode,
-                                                             @RefOnly final Node endNode
-
-    ) throws MuleException
+    public Collection<IndexedNode> findNodesByAutoIndexQuery(final String query) throws MuleException
     {
-        return postUniqueRelationshipEntity(relationshipName, type, key, value, startNode, endNode,
-            GET_OR_CREATE_UNIQUENESS, SC_OK_OR_CREATED);
+        logDeprecatedIn2OrAbove("findNodesByAutoIndexQuery");
+
+        return getCachedEntity(cachedEntityCollections, getServiceRoot().getNodeAutoIndex(),
+            INDEXED_NODES_TYPE_REFERENCE, SC_OK, "query", query);
     }
 
     /**
-     * Create a unique {@link Relationship} or fail.
+     * Create a relationship index.
      * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:createUniqueRelationshipOrFail}
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:createRelationshipIndex}
+     * <p>
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample
+     * neo4j:createRelationshipIndex-withConfiguration}
      * 
-     * @param relationshipName the name of the relationship.
-     * @param type the type of the relationship.
-     * @param key the index key.
-     * @param value the index value.
-     * @param startNode the start {@link Node}.
-     * @param endNode the end {@link Node}.
-     * @return the created {@link Relationship} instance.
+     * @param indexName the name of the new node index to create.
+     * @param type the type of the new node index.
+     * @param provider the provider for the new node index.
+     * @return the created {@link NodeIndex}.
      * @throws MuleException if anything goes wrong with the operation.
+     * @deprecated since Neo4j 2.0.0
      */
+    @Deprecated
     @Processor
-    public IndexedRelationship createUniqueRelationshipOrFail(final String relationshipName,
-                                                              final String type,
-                                                              final String key,
-                                                              final String value,
-                                                              @RefOnly final Node startNode,
-                                                              @RefOnly final Node endNode
-
-    ) throws MuleException
+    public Index createRelationshipIndex(final String indexName,
+                                         @Optional final String type,
+                                         @Optional final String provider) throws MuleException
     {
-        return postUniqueRelationshipEntity(relationshipName, type, key, value, startNode, endNode,
-            CREATE_OR_FAIL_UNIQUENESS, SC_CREATED);
+        logDeprecatedIn2OrAbove("createRelationshipIndex");
+
+        return createLegacyIndex(serviceRoot.getRelationshipIndex(), indexName, type, provider);
     }
 
     /**
-     * Delete a {@link Relationship}.
-     * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:deleteRelationshipById}
+     * Get all the relationship indexes.
      * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample
-     * neo4j:deleteRelationshipById-failIfNotFound}
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:getRelationshipIndexes}
      * 
-     * @param relationshipId the ID of the relationship to delete.
-     * @param failIfNotFound if true, an exception will be thrown if the relationship is not found
-     *            and couldn't be deleted.
+     * @return a {@link Collection} of {@link NodeIndex}es, never null but can be empty.
      * @throws MuleException if anything goes wrong with the operation.
+     * @deprecated since Neo4j 2.0.0
      */
+    @Deprecated
     @Processor
-    public void deleteRelationshipById(final long relationshipId,
-                                       @Optional @Default("false") final boolean failIfNotFound)
-        throws MuleException
+    public Collection<Index> getRelationshipIndexes() throws MuleException
     {
-        deleteEntityByUri(getRelationshipUri(relationshipId), failIfNotFound);
+        logDeprecatedIn2OrAbove("getRelationshipIndexes");
+
+        return getLegacyIndexes(serviceRoot.getRelationshipIndex());
     }
 
     /**
-     * Delete a {@link Relationship}.
+     * Delete a relationship index.
      * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:deleteRelationship}
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:deleteRelationshipIndex}
      * <p>
      * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample
-     * neo4j:deleteRelationship-failIfNotFound}
+     * neo4j:deleteRelationshipIndex-failIfNotFound}
      * 
-     * @param relationship the {@link Relationship} to delete.
-     * @param failIfNotFound if true, an exception will be thrown if the relationship is not found
-     *            and couldn't be deleted.
+     * @param indexName the name of the node index to delete.
+     * @param failIfNotFound if true, an exception will be thrown if the node index is not found and
+     *            couldn't be deleted.
      * @throws MuleException if anything goes wrong with the operation.
+     * @deprecated since Neo4j 2.0.0
      */
+    @Deprecated
     @Processor
-    public void deleteRelationship(@RefOnly final Relationship relationship,
-                                   @Optional @Default("false") final boolean failIfNotFound)
+    public void deleteRelationshipIndex(final String indexName,
+                                        @Optional @Default("false") final boolean failIfNotFound)
         throws MuleException
     {
-        deleteEntity(relationship, failIfNotFound);
+        logDeprecatedIn2OrAbove("deleteRelationshipIndex");
+
+        deleteEntityByUri(getRelationshipIndexUri(indexName), failIfNotFound);
     }
 
     /**
-     * Set the properties of a {@link Relationship}.
+     * Get current status for autoindexing on nodes.
      * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:setRelationshipProperties}
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:getAutoindexingStatus}
      * 
-     * @param relationship the {@link Relationship} to set properties on.
-     * @param properties the properties to set.
+     * @return an {@link Neo4jConnector#AutoIndexingStatus}.
      * @throws MuleException if anything goes wrong with the operation.
+     * @deprecated since Neo4j 2.0.0
      */
+    @Deprecated
     @Processor
-    public void setRelationshipProperties(@RefOnly final Relationship relationship,
-                                          final Map<String, Object> properties) throws MuleException
+    public AutoIndexingStatus getAutoindexingStatus() throws MuleException
     {
-        setPropertiesOnEntity(properties, relationship);
+        logDeprecatedIn2OrAbove("getAutoindexingStatus");
+
+        final Boolean isEnabled = getEntity(getAutoIndexingStatusUri(), BOOLEAN_TYPE_REFERENCE, SC_OK);
+        return isEnabled ? AutoIndexingStatus.ENABLED : AutoIndexingStatus.DISABLED;
     }
 
     /**
-     * Set one property of a {@link Relationship}.
+     * Enable or disable node autoindexing.
      * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:setRelationshipProperty}
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:setAutoindexingStatus}
      * 
-     * @param relationship the {@link Relationship} to set a property on.
-     * @param key the property key.
-     * @param value the property value.
+     * @param status an {@link Neo4jConnector#AutoIndexingStatus}.
      * @throws MuleException if anything goes wrong with the operation.
+     * @deprecated since Neo4j 2.0.0
      */
+    @Deprecated
     @Processor
-    public void setRelationshipProperty(@RefOnly final Relationship relationship,
-                                        final String key,
-                                        final Object value) throws MuleException
+    public void setAutoindexingStatus(final AutoIndexingStatus status) throws MuleException
     {
-        setPropertyOnEntity(key, value, relationship);
+        logDeprecatedIn2OrAbove("setAutoindexingStatus");
+
+        final Boolean shouldEnable = status == AutoIndexingStatus.ENABLED ? Boolean.TRUE : Boolean.FALSE;
+        putEntity(getAutoIndexingStatusUri(), shouldEnable, SC_NO_CONTENT);
     }
 
     /**
-     * Delete one property of a {@link Relationship}.
+     * Get the properties being autoindexed.
      * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:deleteRelationshipProperty}
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:getAutoindexingProperties}
      * 
-     * @param relationship the {@link Relationship} to delete from.
-     * @param key the key of the property.
-     * @param failIfNotFound if true, an exception will be thrown if the property is not found and
-     *            couldn't be deleted.
+     * @return a {@link Collection} of {@link String} instances, never null but potentially empty.
      * @throws MuleException if anything goes wrong with the operation.
+     * @deprecated since Neo4j 2.0.0
      */
+    @Deprecated
     @Processor
-    public void deleteRelationshipProperty(@RefOnly final Relationship relationship,
-                                           final String key,
-                                           @Optional @Default("false") final boolean failIfNotFound)
-        throws MuleException
+    public Collection<String> getAutoindexingProperties() throws MuleException
     {
-        deletePropertyFromEntity(key, relationship, failIfNotFound);
+        logDeprecatedIn2OrAbove("getAutoindexingProperties");
+
+        return getEntity(getAutoIndexingPropertiesUri(), STRINGS_TYPE_REFERENCE, SC_OK);
     }
 
     /**
-     * Delete all properties of a {@link Relationship}.
+     * Add a property for autoindexing on nodes.
      * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:deleteRelationshipProperties}
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:addAutoindexingProperty}
      * 
-     * @param relationship the {@link Relationship} to delete from.
+     * @param propertyName the property to add.
      * @throws MuleException if anything goes wrong with the operation.
+     * @deprecated since Neo4j 2.0.0
      */
+    @Deprecated
     @Processor
-    public void deleteRelationshipProperties(@RefOnly final Relationship relationship) throws MuleException
+    public void addAutoindexingProperty(final String propertyName) throws MuleException
     {
-        deletePropertiesFromEntity(relationship);
+        logDeprecatedIn2OrAbove("addAutoindexingProperty");
+
+        postEntity(getAutoIndexingPropertiesUri(), propertyName, null, SC_NO_CONTENT);
     }
 
     /**
-     * Get the relationships for a particular {@link Node}.
-     * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:getNodeRelationships}
-     * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:getNodeRelationships-singleType}
+     * Delete a property for autoindexing on nodes.
      * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample
-     * neo4j:getNodeRelationships-multipleTypes}
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:deleteAutoindexingProperty}
      * 
-     * @param node the {@link Node} for which relationships are considered.
-     * @param direction the {@link RelationshipDirection} to use.
-     * @param types the relationship types to look for.
-     * @return a {@link Collection} of {@link Relationship}, which can be empty but never null.
+     * @param propertyName the property to remove.
      * @throws MuleException if anything goes wrong with the operation.
+     * @deprecated since Neo4j 2.0.0
      */
+    @Deprecated
     @Processor
-    public Collection<Relationship> getNodeRelationships(@RefOnly final Node node,
-                                                         final RelationshipDirection direction,
-                                                         @Optional final List<String> types)
-        throws MuleException
+    public void deleteAutoindexingProperty(final String propertyName) throws MuleException
     {
+        logDeprecatedIn2OrAbove("deleteAutoindexingProperty");
 
-        String relationshipsUri;
-
-        if (CollectionUtils.isEmpty(types))
-        {
-            relationshipsUri = direction.getRelationshipsUri(node);
-        }
-        else
-        {
-            final String relationshipsUriPattern = direction.getTypeRelationshipsUriPattern(node);
-            relationshipsUri = StringUtils.replace(relationshipsUriPattern, TYPE_LIST_TEMPLATE,
-                StringUtils.join(types, '&'));
-        }
-
-        return getEntity(relationshipsUri, RELATIONSHIPS_TYPE_REFERENCE, SC_OK);
+        deleteEntityByUri(getAutoIndexingPropertiesUri() + propertyName, false);
     }
 
-    /**
-     * Get all the relationship types.
-     * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:getRelationshipTypes}
-     * 
-     * @return a {@link Collection} of {@link String}, which can be empty but never null.
-     * @throws MuleException if anything goes wrong with the operation.
-     */
-    @Processor
-    public Collection<String> getRelationshipTypes() throws MuleException
+    private <T> Collection<T> traverse(final Node node,
+                                       final TraversalQuery.Order order,
+                                       final TraversalQuery.Uniqueness uniqueness,
+                                       final Integer maxDepth,
+                                       final List<RelationshipQuery> relationships,
+                                       final TraversalScript returnFilter,
+                                       final TraversalScript pruneEvaluator,
+                                       final TraversalResult traversalResult,
+                                       final TypeReference<Collection<T>> responseType) throws MuleException
     {
-        return getEntity(getServiceRoot().getRelationshipTypes(), STRINGS_TYPE_REFERENCE, SC_OK);
+        final String traverseUri = StringUtils.replace(node.getTraverse(), RETURN_TYPE_TEMPLATE,
+            traversalResult.toString().toLowerCase());
+
+        final TraversalQuery traversalQuery = new TraversalQuery().withOrder(order)
+            .withUniqueness(uniqueness)
+            .withMaxDepth(maxDepth)
+            .withRelationships(relationships)
+            .withPruneEvaluator(pruneEvaluator)
+            .withReturnFilter(returnFilter);
+
+        return postEntity(traverseUri, traversalQuery, responseType, SC_OK);
     }
 
     /**
-     * Add a label to a {@link Node}.
+     * Perform a node traversal, returning {@link Node} instances.
      * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:addNodeLabel}
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:traverseForNodes}
      * 
-     * @param node the {@link Node} to add a label to.
-     * @param label the label to add.
+     * @param node the start {@link Node}.
+     * @param order the order to visit the nodes.
+     * @param uniqueness how uniquess should be calculated.
+     * @param maxDepth the maximum depth from the start node after which results must be pruned.
+     * @param relationships the relationship types and directions that must be followed.
+     * @param returnFilter a filter that determines if the current position should be included in
+     *            the result.
+     * @param pruneEvaluator an evaluator that determines of traversal should stop or continue.
+     * @return a {@link Collection} of {@link Node}, never null but potentially empty.
      * @throws MuleException if anything goes wrong with the operation.
-     * @since Neo4j 2.0.0
      */
     @Processor
-    public void addNodeLabel(@RefOnly final Node node, final String label) throws MuleException
+    public Collection<Node> traverseForNodes(@RefOnly final Node node,
+                                             final TraversalQuery.Order order,
+                                             final TraversalQuery.Uniqueness uniqueness,
+                                             @Optional final Integer maxDepth,
+                                             @Optional final List<RelationshipQuery> relationships,
+                                             @Optional final TraversalScript returnFilter,
+                                             @Optional final TraversalScript pruneEvaluator)
+        throws MuleException
     {
-        ensureVersion2OrAbove();
-
-        postEntity(node.getLabels(), label, null, SC_NO_CONTENT);
+        return traverse(node, order, uniqueness, maxDepth, relationships, returnFilter, pruneEvaluator,
+            TraversalResult.NODE, NODES_TYPE_REFERENCE);
     }
 
     /**
-     * Add labels to a {@link Node}.
+     * Perform a node traversal, returning {@link Relationship} instances.
      * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:addNodeLabels}
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:traverseForRelationships}
      * 
-     * @param node the {@link Node} to add labels to.
-     * @param labels a {@link List} of labels to add.
+     * @param node the start {@link Node}.
+     * @param order the order to visit the nodes.
+     * @param uniqueness how uniquess should be calculated.
+     * @param maxDepth the maximum depth from the start node after which results must be pruned.
+     * @param relationships the relationship types and directions that must be followed.
+     * @param returnFilter a filter that determines if the current position should be included in
+     *            the result.
+     * @param pruneEvaluator an evaluator that determines of traversal should stop or continue.
+     * @return a {@link Collection} of {@link Relationship}, never null but potentially empty.
      * @throws MuleException if anything goes wrong with the operation.
-     * @since Neo4j 2.0.0
      */
     @Processor
-    public void addNodeLabels(@RefOnly final Node node, final List<String> labels) throws MuleException
+    public Collection<Relationship> traverseForRelationships(@RefOnly final Node node,
+                                                             final TraversalQuery.Order order,
+                                                             final TraversalQuery.Uniqueness uniqueness,
+                                                             @Optional final Integer maxDepth,
+                                                             @Optional final List<RelationshipQuery> relationships,
+                                                             @Optional final TraversalScript returnFilter,
+                                                             @Optional final TraversalScript pruneEvaluator)
+        throws MuleException
     {
-        ensureVersion2OrAbove();
-
-        postEntity(node.getLabels(), labels, null, SC_NO_CONTENT);
+        return traverse(node, order, uniqueness, maxDepth, relationships, returnFilter, pruneEvaluator,
+            TraversalResult.RELATIONSHIP, RELATIONSHIPS_TYPE_REFERENCE);
     }
 
     /**
-     * Set labels of a {@link Node}.
+     * Perform a node traversal, returning {@link Path} instances.
      * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:setNodeLabels}
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:traverseForPaths}
      * 
-     * @param node the {@link Node} to set labels of.
-     * @param labels a {@link List} of labels to set.
+     * @param node the start {@link Node}.
+     * @param order the order to visit the nodes.
+     * @param uniqueness how uniquess should be calculated.
+     * @param maxDepth the maximum depth from the start node after which results must be pruned.
+     * @param relationships the relationship types and directions that must be followed.
+     * @param returnFilter a filter that determines if the current position should be included in
+     *            the result.
+     * @param pruneEvaluator an evaluator that determines of traversal should stop or continue.
+     * @return a {@link Collection} of {@link Path}, never null but potentially empty.
      * @throws MuleException if anything goes wrong with the operation.
-     * @since Neo4j 2.0.0
      */
     @Processor
-    public void setNodeLabels(@RefOnly final Node node, final List<String> labels) throws MuleException
+    public Collection<Path> traverseForPaths(@RefOnly final Node node,
+                                             final TraversalQuery.Order order,
+                                             final TraversalQuery.Uniqueness uniqueness,
+                                             @Optional final Integer maxDepth,
+                                             @Optional final List<RelationshipQuery> relationships,
+                                             @Optional final TraversalScript returnFilter,
+                                             @Optional final TraversalScript pruneEvaluator)
+        throws MuleException
     {
-        ensureVersion2OrAbove();
-
-        putEntity(node.getLabels(), labels, SC_NO_CONTENT);
+        return traverse(node, order, uniqueness, maxDepth, relationships, returnFilter, pruneEvaluator,
+            TraversalResult.PATH, PATHS_TYPE_REFERENCE);
     }
 
     /**
-     * Delete a label from a node, never failing even if the label doesn't exist.
+     * Perform a node traversal, returning {@link Fullpath} instances.
      * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:deleteNodeLabel}
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:traverseForFullpaths}
      * 
-     * @param node the {@link Node} to delete the label from.
-     * @param label the label to delete.
+     * @param node the start {@link Node}.
+     * @param order the order to visit the nodes.
+     * @param uniqueness how uniquess should be calculated.
+     * @param maxDepth the maximum depth from the start node after which results must be pruned.
+     * @param relationships the relationship types and directions that must be followed.
+     * @param returnFilter a filter that determines if the current position should be included in
+     *            the result.
+     * @param pruneEvaluator an evaluator that determines of traversal should stop or continue.
+     * @return a {@link Collection} of {@link Fullpath}, never null but potentially empty.
      * @throws MuleException if anything goes wrong with the operation.
-     * @since Neo4j 2.0.0
      */
     @Processor
-    public void deleteNodeLabel(@RefOnly final Node node, final String label) throws MuleException
+    public Collection<Fullpath> traverseForFullpaths(@RefOnly final Node node,
+                                                     final TraversalQuery.Order order,
+                                                     final TraversalQuery.Uniqueness uniqueness,
+                                                     @Optional final Integer maxDepth,
+                                                     @Optional final List<RelationshipQuery> relationships,
+                                                     @Optional final TraversalScript returnFilter,
+                                                     @Optional final TraversalScript pruneEvaluator)
+        throws MuleException
     {
-        ensureVersion2OrAbove();
+        return traverse(node, order, uniqueness, maxDepth, relationships, returnFilter, pruneEvaluator,
+            TraversalResult.FULLPATH, FULLPATHS_TYPE_REFERENCE);
+    }
 
-        deleteEntityByUri(node.getLabels() + "/" + label, true);
+    private <T> void traversePaged(final Node node,
+                                   final TraversalQuery.Order order,
+                                   final TraversalQuery.Uniqueness uniqueness,
+                                   final Integer maxDepth,
+                                   final List<RelationshipQuery> relationships,
+                                   final TraversalScript returnFilter,
+                                   final TraversalScript pruneEvaluator,
+                                   final int pageSize,
+                                   final int leaseTimeSeconds,
+                                   final int prefetchPages,
+                                   final MuleEvent muleEvent,
+                                   final SourceCallback sourceCallback,
+                                   final TraversalResult traversalResult,
+                                   final TypeReference<Collection<T>> responseType) throws MuleException
+    {
+        final String pagedTraverseUri = StringUtils.replace(node.getPagedTraverse(),
+            RETURN_TYPE_TEMPLATE + PAGINATION_PARAMS_TEMPLATE, traversalResult.toString().toLowerCase());
+
+        final TraversalQuery traversalQuery = new TraversalQuery().withOrder(order)
+            .withUniqueness(uniqueness)
+            .withMaxDepth(maxDepth)
+            .withRelationships(relationships)
+            .withPruneEvaluator(pruneEvaluator)
+            .withReturnFilter(returnFilter);
+
+        final HttpResponse<Collection<T>> httpResponse = sendRequestWithEntity(HttpConstants.METHOD_POST,
+            pagedTraverseUri, traversalQuery, responseType, SC_CREATED, "pageSize", pageSize, "leaseTime",
+            leaseTimeSeconds);
+
+        final String nextPageUri = httpResponse.getHeaders().get(HttpConstants.HEADER_LOCATION);
+
+        // when prefetching, the next pages are fetched while the initial one is dispatched
+        PagePrefetcher<T> pagePrefetcher = null;
+        if (prefetchPages > 0)
+        {
+            pagePrefetcher = new PagePrefetcher<T>(new PagePrefetcher.PageFetcher<T>()
+            {
+                public Collection<T> fetchNextPage() throws MuleException
+                {
+                    return getEntity(nextPageUri, responseType, SC_OK_OR_NOT_FOUND);
+                }
+            }, prefetchPages, leaseTimeSeconds);
+
+            pagePrefetcher.start(new DaemonThreadFactory("neo4j-prefetch[" + baseUri + "]"));
+        }
+
+        try
+        {
+            // dispatch the initial response
+            final DefaultMuleEvent initialResponseEvent = new DefaultMuleEvent(new DefaultMuleMessage(
+                httpResponse.getEntity(), muleEvent.getMessage(), muleContext), muleEvent);
+
+            sourceCallback.processEvent(initialResponseEvent);
+
+            // fetch and dispatch the next pages until 404
+            Collection<T> nextPage;
+            while ((nextPage = pagePrefetcher == null
+                                                     ? getEntity(nextPageUri, responseType,
+                                                         SC_OK_OR_NOT_FOUND)
+                                                     : pagePrefetcher.nextPage()) != null)
+            {
+                final DefaultMuleEvent nextPageResponseEvent = new DefaultMuleEvent(new DefaultMuleMessage(
+                    nextPage, muleEvent.getMessage(), muleContext), muleEvent);
+
+                sourceCallback.processEvent(nextPageResponseEvent);
+            }
+        }
+        finally
+        {
+            if (pagePrefetcher != null)
+            {
+                pagePrefetcher.stop();
+            }
+        }
     }
 
     /**
-     * Get all the labels of a {@link Node}.
+     * Perform a paged node traversal, dispatching {@link Node} instances to the rest of the flow.
      * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:getNodeLabels}
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:traverseForNodesWithPaging}
+     * <p>
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample
+     * neo4j:traverseForNodesWithPaging-withPrefetching}
      * 
-     * @param node the {@link Node} from which to get the labels.
-     * @return a {@link Collection} of {@link String} representing the labels, never null but
-     *         possible empty.
+     * @param node the start {@link Node}.
+     * @param order the order to visit the nodes.
+     * @param uniqueness how uniquess should be calculated.
+     * @param maxDepth the maximum depth from the start node after which results must be pruned.
+     * @param relationships the relationship types and directions that must be followed.
+     * @param returnFilter a filter that determines if the current position should be included in
+     *            the result.
+     * @param pruneEvaluator an evaluator that determines of traversal should stop or continue.
+     * @param pageSize the size of the result page.
+     * @param leaseTimeSeconds the time during which the paged results will be accessible.
+     * @param prefetchPages the number of pages to fetch in the background ahead of the rest of the
+     *            flow, zero meaning that each page is fetched once the previous one has been
+     *            processed. All these pages must be processed within leaseTimeSeconds.
+     * @param muleEvent the {@link MuleEvent} being processed.
+     * @param sourceCallback the {@link SourceCallback} invoked for each result page.
+     * @return a {@link Collection} of {@link Node}, never null but potentially empty.
      * @throws MuleException if anything goes wrong with the operation.
-     * @since Neo4j 2.0.0
      */
-    @Processor
-    public Collection<String> getNodeLabels(@RefOnly final Node node) throws MuleException
+    @Processor(intercepting = true)
+    @Inject
+    public void traverseForNodesWithPaging(@RefOnly final Node node,
+                                           final TraversalQuery.Order order,
+                                           final TraversalQuery.Uniqueness uniqueness,
+                                           @Optional final Integer maxDepth,
+                                           @Optional final List<RelationshipQuery> relationships,
+                                           @Optional final TraversalScript returnFilter,
+                                           @Optional final TraversalScript pruneEvaluator,
+                                           @Optional @Default("50") final int pageSize,
+                                           @Optional @Default("60") final int leaseTimeSeconds,
+                                           @Optional @Default("0") final int prefetchPages,
+                                           final MuleEvent muleEvent,
+                                           final SourceCallback sourceCallback) throws MuleException
     {
-        ensureVersion2OrAbove();
-
-        return getEntity(node.getLabels(), STRINGS_TYPE_REFERENCE, SC_OK);
+        traversePaged(node, order, uniqueness, maxDepth, relationships, returnFilter, pruneEvaluator,
+            pageSize, leaseTimeSeconds, prefetchPages, muleEvent, sourceCallback, TraversalResult.NODE,
+            NODES_TYPE_REFERENCE);
     }
 
     /**
-     * Get all the {@link Node}s that have a particular label and, optional, a particular property.
-     * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:getNodesByLabel}
+     * Perform a paged node traversal, dispatching {@link Relationship} instances to the rest of the
+     * flow.
      * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:getNodesByLabel-property}
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample
+     * neo4j:traverseForRelationshipsWithPaging}
      * 
-     * @param label the label to use when searching for nodes.
-     * @param propertyName the property name to use when searching for nodes.
-     * @param propertyValue the property value to use when searching for nodes.
-     * @return a {@link Collection} of {@link Node}, never null but possibly empty.
+     * @param node the start {@link Node}.
+     * @param order the order to visit the nodes.
+     * @param uniqueness how uniquess should be calculated.
+     * @param maxDepth the maximum depth from the start node after which results must be pruned.
+     * @param relationships the relationship types and directions that must be followed.
+     * @param returnFilter a filter that determines if the current position should be included in
+     *            the result.
+     * @param pruneEvaluator an evaluator that determines of traversal should stop or continue.
+     * @param pageSize the size of the result page.
+     * @param leaseTimeSeconds the time during which the paged results will be accessible.
+     * @param prefetchPages the number of pages to fetch in the background ahead of the rest of the
+     *            flow, zero meaning that each page is fetched once the previous one has been
+     *            processed. All these pages must be processed within leaseTimeSeconds.
+     * @param muleEvent the {@link MuleEvent} being processed.
+     * @param sourceCallback the {@link SourceCallback} invoked for each result page.
+     * @return a {@link Collection} of {@link Node}, never null but potentially empty.
      * @throws MuleException if anything goes wrong with the operation.
-     * @since Neo4j 2.0.0
      */
-    @Processor
-    public Collection<Node> getNodesByLabel(final String label,
-                                            @Optional final String propertyName,
-                                            @Optional final Object propertyValue) throws MuleException
+    @Processor(intercepting = true)
+    @Inject
+    public void traverseForRelationshipsWithPaging(@RefOnly final Node node,
+                                                   final TraversalQuery.Order order,
+                                                   final TraversalQuery.Uniqueness uniqueness,
+                                                   @Optional final Integer maxDepth,
+                                                   @Optional final List<RelationshipQuery> relationships,
+                                                   @Optional final TraversalScript returnFilter,
+                                                   @Optional final TraversalScript pruneEvaluator,
+                                                   @Optional @Default("50") final int pageSize,
+                                                   @Optional @Default("60") final int leaseTimeSeconds,
+                                                   @Optional @Default("0") final int prefetchPages,
+                                                   final MuleEvent muleEvent,
+                                                   final SourceCallback sourceCallback) throws MuleException
     {
-        ensureVersion2OrAbove();
-
-        final String uri = StringUtils.replace(serviceRoot.getLabelNodes(), LABEL_TEMPLATE, label);
-
-        return getEntity(uri, NODES_TYPE_REFERENCE, SC_OK_OR_NOT_FOUND, propertyName,
-            serializeEntityToJson(propertyValue));
+        traversePaged(node, order, uniqueness, maxDepth, relationships, returnFilter, pruneEvaluator,
+            pageSize, leaseTimeSeconds, prefetchPages, muleEvent, sourceCallback,
+            TraversalResult.RELATIONSHIP, RELATIONSHIPS_TYPE_REFERENCE);
     }
 
     /**
-     * Get all the labels.
+     * Perform a paged node traversal, dispatching {@link Path} instances to the rest of the flow.
      * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:getLabels}
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:traverseForPathsWithPaging}
      * 
-     * @return a {@link Collection} of {@link String} labels, never null but potentially empty.
+     * @param node the start {@link Node}.
+     * @param order the order to visit the nodes.
+     * @param uniqueness how uniquess should be calculated.
+     * @param maxDepth the maximum depth from the start node after which results must be pruned.
+     * @param relationships the relationship types and directions that must be followed.
+     * @param returnFilter a filter that determines if the current position should be included in
+     *            the result.
+     * @param pruneEvaluator an evaluator that determines of traversal should stop or continue.
+     * @param pageSize the size of the result page.
+     * @param leaseTimeSeconds the time during which the paged results will be accessible.
+     * @param prefetchPages the number of pages to fetch in the background ahead of the rest of the
+     *            flow, zero meaning that each page is fetched once the previous one has been
+     *            processed. All these pages must be processed within leaseTimeSeconds.
+     * @param muleEvent the {@link MuleEvent} being processed.
+     * @param sourceCallback the {@link SourceCallback} invoked for each result page.
+     * @return a {@link Collection} of {@link Node}, never null but potentially empty.
      * @throws MuleException if anything goes wrong with the operation.
-     * @since Neo4j 2.0.0
      */
-    @Processor
-    public Collection<String> getLabels() throws MuleException
+    @Processor(intercepting = true)
+    @Inject
+    public void traverseForPathsWithPaging(@RefOnly final Node node,
+                                           final TraversalQuery.Order order,
+                                           final TraversalQuery.Uniqueness uniqueness,
+                                           @Optional final Integer maxDepth,
+                                           @Optional final List<RelationshipQuery> relationships,
+                                           @Optional final TraversalScript returnFilter,
+                                           @Optional final TraversalScript pruneEvaluator,
+                                           @Optional @Default("50") final int pageSize,
+                                           @Optional @Default("60") final int leaseTimeSeconds,
+                                           @Optional @Default("0") final int prefetchPages,
+                                           final MuleEvent muleEvent,
+                                           final SourceCallback sourceCallback) throws MuleException
     {
-        ensureVersion2OrAbove();
-
-        return getEntity(getServiceRoot().getNodeLabels(), STRINGS_TYPE_REFERENCE, SC_OK);
+        traversePaged(node, order, uniqueness, maxDepth, relationships, returnFilter, pruneEvaluator,
+            pageSize, leaseTimeSeconds, prefetchPages, muleEvent, sourceCallback, TraversalResult.PATH,
+            PATHS_TYPE_REFERENCE);
     }
 
     /**
-     * Create a {@link SchemaIndex}.
+     * Perform a paged node traversal, dispatching {@link Fullpath} instances to the rest of the
+     * flow.
      * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:createSchemaIndex}
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:traverseForFullpathsWithPaging}
      * 
-     * @param label the label to create the index for.
-     * @param propertyKeys the property key or keys to index.
-     * @return the created {@link SchemaIndex}.
+     * @param node the start {@link Node}.
+     * @param order the order to visit the nodes.
+     * @param uniqueness how uniquess should be calculated.
+     * @param maxDepth the maximum depth from the start node after which results must be pruned.
+     * @param relationships the relationship types and directions that must be followed.
+     * @param returnFilter a filter that determines if the current position should be included in
+     *            the result.
+     * @param pruneEvaluator an evaluator that determines of traversal should stop or continue.
+     * @param pageSize the size of the result page.
+     * @param leaseTimeSeconds the time during which the paged results will be accessible.
+     * @param prefetchPages the number of pages to fetch in the background ahead of the rest of the
+     *            flow, zero meaning that each page is fetched once the previous one has been
+     *            processed. All these pages must be processed within leaseTimeSeconds.
+     * @param muleEvent the {@link MuleEvent} being processed.
+     * @param sourceCallback the {@link SourceCallback} invoked for each result page.
+     * @return a {@link Collection} of {@link Node}, never null but potentially empty.
      * @throws MuleException if anything goes wrong with the operation.
-     * @since Neo4j 2.0.0
      */
-    @Processor
-    public SchemaIndex createSchemaIndex(final String label, final List<String> propertyKeys)
-        throws MuleException
+    @Processor(intercepting = true)
+    @Inject
+    public void traverseForFullpathsWithPaging(@RefOnly final Node node,
+                                               final TraversalQuery.Order order,
+                                               final TraversalQuery.Uniqueness uniqueness,
+                                               @Optional final Integer maxDepth,
+                                               @Optional final List<RelationshipQuery> relationships,
+                                               @Optional final TraversalScript returnFilter,
+                                               @Optional final TraversalScript pruneEvaluator,
+                                               @Optional @Default("50") final int pageSize,
+                                               @Optional @Default("60") final int leaseTimeSeconds,
+                                               @Optional @Default("0") final int prefetchPages,
+                                               final MuleEvent muleEvent,
+                                               final SourceCallback sourceCallback) throws MuleException
     {
-        ensureVersion2OrAbove();
-
-        Validate.notEmpty(propertyKeys, "propertyKeys can not be empty");
-
-        return postEntity(getSchemaIndexUri(label), new NewSchemaIndex().withPropertyKeys(propertyKeys),
-            SCHEMA_INDEX_TYPE_REFERENCE, SC_OK);
+        traversePaged(node, order, uniqueness, maxDepth, relationships, returnFilter, pruneEvaluator,
+            pageSize, leaseTimeSeconds, prefetchPages, muleEvent, sourceCallback, TraversalResult.FULLPATH,
+            FULLPATHS_TYPE_REFERENCE);
     }
 
-    /**
-     * Get the {@link SchemaIndex}es for a particular label.
-     * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:getSchemaIndexes}
-     * 
-     * @param label the label to consider.
-     * @return a {@link Collection} of {@link SchemaIndex} instances, never null but possibly empty
-     * @throws MuleException if anything goes wrong with the operation.
-     * @since Neo4j 2.0.0
-     */
-    @Processor
-    public Collection<SchemaIndex> getSchemaIndexes(final String label) throws MuleException
+    private <T> T traverseWithAlgorithm(final Node toNode,
+                                        final Algorithm algorithm,
+                                        final String relationshipType,
+                                        final String costProperty,
+                                        final Double defaultCost,
+                                        final String requestUri,
+                                        final TypeReference<T> responseType,
+                                        final Set<Integer> expectedStatusCodes) throws MuleException
     {
-        ensureVersion2OrAbove();
+        final PathQuery pathQuery = new PathQuery().withTo(toNode.getSelf())
+            .withAlgorithm(algorithm)
+            .withCostProperty(costProperty)
+            .withDefaultCost(defaultCost)
+            .withRelationships(
+                new RelationshipQuery().withDirection(Direction.OUT).withType(relationshipType));
 
-        return getEntity(getSchemaIndexUri(label), SCHEMA_INDEXES_TYPE_REFERENCE, SC_OK);
+        return postEntity(requestUri, pathQuery, responseType, expectedStatusCodes);
     }
 
     /**
-     * Delete a schema index.
+     * Traverse nodes with a particular algorithm, returning the first successful path found.
      * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:deleteSchemaIndex}
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:traverseForPathWithAlgorithm}
      * <p>
      * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample
-     * neo4j:deleteSchemaIndex-failIfNotFound}
+     * neo4j:traverseForPathWithAlgorithm-failIfNotFound}
      * 
-     * @param label the label to delete the schema index from.
-     * @param propertyKey the property key to delete the schema index for.
-     * @param failIfNotFound if true, an exception will be thrown if the schema index is not found
-     *            and couldn't be deleted.
+     * @param fromNode the {@link Node} where traversal should start.
+     * @param toNode the {@link Node} where traversal should end.
+     * @param algorithm the {@link Algorithm} to use for the traversal.
+     * @param relationshipType the type of relationship to traverse.
+     * @param maxDepth the maximum depth from the start node below which traversal must stop.
+     * @param costProperty the property that contains the cost of traversal.
+     * @param defaultCost the default cost of the traversal.
+     * @param failIfNotFound if true, an exception will be thrown if no path can be found, otherwise
+     *            null will be returned.
+     * @return a single {@link PathQueryResult} instance.
      * @throws MuleException if anything goes wrong with the operation.
-     * @since Neo4j 2.0.0
      */
     @Processor
-    public void deleteSchemaIndex(final String label,
-                                  final String propertyKey,
-                                  @Optional @Default("false") final boolean failIfNotFound)
+    public PathQueryResult traverseForPathWithAlgorithm(@RefOnly final Node fromNode,
+                                                        @RefOnly final Node toNode,
+                                                        final Algorithm algorithm,
+                                                        final String relationshipType,
+                                                        @Optional @Default("1") final int maxDepth,
+                                                        @Optional final String costProperty,
+                                                        @Optional final Double defaultCost,
+                                                        @Optional @Default("false") final boolean failIfNotFound)
         throws MuleException
     {
-        ensureVersion2OrAbove();
-
-        deleteEntityByUri(getSchemaIndexUri(label) + "/" + propertyKey, failIfNotFound);
-    }
-
-    private Index createLegacyIndex(final String indexUri,
-                                    final String indexName,
-                                    final String type,
-                                    final String provider) throws MuleException
-    {
-        final NewIndex newNodeIndex = new NewIndex().withName(indexName);
-
-        if ((StringUtils.isNotBlank(type)) || (StringUtils.isNotBlank(provider)))
-        {
-            newNodeIndex.setConfig(new IndexConfiguration().withType(type).withProvider(provider));
-        }
-
-        final Index nodeIndex = postEntity(indexUri, newNodeIndex, INDEX_TYPE_REFERENCE, SC_CREATED);
-        nodeIndex.setName(indexName);
-        return nodeIndex;
+        return traverseWithAlgorithm(toNode, algorithm, relationshipType, costProperty, defaultCost,
+            fromNode.getPath(), PATH_QUERY_RESULT_TYPE_REFERENCE, failIfNotFound ? SC_OK : SC_OK_OR_NOT_FOUND);
     }
 
     /**
-     * Create a node index.
-     * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:createNodeIndex}
+     * Traverse nodes with a particular algorithm, returning all the successful paths found.
      * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample
-     * neo4j:createNodeIndex-withConfiguration}
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:traverseForPathsWithAlgorithm}
      * 
-     * @param indexName the name of the new node index to create.
-     * @param type the type of the new node index.
-     * @param provider the provider for the new node index.
-     * @return the created {@link NodeIndex}.
+     * @param fromNode the {@link Node} where traversal should start.
+     * @param toNode the {@link Node} where traversal should end.
+     * @param algorithm the {@link Algorithm} to use for the traversal.
+     * @param relationshipType the type of relationship to traverse.
+     * @param maxDepth the maximum depth from the start node below which traversal must stop.
+     * @param costProperty the property that contains the cost of traversal.
+     * @param defaultCost the default cost of the traversal.
+     * @return a {@link Collection} of {@link PathQueryResult} instances, never null but potentially
+     *         empty.
      * @throws MuleException if anything goes wrong with the operation.
-     * @deprecated since Neo4j 2.0.0
      */
-    @Deprecated
     @Processor
-    public Index createNodeIndex(final String indexName,
-                                 @Optional final String type,
-                                 @Optional final String provider) throws MuleException
+    public Collection<PathQueryResult> traverseForPathsWithAlgorithm(@RefOnly final Node fromNode,
+                                                                     @RefOnly final Node toNode,
+                                                                     final Algorithm algorithm,
+                                                                     final String relationshipType,
+                                                                     @Optional @Default("1") final int maxDepth,
+                                                                     @Optional final String costProperty,
+                                                                     @Optional final Double defaultCost)
+        throws MuleException
     {
-        logDeprecatedIn2OrAbove("createNodeIndex");
-
-        return createLegacyIndex(serviceRoot.getNodeIndex(), indexName, type, provider);
+        return traverseWithAlgorithm(toNode, algorithm, relationshipType, costProperty, defaultCost,
+            fromNode.getPaths(), PATH_QUERY_RESULTS_TYPE_REFERENCE, SC_OK);
     }
 
     /**
-     * Delete a node index.
-     * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:deleteNodeIndex}
+     * Execute a batch of jobs.
      * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:deleteNodeIndex-failIfNotFound}
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:executeBatch}
      * 
-     * @param indexName the name of the node index to delete.
-     * @param failIfNotFound if true, an exception will be thrown if the node index is not found and
-     *            couldn't be deleted.
+     * @param jobs the batch to execute.
+     * @return a {@link Collection} of {@link BatchJobResult}, never null but possibly empty.
      * @throws MuleException if anything goes wrong with the operation.
-     * @deprecated since Neo4j 2.0.0
      */
-    @Deprecated
     @Processor
-    public void deleteNodeIndex(final String indexName,
-                                @Optional @Default("false") final boolean failIfNotFound)
+    public Collection<BatchJobResult> executeBatch(final List<ConfigurableBatchJob> jobs)
         throws MuleException
     {
-        logDeprecatedIn2OrAbove("deleteNodeIndex");
-
-        deleteEntityByUri(getNodeIndexUri(indexName), failIfNotFound);
-    }
-
-    private Collection<Index> getLegacyIndexes(final String indexUri) throws MuleException
-    {
-        // the Neo4j returns an object instead of an array for the list of indexes
-        // so we need to manually convert it into a proper collection :(
-        final Map<String, Map<String, String>> rawNodeIndexes = getEntity(indexUri,
-            NODE_INDEXES_TYPE_REFERENCE, SC_OK_OR_NO_CONTENT);
+        Validate.notEmpty(jobs, "jobs can not be empty");
 
-        final List<Index> nodeIndexes = new ArrayList<Index>();
+        final List<BatchJob> batch = new ArrayList<BatchJob>();
+        for (final ConfigurableBatchJob job : jobs)
+        {
+            batch.add(job.toBatchJob());
+        }
 
-        if (MapUtils.isNotEmpty(rawNodeIndexes))
+        if (writeBehind)
         {
-            for (final Entry<String, Map<String, String>> rawNodeIndex : rawNodeIndexes.entrySet())
+            final List<BatchJobResult> results = awaitWriteBehind(batch, writeBehindBatcher.submit(
+                new WriteBehindOperation(batch, null)));
+            for (final BatchJobResult result : results)
             {
-                final Index nodeIndex = new Index().withName(rawNodeIndex.getKey());
-                nodeIndex.setTemplate(rawNodeIndex.getValue().get("template"));
-                nodeIndex.setProvider(rawNodeIndex.getValue().get("provider"));
-                nodeIndex.setType(rawNodeIndex.getValue().get("type"));
-                nodeIndexes.add(nodeIndex);
+                if ((result == null)
+                    || ((result.getStatus() != null) && (result.getStatus() >= HttpConstants.SC_BAD_REQUEST)))
+                {
+                    throw new DefaultMuleException("Received batch result: " + result + " for: " + batch);
+                }
             }
+            return results;
         }
 
-        return nodeIndexes;
+        return postEntity(serviceRoot.getBatch(), batch, BATCH_JOB_RESULTS_TYPE_REFERENCE, SC_OK);
     }
 
-    /**
-     * Get all the node indexes.
-     * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:getNodeIndexes}
-     * 
-     * @return a {@link Collection} of {@link NodeIndex}es, never null but can be empty.
-     * @throws MuleException if anything goes wrong with the operation.
-     * @deprecated since Neo4j 2.0.0
-     */
-    @Deprecated
-    @Processor
-    public Collection<Index> getNodeIndexes() throws MuleException
+    private TransactionResult postStatements(final String uri,
+                                             final List<ConfigurableStatement> statements,
+                                             final Set<Integer> expectedStatusCodes) throws MuleException
     {
-        logDeprecatedIn2OrAbove("getNodeIndexes");
-
-        return getLegacyIndexes(serviceRoot.getNodeIndex());
-    }
+        final TransactionResult transactionResult = postStatementsWithErrors(uri, statements,
+            expectedStatusCodes);
 
-    /**
-     * Add a {@link Node} to an index.
-     * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:addNodeToIndex}
-     * 
-     * @param indexName the name of the index to add the node to.
-     * @param node the node to add.
-     * @param key the key to use with the index entry.
-     * @param value the value to use with the index entry.
-     * @return an {@link IndexedNode} instance.
-     * @throws MuleException if anything goes wrong with the operation.
-     * @deprecated since Neo4j 2.0.0
-     */
-    @Deprecated
-    @Processor
-    public IndexedNode addNodeToIndex(final String indexName,
-                                      @RefOnly final Node node,
-                                      final String key,
-                                      final String value) throws MuleException
-    {
-        logDeprecatedIn2OrAbove("addNodeToIndex");
+        ensureNoStatementErrors(transactionResult);
 
-        final NodeIndexingRequest nodeIndexingRequest = new NodeIndexingRequest().withKey(key)
-            .withValue(value)
-            .withUri(node.getSelf());
+        if (StringUtils.isNotBlank(transactionResult.getCommit()))
+        {
+            transactionResult.setSelf(StringUtils.removeEnd(transactionResult.getCommit(),
+                TRANSACTION_COMMIT_PATH));
+        }
 
-        return postEntity(getNodeIndexUri(indexName), nodeIndexingRequest, INDEXED_NODE_TYPE_REFERENCE,
-            SC_CREATED);
+        return transactionResult;
     }
 
     /**
-     * Remove node index entries.
-     * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:removeNodeIndexEntries}
-     * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample
-     * neo4j:removeNodeIndexEntries-failIfNotFound}
-     * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:removeNodeIndexEntries-key}
-     * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample
-     * neo4j:removeNodeIndexEntries-keyAndValue}
-     * 
-     * @param indexName the name of the index to remove entries from.
-     * @param node the node for which entries will be removed.
-     * @param key the key for which entries will be removed.
-     * @param value the value for which entries will be removed.
-     * @param failIfNotFound if true, an exception will be thrown if no index entry can be deleted.
-     * @throws MuleException if anything goes wrong with the operation.
-     * @deprecated since Neo4j 2.0.0
+     * @return the result of the statements, including the errors they failed with.
      */
-    @Deprecated
-    @Processor
-    public void removeNodeIndexEntries(final String indexName,
-                                       @RefOnly final Node node,
-                                       @Optional final String key,
-                                       @Optional final String value,
-                                       @Optional @Default("false") final boolean failIfNotFound)
-        throws MuleException
-    {
-        logDeprecatedIn2OrAbove("removeNodeIndexEntries");
-
-        final StringBuilder uriBuilder = new StringBuilder(getNodeIndexUri(indexName));
+    private TransactionResult postStatementsWithErrors(final String uri,
+                                                       final List<ConfigurableStatement> statements,
+                                                       final Set<Integer> expectedStatusCodes)
+        throws MuleException
+    {
+        final List<Statement> statementList = new ArrayList<Statement>();
+        if (statements != null)
+        {
+            for (final ConfigurableStatement statement : statements)
+            {
+                statementList.add(statement.toStatement());
+            }
+        }
 
-        if (StringUtils.isNotBlank(key))
+        final TransactionResult transactionResult;
+        try
         {
-            uriBuilder.append("/").append(key);
+            transactionResult = postEntity(uri, new Statements().withStatements(statementList),
+                TRANSACTION_RESULT_TYPE_REFERENCE, expectedStatusCodes);
+        }
+        finally
+        {
+            // a commit also applies the writes of the statements previously sent in the transaction
+            if ((uri.endsWith(TRANSACTION_COMMIT_PATH)) || (!areReadOnlyStatements(statementList)))
+            {
+                invalidateAllCaches();
+            }
+        }
 
-            if (StringUtils.isNotBlank(value))
+        return transactionResult;
+    }
+
+    private static boolean areReadOnlyStatements(final List<Statement> statements)
+    {
+        for (final Statement statement : statements)
+        {
+            if (!isReadOnlyCypher(statement.getStatement()))
             {
-                uriBuilder.append("/").append(value);
+                return false;
             }
         }
+        return true;
+    }
 
-        uriBuilder.append("/").append(node.getId());
+    private static void ensureNoStatementErrors(final TransactionResult transactionResult)
+        throws DefaultMuleException
+    {
+        if (CollectionUtils.isEmpty(transactionResult.getErrors()))
+        {
+            return;
+        }
 
-        deleteEntityByUri(uriBuilder.toString(), failIfNotFound);
+        final StringBuilder messageBuilder = new StringBuilder("Failed to execute statements:");
+        for (final StatementError error : transactionResult.getErrors())
+        {
+            messageBuilder.append(" [").append(error.getCode()).append("] ").append(error.getMessage());
+        }
+
+        throw new DefaultMuleException(messageBuilder.toString());
     }
 
-    /**
-     * Find nodes by exact index match.
-     * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:findNodesByIndex}
-     * 
-     * @param indexName the name of the index to use for the search.
-     * @param key the key to use.
-     * @param value the value to use.
-     * @return a {@link Collection} of {@link IndexedNode}s, never null but possibly empty.
-     * @throws MuleException if anything goes wrong with the operation.
-     * @deprecated since Neo4j 2.0.0
-     */
-    @Deprecated
-    @Processor
-    public Collection<IndexedNode> findNodesByIndex(final String indexName,
-                                                    final String key,
-                                                    final String value) throws MuleException
+    private static String getTransactionUri(final TransactionResult transaction)
     {
-        logDeprecatedIn2OrAbove("findNodesByIndex");
+        Validate.notEmpty(transaction.getSelf(), "transaction is not open");
 
-        return getEntity(getNodeIndexUri(indexName) + "/" + key + "/" + value, INDEXED_NODES_TYPE_REFERENCE,
-            SC_OK);
+        return transaction.getSelf();
     }
 
     /**
-     * Find nodes by exact match on an auto-index.
+     * Begin a transaction, optionally executing a first set of statements in it.
      * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:findNodesByAutoIndex}
+     * The returned {@link TransactionResult} must be used with the other transactional operations,
+     * like {@link #executeInTransaction(TransactionResult, List)}. The transaction is rolled back by
+     * the server if any statement fails or if it's left idle until it expires.
+     * <p>
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:beginTransaction}
+     * <p>
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:beginTransaction-withStatements}
      * 
-     * @param key the key to use.
-     * @param value the value to use.
-     * @return a {@link Collection} of {@link IndexedNode}s, never null but possibly empty.
+     * @param statements the statements to execute when beginning the transaction.
+     * @return a {@link TransactionResult} for the open transaction.
      * @throws MuleException if anything goes wrong with the operation.
-     * @deprecated since Neo4j 2.0.0
+     * @since Neo4j 2.0.0
      */
-    @Deprecated
     @Processor
-    public Collection<IndexedNode> findNodesByAutoIndex(final String key, final String value)
+    public TransactionResult beginTransaction(@Optional final List<ConfigurableStatement> statements)
         throws MuleException
     {
-        logDeprecatedIn2OrAbove("findNodesByAutoIndex");
+        ensureVersion2OrAbove();
 
-        return getEntity(getServiceRoot().getNodeAutoIndex() + "/" + key + "/" + value,
-            INDEXED_NODES_TYPE_REFERENCE, SC_OK);
+        return postStatements(serviceRoot.getTransaction(), statements, SC_CREATED);
     }
 
     /**
-     * Find nodes by index query.
-     * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:findNodesByQuery}
+     * Execute statements in an open transaction.
      * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:findNodesByQuery-order}
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:executeInTransaction}
      * 
-     * @param indexName the name of the index to use for the search.
-     * @param query the query to run.
-     * @param order the desired {@link QueryResultOrder}.
-     * @return a {@link Collection} of {@link IndexedNode}s, never null but possibly empty.
+     * @param transaction the {@link TransactionResult} of the open transaction.
+     * @param statements the statements to execute.
+     * @return a {@link TransactionResult} with the results of the statements.
      * @throws MuleException if anything goes wrong with the operation.
-     * @deprecated since Neo4j 2.0.0
+     * @since Neo4j 2.0.0
      */
-    @Deprecated
     @Processor
-    public Collection<IndexedNode> findNodesByQuery(final String indexName,
-                                                    final String query,
-                                                    @Optional final QueryResultOrder order)
+    public TransactionResult executeInTransaction(@RefOnly final TransactionResult transaction,
+                                                  final List<ConfigurableStatement> statements)
         throws MuleException
     {
-        logDeprecatedIn2OrAbove("findNodesByIndex");
+        ensureVersion2OrAbove();
 
-        return getEntity(getNodeIndexUri(indexName), INDEXED_NODES_TYPE_REFERENCE, SC_OK, "query", query,
-            "order", order == null ? null : order.toString().toLowerCase());
+        Validate.notEmpty(statements, "statements can not be empty");
+
+        return postStatements(getTransactionUri(transaction), statements, SC_OK);
     }
 
     /**
-     * Find nodes by query on an auto-index.
+     * Commit an open transaction, optionally executing a last set of statements in it.
      * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:findNodesByAutoIndexQuery}
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:commitTransaction}
      * 
-     * @param query the query to run.
-     * @return a {@link Collection} of {@link IndexedNode}s, never null but possibly empty.
+     * @param transaction the {@link TransactionResult} of the open transaction.
+     * @param statements the statements to execute before committing.
+     * @return a {@link TransactionResult} with the results of the statements.
      * @throws MuleException if anything goes wrong with the operation.
-     * @deprecated since Neo4j 2.0.0
+     * @since Neo4j 2.0.0
      */
-    @Deprecated
     @Processor
-    public Collection<IndexedNode> findNodesByAutoIndexQuery(final String query) throws MuleException
+    public TransactionResult commitTransaction(@RefOnly final TransactionResult transaction,
+                                               @Optional final List<ConfigurableStatement> statements)
+        throws MuleException
     {
-        logDeprecatedIn2OrAbove("findNodesByAutoIndexQuery");
+        ensureVersion2OrAbove();
 
-        return getEntity(getServiceRoot().getNodeAutoIndex(), INDEXED_NODES_TYPE_REFERENCE, SC_OK, "query",
-            query);
+        return postStatements(getTransactionUri(transaction) + TRANSACTION_COMMIT_PATH, statements, SC_OK);
     }
 
     /**
-     * Create a relationship index.
-     * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:createRelationshipIndex}
+     * Rollback an open transaction.
      * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample
-     * neo4j:createRelationshipIndex-withConfiguration}
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:rollbackTransaction}
      * 
-     * @param indexName the name of the new node index to create.
-     * @param type the type of the new node index.
-     * @param provider the provider for the new node index.
-     * @return the created {@link NodeIndex}.
+     * @param transaction the {@link TransactionResult} of the open transaction.
      * @throws MuleException if anything goes wrong with the operation.
-     * @deprecated since Neo4j 2.0.0
+     * @since Neo4j 2.0.0
      */
-    @Deprecated
     @Processor
-    public Index createRelationshipIndex(final String indexName,
-                                         @Optional final String type,
-                                         @Optional final String provider) throws MuleException
+    public void rollbackTransaction(@RefOnly final TransactionResult transaction) throws MuleException
     {
-        logDeprecatedIn2OrAbove("createRelationshipIndex");
+        ensureVersion2OrAbove();
 
-        return createLegacyIndex(serviceRoot.getRelationshipIndex(), indexName, type, provider);
+        final TransactionResult transactionResult = sendHttpRequest(HttpConstants.METHOD_DELETE,
+            getTransactionUri(transaction), null, getRequestHeaders(), TRANSACTION_RESULT_TYPE_REFERENCE, SC_OK)
+            .getEntity();
+
+        ensureNoStatementErrors(transactionResult);
     }
 
     /**
-     * Get all the relationship indexes.
+     * Execute statements in a single transaction that is begun and committed in one request.
      * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:getRelationshipIndexes}
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:runCypherStatements}
      * 
-     * @return a {@link Collection} of {@link NodeIndex}es, never null but can be empty.
+     * @param statements the statements to execute.
+     * @return a {@link TransactionResult} with the results of the statements.
      * @throws MuleException if anything goes wrong with the operation.
-     * @deprecated since Neo4j 2.0.0
+     * @since Neo4j 2.0.0
      */
-    @Deprecated
     @Processor
-    public Collection<Index> getRelationshipIndexes() throws MuleException
+    public TransactionResult runCypherStatements(final List<ConfigurableStatement> statements)
+        throws MuleException
     {
-        logDeprecatedIn2OrAbove("getRelationshipIndexes");
+        ensureVersion2OrAbove();
 
-        return getLegacyIndexes(serviceRoot.getRelationshipIndex());
+        Validate.notEmpty(statements, "statements can not be empty");
+
+        return postStatements(serviceRoot.getTransaction() + TRANSACTION_COMMIT_PATH, statements, SC_OK);
     }
 
     /**
-     * Delete a relationship index.
+     * Import nodes from a CSV or NDJSON stream, which is read incrementally and written in chunks
+     * of chunkSize rows, each with a single <code>UNWIND</code> Cypher statement in its own
+     * transaction. A chunk that fails with a transient error, like a deadlock between writers, is
+     * retried. A chunk that fails otherwise doesn't stop the import: the returned summary reports
+     * the failed rows, as well as the rows that are malformed or couldn't be mapped, and the
+     * statistics of the created nodes.
      * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:deleteRelationshipIndex}
+     * CSV streams must start with a header line naming their columns. Values read from CSV are
+     * strings, unless converted with propertyTypes, and empty values are ignored.
      * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample
-     * neo4j:deleteRelationshipIndex-failIfNotFound}
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:importNodes}
+     * <p>
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:importNodes-withMerge}
      * 
-     * @param indexName the name of the node index to delete.
-     * @param failIfNotFound if true, an exception will be thrown if the node index is not found and
-     *            couldn't be deleted.
-     * @throws MuleException if anything goes wrong with the operation.
-     * @deprecated since Neo4j 2.0.0
+     * @param input the {@link InputStream}, {@link Reader}, byte array or {@link String} to read
+     *            records from, UTF-8 being used to decode bytes.
+     * @param format the format of the input.
+     * @param labels the labels of the imported nodes.
+     * @param properties the columns to read, by node property, all columns being imported as
+     *            properties of the same name if not provided.
+     * @param propertyTypes the types properties must be converted to, by property, among:
+     *            string, long, double and boolean.
+     * @param mergeProperty the property that identifies a node, so that existing nodes with the
+     *            same labels and value for this property are updated instead of being duplicated.
+     *            It must be one of the properties, if they are provided. With more than one writer,
+     *            a uniqueness constraint on this property for one of the labels is required:
+     *            without it, concurrent chunks holding the same value can each create a node.
+     * @param chunkSize the number of rows written in each transaction.
+     * @param writers the number of chunks written concurrently.
+     * @param csvSeparator the character separating CSV values.
+     * @return a {@link Map} summarizing the import.
+     * @throws MuleException if the input can't be read.
+     * @since Neo4j 2.1.0
      */
-    @Deprecated
     @Processor
-    public void deleteRelationshipIndex(final String indexName,
-                                        @Optional @Default("false") final boolean failIfNotFound)
+    public Map<String, Object> importNodes(@Optional @Default("#[payload]") final Object input,
+                                           @Optional @Default("CSV") final ImportFormat format,
+                                           @Optional final List<String> labels,
+                                           @Optional final Map<String, String> properties,
+                                           @Optional final Map<String, String> propertyTypes,
+                                           @Optional final String mergeProperty,
+                                           @Optional @Default("1000") final int chunkSize,
+                                           @Optional @Default("1") final int writers,
+                                           @Optional @Default(",") final String csvSeparator)
         throws MuleException
     {
-        logDeprecatedIn2OrAbove("deleteRelationshipIndex");
+        ensureVersion2OrAbove();
 
-        deleteEntityByUri(getRelationshipIndexUri(indexName), failIfNotFound);
+        final StringBuilder labelsPattern = new StringBuilder("n");
+        if (labels != null)
+        {
+            for (final String label : labels)
+            {
+                labelsPattern.append(':').append(quoteCypherIdentifier(label));
+            }
+        }
+
+        final String statement;
+        final String mergeColumn;
+        if (StringUtils.isBlank(mergeProperty))
+        {
+            statement = "UNWIND {" + IMPORT_ROWS_PARAMETER + "} AS row CREATE (" + labelsPattern
+                        + ") SET n = row.properties";
+            mergeColumn = null;
+        }
+        else
+        {
+            Validate.isTrue(MapUtils.isEmpty(properties) || properties.containsKey(mergeProperty),
+                "mergeProperty must be one of the properties");
+
+            statement = "UNWIND {" + IMPORT_ROWS_PARAMETER + "} AS row MERGE (" + labelsPattern + " {"
+                        + quoteCypherIdentifier(mergeProperty) + ": row.key}) SET n += row.properties";
+            mergeColumn = MapUtils.isNotEmpty(properties) ? properties.get(mergeProperty) : mergeProperty;
+        }
+
+        return runImport(input, format, csvSeparator, chunkSize, writers, "nodes", statement,
+            new BulkImporter.RowMapper()
+            {
+                public Map<String, Object> map(final Map<String, Object> record)
+                {
+                    final Map<String, Object> row = new HashMap<String, Object>();
+                    row.put("properties", mapImportProperties(record, properties, propertyTypes));
+
+                    if (mergeColumn != null)
+                    {
+                        row.put("key", getImportValue(record, mergeColumn, mergeProperty, propertyTypes));
+                    }
+
+                    return row;
+                }
+            });
     }
 
     /**
-     * Get current status for autoindexing on nodes.
+     * Import relationships from a CSV or NDJSON stream, which is read incrementally and written in
+     * chunks of chunkSize rows, each with a single <code>UNWIND</code> Cypher statement in its own
+     * transaction. The start and end nodes of each relationship are looked up by the value of one
+     * of their properties: rows whose start or end node doesn't exist are silently skipped. A chunk
+     * that fails with a transient error, like a deadlock between writers, is retried. A chunk that
+     * fails otherwise doesn't stop the import: the returned summary reports the failed rows, as
+     * well as the rows that are malformed or couldn't be mapped, and the statistics of the created
+     * relationships.
      * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:getAutoindexingStatus}
+     * CSV streams must start with a header line naming their columns. Values read from CSV are
+     * strings, unless converted with propertyTypes, and empty values are ignored.
+     * <p>
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:importRelationships}
      * 
-     * @return an {@link Neo4jConnector#AutoIndexingStatus}.
-     * @throws MuleException if anything goes wrong with the operation.
-     * @deprecated since Neo4j 2.0.0
+     * @param input the {@link InputStream}, {@link Reader}, byte array or {@link String} to read
+     *            records from, UTF-8 being used to decode bytes.
+     * @param format the format of the input.
+     * @param type the type of the imported relationships.
+     * @param startColumn the column holding the value that identifies the start node.
+     * @param startProperty the property of the start node holding this value.
+     * @param startLabel the label of the start node, strongly recommended for performance.
+     * @param endColumn the column holding the value that identifies the end node.
+     * @param endProperty the property of the end node holding this value.
+     * @param endLabel the label of the end node, strongly recommended for performance.
+     * @param properties the columns to read, by relationship property, all columns but the start
+     *            and end ones being imported as properties of the same name if not provided.
+     * @param propertyTypes the types properties, including startProperty and endProperty, must be
+     *            converted to, by property, among: string, long, double and boolean.
+     * @param chunkSize the number of rows written in each transaction.
+     * @param writers the number of chunks written concurrently.
+     * @param csvSeparator the character separating CSV values.
+     * @return a {@link Map} summarizing the import.
+     * @throws MuleException if the input can't be read.
+     * @since Neo4j 2.1.0
      */
-    @Deprecated
     @Processor
-    public AutoIndexingStatus getAutoindexingStatus() throws MuleException
+    public Map<String, Object> importRelationships(@Optional @Default("#[payload]") final Object input,
+                                                   @Optional @Default("CSV") final ImportFormat format,
+                                                   final String type,
+                                                   final String startColumn,
+                                                   final String startProperty,
+                                                   @Optional final String startLabel,
+                                                   final String endColumn,
+                                                   final String endProperty,
+                                                   @Optional final String endLabel,
+                                                   @Optional final Map<String, String> properties,
+                                                   @Optional final Map<String, String> propertyTypes,
+                                                   @Optional @Default("1000") final int chunkSize,
+                                                   @Optional @Default("1") final int writers,
+                                                   @Optional @Default(",") final String csvSeparator)
+        throws MuleException
     {
-        logDeprecatedIn2OrAbove("getAutoindexingStatus");
+        ensureVersion2OrAbove();
 
-        final Boolean isEnabled = getEntity(getAutoIndexingStatusUri(), BOOLEAN_TYPE_REFERENCE, SC_OK);
-        return isEnabled ? AutoIndexingStatus.ENABLED : AutoIndexingStatus.DISABLED;
+        final String startPattern = StringUtils.isBlank(startLabel) ? "s" : "s:"
+                                                                            + quoteCypherIdentifier(startLabel);
+        final String endPattern = StringUtils.isBlank(endLabel) ? "e" : "e:" + quoteCypherIdentifier(endLabel);
+
+        final String statement = "UNWIND {" + IMPORT_ROWS_PARAMETER + "} AS row MATCH (" + startPattern + " {"
+                                 + quoteCypherIdentifier(startProperty) + ": row.start}) MATCH (" + endPattern
+                                 + " {" + quoteCypherIdentifier(endProperty) + ": row.end}) CREATE (s)-[r:"
+                                 + quoteCypherIdentifier(type) + "]->(e) SET r = row.properties";
+
+        return runImport(input, format, csvSeparator, chunkSize, writers, "relationships", statement,
+            new BulkImporter.RowMapper()
+            {
+                public Map<String, Object> map(final Map<String, Object> record)
+                {
+                    final Map<String, Object> row = new HashMap<String, Object>();
+                    row.put("start", getImportValue(record, startColumn, startProperty, propertyTypes));
+                    row.put("end", getImportValue(record, endColumn, endProperty, propertyTypes));
+
+                    final Map<String, Object> rowProperties = mapImportProperties(record, properties,
+                        propertyTypes);
+                    if (MapUtils.isEmpty(properties))
+                    {
+                        rowProperties.remove(startColumn);
+                        rowProperties.remove(endColumn);
+                    }
+                    row.put("properties", rowProperties);
+
+                    return row;
+                }
+            });
     }
 
-    /**
-     * Enable or disable node autoindexing.
-     * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:setAutoindexingStatus}
-     * 
-     * @param status an {@link Neo4jConnector#AutoIndexingStatus}.
-     * @throws MuleException if anything goes wrong with the operation.
-     * @deprecated since Neo4j 2.0.0
-     */
-    @Deprecated
-    @Processor
-    public void setAutoindexingStatus(final AutoIndexingStatus status) throws MuleException
+    private Map<String, Object> runImport(final Object input,
+                                          final ImportFormat format,
+                                          final String csvSeparator,
+                                          final int chunkSize,
+                                          final int writers,
+                                          final String entities,
+                                          final String statement,
+                                          final BulkImporter.RowMapper rowMapper) throws MuleException
     {
-        logDeprecatedIn2OrAbove("setAutoindexingStatus");
+        final Reader reader = toImportReader(input);
+        final Random retryJitter = new Random();
 
-        final Boolean shouldEnable = status == AutoIndexingStatus.ENABLED ? Boolean.TRUE : Boolean.FALSE;
-        putEntity(getAutoIndexingStatusUri(), shouldEnable, SC_NO_CONTENT);
+        try
+        {
+            final BulkImporter bulkImporter = new BulkImporter(new BulkImporter.ChunkWriter()
+            {
+                public Map<String, Long> write(final List<Map<String, Object>> rows) throws MuleException
+                {
+                    final ConfigurableStatement chunkStatement = new ConfigurableStatement();
+                    chunkStatement.setStatement(statement);
+                    chunkStatement.setParameters(Collections.<String, Object> singletonMap(
+                        IMPORT_ROWS_PARAMETER, rows));
+                    chunkStatement.setIncludeStats(true);
+
+                    for (int attempt = 1;; attempt++)
+                    {
+                        final TransactionResult transactionResult = postStatementsWithErrors(
+                            serviceRoot.getTransaction() + TRANSACTION_COMMIT_PATH,
+                            Collections.singletonList(chunkStatement), SC_OK);
+
+                        // the transaction of the chunk has been rolled back, so it can be retried
+                        if ((attempt < IMPORT_CHUNK_MAX_ATTEMPTS) && (hasOnlyTransientErrors(transactionResult))
+                            && (!Thread.currentThread().isInterrupted()))
+                        {
+                            LOGGER.warn("Retrying import chunk of " + entities + " after: "
+                                        + transactionResult.getErrors());
+                            awaitImportChunkRetry(attempt, retryJitter);
+                            continue;
+                        }
+
+                        ensureNoStatementErrors(transactionResult);
+                        return getStatementStatistics(transactionResult);
+                    }
+                }
+            }, chunkSize, writers, entities + "[" + baseUri + "]");
+
+            return bulkImporter.run(format.newRecordReader(reader, csvSeparator), rowMapper);
+        }
+        finally
+        {
+            IOUtils.closeQuietly(reader);
+        }
     }
 
     /**
-     * Get the properties being autoindexed.
-     * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:getAutoindexingProperties}
-     * 
-     * @return a {@link Collection} of {@link String} instances, never null but potentially empty.
-     * @throws MuleException if anything goes wrong with the operation.
-     * @deprecated since Neo4j 2.0.0
+     * @return true if the statements failed with transient errors only, like deadlocks, which can
+     *         succeed if retried.
      */
-    @Deprecated
-    @Processor
-    public Collection<String> getAutoindexingProperties() throws MuleException
+    static boolean hasOnlyTransientErrors(final TransactionResult transactionResult)
+    {
+        if (CollectionUtils.isEmpty(transactionResult.getErrors()))
+        {
+            return false;
+        }
+
+        for (final StatementError error : transactionResult.getErrors())
+        {
+            if (!StringUtils.startsWith(error.getCode(), TRANSIENT_ERROR_CODE_PREFIX))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void awaitImportChunkRetry(final int attempt, final Random retryJitter) throws MuleException
+    {
+        // randomized, so that writers that deadlocked on each other don't retry in lockstep
+        final long delayMillis = IMPORT_CHUNK_RETRY_DELAY_MILLIS * attempt
+                                 + retryJitter.nextInt((int) IMPORT_CHUNK_RETRY_DELAY_MILLIS);
+        try
+        {
+            TimeUnit.MILLISECONDS.sleep(delayMillis);
+        }
+        catch (final InterruptedException ie)
+        {
+            Thread.currentThread().interrupt();
+            throw new DefaultMuleException("Interrupted while waiting to retry an import chunk", ie);
+        }
+    }
+
+    private static Reader toImportReader(final Object input) throws MuleException
+    {
+        try
+        {
+            if (input instanceof Reader)
+            {
+                return (Reader) input;
+            }
+            else if (input instanceof InputStream)
+            {
+                return new InputStreamReader((InputStream) input, "UTF-8");
+            }
+            else if (input instanceof byte[])
+            {
+                return new InputStreamReader(new ByteArrayInputStream((byte[]) input), "UTF-8");
+            }
+            else if (input instanceof String)
+            {
+                return new StringReader((String) input);
+            }
+        }
+        catch (final UnsupportedEncodingException uee)
+        {
+            throw new DefaultMuleException(uee);
+        }
+
+        throw new DefaultMuleException("Unsupported import input: " + input);
+    }
+
+    private static Map<String, Long> getStatementStatistics(final TransactionResult transactionResult)
+    {
+        final Map<String, Long> statistics = new LinkedHashMap<String, Long>();
+
+        for (final StatementResult statementResult : transactionResult.getResults())
+        {
+            if (statementResult.getStats() == null)
+            {
+                continue;
+            }
+
+            for (final Entry<String, Object> stat : statementResult.getStats()
+                .getAdditionalProperties()
+                .entrySet())
+            {
+                if (stat.getValue() instanceof Number)
+                {
+                    final Long total = statistics.get(stat.getKey());
+                    final long value = ((Number) stat.getValue()).longValue();
+                    statistics.put(stat.getKey(), total == null ? value : total + value);
+                }
+            }
+        }
+
+        return statistics;
+    }
+
+    private static Map<String, Object> mapImportProperties(final Map<String, Object> record,
+                                                           final Map<String, String> properties,
+                                                           final Map<String, String> propertyTypes)
     {
-        logDeprecatedIn2OrAbove("getAutoindexingProperties");
+        final Map<String, Object> rowProperties = new HashMap<String, Object>();
 
-        return getEntity(getAutoIndexingPropertiesUri(), STRINGS_TYPE_REFERENCE, SC_OK);
+        if (MapUtils.isEmpty(properties))
+        {
+            for (final Entry<String, Object> value : record.entrySet())
+            {
+                putImportValue(rowProperties, value.getKey(),
+                    convertImportValue(value.getValue(), value.getKey(), propertyTypes));
+            }
+        }
+        else
+        {
+            for (final Entry<String, String> property : properties.entrySet())
+            {
+                putImportValue(rowProperties, property.getKey(),
+                    convertImportValue(record.get(property.getValue()), property.getKey(), propertyTypes));
+            }
+        }
+
+        return rowProperties;
     }
 
-    /**
-     * Add a property for autoindexing on nodes.
-     * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:addAutoindexingProperty}
-     * 
-     * @param propertyName the property to add.
-     * @throws MuleException if anything goes wrong with the operation.
-     * @deprecated since Neo4j 2.0.0
-     */
-    @Deprecated
-    @Processor
-    public void addAutoindexingProperty(final String propertyName) throws MuleException
+    private static void putImportValue(final Map<String, Object> rowProperties,
+                                       final String property,
+                                       final Object value)
     {
-        logDeprecatedIn2OrAbove("addAutoindexingProperty");
-
-        postEntity(getAutoIndexingPropertiesUri(), propertyName, null, SC_NO_CONTENT);
+        // Neo4j doesn't store null properties
+        if (value != null)
+        {
+            rowProperties.put(property, value);
+        }
     }
 
-    /**
-     * Delete a property for autoindexing on nodes.
-     * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:deleteAutoindexingProperty}
-     * 
-     * @param propertyName the property to remove.
-     * @throws MuleException if anything goes wrong with the operation.
-     * @deprecated since Neo4j 2.0.0
-     */
-    @Deprecated
-    @Processor
-    public void deleteAutoindexingProperty(final String propertyName) throws MuleException
+    private static Object getImportValue(final Map<String, Object> record,
+                                         final String column,
+                                         final String property,
+                                         final Map<String, String> propertyTypes)
     {
-        logDeprecatedIn2OrAbove("deleteAutoindexingProperty");
+        final Object value = convertImportValue(record.get(column), property, propertyTypes);
 
-        deleteEntityByUri(getAutoIndexingPropertiesUri() + propertyName, false);
+        if (value == null)
+        {
+            throw new IllegalArgumentException("Missing value for column: " + column);
+        }
+
+        return value;
     }
 
-    private <T> Collection<T> traverse(final Node node,
-                                       final TraversalQuery.Order order,
-                                       final TraversalQuery.Uniqueness uniqueness,
-                                       final Integer maxDepth,
-                                       final List<RelationshipQuery> relationships,
-                                       final TraversalScript returnFilter,
-                                       final TraversalScript pruneEvaluator,
-                                       final TraversalResult traversalResult,
-                                       final TypeReference<Collection<T>> responseType) throws MuleException
+    private static Object convertImportValue(final Object value,
+                                             final String property,
+                                             final Map<String, String> propertyTypes)
     {
-        final String traverseUri = StringUtils.replace(node.getTraverse(), RETURN_TYPE_TEMPLATE,
-            traversalResult.toString().toLowerCase());
+        final String propertyType = propertyTypes == null ? null : propertyTypes.get(property);
 
-        final TraversalQuery traversalQuery = new TraversalQuery().withOrder(order)
-            .withUniqueness(uniqueness)
-            .withMaxDepth(maxDepth)
-            .withRelationships(relationships)
-            .withPruneEvaluator(pruneEvaluator)
-            .withReturnFilter(returnFilter);
+        if ((value == null) || (StringUtils.isBlank(propertyType)) || (!(value instanceof String)))
+        {
+            return value;
+        }
 
-        return postEntity(traverseUri, traversalQuery, responseType, SC_OK);
+        final String stringValue = StringUtils.trim((String) value);
+
+        try
+        {
+            if ("long".equalsIgnoreCase(propertyType))
+            {
+                return Long.valueOf(stringValue);
+            }
+            else if ("double".equalsIgnoreCase(propertyType))
+            {
+                return Double.valueOf(stringValue);
+            }
+            else if ("boolean".equalsIgnoreCase(propertyType))
+            {
+                return Boolean.valueOf(stringValue);
+            }
+            else if ("string".equalsIgnoreCase(propertyType))
+            {
+                return value;
+            }
+        }
+        catch (final NumberFormatException nfe)
+        {
+            throw new IllegalArgumentException("Invalid " + propertyType + " value: " + value
+                                               + " for property: " + property);
+        }
+
+        throw new IllegalArgumentException("Unsupported type: " + propertyType + " for property: " + property);
     }
 
-    /**
-     * Perform a node traversal, returning {@link Node} instances.
-     * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:traverseForNodes}
-     * 
-     * @param node the start {@link Node}.
-     * @param order the order to visit the nodes.
-     * @param uniqueness how uniquess should be calculated.
-     * @param maxDepth the maximum depth from the start node after which results must be pruned.
-     * @param relationships the relationship types and directions that must be followed.
-     * @param returnFilter a filter that determines if the current position should be included in
-     *            the result.
-     * @param pruneEvaluator an evaluator that determines of traversal should stop or continue.
-     * @return a {@link Collection} of {@link Node}, never null but potentially empty.
-     * @throws MuleException if anything goes wrong with the operation.
-     */
-    @Processor
-    public Collection<Node> traverseForNodes(@RefOnly final Node node,
-                                             final TraversalQuery.Order order,
-                                             final TraversalQuery.Uniqueness uniqueness,
-                                             @Optional final Integer maxDepth,
-                                             @Optional final List<RelationshipQuery> relationships,
-                                             @Optional final TraversalScript returnFilter,
-                                             @Optional final TraversalScript pruneEvaluator)
-        throws MuleException
+    private static String quoteCypherIdentifier(final String identifier)
     {
-        return traverse(node, order, uniqueness, maxDepth, relationships, returnFilter, pruneEvaluator,
-            TraversalResult.NODE, NODES_TYPE_REFERENCE);
+        return "`" + StringUtils.replace(identifier, "`", "``") + "`";
     }
 
     /**
-     * Perform a node traversal, returning {@link Relationship} instances.
+     * Run a cypher query without blocking the flow, which receives a {@link Future} of the
+     * {@link CypherQueryResult}: use <code>await-result</code> or <code>await-all</code> to get it.
      * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:traverseForRelationships}
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:runCypherQueryAsync}
      * 
-     * @param node the start {@link Node}.
-     * @param order the order to visit the nodes.
-     * @param uniqueness how uniquess should be calculated.
-     * @param maxDepth the maximum depth from the start node after which results must be pruned.
-     * @param relationships the relationship types and directions that must be followed.
-     * @param returnFilter a filter that determines if the current position should be included in
-     *            the result.
-     * @param pruneEvaluator an evaluator that determines of traversal should stop or continue.
-     * @return a {@link Collection} of {@link Relationship}, never null but potentially empty.
-     * @throws MuleException if anything goes wrong with the operation.
+     * @param query the query to execute.
+     * @param params the parameters to use.
+     * @param includeStatistics defines if meta data about the query must be returned.
+     * @param profile defines if a profile of the executed query must be returned.
+     * @return a {@link Future} of {@link CypherQueryResult}.
      */
     @Processor
-    public Collection<Relationship> traverseForRelationships(@RefOnly final Node node,
-                                                             final TraversalQuery.Order order,
-                                                             final TraversalQuery.Uniqueness uniqueness,
-                                                             @Optional final Integer maxDepth,
-                                                             @Optional final List<RelationshipQuery> relationships,
-                                                             @Optional final TraversalScript returnFilter,
-                                                             @Optional final TraversalScript pruneEvaluator)
-        throws MuleException
+    public Future<CypherQueryResult> runCypherQueryAsync(final String query,
+                                                         @Optional final Map<String, Object> params,
+                                                         @Optional @Default("false") final boolean includeStatistics,
+                                                         @Optional @Default("false") final boolean profile)
     {
-        return traverse(node, order, uniqueness, maxDepth, relationships, returnFilter, pruneEvaluator,
-            TraversalResult.RELATIONSHIP, RELATIONSHIPS_TYPE_REFERENCE);
+        return submitAsync(new Callable<CypherQueryResult>()
+        {
+            public CypherQueryResult call() throws Exception
+            {
+                return runCypherQuery(query, params, includeStatistics, profile);
+            }
+        });
     }
 
     /**
-     * Perform a node traversal, returning {@link Path} instances.
+     * Get a {@link Node} without blocking the flow.
      * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:traverseForPaths}
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:getNodeByIdAsync}
      * 
-     * @param node the start {@link Node}.
-     * @param order the order to visit the nodes.
-     * @param uniqueness how uniquess should be calculated.
-     * @param maxDepth the maximum depth from the start node after which results must be pruned.
-     * @param relationships the relationship types and directions that must be followed.
-     * @param returnFilter a filter that determines if the current position should be included in
-     *            the result.
-     * @param pruneEvaluator an evaluator that determines of traversal should stop or continue.
-     * @return a {@link Collection} of {@link Path}, never null but potentially empty.
-     * @throws MuleException if anything goes wrong with the operation.
+     * @param nodeId id of the node to get.
+     * @param failIfNotFound if true, the future will fail if the node is not found, otherwise it
+     *            will yield null.
+     * @return a {@link Future} of {@link Node}.
      */
     @Processor
-    public Collection<Path> traverseForPaths(@RefOnly final Node node,
-                                             final TraversalQuery.Order order,
-                                             final TraversalQuery.Uniqueness uniqueness,
-                                             @Optional final Integer maxDepth,
-                                             @Optional final List<RelationshipQuery> relationships,
-                                             @Optional final TraversalScript returnFilter,
-                                             @Optional final TraversalScript pruneEvaluator)
-        throws MuleException
+    public Future<Node> getNodeByIdAsync(final long nodeId,
+                                         @Optional @Default("false") final boolean failIfNotFound)
     {
-        return traverse(node, order, uniqueness, maxDepth, relationships, returnFilter, pruneEvaluator,
-            TraversalResult.PATH, PATHS_TYPE_REFERENCE);
+        return submitAsync(new Callable<Node>()
+        {
+            public Node call() throws Exception
+            {
+                return getNodeById(nodeId, failIfNotFound);
+            }
+        });
     }
 
     /**
-     * Perform a node traversal, returning {@link Fullpath} instances.
+     * Get many {@link Node}s concurrently without blocking the flow, which receives one
+     * {@link Future} per requested id, in the same order as the ids.
      * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:traverseForFullpaths}
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:getNodesByIdAsync}
      * 
-     * @param node the start {@link Node}.
-     * @param order the order to visit the nodes.
-     * @param uniqueness how uniquess should be calculated.
-     * @param maxDepth the maximum depth from the start node after which results must be pruned.
-     * @param relationships the relationship types and directions that must be followed.
-     * @param returnFilter a filter that determines if the current position should be included in
-     *            the result.
-     * @param pruneEvaluator an evaluator that determines of traversal should stop or continue.
-     * @return a {@link Collection} of {@link Fullpath}, never null but potentially empty.
-     * @throws MuleException if anything goes wrong with the operation.
+     * @param nodeIds ids of the nodes to get.
+     * @param failIfNotFound if true, the future of a missing node will fail, otherwise it will
+     *            yield null.
+     * @return a {@link List} of {@link Future}s of {@link Node}.
      */
     @Processor
-    public Collection<Fullpath> traverseForFullpaths(@RefOnly final Node node,
-                                                     final TraversalQuery.Order order,
-                                                     final TraversalQuery.Uniqueness uniqueness,
-                                                     @Optional final Integer maxDepth,
-                                                     @Optional final List<RelationshipQuery> relationships,
-                                                     @Optional final TraversalScript returnFilter,
-                                                     @Optional final TraversalScript pruneEvaluator)
-        throws MuleException
-    {
-        return traverse(node, order, uniqueness, maxDepth, relationships, returnFilter, pruneEvaluator,
-            TraversalResult.FULLPATH, FULLPATHS_TYPE_REFERENCE);
-    }
-
-    private <T> void traversePaged(final Node node,
-                                   final TraversalQuery.Order order,
-                                   final TraversalQuery.Uniqueness uniqueness,
-                                   final Integer maxDepth,
-                                   final List<RelationshipQuery> relationships,
-                                   final TraversalScript returnFilter,
-                                   final TraversalScript pruneEvaluator,
-                                   final int pageSize,
-                                   final int leaseTimeSeconds,
-                                   final MuleEvent muleEvent,
-                                   final SourceCallback sourceCallback,
-                                   final TraversalResult traversalResult,
-                                   final TypeReference<Collection<T>> responseType) throws MuleException
+    public List<Future<Node>> getNodesByIdAsync(final List<Long> nodeIds,
+                                                @Optional @Default("false") final boolean failIfNotFound)
     {
-        final String pagedTraverseUri = StringUtils.replace(node.getPagedTraverse(),
-            RETURN_TYPE_TEMPLATE + PAGINATION_PARAMS_TEMPLATE, traversalResult.toString().toLowerCase());
-
-        final TraversalQuery traversalQuery = new TraversalQuery().withOrder(order)
-            .withUniqueness(uniqueness)
-            .withMaxDepth(maxDepth)
-            .withRelationships(relationships)
-            .withPruneEvaluator(pruneEvaluator)
-            .withReturnFilter(returnFilter);
-
-        final HttpResponse<Collection<T>> httpResponse = sendRequestWithEntity(HttpConstants.METHOD_POST,
-            pagedTraverseUri, traversalQuery, responseType, SC_CREATED, "pageSize", pageSize, "leaseTime",
-            leaseTimeSeconds);
-
-        // dispatch the initial response
-        final DefaultMuleEvent initialResponseEvent = new DefaultMuleEvent(new DefaultMuleMessage(
-            httpResponse.getEntity(), muleEvent.getMessage(), muleContext), muleEvent);
-
-        sourceCallback.processEvent(initialResponseEvent);
+        final List<Future<Node>> futureNodes = new ArrayList<Future<Node>>(nodeIds.size());
 
-        // fetch and dispatch the next pages until 404
-        final String nextPageUri = httpResponse.getHeaders().get(HttpConstants.HEADER_LOCATION);
-
-        Collection<T> nextPage;
-        while ((nextPage = getEntity(nextPageUri, responseType, SC_OK_OR_NOT_FOUND)) != null)
+        for (final Long nodeId : nodeIds)
         {
-            final DefaultMuleEvent nextPageResponseEvent = new DefaultMuleEvent(new DefaultMuleMessage(
-                nextPage, muleEvent.getMessage(), muleContext), muleEvent);
-
-            sourceCallback.processEvent(nextPageResponseEvent);
+            futureNodes.add(getNodeByIdAsync(nodeId, failIfNotFound));
         }
+
+        return futureNodes;
     }
 
     /**
-     * Perform a paged node traversal, dispatching {@link Node} instances to the rest of the flow.
+     * Create a {@link Node} without blocking the flow.
      * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:traverseForNodesWithPaging}
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:createNodeAsync}
      * 
-     * @param node the start {@link Node}.
-     * @param order the order to visit the nodes.
-     * @param uniqueness how uniquess should be calculated.
-     * @param maxDepth the maximum depth from the start node after which results must be pruned.
-     * @param relationships the relationship types and directions that must be followed.
-     * @param returnFilter a filter that determines if the current position should be included in
-     *            the result.
-     * @param pruneEvaluator an evaluator that determines of traversal should stop or continue.
-     * @param pageSize the size of the result page.
-     * @param leaseTimeSeconds the time during which the paged results will be accessible.
-     * @param muleEvent the {@link MuleEvent} being processed.
-     * @param sourceCallback the {@link SourceCallback} invoked for each result page.
-     * @return a {@link Collection} of {@link Node}, never null but potentially empty.
-     * @throws MuleException if anything goes wrong with the operation.
+     * @param properties the properties of the node.
+     * @return a {@link Future} of the created {@link Node}.
      */
-    @Processor(intercepting = true)
-    @Inject
-    public void traverseForNodesWithPaging(@RefOnly final Node node,
-                                           final TraversalQuery.Order order,
-                                           final TraversalQuery.Uniqueness uniqueness,
-                                           @Optional final Integer maxDepth,
-                                           @Optional final List<RelationshipQuery> relationships,
-                                           @Optional final TraversalScript returnFilter,
-                                           @Optional final TraversalScript pruneEvaluator,
-                                           @Optional @Default("50") final int pageSize,
-                                           @Optional @Default("60") final int leaseTimeSeconds,
-                                           final MuleEvent muleEvent,
-                                           final SourceCallback sourceCallback) throws MuleException
+    @Processor
+    public Future<Node> createNodeAsync(@Optional final Map<String, Object> properties)
+    {
+        return submitAsync(new Callable<Node>()
+        {
+            public Node call() throws Exception
+            {
+                return createNode(properties);
+            }
+        });
+    }
+
+    /**
+     * Create a {@link Relationship} without blocking the flow.
+     * <p>
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:createRelationshipAsync}
+     * 
+     * @param fromNode the node where the relationship starts.
+     * @param toNode the node where the relationship ends.
+     * @param type the type of relationship.
+     * @param properties the properties of the relationship.
+     * @return a {@link Future} of the created {@link Relationship}.
+     */
+    @Processor
+    public Future<Relationship> createRelationshipAsync(@RefOnly final Node fromNode,
+                                                        @RefOnly final Node toNode,
+                                                        final String type,
+                                                        @Optional final Map<String, Object> properties)
     {
-        traversePaged(node, order, uniqueness, maxDepth, relationships, returnFilter, pruneEvaluator,
-            pageSize, leaseTimeSeconds, muleEvent, sourceCallback, TraversalResult.NODE, NODES_TYPE_REFERENCE);
+        return submitAsync(new Callable<Relationship>()
+        {
+            public Relationship call() throws Exception
+            {
+                return createRelationship(fromNode, toNode, type, properties);
+            }
+        });
     }
 
     /**
-     * Perform a paged node traversal, dispatching {@link Relationship} instances to the rest of the
-     * flow.
+     * Perform a node traversal, returning {@link Node} instances, without blocking the flow.
      * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample
-     * neo4j:traverseForRelationshipsWithPaging}
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:traverseForNodesAsync}
      * 
      * @param node the start {@link Node}.
      * @param order the order to visit the nodes.
@@ -2201,216 +5803,293 @@ public class Neo4jConnector implements MuleContextAware
      * @param returnFilter a filter that determines if the current position should be included in
      *            the result.
      * @param pruneEvaluator an evaluator that determines of traversal should stop or continue.
-     * @param pageSize the size of the result page.
-     * @param leaseTimeSeconds the time during which the paged results will be accessible.
-     * @param muleEvent the {@link MuleEvent} being processed.
-     * @param sourceCallback the {@link SourceCallback} invoked for each result page.
-     * @return a {@link Collection} of {@link Node}, never null but potentially empty.
-     * @throws MuleException if anything goes wrong with the operation.
+     * @return a {@link Future} of a {@link Collection} of {@link Node}.
      */
-    @Processor(intercepting = true)
-    @Inject
-    public void traverseForRelationshipsWithPaging(@RefOnly final Node node,
-                                                   final TraversalQuery.Order order,
-                                                   final TraversalQuery.Uniqueness uniqueness,
-                                                   @Optional final Integer maxDepth,
-                                                   @Optional final List<RelationshipQuery> relationships,
-                                                   @Optional final TraversalScript returnFilter,
-                                                   @Optional final TraversalScript pruneEvaluator,
-                                                   @Optional @Default("50") final int pageSize,
-                                                   @Optional @Default("60") final int leaseTimeSeconds,
-                                                   final MuleEvent muleEvent,
-                                                   final SourceCallback sourceCallback) throws MuleException
+    @Processor
+    public Future<Collection<Node>> traverseForNodesAsync(@RefOnly final Node node,
+                                                          final TraversalQuery.Order order,
+                                                          final TraversalQuery.Uniqueness uniqueness,
+                                                          @Optional final Integer maxDepth,
+                                                          @Optional final List<RelationshipQuery> relationships,
+                                                          @Optional final TraversalScript returnFilter,
+                                                          @Optional final TraversalScript pruneEvaluator)
+    {
+        return submitAsync(new Callable<Collection<Node>>()
+        {
+            public Collection<Node> call() throws Exception
+            {
+                return traverseForNodes(node, order, uniqueness, maxDepth, relationships, returnFilter,
+                    pruneEvaluator);
+            }
+        });
+    }
+
+    /**
+     * Wait for the result of a {@link Future} returned by an asynchronous processor.
+     * <p>
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:awaitResult}
+     * 
+     * @param future the {@link Future} to wait for.
+     * @param timeoutMillis the maximum time to wait, in milliseconds.
+     * @return the result of the asynchronous operation, potentially null.
+     * @throws MuleException if the operation failed or didn't complete in time.
+     */
+    @Processor
+    public Object awaitResult(@RefOnly final Future<?> future, @Optional @Default("60000") final long timeoutMillis)
+        throws MuleException
     {
-        traversePaged(node, order, uniqueness, maxDepth, relationships, returnFilter, pruneEvaluator,
-            pageSize, leaseTimeSeconds, muleEvent, sourceCallback, TraversalResult.RELATIONSHIP,
-            RELATIONSHIPS_TYPE_REFERENCE);
+        return awaitFuture(future, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis));
     }
 
     /**
-     * Perform a paged node traversal, dispatching {@link Path} instances to the rest of the flow.
+     * Wait for the results of several {@link Future}s returned by asynchronous processors. If one
+     * fails or the time is up, the futures that are still pending get cancelled.
      * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:traverseForPathsWithPaging}
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:awaitAll}
      * 
-     * @param node the start {@link Node}.
-     * @param order the order to visit the nodes.
-     * @param uniqueness how uniquess should be calculated.
-     * @param maxDepth the maximum depth from the start node after which results must be pruned.
-     * @param relationships the relationship types and directions that must be followed.
-     * @param returnFilter a filter that determines if the current position should be included in
-     *            the result.
-     * @param pruneEvaluator an evaluator that determines of traversal should stop or continue.
-     * @param pageSize the size of the result page.
-     * @param leaseTimeSeconds the time during which the paged results will be accessible.
-     * @param muleEvent the {@link MuleEvent} being processed.
-     * @param sourceCallback the {@link SourceCallback} invoked for each result page.
-     * @return a {@link Collection} of {@link Node}, never null but potentially empty.
-     * @throws MuleException if anything goes wrong with the operation.
+     * @param futures the {@link Future}s to wait for.
+     * @param timeoutMillis the maximum time to wait for all of them, in milliseconds.
+     * @return a {@link List} of results, in the same order as the futures.
+     * @throws MuleException if any operation failed or didn't complete in time.
      */
-    @Processor(intercepting = true)
-    @Inject
-    public void traverseForPathsWithPaging(@RefOnly final Node node,
-                                           final TraversalQuery.Order order,
-                                           final TraversalQuery.Uniqueness uniqueness,
-                                           @Optional final Integer maxDepth,
-                                           @Optional final List<RelationshipQuery> relationships,
-                                           @Optional final TraversalScript returnFilter,
-                                           @Optional final TraversalScript pruneEvaluator,
-                                           @Optional @Default("50") final int pageSize,
-                                           @Optional @Default("60") final int leaseTimeSeconds,
-                                           final MuleEvent muleEvent,
-                                           final SourceCallback sourceCallback) throws MuleException
+    @Processor
+    public List<Object> awaitAll(@RefOnly final List<Future<?>> futures,
+                                 @Optional @Default("60000") final long timeoutMillis) throws MuleException
     {
-        traversePaged(node, order, uniqueness, maxDepth, relationships, returnFilter, pruneEvaluator,
-            pageSize, leaseTimeSeconds, muleEvent, sourceCallback, TraversalResult.PATH, PATHS_TYPE_REFERENCE);
+        final long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        final List<Object> results = new ArrayList<Object>(futures.size());
+
+        try
+        {
+            for (final Future<?> future : futures)
+            {
+                results.add(awaitFuture(future, deadlineNanos));
+            }
+        }
+        finally
+        {
+            if (results.size() < futures.size())
+            {
+                for (final Future<?> future : futures.subList(results.size(), futures.size()))
+                {
+                    future.cancel(true);
+                }
+            }
+        }
+
+        return results;
     }
 
     /**
-     * Perform a paged node traversal, dispatching {@link Fullpath} instances to the rest of the
-     * flow.
+     * Get the statistics of the entity cache, which are all zeros if entityCache is disabled.
+     * Evictions include expirations.
      * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:traverseForFullpathsWithPaging}
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:getEntityCacheStatistics}
      * 
-     * @param node the start {@link Node}.
-     * @param order the order to visit the nodes.
-     * @param uniqueness how uniquess should be calculated.
-     * @param maxDepth the maximum depth from the start node after which results must be pruned.
-     * @param relationships the relationship types and directions that must be followed.
-     * @param returnFilter a filter that determines if the current position should be included in
-     *            the result.
-     * @param pruneEvaluator an evaluator that determines of traversal should stop or continue.
-     * @param pageSize the size of the result page.
-     * @param leaseTimeSeconds the time during which the paged results will be accessible.
-     * @param muleEvent the {@link MuleEvent} being processed.
-     * @param sourceCallback the {@link SourceCallback} invoked for each result page.
-     * @return a {@link Collection} of {@link Node}, never null but potentially empty.
-     * @throws MuleException if anything goes wrong with the operation.
+     * @return a {@link Map} of hits, misses, evictions and size, summed over the cached entities
+     *         and collections of entities.
      */
-    @Processor(intercepting = true)
-    @Inject
-    public void traverseForFullpathsWithPaging(@RefOnly final Node node,
-                                               final TraversalQuery.Order order,
-                                               final TraversalQuery.Uniqueness uniqueness,
-                                               @Optional final Integer maxDepth,
-                                               @Optional final List<RelationshipQuery> relationships,
-                                               @Optional final TraversalScript returnFilter,
-                                               @Optional final TraversalScript pruneEvaluator,
-                                               @Optional @Default("50") final int pageSize,
-                                               @Optional @Default("60") final int leaseTimeSeconds,
-                                               final MuleEvent muleEvent,
-                                               final SourceCallback sourceCallback) throws MuleException
+    @Processor
+    public Map<String, Long> getEntityCacheStatistics()
     {
-        traversePaged(node, order, uniqueness, maxDepth, relationships, returnFilter, pruneEvaluator,
-            pageSize, leaseTimeSeconds, muleEvent, sourceCallback, TraversalResult.FULLPATH,
-            FULLPATHS_TYPE_REFERENCE);
+        long hits = 0L;
+        long misses = 0L;
+        long evictions = 0L;
+        long size = 0L;
+
+        for (final ExpiringLruCache<String, Object> cache : Arrays.asList(cachedEntities,
+            cachedEntityCollections))
+        {
+            if (cache != null)
+            {
+                hits += cache.getHits();
+                misses += cache.getMisses();
+                evictions += cache.getEvictions();
+                size += cache.size();
+            }
+        }
+
+        final Map<String, Long> statistics = new LinkedHashMap<String, Long>();
+        statistics.put("hits", hits);
+        statistics.put("misses", misses);
+        statistics.put("evictions", evictions);
+        statistics.put("size", size);
+        return statistics;
     }
 
-    private <T> T traverseWithAlgorithm(final Node toNode,
-                                        final Algorithm algorithm,
-                                        final String relationshipType,
-                                        final String costProperty,
-                                        final Double defaultCost,
-                                        final String requestUri,
-                                        final TypeReference<T> responseType,
-                                        final Set<Integer> expectedStatusCodes) throws MuleException
+    /**
+     * Remove all the entries of the entity cache, for example after having modified entities with
+     * Cypher.
+     * <p>
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:invalidateEntityCache}
+     */
+    @Processor
+    public void invalidateEntityCache()
     {
-        final PathQuery pathQuery = new PathQuery().withTo(toNode.getSelf())
-            .withAlgorithm(algorithm)
-            .withCostProperty(costProperty)
-            .withDefaultCost(defaultCost)
-            .withRelationships(
-                new RelationshipQuery().withDirection(Direction.OUT).withType(relationshipType));
+        if (cachedEntities != null)
+        {
+            cachedEntities.invalidateAll();
+            cachedEntityCollections.invalidateAll();
+        }
+    }
 
-        return postEntity(requestUri, pathQuery, responseType, expectedStatusCodes);
+    /**
+     * Get the statistics of the Cypher result cache, shared by all the connectors of the same base
+     * URI, which are all zeros if cypherResultCache is disabled. Evictions include expirations.
+     * <p>
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:getCypherResultCacheStatistics}
+     * 
+     * @return a {@link Map} of hits, misses, hit ratio, evictions, size and estimated weight in
+     *         bytes.
+     */
+    @Processor
+    public Map<String, Number> getCypherResultCacheStatistics()
+    {
+        final Map<String, Number> statistics = new LinkedHashMap<String, Number>();
+        final long hits = cachedCypherResults == null ? 0L : cachedCypherResults.getHits();
+        final long misses = cachedCypherResults == null ? 0L : cachedCypherResults.getMisses();
+
+        statistics.put("hits", hits);
+        statistics.put("misses", misses);
+        statistics.put("hitRatio", hits + misses == 0L ? 0.0d : (double) hits / (hits + misses));
+        statistics.put("evictions", cachedCypherResults == null ? 0L : cachedCypherResults.getEvictions());
+        statistics.put("size", cachedCypherResults == null ? 0 : cachedCypherResults.size());
+        statistics.put("weight", cachedCypherResults == null ? 0L : cachedCypherResults.getWeight());
+        return statistics;
     }
 
     /**
-     * Traverse nodes with a particular algorithm, returning the first successful path found.
+     * Remove all the entries of the Cypher result cache.
      * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:traverseForPathWithAlgorithm}
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:invalidateCypherResultCache}
+     */
+    @Processor
+    public void invalidateCypherResultCache()
+    {
+        if (cachedCypherResults != null)
+        {
+            cachedCypherResults.invalidateAll();
+        }
+    }
+
+    /**
+     * Get the statistics of the automatic parameterization of Cypher queries, which are all zeros if
+     * autoParameterizeCypher is disabled. The closer distinctTemplates is to the number of distinct
+     * query shapes, the better the server plan cache is used.
      * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample
-     * neo4j:traverseForPathWithAlgorithm-failIfNotFound}
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:getCypherTemplateStatistics}
      * 
-     * @param fromNode the {@link Node} where traversal should start.
-     * @param toNode the {@link Node} where traversal should end.
-     * @param algorithm the {@link Algorithm} to use for the traversal.
-     * @param relationshipType the type of relationship to traverse.
-     * @param maxDepth the maximum depth from the start node below which traversal must stop.
-     * @param costProperty the property that contains the cost of traversal.
-     * @param defaultCost the default cost of the traversal.
-     * @param failIfNotFound if true, an exception will be thrown if no path can be found, otherwise
-     *            null will be returned.
-     * @return a single {@link PathQueryResult} instance.
-     * @throws MuleException if anything goes wrong with the operation.
+     * @return a {@link Map} of the numbers of queries, of queries that had literals replaced with
+     *         parameters, of replaced literals, of distinct templates and of template cache hits.
      */
     @Processor
-    public PathQueryResult traverseForPathWithAlgorithm(@RefOnly final Node fromNode,
-                                                        @RefOnly final Node toNode,
-                                                        final Algorithm algorithm,
-                                                        final String relationshipType,
-                                                        @Optional @Default("1") final int maxDepth,
-                                                        @Optional final String costProperty,
-                                                        @Optional final Double defaultCost,
-                                                        @Optional @Default("false") final boolean failIfNotFound)
-        throws MuleException
+    public Map<String, Long> getCypherTemplateStatistics()
     {
-        return traverseWithAlgorithm(toNode, algorithm, relationshipType, costProperty, defaultCost,
-            fromNode.getPath(), PATH_QUERY_RESULT_TYPE_REFERENCE, failIfNotFound ? SC_OK : SC_OK_OR_NOT_FOUND);
+        return cypherParameterizer == null ? new CypherParameterizer().getStatistics()
+                                          : cypherParameterizer.getStatistics();
     }
 
     /**
-     * Traverse nodes with a particular algorithm, returning all the successful paths found.
+     * Get the statistics of the coalescing of identical concurrent read-only requests, shared by all
+     * the connectors of the same base URI, which are all zeros if coalesceReadRequests is disabled.
      * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:traverseForPathsWithAlgorithm}
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:getCoalescingStatistics}
      * 
-     * @param fromNode the {@link Node} where traversal should start.
-     * @param toNode the {@link Node} where traversal should end.
-     * @param algorithm the {@link Algorithm} to use for the traversal.
-     * @param relationshipType the type of relationship to traverse.
-     * @param maxDepth the maximum depth from the start node below which traversal must stop.
-     * @param costProperty the property that contains the cost of traversal.
-     * @param defaultCost the default cost of the traversal.
-     * @return a {@link Collection} of {@link PathQueryResult} instances, never null but potentially
-     *         empty.
-     * @throws MuleException if anything goes wrong with the operation.
+     * @return a {@link Map} of the numbers of read-only requests, of requests sent to the server, of
+     *         requests that shared the result of an identical one and of requests in flight.
      */
     @Processor
-    public Collection<PathQueryResult> traverseForPathsWithAlgorithm(@RefOnly final Node fromNode,
-                                                                     @RefOnly final Node toNode,
-                                                                     final Algorithm algorithm,
-                                                                     final String relationshipType,
-                                                                     @Optional @Default("1") final int maxDepth,
-                                                                     @Optional final String costProperty,
-                                                                     @Optional final Double defaultCost)
-        throws MuleException
+    public Map<String, Long> getCoalescingStatistics()
     {
-        return traverseWithAlgorithm(toNode, algorithm, relationshipType, costProperty, defaultCost,
-            fromNode.getPaths(), PATH_QUERY_RESULTS_TYPE_REFERENCE, SC_OK);
+        return requestCoalescer == null ? new RequestCoalescer().getStatistics()
+                                        : requestCoalescer.getStatistics();
     }
 
     /**
-     * Execute a batch of jobs.
+     * Get the role, availability and average latency of each member of the cluster, which is empty
+     * if clusterMembers is not set.
      * <p>
-     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:executeBatch}
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:getClusterMemberStatuses}
      * 
-     * @param jobs the batch to execute.
-     * @return a {@link Collection} of {@link BatchJobResult}, never null but possibly empty.
-     * @throws MuleException if anything goes wrong with the operation.
+     * @return a {@link Map} of statuses by member base URI.
      */
     @Processor
-    public Collection<BatchJobResult> executeBatch(final List<ConfigurableBatchJob> jobs)
-        throws MuleException
+    public Map<String, String> getClusterMemberStatuses()
     {
-        Validate.notEmpty(jobs, "jobs can not be empty");
+        return clusterRoutingHttpTransport == null
+                                                  ? Collections.<String, String> emptyMap()
+                                                  : clusterRoutingHttpTransport.getMemberStatuses();
+    }
 
-        final List<BatchJob> batch = new ArrayList<BatchJob>();
-        for (final ConfigurableBatchJob job : jobs)
+    /**
+     * Get the statistics of read-only request hedging, which are all zeros if hedgedReads is
+     * disabled.
+     * <p>
+     * {@sample.xml ../../../doc/mule-module-neo4j.xml.sample neo4j:getHedgingStatistics}
+     * 
+     * @return a {@link Map} of the number of read-only requests, hedges sent, hedges that answered
+     *         first and hedges denied by the budget.
+     */
+    @Processor
+    public Map<String, Long> getHedgingStatistics()
+    {
+        if (hedgingHttpTransport != null)
+        {
+            return hedgingHttpTransport.getStatistics();
+        }
+
+        final Map<String, Long> statistics = new LinkedHashMap<String, Long>();
+        statistics.put("requests", 0L);
+        statistics.put("hedges", 0L);
+        statistics.put("hedgeWins", 0L);
+        statistics.put("hedgesDeniedByBudget", 0L);
+        return statistics;
+    }
+
+    private <T> Future<T> submitAsync(final Callable<T> callable)
+    {
+        if (asyncExecutor == null)
+        {
+            throw new IllegalStateException("Asynchronous processors are only available while connected");
+        }
+
+        final FutureTask<T> asyncRequest = new FutureTask<T>(callable)
+        {
+            @Override
+            protected void done()
+            {
+                pendingAsyncRequests.remove(this);
+            }
+        };
+        pendingAsyncRequests.add(asyncRequest);
+        asyncExecutor.execute(asyncRequest);
+        return asyncRequest;
+    }
+
+    private static Object awaitFuture(final Future<?> future, final long deadlineNanos) throws MuleException
+    {
+        try
+        {
+            return future.get(Math.max(0L, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+        }
+        catch (final InterruptedException ie)
+        {
+            Thread.currentThread().interrupt();
+            throw new DefaultMuleException("Interrupted while waiting for: " + future, ie);
+        }
+        catch (final TimeoutException te)
         {
-            batch.add(job.toBatchJob());
+            throw new DefaultMuleException("Timed out waiting for: " + future, te);
         }
+        catch (final ExecutionException ee)
+        {
+            if (ee.getCause() instanceof MuleException)
+            {
+                throw (MuleException) ee.getCause();
+            }
 
-        return postEntity(serviceRoot.getBatch(), batch, BATCH_JOB_RESULTS_TYPE_REFERENCE, SC_OK);
+            throw new DefaultMuleException("Asynchronous operation failed: " + future, ee.getCause());
+        }
     }
 
     private void refreshAuthorization()
@@ -2479,6 +6158,168 @@ public class Neo4jConnector implements MuleContextAware
         this.streaming = streaming;
     }
 
+    public HttpTransportType getTransportType()
+    {
+        return transportType;
+    }
+
+    public void setTransportType(final HttpTransportType transportType)
+    {
+        this.transportType = transportType;
+    }
+
+    public HttpTransport getHttpTransport()
+    {
+        return httpTransport;
+    }
+
+    public void setHttpTransport(final HttpTransport httpTransport)
+    {
+        this.httpTransport = httpTransport;
+    }
+
+    public int getMaxConnectionsPerHost()
+    {
+        return maxConnectionsPerHost;
+    }
+
+    public void setMaxConnectionsPerHost(final int maxConnectionsPerHost)
+    {
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+    }
+
+    public int getMaxTotalConnections()
+    {
+        return maxTotalConnections;
+    }
+
+    public void setMaxTotalConnections(final int maxTotalConnections)
+    {
+        this.maxTotalConnections = maxTotalConnections;
+    }
+
+    public int getConnectionTimeoutMillis()
+    {
+        return connectionTimeoutMillis;
+    }
+
+    public void setConnectionTimeoutMillis(final int connectionTimeoutMillis)
+    {
+        this.connectionTimeoutMillis = connectionTimeoutMillis;
+    }
+
+    public int getReadTimeoutMillis()
+    {
+        return readTimeoutMillis;
+    }
+
+    public void setReadTimeoutMillis(final int readTimeoutMillis)
+    {
+        this.readTimeoutMillis = readTimeoutMillis;
+    }
+
+    public int getIdleConnectionTimeoutMillis()
+    {
+        return idleConnectionTimeoutMillis;
+    }
+
+    public void setIdleConnectionTimeoutMillis(final int idleConnectionTimeoutMillis)
+    {
+        this.idleConnectionTimeoutMillis = idleConnectionTimeoutMillis;
+    }
+
+    public int getAsyncThreads()
+    {
+        return asyncThreads;
+    }
+
+    public void setAsyncThreads(final int asyncThreads)
+    {
+        this.asyncThreads = asyncThreads;
+    }
+
+    public int getAsyncQueueSize()
+    {
+        return asyncQueueSize;
+    }
+
+    public void setAsyncQueueSize(final int asyncQueueSize)
+    {
+        this.asyncQueueSize = asyncQueueSize;
+    }
+
+    // non-JavaBean accessor required by DevKit: http://www.mulesoft.org/jira/browse/DEVKIT-365
+    public boolean getWriteBehind()
+    {
+        return writeBehind;
+    }
+
+    public boolean isWriteBehind()
+    {
+        return writeBehind;
+    }
+
+    public void setWriteBehind(final boolean writeBehind)
+    {
+        this.writeBehind = writeBehind;
+    }
+
+    public int getWriteBehindBatchSize()
+    {
+        return writeBehindBatchSize;
+    }
+
+    public void setWriteBehindBatchSize(final int writeBehindBatchSize)
+    {
+        this.writeBehindBatchSize = writeBehindBatchSize;
+    }
+
+    public int getWriteBehindFlushIntervalMillis()
+    {
+        return writeBehindFlushIntervalMillis;
+    }
+
+    public void setWriteBehindFlushIntervalMillis(final int writeBehindFlushIntervalMillis)
+    {
+        this.writeBehindFlushIntervalMillis = writeBehindFlushIntervalMillis;
+    }
+
+    // non-JavaBean accessor required by DevKit: http://www.mulesoft.org/jira/browse/DEVKIT-365
+    public boolean getBatchEntityReads()
+    {
+        return batchEntityReads;
+    }
+
+    public boolean isBatchEntityReads()
+    {
+        return batchEntityReads;
+    }
+
+    public void setBatchEntityReads(final boolean batchEntityReads)
+    {
+        this.batchEntityReads = batchEntityReads;
+    }
+
+    public int getEntityReadBatchSize()
+    {
+        return entityReadBatchSize;
+    }
+
+    public void setEntityReadBatchSize(final int entityReadBatchSize)
+    {
+        this.entityReadBatchSize = entityReadBatchSize;
+    }
+
+    public int getEntityReadBatchDelayMillis()
+    {
+        return entityReadBatchDelayMillis;
+    }
+
+    public void setEntityReadBatchDelayMillis(final int entityReadBatchDelayMillis)
+    {
+        this.entityReadBatchDelayMillis = entityReadBatchDelayMillis;
+    }
+
     public org.mule.api.transport.Connector getConnector()
     {
         return connector;
@@ -2488,4 +6329,252 @@ public class Neo4jConnector implements MuleContextAware
     {
         this.connector = connector;
     }
+
+    // non-JavaBean accessor required by DevKit: http://www.mulesoft.org/jira/browse/DEVKIT-365
+    public boolean getEntityCache()
+    {
+        return entityCache;
+    }
+
+    public boolean isEntityCache()
+    {
+        return entityCache;
+    }
+
+    public void setEntityCache(final boolean entityCache)
+    {
+        this.entityCache = entityCache;
+    }
+
+    public int getEntityCacheMaxEntries()
+    {
+        return entityCacheMaxEntries;
+    }
+
+    public void setEntityCacheMaxEntries(final int entityCacheMaxEntries)
+    {
+        this.entityCacheMaxEntries = entityCacheMaxEntries;
+    }
+
+    public int getEntityCacheTtlMillis()
+    {
+        return entityCacheTtlMillis;
+    }
+
+    public void setEntityCacheTtlMillis(final int entityCacheTtlMillis)
+    {
+        this.entityCacheTtlMillis = entityCacheTtlMillis;
+    }
+
+    // non-JavaBean accessor required by DevKit: http://www.mulesoft.org/jira/browse/DEVKIT-365
+    public boolean getMetrics()
+    {
+        return metrics;
+    }
+
+    public boolean isMetrics()
+    {
+        return metrics;
+    }
+
+    public void setMetrics(final boolean metrics)
+    {
+        this.metrics = metrics;
+    }
+
+    public String getMetricsName()
+    {
+        return metricsName;
+    }
+
+    public void setMetricsName(final String metricsName)
+    {
+        this.metricsName = metricsName;
+    }
+
+    // non-JavaBean accessor required by DevKit: http://www.mulesoft.org/jira/browse/DEVKIT-365
+    public boolean getCypherResultCache()
+    {
+        return cypherResultCache;
+    }
+
+    public boolean isCypherResultCache()
+    {
+        return cypherResultCache;
+    }
+
+    public void setCypherResultCache(final boolean cypherResultCache)
+    {
+        this.cypherResultCache = cypherResultCache;
+    }
+
+    public int getCypherResultCacheMaxBytes()
+    {
+        return cypherResultCacheMaxBytes;
+    }
+
+    public void setCypherResultCacheMaxBytes(final int cypherResultCacheMaxBytes)
+    {
+        this.cypherResultCacheMaxBytes = cypherResultCacheMaxBytes;
+    }
+
+    public int getCypherResultCacheTtlMillis()
+    {
+        return cypherResultCacheTtlMillis;
+    }
+
+    public void setCypherResultCacheTtlMillis(final int cypherResultCacheTtlMillis)
+    {
+        this.cypherResultCacheTtlMillis = cypherResultCacheTtlMillis;
+    }
+
+    public String getClusterMembers()
+    {
+        return clusterMembers;
+    }
+
+    public void setClusterMembers(final String clusterMembers)
+    {
+        this.clusterMembers = clusterMembers;
+    }
+
+    public int getClusterHealthCheckIntervalMillis()
+    {
+        return clusterHealthCheckIntervalMillis;
+    }
+
+    public void setClusterHealthCheckIntervalMillis(final int clusterHealthCheckIntervalMillis)
+    {
+        this.clusterHealthCheckIntervalMillis = clusterHealthCheckIntervalMillis;
+    }
+
+    // non-JavaBean accessor required by DevKit: http://www.mulesoft.org/jira/browse/DEVKIT-365
+    public boolean getHedgedReads()
+    {
+        return hedgedReads;
+    }
+
+    public boolean isHedgedReads()
+    {
+        return hedgedReads;
+    }
+
+    public void setHedgedReads(final boolean hedgedReads)
+    {
+        this.hedgedReads = hedgedReads;
+    }
+
+    public int getHedgingPercentile()
+    {
+        return hedgingPercentile;
+    }
+
+    public void setHedgingPercentile(final int hedgingPercentile)
+    {
+        this.hedgingPercentile = hedgingPercentile;
+    }
+
+    public int getHedgingBudgetPercent()
+    {
+        return hedgingBudgetPercent;
+    }
+
+    public void setHedgingBudgetPercent(final int hedgingBudgetPercent)
+    {
+        this.hedgingBudgetPercent = hedgingBudgetPercent;
+    }
+
+    // non-JavaBean accessor required by DevKit: http://www.mulesoft.org/jira/browse/DEVKIT-365
+    public boolean getAutoParameterizeCypher()
+    {
+        return autoParameterizeCypher;
+    }
+
+    public boolean isAutoParameterizeCypher()
+    {
+        return autoParameterizeCypher;
+    }
+
+    public void setAutoParameterizeCypher(final boolean autoParameterizeCypher)
+    {
+        this.autoParameterizeCypher = autoParameterizeCypher;
+    }
+
+    public Map<String, String> getNamedQueries()
+    {
+        return namedQueries;
+    }
+
+    public void setNamedQueries(final Map<String, String> namedQueries)
+    {
+        this.namedQueries = namedQueries;
+    }
+
+    public String getNamedQueriesDirectory()
+    {
+        return namedQueriesDirectory;
+    }
+
+    public void setNamedQueriesDirectory(final String namedQueriesDirectory)
+    {
+        this.namedQueriesDirectory = namedQueriesDirectory;
+    }
+
+    // non-JavaBean accessor required by DevKit: http://www.mulesoft.org/jira/browse/DEVKIT-365
+    public boolean getWarmUpNamedQueries()
+    {
+        return warmUpNamedQueries;
+    }
+
+    public boolean isWarmUpNamedQueries()
+    {
+        return warmUpNamedQueries;
+    }
+
+    public void setWarmUpNamedQueries(final boolean warmUpNamedQueries)
+    {
+        this.warmUpNamedQueries = warmUpNamedQueries;
+    }
+
+    // non-JavaBean accessor required by DevKit: http://www.mulesoft.org/jira/browse/DEVKIT-365
+    public boolean getCompactEntities()
+    {
+        return compactEntities;
+    }
+
+    public boolean isCompactEntities()
+    {
+        return compactEntities;
+    }
+
+    public void setCompactEntities(final boolean compactEntities)
+    {
+        this.compactEntities = compactEntities;
+    }
+
+    // non-JavaBean accessor required by DevKit: http://www.mulesoft.org/jira/browse/DEVKIT-365
+    public boolean getCoalesceReadRequests()
+    {
+        return coalesceReadRequests;
+    }
+
+    public boolean isCoalesceReadRequests()
+    {
+        return coalesceReadRequests;
+    }
+
+    public void setCoalesceReadRequests(final boolean coalesceReadRequests)
+    {
+        this.coalesceReadRequests = coalesceReadRequests;
+    }
+
+    public int getGraphParallelism()
+    {
+        return graphParallelism;
+    }
+
+    public void setGraphParallelism(final int graphParallelism)
+    {
+        this.graphParallelism = graphParallelism;
+    }
 }
@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) MuleSoft, Inc. All rights reserved. http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.md file.
+ */
+
+package org.mule.modules.neo4j;
+
+import java.util.Collection;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang.Validate;
+import org.mule.api.DefaultMuleException;
+import org.mule.api.MuleException;
+
+/**
+ * Fetches the pages of a paged traversal in a background thread, keeping up to
+ * <code>prefetchPages</code> of them ahead of the consumer so fetching a page overlaps with
+ * processing the previous ones.
+ * <p>
+ * Neo4j renews the lease of a paged traverser each time a page is fetched: if a page is requested
+ * more than <code>leaseTimeSeconds</code> after the previous one, which happens when the consumer
+ * is slower than the lease allows for the buffered pages, a "not found" response can't be told apart
+ * from the end of the traversal and is reported as a lease expiration failure, after the pages
+ * fetched before it.
+ */
+final class PagePrefetcher<T> implements Runnable
+{
+    interface PageFetcher<T>
+    {
+        /**
+         * @return the next page or null if there are no more pages.
+         */
+        Collection<T> fetchNextPage() throws MuleException;
+    }
+
+    private static final Object END_OF_PAGES = new Object();
+    private static final long ENQUEUE_POLL_MILLIS = 100L;
+
+    private final PageFetcher<T> pageFetcher;
+    private final int leaseTimeSeconds;
+    private final BlockingQueue<Object> pages;
+
+    private volatile boolean stopped;
+    private Thread fetchingThread;
+
+    PagePrefetcher(final PageFetcher<T> pageFetcher, final int prefetchPages, final int leaseTimeSeconds)
+    {
+        Validate.notNull(pageFetcher, "pageFetcher can't be null");
+        Validate.isTrue(prefetchPages > 0, "prefetchPages must be strictly positive");
+
+        this.pageFetcher = pageFetcher;
+        this.leaseTimeSeconds = leaseTimeSeconds;
+        pages = new ArrayBlockingQueue<Object>(prefetchPages);
+    }
+
+    void start(final ThreadFactory threadFactory)
+    {
+        fetchingThread = threadFactory.newThread(this);
+        fetchingThread.start();
+    }
+
+    /**
+     * Stop fetching pages, which must be done even if the consumer has not reached the last page.
+     */
+    void stop()
+    {
+        stopped = true;
+
+        if (fetchingThread != null)
+        {
+            fetchingThread.interrupt();
+        }
+    }
+
+    /**
+     * @return the next page, waiting for it to be fetched if needed, or null if there are no more
+     *         pages.
+     * @throws MuleException if fetching the page failed.
+     */
+    @SuppressWarnings("unchecked")
+    Collection<T> nextPage() throws MuleException
+    {
+        final Object page;
+        try
+        {
+            page = pages.take();
+        }
+        catch (final InterruptedException ie)
+        {
+            Thread.currentThread().interrupt();
+            throw new DefaultMuleException("Interrupted while waiting for the next traversal page", ie);
+        }
+
+        if (page == END_OF_PAGES)
+        {
+            // leave the marker for any subsequent call
+            pages.offer(END_OF_PAGES);
+            return null;
+        }
+        else if (page instanceof MuleException)
+        {
+            throw (MuleException) page;
+        }
+        else if (page instanceof Exception)
+        {
+            throw new DefaultMuleException("Failed to fetch the next traversal page", (Exception) page);
+        }
+
+        return (Collection<T>) page;
+    }
+
+    public void run()
+    {
+        // the first page has been fetched by the consumer right before starting this prefetcher
+        long previousFetchNanos = System.nanoTime();
+
+        try
+        {
+            while (!stopped)
+            {
+                final long fetchNanos = System.nanoTime();
+                final Collection<T> page = pageFetcher.fetchNextPage();
+
+                if (page != null)
+                {
+                    previousFetchNanos = fetchNanos;
+
+                    if (!enqueue(page))
+                    {
+                        return;
+                    }
+                }
+                else if (fetchNanos - previousFetchNanos >= TimeUnit.SECONDS.toNanos(leaseTimeSeconds))
+                {
+                    enqueue(new DefaultMuleException("The traversal lease may have expired after "
+                                                     + leaseTimeSeconds
+                                                     + " seconds while prefetched pages were being processed:"
+                                                     + " increase leaseTimeSeconds or decrease prefetchPages"));
+                    return;
+                }
+                else
+                {
+                    enqueue(END_OF_PAGES);
+                    return;
+                }
+            }
+        }
+        catch (final Exception e)
+        {
+            enqueue(e);
+        }
+    }
+
+    /**
+     * @return false if this prefetcher has been stopped before the page could be enqueued.
+     */
+    private boolean enqueue(final Object page)
+    {
+        try
+        {
+            // polling guards against a stop whose interruption has been swallowed by the HTTP client
+            while (!stopped)
+            {
+                if (pages.offer(page, ENQUEUE_POLL_MILLIS, TimeUnit.MILLISECONDS))
+                {
+                    return true;
+                }
+            }
+        }
+        catch (final InterruptedException ie)
+        {
+            Thread.currentThread().interrupt();
+        }
+
+        return false;
+    }
+}
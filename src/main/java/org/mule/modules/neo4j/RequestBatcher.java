@@ -0,0 +1,361 @@
+/*
+ * Copyright (c) MuleSoft, Inc. All rights reserved. http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.md file.
+ */
+
+package org.mule.modules.neo4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.commons.lang.Validate;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.mule.util.concurrent.DaemonThreadFactory;
+
+/**
+ * Collects requests submitted by concurrent callers and hands them over, in submission order, to a
+ * {@link BatchExecutor}, up to <code>maxBatchSize</code> requests at a time and with up to
+ * <code>maxConcurrentBatches</code> batches being executed concurrently. Each caller gets a
+ * {@link Future} completed with its own result.
+ * <p>
+ * When no batch is being executed, the queued requests are handed over at once, so an isolated
+ * caller doesn't wait for others. Otherwise they wait up to <code>maxDelayMillis</code> for more
+ * requests to join them, then for a batch to complete if <code>maxConcurrentBatches</code> are
+ * being executed, the requests that arrive in the meantime joining the next batch: the busier the
+ * executor, the larger the batches.
+ */
+final class RequestBatcher<R, T>
+{
+    interface BatchExecutor<R, T>
+    {
+        /**
+         * @return the results, in the same order as the requests.
+         */
+        List<T> execute(List<R> requests) throws Exception;
+    }
+
+    /**
+     * A {@link Future} completed by the execution of the batch of its request, which can't be
+     * cancelled since the request may already have been sent.
+     */
+    private static class PendingRequest<R, T> implements Future<T>
+    {
+        private final R request;
+        private final CountDownLatch completed = new CountDownLatch(1);
+        private volatile T result;
+        private volatile Throwable failure;
+
+        public PendingRequest(final R request)
+        {
+            this.request = request;
+        }
+
+        public R getRequest()
+        {
+            return request;
+        }
+
+        public void complete(final T result)
+        {
+            this.result = result;
+            completed.countDown();
+        }
+
+        public void fail(final Throwable t)
+        {
+            failure = t;
+            completed.countDown();
+        }
+
+        public boolean cancel(final boolean mayInterruptIfRunning)
+        {
+            return false;
+        }
+
+        public boolean isCancelled()
+        {
+            return false;
+        }
+
+        public boolean isDone()
+        {
+            return completed.getCount() == 0L;
+        }
+
+        public T get() throws InterruptedException, ExecutionException
+        {
+            completed.await();
+            return getResult();
+        }
+
+        public T get(final long timeout, final TimeUnit unit)
+            throws InterruptedException, ExecutionException, TimeoutException
+        {
+            if (!completed.await(timeout, unit))
+            {
+                throw new TimeoutException("Batch of request not executed after " + timeout + " " + unit);
+            }
+            return getResult();
+        }
+
+        private T getResult() throws ExecutionException
+        {
+            if (failure != null)
+            {
+                throw new ExecutionException(failure);
+            }
+            return result;
+        }
+    }
+
+    private static final Log LOGGER = LogFactory.getLog(RequestBatcher.class);
+    private static final long IDLE_POLL_MILLIS = 100L;
+    private static final long THREAD_KEEP_ALIVE_SECONDS = 60L;
+
+    private final String name;
+    private final int maxBatchSize;
+    private final long maxDelayMillis;
+    private final int maxConcurrentBatches;
+    private final BatchExecutor<R, T> batchExecutor;
+    private final BlockingQueue<PendingRequest<R, T>> queue = new LinkedBlockingQueue<PendingRequest<R, T>>();
+    private final Semaphore batchPermits;
+
+    private volatile boolean running;
+    private Thread flusher;
+    private ThreadPoolExecutor batchThreads;
+
+    RequestBatcher(final String name,
+                   final int maxBatchSize,
+                   final long maxDelayMillis,
+                   final BatchExecutor<R, T> batchExecutor)
+    {
+        this(name, maxBatchSize, maxDelayMillis, 1, batchExecutor);
+    }
+
+    /**
+     * @param maxConcurrentBatches 1 to execute batches one after the other, in submission order.
+     */
+    RequestBatcher(final String name,
+                   final int maxBatchSize,
+                   final long maxDelayMillis,
+                   final int maxConcurrentBatches,
+                   final BatchExecutor<R, T> batchExecutor)
+    {
+        Validate.isTrue(maxBatchSize > 0, "maxBatchSize must be strictly positive");
+        Validate.isTrue(maxDelayMillis >= 0, "maxDelayMillis can not be negative");
+        Validate.isTrue(maxConcurrentBatches > 0, "maxConcurrentBatches must be strictly positive");
+
+        this.name = name;
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayMillis = maxDelayMillis;
+        this.maxConcurrentBatches = maxConcurrentBatches;
+        this.batchExecutor = batchExecutor;
+        batchPermits = new Semaphore(maxConcurrentBatches);
+    }
+
+    synchronized void start()
+    {
+        if (running)
+        {
+            return;
+        }
+
+        running = true;
+
+        batchThreads = new ThreadPoolExecutor(maxConcurrentBatches, maxConcurrentBatches,
+            THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+            new DaemonThreadFactory(name));
+        batchThreads.allowCoreThreadTimeOut(true);
+
+        flusher = new Thread(new Runnable()
+        {
+            public void run()
+            {
+                flushUntilStopped();
+            }
+        }, name);
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Stop accepting requests and wait for the queued ones to be flushed.
+     */
+    synchronized void stop()
+    {
+        if (!running)
+        {
+            return;
+        }
+
+        running = false;
+
+        try
+        {
+            flusher.join();
+
+            // the permits of the batches being executed are released when they complete
+            batchPermits.acquire(maxConcurrentBatches);
+            batchPermits.release(maxConcurrentBatches);
+        }
+        catch (final InterruptedException ie)
+        {
+            Thread.currentThread().interrupt();
+        }
+
+        batchThreads.shutdown();
+
+        // flush whatever made it into the queue while the flusher was stopping
+        final List<PendingRequest<R, T>> batch = new ArrayList<PendingRequest<R, T>>();
+        while (queue.drainTo(batch, maxBatchSize) > 0)
+        {
+            execute(batch);
+            batch.clear();
+        }
+
+        flusher = null;
+        batchThreads = null;
+    }
+
+    Future<T> submit(final R request)
+    {
+        if (!running)
+        {
+            throw new IllegalStateException(name + " is not running");
+        }
+
+        final PendingRequest<R, T> pendingRequest = new PendingRequest<R, T>(request);
+        queue.add(pendingRequest);
+        return pendingRequest;
+    }
+
+    private void flushUntilStopped()
+    {
+        while (running)
+        {
+            final List<PendingRequest<R, T>> batch = new ArrayList<PendingRequest<R, T>>(maxBatchSize);
+            boolean permitted = false;
+
+            try
+            {
+                final PendingRequest<R, T> first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null)
+                {
+                    continue;
+                }
+
+                batch.add(first);
+                queue.drainTo(batch, maxBatchSize - batch.size());
+
+                if (batchPermits.availablePermits() < maxConcurrentBatches)
+                {
+                    awaitMoreRequests(batch);
+                }
+
+                batchPermits.acquire();
+                permitted = true;
+
+                // requests that arrived while waiting for a batch to complete join this one
+                queue.drainTo(batch, maxBatchSize - batch.size());
+            }
+            catch (final InterruptedException ie)
+            {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+
+            if (permitted)
+            {
+                executeAsync(batch);
+            }
+            else if (!batch.isEmpty())
+            {
+                execute(batch);
+            }
+        }
+    }
+
+    private void awaitMoreRequests(final List<PendingRequest<R, T>> batch) throws InterruptedException
+    {
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+        while (batch.size() < maxBatchSize)
+        {
+            final long remainingNanos = deadline - System.nanoTime();
+            final PendingRequest<R, T> next = remainingNanos > 0 ? queue.poll(remainingNanos,
+                TimeUnit.NANOSECONDS) : null;
+
+            if (next == null)
+            {
+                return;
+            }
+
+            batch.add(next);
+            queue.drainTo(batch, maxBatchSize - batch.size());
+        }
+    }
+
+    private void executeAsync(final List<PendingRequest<R, T>> batch)
+    {
+        batchThreads.execute(new Runnable()
+        {
+            public void run()
+            {
+                try
+                {
+                    execute(batch);
+                }
+                finally
+                {
+                    batchPermits.release();
+                }
+            }
+        });
+    }
+
+    private void execute(final List<PendingRequest<R, T>> batch)
+    {
+        final List<R> requests = new ArrayList<R>(batch.size());
+        for (final PendingRequest<R, T> pendingRequest : batch)
+        {
+            requests.add(pendingRequest.getRequest());
+        }
+
+        try
+        {
+            final List<T> results = batchExecutor.execute(requests);
+
+            if (results.size() != batch.size())
+            {
+                throw new IllegalStateException("Received " + results.size() + " results for a batch of "
+                                                + batch.size() + " requests");
+            }
+
+            for (int i = 0; i < batch.size(); i++)
+            {
+                batch.get(i).complete(results.get(i));
+            }
+        }
+        catch (final Throwable t)
+        {
+            LOGGER.error(name + " failed to execute a batch of " + batch.size() + " requests", t);
+
+            for (final PendingRequest<R, T> pendingRequest : batch)
+            {
+                pendingRequest.fail(t);
+            }
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) MuleSoft, Inc. All rights reserved. http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.md file.
+ */
+
+package org.mule.modules.neo4j;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collapses concurrent executions of identical requests into a single one: the first caller of a
+ * key executes the request while the callers that arrive with the same key before it completes wait
+ * for it and receive the same result, or the same failure. Once the request has completed, the next
+ * caller of its key executes it again: nothing is cached.
+ */
+final class RequestCoalescer
+{
+    private final ConcurrentMap<Object, FutureTask<Object>> inFlightRequests = new ConcurrentHashMap<Object, FutureTask<Object>>();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong coalescedRequests = new AtomicLong();
+
+    /**
+     * @return the result of the execution of the request in flight for this key, or of the provided
+     *         one if there is none.
+     * @throws Exception the failure of the execution, as thrown by the callable.
+     */
+    @SuppressWarnings("unchecked")
+    <T> T execute(final Object key, final Callable<T> request) throws Exception
+    {
+        requests.incrementAndGet();
+
+        final FutureTask<Object> newRequest = new FutureTask<Object>((Callable<Object>) request);
+        final FutureTask<Object> inFlightRequest = inFlightRequests.putIfAbsent(key, newRequest);
+
+        if (inFlightRequest != null)
+        {
+            coalescedRequests.incrementAndGet();
+            return (T) await(inFlightRequest);
+        }
+
+        try
+        {
+            newRequest.run();
+        }
+        finally
+        {
+            inFlightRequests.remove(key, newRequest);
+        }
+
+        return (T) await(newRequest);
+    }
+
+    /**
+     * Make the requests in flight unreachable, so the callers that arrive after a change of the graph
+     * execute new requests instead of joining the ones that may have read the graph before it.
+     */
+    void detachAll()
+    {
+        inFlightRequests.clear();
+    }
+
+    Map<String, Long> getStatistics()
+    {
+        final Map<String, Long> statistics = new LinkedHashMap<String, Long>();
+        final long requestCount = requests.get();
+        final long coalescedRequestCount = coalescedRequests.get();
+        statistics.put("requests", requestCount);
+        statistics.put("executedRequests", requestCount - coalescedRequestCount);
+        statistics.put("coalescedRequests", coalescedRequestCount);
+        statistics.put("inFlightRequests", (long) inFlightRequests.size());
+        return statistics;
+    }
+
+    private static Object await(final FutureTask<Object> request) throws Exception
+    {
+        boolean interrupted = false;
+        try
+        {
+            while (true)
+            {
+                try
+                {
+                    return request.get();
+                }
+                catch (final InterruptedException ie)
+                {
+                    // the result is on its way: keep waiting for it and restore the interrupt afterwards
+                    interrupted = true;
+                }
+                catch (final ExecutionException ee)
+                {
+                    final Throwable cause = ee.getCause();
+                    if (cause instanceof Exception)
+                    {
+                        throw (Exception) cause;
+                    }
+                    throw (Error) cause;
+                }
+            }
+        }
+        finally
+        {
+            if (interrupted)
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
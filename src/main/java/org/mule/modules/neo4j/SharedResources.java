@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) MuleSoft, Inc. All rights reserved. http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.md file.
+ */
+
+package org.mule.modules.neo4j;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Resources shared by all the connector instances that acquired them with the same key, typically
+ * the base URI of the server, so the pooled instances of a connector see the same state instead of
+ * each holding a copy of it.
+ * <p>
+ * Resources are reference counted: a resource is created by the first instance that acquires its
+ * key, with the settings of this instance, and disposed of when the last instance that acquired it
+ * releases it.
+ */
+final class SharedResources<T>
+{
+    interface Lifecycle<T>
+    {
+        T create();
+
+        void dispose(T resource);
+    }
+
+    private static class SharedResource<T>
+    {
+        private final T resource;
+        private final Lifecycle<T> lifecycle;
+        private int references;
+
+        public SharedResource(final T resource, final Lifecycle<T> lifecycle)
+        {
+            this.resource = resource;
+            this.lifecycle = lifecycle;
+        }
+    }
+
+    private final Map<String, SharedResource<T>> resources = new HashMap<String, SharedResource<T>>();
+
+    synchronized T acquire(final String key, final Lifecycle<T> lifecycle)
+    {
+        SharedResource<T> sharedResource = resources.get(key);
+        if (sharedResource == null)
+        {
+            sharedResource = new SharedResource<T>(lifecycle.create(), lifecycle);
+            resources.put(key, sharedResource);
+        }
+        sharedResource.references++;
+        return sharedResource.resource;
+    }
+
+    void release(final String key)
+    {
+        final SharedResource<T> disposedResource;
+
+        synchronized (this)
+        {
+            final SharedResource<T> sharedResource = resources.get(key);
+            if ((sharedResource == null) || (--sharedResource.references > 0))
+            {
+                return;
+            }
+
+            resources.remove(key);
+            disposedResource = sharedResource;
+        }
+
+        // outside of the lock, as disposing of a resource can wait for its pending work
+        disposedResource.lifecycle.dispose(disposedResource.resource);
+    }
+
+    synchronized int size()
+    {
+        return resources.size();
+    }
+}
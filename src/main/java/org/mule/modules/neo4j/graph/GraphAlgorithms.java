@@ -0,0 +1,370 @@
+/*
+ * Copyright (c) MuleSoft, Inc. All rights reserved. http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.md file.
+ */
+
+package org.mule.modules.neo4j.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.apache.commons.lang.Validate;
+import org.mule.modules.neo4j.graph.GraphSnapshot.Direction;
+
+/**
+ * Graph algorithms that run on a {@link GraphSnapshot}, each step of which is split into ranges of
+ * nodes processed in parallel by an {@link ExecutorService}, the calling thread waiting for all the
+ * ranges of a step before starting the next one.
+ * <p>
+ * The executor must not be one whose threads call these algorithms, or they could wait for ranges
+ * queued behind them.
+ */
+public final class GraphAlgorithms
+{
+    /**
+     * Ranges smaller than this are not worth the hand-over to another thread.
+     */
+    private static final int MIN_RANGE_SIZE = 1024;
+
+    private interface RangeTask<T>
+    {
+        T run(int from, int to);
+    }
+
+    private final ExecutorService executor;
+    private final int parallelism;
+
+    /**
+     * @param parallelism the maximum number of ranges a step is split into.
+     */
+    public GraphAlgorithms(final ExecutorService executor, final int parallelism)
+    {
+        Validate.notNull(executor, "executor can't be null");
+        Validate.isTrue(parallelism > 0, "parallelism must be strictly positive");
+
+        this.executor = executor;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * @return the number of hops from the source node to each node, by node index, or -1 for the
+     *         nodes that are not reachable within maxDepth hops.
+     */
+    public int[] breadthFirstDistances(final GraphSnapshot snapshot,
+                                       final int sourceNodeIndex,
+                                       final Direction direction,
+                                       final int maxDepth) throws InterruptedException
+    {
+        Validate.isTrue((sourceNodeIndex >= 0) && (sourceNodeIndex < snapshot.getNodeCount()),
+            "Invalid source node index: " + sourceNodeIndex);
+
+        final AtomicIntegerArray distances = new AtomicIntegerArray(snapshot.getNodeCount());
+        for (int i = 0; i < snapshot.getNodeCount(); i++)
+        {
+            distances.set(i, -1);
+        }
+        distances.set(sourceNodeIndex, 0);
+
+        int[] frontier = {sourceNodeIndex};
+        for (int depth = 1; (frontier.length > 0) && ((maxDepth < 0) || (depth <= maxDepth)); depth++)
+        {
+            final int[] currentFrontier = frontier;
+            final int nextDistance = depth;
+
+            final List<int[]> nextFrontierRanges = forEachRange(currentFrontier.length, new RangeTask<int[]>()
+            {
+                public int[] run(final int from, final int to)
+                {
+                    int[] discovered = new int[Math.max(16, to - from)];
+                    int discoveredCount = 0;
+
+                    for (int i = from; i < to; i++)
+                    {
+                        final int node = currentFrontier[i];
+
+                        if (direction != Direction.IN)
+                        {
+                            final int end = snapshot.getOutOffset(node + 1);
+                            for (int j = snapshot.getOutOffset(node); j < end; j++)
+                            {
+                                final int neighbor = snapshot.getOutTarget(j);
+                                if (distances.compareAndSet(neighbor, -1, nextDistance))
+                                {
+                                    if (discoveredCount == discovered.length)
+                                    {
+                                        discovered = Arrays.copyOf(discovered, discoveredCount * 2);
+                                    }
+                                    discovered[discoveredCount++] = neighbor;
+                                }
+                            }
+                        }
+
+                        if (direction != Direction.OUT)
+                        {
+                            final int end = snapshot.getInOffset(node + 1);
+                            for (int j = snapshot.getInOffset(node); j < end; j++)
+                            {
+                                final int neighbor = snapshot.getInTarget(j);
+                                if (distances.compareAndSet(neighbor, -1, nextDistance))
+                                {
+                                    if (discoveredCount == discovered.length)
+                                    {
+                                        discovered = Arrays.copyOf(discovered, discoveredCount * 2);
+                                    }
+                                    discovered[discoveredCount++] = neighbor;
+                                }
+                            }
+                        }
+                    }
+
+                    return Arrays.copyOf(discovered, discoveredCount);
+                }
+            });
+
+            frontier = concat(nextFrontierRanges);
+        }
+
+        final int[] result = new int[snapshot.getNodeCount()];
+        for (int i = 0; i < result.length; i++)
+        {
+            result[i] = distances.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * @return the PageRank of each node, by node index, summing to 1. The rank of the nodes without
+     *         outgoing relationships is evenly spread over all the nodes.
+     */
+    public double[] pageRank(final GraphSnapshot snapshot,
+                             final double dampingFactor,
+                             final int maxIterations,
+                             final double tolerance) throws InterruptedException
+    {
+        Validate.isTrue((dampingFactor >= 0.0d) && (dampingFactor <= 1.0d),
+            "dampingFactor must be between 0 and 1");
+        Validate.isTrue(maxIterations > 0, "maxIterations must be strictly positive");
+
+        final int nodeCount = snapshot.getNodeCount();
+        if (nodeCount == 0)
+        {
+            return new double[0];
+        }
+
+        final double[] ranks = new double[nodeCount];
+        Arrays.fill(ranks, 1.0d / nodeCount);
+        final double[] contributions = new double[nodeCount];
+        final double[] nextRanks = new double[nodeCount];
+
+        for (int iteration = 0; iteration < maxIterations; iteration++)
+        {
+            // what each node gives to each of its outgoing neighbors
+            final List<Double> danglingRanges = forEachRange(nodeCount, new RangeTask<Double>()
+            {
+                public Double run(final int from, final int to)
+                {
+                    double danglingRank = 0.0d;
+                    for (int i = from; i < to; i++)
+                    {
+                        final int outDegree = snapshot.getOutDegree(i);
+                        if (outDegree == 0)
+                        {
+                            danglingRank += ranks[i];
+                            contributions[i] = 0.0d;
+                        }
+                        else
+                        {
+                            contributions[i] = ranks[i] / outDegree;
+                        }
+                    }
+                    return danglingRank;
+                }
+            });
+
+            final double baseRank = (1.0d - dampingFactor) / nodeCount + dampingFactor * sum(danglingRanges)
+                                    / nodeCount;
+
+            // what each node receives from its incoming neighbors
+            final List<Double> deltaRanges = forEachRange(nodeCount, new RangeTask<Double>()
+            {
+                public Double run(final int from, final int to)
+                {
+                    double delta = 0.0d;
+                    for (int i = from; i < to; i++)
+                    {
+                        double received = 0.0d;
+                        final int end = snapshot.getInOffset(i + 1);
+                        for (int j = snapshot.getInOffset(i); j < end; j++)
+                        {
+                            received += contributions[snapshot.getInTarget(j)];
+                        }
+
+                        nextRanks[i] = baseRank + dampingFactor * received;
+                        delta += Math.abs(nextRanks[i] - ranks[i]);
+                    }
+                    return delta;
+                }
+            });
+
+            System.arraycopy(nextRanks, 0, ranks, 0, nodeCount);
+
+            if (sum(deltaRanges) < tolerance)
+            {
+                break;
+            }
+        }
+
+        return ranks;
+    }
+
+    /**
+     * Find the weakly connected components by propagating the smallest node index of each
+     * component along the relationships, in both directions, and shortcutting the labels that
+     * point to nodes which already have a smaller one.
+     *
+     * @return the index of the first node of its component, for each node index.
+     */
+    public int[] connectedComponents(final GraphSnapshot snapshot) throws InterruptedException
+    {
+        final int nodeCount = snapshot.getNodeCount();
+
+        // a label is always the index of a node of the same component, never greater than its own
+        final int[] labels = new int[nodeCount];
+        for (int i = 0; i < nodeCount; i++)
+        {
+            labels[i] = i;
+        }
+
+        boolean changed = true;
+        while (changed)
+        {
+            // concurrent ranges may read stale labels, which only delays the propagation: the
+            // completion of each step makes its writes visible to the next one
+            final List<Boolean> changedRanges = forEachRange(nodeCount, new RangeTask<Boolean>()
+            {
+                public Boolean run(final int from, final int to)
+                {
+                    boolean rangeChanged = false;
+                    for (int i = from; i < to; i++)
+                    {
+                        int label = labels[i];
+
+                        int end = snapshot.getOutOffset(i + 1);
+                        for (int j = snapshot.getOutOffset(i); j < end; j++)
+                        {
+                            label = Math.min(label, labels[snapshot.getOutTarget(j)]);
+                        }
+                        end = snapshot.getInOffset(i + 1);
+                        for (int j = snapshot.getInOffset(i); j < end; j++)
+                        {
+                            label = Math.min(label, labels[snapshot.getInTarget(j)]);
+                        }
+
+                        while (labels[label] < label)
+                        {
+                            label = labels[label];
+                        }
+
+                        if (label < labels[i])
+                        {
+                            labels[i] = label;
+                            rangeChanged = true;
+                        }
+                    }
+                    return rangeChanged;
+                }
+            });
+
+            changed = changedRanges.contains(Boolean.TRUE);
+        }
+
+        return labels;
+    }
+
+    /**
+     * Run the task on consecutive ranges of <code>[0, size)</code>, the last range in the calling
+     * thread.
+     *
+     * @return the results of the ranges, in range order.
+     */
+    private <T> List<T> forEachRange(final int size, final RangeTask<T> task) throws InterruptedException
+    {
+        final int rangeCount = Math.max(1, Math.min(parallelism, size / MIN_RANGE_SIZE));
+        final int rangeSize = (size + rangeCount - 1) / Math.max(1, rangeCount);
+
+        final List<Future<T>> futures = new ArrayList<Future<T>>(rangeCount - 1);
+        for (int from = 0; from + rangeSize < size; from += rangeSize)
+        {
+            final int rangeFrom = from;
+            futures.add(executor.submit(new Callable<T>()
+            {
+                public T call()
+                {
+                    return task.run(rangeFrom, Math.min(rangeFrom + rangeSize, size));
+                }
+            }));
+        }
+
+        final List<T> results = new ArrayList<T>(rangeCount);
+        final T lastResult = task.run(Math.min(futures.size() * rangeSize, size), size);
+
+        try
+        {
+            for (final Future<T> future : futures)
+            {
+                results.add(future.get());
+            }
+        }
+        catch (final ExecutionException ee)
+        {
+            throw new IllegalStateException("Failed to run graph algorithm step", ee.getCause());
+        }
+        finally
+        {
+            for (final Future<T> future : futures)
+            {
+                future.cancel(true);
+            }
+        }
+
+        results.add(lastResult);
+        return results;
+    }
+
+    private static int[] concat(final List<int[]> ranges)
+    {
+        int length = 0;
+        for (final int[] range : ranges)
+        {
+            length += range.length;
+        }
+
+        final int[] result = new int[length];
+        int offset = 0;
+        for (final int[] range : ranges)
+        {
+            System.arraycopy(range, 0, result, offset, range.length);
+            offset += range.length;
+        }
+        return result;
+    }
+
+    private static double sum(final List<Double> values)
+    {
+        double sum = 0.0d;
+        for (final Double value : values)
+        {
+            sum += value;
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) MuleSoft, Inc. All rights reserved. http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.md file.
+ */
+
+package org.mule.modules.neo4j.graph;
+
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+
+/**
+ * An immutable in-memory copy of a directed graph, held in compressed sparse row form: the nodes
+ * are numbered from 0 to <code>nodeCount - 1</code> in the ascending order of their Neo4j ids, and
+ * the neighbors of node <code>i</code> are the node indexes stored from
+ * <code>offsets[i]</code> to <code>offsets[i + 1] - 1</code> of the targets, for both the outgoing
+ * and the incoming relationships.
+ * <p>
+ * Every array is a primitive buffer, either on the heap or, for large graphs, off-heap in direct
+ * buffers, which are bounded by <code>-XX:MaxDirectMemorySize</code> instead of the heap size. The
+ * buffers are only read with absolute gets, so a snapshot can be shared by any number of threads.
+ */
+public final class GraphSnapshot
+{
+    /**
+     * The relationships to follow from a node.
+     */
+    public static enum Direction
+    {
+        OUT, IN, BOTH
+    }
+
+    private final LongBuffer nodeIds;
+    private final IntBuffer outOffsets;
+    private final IntBuffer outTargets;
+    private final IntBuffer inOffsets;
+    private final IntBuffer inTargets;
+    private final boolean offHeap;
+
+    GraphSnapshot(final LongBuffer nodeIds,
+                  final IntBuffer outOffsets,
+                  final IntBuffer outTargets,
+                  final IntBuffer inOffsets,
+                  final IntBuffer inTargets,
+                  final boolean offHeap)
+    {
+        this.nodeIds = nodeIds;
+        this.outOffsets = outOffsets;
+        this.outTargets = outTargets;
+        this.inOffsets = inOffsets;
+        this.inTargets = inTargets;
+        this.offHeap = offHeap;
+    }
+
+    public int getNodeCount()
+    {
+        return nodeIds.capacity();
+    }
+
+    public int getRelationshipCount()
+    {
+        return outTargets.capacity();
+    }
+
+    public boolean isOffHeap()
+    {
+        return offHeap;
+    }
+
+    /**
+     * @return the Neo4j id of the node at this index.
+     */
+    public long getNodeId(final int nodeIndex)
+    {
+        return nodeIds.get(nodeIndex);
+    }
+
+    /**
+     * @return the index of the node with this Neo4j id, or a negative value if it is not part of the
+     *         snapshot.
+     */
+    public int indexOf(final long nodeId)
+    {
+        int low = 0;
+        int high = nodeIds.capacity() - 1;
+
+        while (low <= high)
+        {
+            final int middle = (low + high) >>> 1;
+            final long middleId = nodeIds.get(middle);
+
+            if (middleId < nodeId)
+            {
+                low = middle + 1;
+            }
+            else if (middleId > nodeId)
+            {
+                high = middle - 1;
+            }
+            else
+            {
+                return middle;
+            }
+        }
+
+        return -(low + 1);
+    }
+
+    public int getOutDegree(final int nodeIndex)
+    {
+        return outOffsets.get(nodeIndex + 1) - outOffsets.get(nodeIndex);
+    }
+
+    public int getInDegree(final int nodeIndex)
+    {
+        return inOffsets.get(nodeIndex + 1) - inOffsets.get(nodeIndex);
+    }
+
+    /**
+     * @return the index in the outgoing targets of the first outgoing neighbor of this node, the
+     *         next node starting where this one ends.
+     */
+    public int getOutOffset(final int nodeIndex)
+    {
+        return outOffsets.get(nodeIndex);
+    }
+
+    public int getOutTarget(final int targetIndex)
+    {
+        return outTargets.get(targetIndex);
+    }
+
+    /**
+     * @return the index in the incoming targets of the first incoming neighbor of this node, the
+     *         next node starting where this one ends.
+     */
+    public int getInOffset(final int nodeIndex)
+    {
+        return inOffsets.get(nodeIndex);
+    }
+
+    public int getInTarget(final int targetIndex)
+    {
+        return inTargets.get(targetIndex);
+    }
+
+    @Override
+    public String toString()
+    {
+        return getClass().getSimpleName() + "[nodeCount=" + getNodeCount() + ",relationshipCount="
+               + getRelationshipCount() + ",offHeap=" + offHeap + "]";
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) MuleSoft, Inc. All rights reserved. http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.md file.
+ */
+
+package org.mule.modules.neo4j.graph;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+
+/**
+ * Builds a {@link GraphSnapshot} from nodes and relationships received one at a time, as they are
+ * streamed from the server: all the nodes must be added before the first relationship, which are
+ * then held as pairs of node indexes until {@link #build()} sorts them into rows.
+ * <p>
+ * Relationships whose start or end node has not been added, for example because it was created
+ * between the reading of the nodes and of the relationships, are skipped and counted.
+ * <p>
+ * Not thread safe.
+ */
+public final class GraphSnapshotBuilder
+{
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final boolean offHeap;
+
+    private long[] nodeIds = new long[INITIAL_CAPACITY];
+    private int nodeCount;
+    private boolean nodesSorted;
+
+    private int[] startNodeIndexes = new int[INITIAL_CAPACITY];
+    private int[] endNodeIndexes = new int[INITIAL_CAPACITY];
+    private int relationshipCount;
+    private long skippedRelationshipCount;
+
+    /**
+     * @param offHeap if true the snapshot is held in direct buffers, otherwise on the heap.
+     */
+    public GraphSnapshotBuilder(final boolean offHeap)
+    {
+        this.offHeap = offHeap;
+    }
+
+    public void addNode(final long nodeId)
+    {
+        if (nodesSorted)
+        {
+            throw new IllegalStateException("Nodes can't be added after relationships");
+        }
+
+        if (nodeCount == nodeIds.length)
+        {
+            nodeIds = Arrays.copyOf(nodeIds, grow(nodeCount));
+        }
+        nodeIds[nodeCount++] = nodeId;
+    }
+
+    public void addRelationship(final long startNodeId, final long endNodeId)
+    {
+        sortNodes();
+
+        final int startNodeIndex = Arrays.binarySearch(nodeIds, 0, nodeCount, startNodeId);
+        final int endNodeIndex = Arrays.binarySearch(nodeIds, 0, nodeCount, endNodeId);
+
+        if ((startNodeIndex < 0) || (endNodeIndex < 0))
+        {
+            skippedRelationshipCount++;
+            return;
+        }
+
+        if (relationshipCount == startNodeIndexes.length)
+        {
+            final int capacity = grow(relationshipCount);
+            startNodeIndexes = Arrays.copyOf(startNodeIndexes, capacity);
+            endNodeIndexes = Arrays.copyOf(endNodeIndexes, capacity);
+        }
+        startNodeIndexes[relationshipCount] = startNodeIndex;
+        endNodeIndexes[relationshipCount] = endNodeIndex;
+        relationshipCount++;
+    }
+
+    public long getSkippedRelationshipCount()
+    {
+        return skippedRelationshipCount;
+    }
+
+    public GraphSnapshot build()
+    {
+        sortNodes();
+
+        final LongBuffer nodeIdBuffer = newLongBuffer(nodeCount);
+        for (int i = 0; i < nodeCount; i++)
+        {
+            nodeIdBuffer.put(i, nodeIds[i]);
+        }
+
+        final IntBuffer outOffsets = newIntBuffer(nodeCount + 1);
+        final IntBuffer outTargets = newIntBuffer(relationshipCount);
+        fillRows(startNodeIndexes, endNodeIndexes, outOffsets, outTargets);
+
+        final IntBuffer inOffsets = newIntBuffer(nodeCount + 1);
+        final IntBuffer inTargets = newIntBuffer(relationshipCount);
+        fillRows(endNodeIndexes, startNodeIndexes, inOffsets, inTargets);
+
+        return new GraphSnapshot(nodeIdBuffer, outOffsets, outTargets, inOffsets, inTargets, offHeap);
+    }
+
+    private void sortNodes()
+    {
+        if (nodesSorted)
+        {
+            return;
+        }
+
+        Arrays.sort(nodeIds, 0, nodeCount);
+
+        // the same node can be matched by several labels
+        int uniqueCount = 0;
+        for (int i = 0; i < nodeCount; i++)
+        {
+            if ((uniqueCount == 0) || (nodeIds[i] != nodeIds[uniqueCount - 1]))
+            {
+                nodeIds[uniqueCount++] = nodeIds[i];
+            }
+        }
+        nodeCount = uniqueCount;
+        nodesSorted = true;
+    }
+
+    /**
+     * Counting sort of the relationships by row node.
+     */
+    private void fillRows(final int[] rowNodeIndexes,
+                          final int[] targetNodeIndexes,
+                          final IntBuffer offsets,
+                          final IntBuffer targets)
+    {
+        final int[] nextTargetIndexes = new int[nodeCount + 1];
+        for (int i = 0; i < relationshipCount; i++)
+        {
+            nextTargetIndexes[rowNodeIndexes[i] + 1]++;
+        }
+        for (int i = 0; i < nodeCount; i++)
+        {
+            nextTargetIndexes[i + 1] += nextTargetIndexes[i];
+        }
+        for (int i = 0; i <= nodeCount; i++)
+        {
+            offsets.put(i, nextTargetIndexes[i]);
+        }
+
+        for (int i = 0; i < relationshipCount; i++)
+        {
+            targets.put(nextTargetIndexes[rowNodeIndexes[i]]++, targetNodeIndexes[i]);
+        }
+    }
+
+    private IntBuffer newIntBuffer(final int capacity)
+    {
+        return offHeap ? ByteBuffer.allocateDirect(capacity * 4).order(ByteOrder.nativeOrder()).asIntBuffer()
+                      : IntBuffer.allocate(capacity);
+    }
+
+    private LongBuffer newLongBuffer(final int capacity)
+    {
+        return offHeap ? ByteBuffer.allocateDirect(capacity * 8).order(ByteOrder.nativeOrder()).asLongBuffer()
+                      : LongBuffer.allocate(capacity);
+    }
+
+    private static int grow(final int capacity)
+    {
+        if (capacity >= Integer.MAX_VALUE / 8)
+        {
+            throw new IllegalStateException("Graph snapshots are limited to " + (Integer.MAX_VALUE / 8)
+                                            + " nodes and relationships");
+        }
+        return Math.min(capacity * 2, Integer.MAX_VALUE / 8);
+    }
+}
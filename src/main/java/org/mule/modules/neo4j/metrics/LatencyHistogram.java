@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) MuleSoft, Inc. All rights reserved. http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.md file.
+ */
+
+package org.mule.modules.neo4j.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of latencies, in microseconds, with logarithmic buckets: each power of two
+ * is split in {@value #SUB_BUCKETS} buckets, which bounds the relative error of percentiles to
+ * 12.5% whatever the magnitude of the values.
+ */
+public class LatencyHistogram
+{
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray bucketCounts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(final long micros)
+    {
+        final long value = Math.max(0L, micros);
+
+        bucketCounts.incrementAndGet(bucketIndex(value));
+        count.incrementAndGet();
+        sum.addAndGet(value);
+
+        long currentMax = max.get();
+        while ((value > currentMax) && (!max.compareAndSet(currentMax, value)))
+        {
+            currentMax = max.get();
+        }
+    }
+
+    public long getCount()
+    {
+        return count.get();
+    }
+
+    public long getMax()
+    {
+        return max.get();
+    }
+
+    public double getMean()
+    {
+        final long currentCount = count.get();
+        return currentCount == 0L ? 0.0d : (double) sum.get() / currentCount;
+    }
+
+    /**
+     * @param percentile between 0 and 100.
+     * @return the upper bound of the bucket holding the requested percentile, never above the
+     *         maximum recorded value, or 0 if nothing has been recorded.
+     */
+    public long getPercentile(final double percentile)
+    {
+        final long currentCount = count.get();
+        if (currentCount == 0L)
+        {
+            return 0L;
+        }
+
+        final long rank = Math.max(1L, (long) Math.ceil(currentCount * percentile / 100.0d));
+        long seen = 0L;
+
+        for (int i = 0; i < BUCKETS; i++)
+        {
+            seen += bucketCounts.get(i);
+
+            if (seen >= rank)
+            {
+                return Math.min(bucketUpperBound(i), max.get());
+            }
+        }
+
+        return max.get();
+    }
+
+    public void reset()
+    {
+        for (int i = 0; i < BUCKETS; i++)
+        {
+            bucketCounts.set(i, 0L);
+        }
+        count.set(0L);
+        sum.set(0L);
+        max.set(0L);
+    }
+
+    static int bucketIndex(final long value)
+    {
+        if (value < SUB_BUCKETS)
+        {
+            return (int) value;
+        }
+
+        final int exponent = 63 - Long.numberOfLeadingZeros(value);
+        final int subBucket = (int) ((value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1));
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long bucketUpperBound(final int index)
+    {
+        if (index < SUB_BUCKETS)
+        {
+            return index;
+        }
+
+        final int shift = index / SUB_BUCKETS - 1;
+        final long lowerBound = ((long) (SUB_BUCKETS + index % SUB_BUCKETS)) << shift;
+        return lowerBound + (1L << shift) - 1L;
+    }
+}
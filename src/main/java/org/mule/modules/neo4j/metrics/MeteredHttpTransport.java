@@ -0,0 +1,250 @@
+/*
+ * Copyright (c) MuleSoft, Inc. All rights reserved. http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.md file.
+ */
+
+package org.mule.modules.neo4j.metrics;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.io.input.CountingInputStream;
+import org.apache.commons.io.output.CountingOutputStream;
+import org.mule.api.MuleException;
+import org.mule.modules.neo4j.transport.HttpTransport;
+import org.mule.modules.neo4j.transport.HttpTransportRequest;
+import org.mule.modules.neo4j.transport.HttpTransportResponse;
+import org.mule.modules.neo4j.transport.JsonEntityWriter;
+import org.mule.util.StringUtils;
+
+/**
+ * A {@link HttpTransport} that records {@link RequestMetrics} for the requests sent through
+ * another one.
+ * <p>
+ * Requests are grouped by operation, which is the HTTP method followed by the path relative to the
+ * base URI, where ids and user-provided names are replaced by placeholders, for example:
+ * <code>GET /node/{id}</code> or <code>POST /index/node/{name}</code>.
+ */
+public class MeteredHttpTransport implements HttpTransport
+{
+    private static final int NO_RESPONSE_STATUS_CODE = 0;
+    private static final int MIN_ERROR_STATUS_CODE = 400;
+
+    // path segments that are part of the REST API, all other ones being ids or names
+    private static final Set<String> API_PATH_SEGMENTS = new HashSet<String>(Arrays.asList("all", "auto",
+        "batch", "commit", "constraint", "cypher", "ext", "fullpath", "in", "index", "label", "labels", "node",
+        "nodes", "out", "paged", "path", "paths", "properties", "relationship", "relationships", "schema",
+        "transaction", "traverse", "types", "uniqueness"));
+
+    private static class MeteredHttpTransportResponse extends HttpTransportResponse
+    {
+        private final OperationMetrics operationMetrics;
+        private final long startNanos;
+        private final long sentBytes;
+        private final CountingInputStream countingBody;
+        private final HttpTransportResponse response;
+        private boolean closed;
+
+        public MeteredHttpTransportResponse(final HttpTransportResponse response,
+                                            final CountingInputStream countingBody,
+                                            final OperationMetrics operationMetrics,
+                                            final long startNanos,
+                                            final long sentBytes)
+        {
+            super(response.getStatusCode(), response.getHeaders(), countingBody);
+
+            this.response = response;
+            this.countingBody = countingBody;
+            this.operationMetrics = operationMetrics;
+            this.startNanos = startNanos;
+            this.sentBytes = sentBytes;
+        }
+
+        @Override
+        public void close()
+        {
+            if (closed)
+            {
+                return;
+            }
+
+            closed = true;
+            super.close();
+            response.close();
+
+            operationMetrics.recordCall(elapsedMicros(startNanos), sentBytes,
+                countingBody == null ? 0L : countingBody.getByteCount());
+        }
+    }
+
+    /**
+     * Counts the bytes of the entity while they are written to the HTTP request.
+     */
+    private static class CountingJsonEntityWriter implements JsonEntityWriter
+    {
+        private final JsonEntityWriter jsonEntityWriter;
+        private final AtomicLong writtenBytes;
+
+        public CountingJsonEntityWriter(final JsonEntityWriter jsonEntityWriter, final AtomicLong writtenBytes)
+        {
+            this.jsonEntityWriter = jsonEntityWriter;
+            this.writtenBytes = writtenBytes;
+        }
+
+        public void writeTo(final OutputStream out) throws IOException
+        {
+            final CountingOutputStream countingOut = new CountingOutputStream(out);
+            try
+            {
+                jsonEntityWriter.writeTo(countingOut);
+            }
+            finally
+            {
+                writtenBytes.addAndGet(countingOut.getByteCount());
+            }
+        }
+    }
+
+    private final HttpTransport httpTransport;
+    private final String metricsName;
+    private final String baseUri;
+    private RequestMetrics requestMetrics;
+
+    public MeteredHttpTransport(final HttpTransport httpTransport, final String metricsName, final String baseUri)
+    {
+        this.httpTransport = httpTransport;
+        this.metricsName = metricsName;
+        this.baseUri = baseUri;
+    }
+
+    public void start() throws MuleException
+    {
+        httpTransport.start();
+        requestMetrics = RequestMetrics.acquire(metricsName);
+    }
+
+    public void stop()
+    {
+        try
+        {
+            httpTransport.stop();
+        }
+        finally
+        {
+            if (requestMetrics != null)
+            {
+                requestMetrics.release();
+                requestMetrics = null;
+            }
+        }
+    }
+
+    public RequestMetrics getRequestMetrics()
+    {
+        return requestMetrics;
+    }
+
+    public HttpTransportResponse send(final HttpTransportRequest request) throws MuleException
+    {
+        final OperationMetrics operationMetrics = requestMetrics.getOperationMetrics(getOperation(
+            request.getMethod(), request.getUri()));
+        final AtomicLong sentBytes = new AtomicLong();
+        HttpTransportRequest countedRequest = request;
+        if (request.hasJsonEntity())
+        {
+            countedRequest = request.withJsonEntityWriter(new CountingJsonEntityWriter(
+                request.getJsonEntityWriterOrNull(), sentBytes));
+        }
+
+        final long startNanos = System.nanoTime();
+
+        final HttpTransportResponse response;
+        try
+        {
+            response = httpTransport.send(countedRequest);
+        }
+        catch (final MuleException me)
+        {
+            recordFailure(operationMetrics, startNanos, sentBytes.get());
+            throw me;
+        }
+        catch (final RuntimeException re)
+        {
+            recordFailure(operationMetrics, startNanos, sentBytes.get());
+            throw re;
+        }
+
+        if (response.getStatusCode() >= MIN_ERROR_STATUS_CODE)
+        {
+            operationMetrics.recordError(response.getStatusCode());
+        }
+
+        final InputStream body = response.getBody();
+        return new MeteredHttpTransportResponse(response, body == null ? null : new CountingInputStream(body),
+            operationMetrics, startNanos, sentBytes.get());
+    }
+
+    private static void recordFailure(final OperationMetrics operationMetrics,
+                                      final long startNanos,
+                                      final long sentBytes)
+    {
+        operationMetrics.recordError(NO_RESPONSE_STATUS_CODE);
+        operationMetrics.recordCall(elapsedMicros(startNanos), sentBytes, 0L);
+    }
+
+    private static long elapsedMicros(final long startNanos)
+    {
+        return TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos);
+    }
+
+    String getOperation(final String method, final String uri)
+    {
+        String path = StringUtils.substringBefore(uri, "?");
+
+        if (path.startsWith(baseUri))
+        {
+            path = path.substring(baseUri.length());
+        }
+        else if (path.contains("://"))
+        {
+            path = "/" + StringUtils.substringAfter(StringUtils.substringAfter(path, "://"), "/");
+        }
+
+        final StringBuilder operation = new StringBuilder(method).append(' ');
+        final int operationPrefixLength = operation.length();
+
+        for (final String segment : StringUtils.split(path, '/'))
+        {
+            operation.append('/');
+
+            if (API_PATH_SEGMENTS.contains(segment))
+            {
+                operation.append(segment);
+            }
+            else if (StringUtils.isNumeric(segment))
+            {
+                operation.append("{id}");
+            }
+            else
+            {
+                operation.append("{name}");
+            }
+        }
+
+        if (operation.length() == operationPrefixLength)
+        {
+            operation.append('/');
+        }
+
+        return operation.toString();
+    }
+}
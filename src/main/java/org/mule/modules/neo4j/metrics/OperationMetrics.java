@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) MuleSoft, Inc. All rights reserved. http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.md file.
+ */
+
+package org.mule.modules.neo4j.metrics;
+
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The metrics of one kind of request sent to Neo4j, recorded without any locking so they can be
+ * left on in production.
+ */
+public class OperationMetrics implements OperationMetricsMXBean
+{
+    private static final double MICROS_PER_MILLI = 1000.0d;
+
+    private final String operation;
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final ConcurrentMap<Integer, AtomicLong> errorsByStatusCode = new ConcurrentHashMap<Integer, AtomicLong>();
+    private final AtomicLong bytesSent = new AtomicLong();
+    private final AtomicLong bytesReceived = new AtomicLong();
+    private final LatencyHistogram latencies = new LatencyHistogram();
+
+    public OperationMetrics(final String operation)
+    {
+        this.operation = operation;
+    }
+
+    public void recordCall(final long latencyMicros, final long sentBytes, final long receivedBytes)
+    {
+        calls.incrementAndGet();
+        bytesSent.addAndGet(sentBytes);
+        bytesReceived.addAndGet(receivedBytes);
+        latencies.record(latencyMicros);
+    }
+
+    public void recordError(final int statusCode)
+    {
+        errors.incrementAndGet();
+
+        AtomicLong statusCodeErrors = errorsByStatusCode.get(statusCode);
+        if (statusCodeErrors == null)
+        {
+            final AtomicLong newStatusCodeErrors = new AtomicLong();
+            statusCodeErrors = errorsByStatusCode.putIfAbsent(statusCode, newStatusCodeErrors);
+            if (statusCodeErrors == null)
+            {
+                statusCodeErrors = newStatusCodeErrors;
+            }
+        }
+        statusCodeErrors.incrementAndGet();
+    }
+
+    public String getOperation()
+    {
+        return operation;
+    }
+
+    public long getCalls()
+    {
+        return calls.get();
+    }
+
+    public long getErrors()
+    {
+        return errors.get();
+    }
+
+    public Map<String, Long> getErrorsByStatusCode()
+    {
+        final Map<String, Long> result = new TreeMap<String, Long>();
+        for (final Entry<Integer, AtomicLong> statusCodeErrors : errorsByStatusCode.entrySet())
+        {
+            result.put(statusCodeErrors.getKey().toString(), statusCodeErrors.getValue().get());
+        }
+        return result;
+    }
+
+    public long getBytesSent()
+    {
+        return bytesSent.get();
+    }
+
+    public long getBytesReceived()
+    {
+        return bytesReceived.get();
+    }
+
+    public LatencyHistogram getLatencies()
+    {
+        return latencies;
+    }
+
+    public double getLatencyMeanMillis()
+    {
+        return latencies.getMean() / MICROS_PER_MILLI;
+    }
+
+    public double getLatencyP50Millis()
+    {
+        return latencies.getPercentile(50.0d) / MICROS_PER_MILLI;
+    }
+
+    public double getLatencyP95Millis()
+    {
+        return latencies.getPercentile(95.0d) / MICROS_PER_MILLI;
+    }
+
+    public double getLatencyP99Millis()
+    {
+        return latencies.getPercentile(99.0d) / MICROS_PER_MILLI;
+    }
+
+    public double getLatencyMaxMillis()
+    {
+        return latencies.getMax() / MICROS_PER_MILLI;
+    }
+
+    public void reset()
+    {
+        calls.set(0L);
+        errors.set(0L);
+        errorsByStatusCode.clear();
+        bytesSent.set(0L);
+        bytesReceived.set(0L);
+        latencies.reset();
+    }
+
+    @Override
+    public String toString()
+    {
+        return operation + "[calls=" + getCalls() + ", errors=" + getErrorsByStatusCode() + ", p50="
+               + getLatencyP50Millis() + "ms, p95=" + getLatencyP95Millis() + "ms, p99="
+               + getLatencyP99Millis() + "ms, max=" + getLatencyMaxMillis() + "ms, sent=" + getBytesSent()
+               + "B, received=" + getBytesReceived() + "B]";
+    }
+}
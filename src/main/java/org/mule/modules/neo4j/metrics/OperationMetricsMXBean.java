@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) MuleSoft, Inc. All rights reserved. http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.md file.
+ */
+
+package org.mule.modules.neo4j.metrics;
+
+import java.util.Map;
+
+/**
+ * The JMX view of the metrics of one kind of request sent to Neo4j. Latencies cover the complete
+ * exchange, from sending the request to closing the response.
+ */
+public interface OperationMetricsMXBean
+{
+    String getOperation();
+
+    long getCalls();
+
+    long getErrors();
+
+    /**
+     * @return error counts by HTTP status code, with 0 standing for requests that didn't get any
+     *         response.
+     */
+    Map<String, Long> getErrorsByStatusCode();
+
+    long getBytesSent();
+
+    long getBytesReceived();
+
+    double getLatencyMeanMillis();
+
+    double getLatencyP50Millis();
+
+    double getLatencyP95Millis();
+
+    double getLatencyP99Millis();
+
+    double getLatencyMaxMillis();
+
+    void reset();
+}
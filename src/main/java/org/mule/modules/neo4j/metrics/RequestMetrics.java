@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) MuleSoft, Inc. All rights reserved. http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.md file.
+ */
+
+package org.mule.modules.neo4j.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * The {@link OperationMetrics} of all the requests sent by the connectors sharing a name, each
+ * published as a platform MBean named:
+ * <code>org.mule.modules.neo4j:type=RequestMetrics,name=&lt;name&gt;,operation=&lt;operation&gt;</code>
+ * .
+ * <p>
+ * Instances are reference counted: the MBeans are unregistered when the last connector that
+ * acquired an instance releases it.
+ */
+public final class RequestMetrics
+{
+    private static final Log LOGGER = LogFactory.getLog(RequestMetrics.class);
+    private static final String JMX_DOMAIN = "org.mule.modules.neo4j";
+    private static final String JMX_TYPE = "RequestMetrics";
+
+    // bounds the number of MBeans in case operations are not normalized as expected
+    private static final int MAX_OPERATIONS = 256;
+    private static final String OTHER_OPERATION = "OTHER";
+
+    private static final Map<String, RequestMetrics> INSTANCES = new HashMap<String, RequestMetrics>();
+
+    private final String name;
+    private final ConcurrentMap<String, OperationMetrics> operationMetrics = new ConcurrentHashMap<String, OperationMetrics>();
+    private final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+    private int references;
+
+    private RequestMetrics(final String name)
+    {
+        this.name = name;
+    }
+
+    public static RequestMetrics acquire(final String name)
+    {
+        synchronized (INSTANCES)
+        {
+            RequestMetrics requestMetrics = INSTANCES.get(name);
+            if (requestMetrics == null)
+            {
+                requestMetrics = new RequestMetrics(name);
+                INSTANCES.put(name, requestMetrics);
+            }
+            requestMetrics.references++;
+            return requestMetrics;
+        }
+    }
+
+    public void release()
+    {
+        synchronized (INSTANCES)
+        {
+            if (--references > 0)
+            {
+                return;
+            }
+
+            INSTANCES.remove(name);
+
+            for (final String operation : operationMetrics.keySet())
+            {
+                unregisterMBean(operation);
+            }
+            operationMetrics.clear();
+        }
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public OperationMetrics getOperationMetrics(final String operation)
+    {
+        final OperationMetrics existingMetrics = operationMetrics.get(operation);
+        if (existingMetrics != null)
+        {
+            return existingMetrics;
+        }
+
+        final String actualOperation = operationMetrics.size() < MAX_OPERATIONS ? operation : OTHER_OPERATION;
+        final OperationMetrics newMetrics = new OperationMetrics(actualOperation);
+        final OperationMetrics concurrentMetrics = operationMetrics.putIfAbsent(actualOperation, newMetrics);
+        if (concurrentMetrics != null)
+        {
+            return concurrentMetrics;
+        }
+
+        registerMBean(newMetrics);
+        return newMetrics;
+    }
+
+    public Collection<OperationMetrics> getAllOperationMetrics()
+    {
+        return Collections.unmodifiableCollection(operationMetrics.values());
+    }
+
+    private ObjectName getObjectName(final String operation) throws JMException
+    {
+        return new ObjectName(JMX_DOMAIN + ":type=" + JMX_TYPE + ",name=" + ObjectName.quote(name)
+                              + ",operation=" + ObjectName.quote(operation));
+    }
+
+    private void registerMBean(final OperationMetrics metrics)
+    {
+        try
+        {
+            mBeanServer.registerMBean(metrics, getObjectName(metrics.getOperation()));
+        }
+        catch (final JMException jmxe)
+        {
+            // metrics are still recorded, they're just not visible
+            LOGGER.warn("Failed to register MBean for: " + metrics.getOperation(), jmxe);
+        }
+    }
+
+    private void unregisterMBean(final String operation)
+    {
+        try
+        {
+            final ObjectName objectName = getObjectName(operation);
+            if (mBeanServer.isRegistered(objectName))
+            {
+                mBeanServer.unregisterMBean(objectName);
+            }
+        }
+        catch (final JMException jmxe)
+        {
+            LOGGER.warn("Failed to unregister MBean for: " + operation, jmxe);
+        }
+    }
+}
@@ -0,0 +1,281 @@
+/*
+ * Copyright (c) MuleSoft, Inc. All rights reserved. http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.md file.
+ */
+
+package org.mule.modules.neo4j.model;
+
+import org.apache.commons.lang.ObjectUtils;
+import org.mule.util.StringUtils;
+
+/**
+ * A {@link Node} that only retains its id and a reference to the base URI of the server, shared
+ * with all the other compact entities of the same server, instead of the dozen URIs sent by the
+ * server for each node. These URIs are derived from the id when their getters are called, while
+ * their setters are ignored, except {@link #setSelf(String)} from which the id and base URI are
+ * taken.
+ */
+public class CompactNode extends Node
+{
+    static final String NODE_PATH = "/node/";
+
+    private String baseUri;
+    private long nodeId = -1L;
+
+    @Override
+    public String getSelf()
+    {
+        return baseUri == null ? null : baseUri + NODE_PATH + nodeId;
+    }
+
+    @Override
+    public void setSelf(final String self)
+    {
+        baseUri = getBaseUri(self, NODE_PATH);
+        nodeId = getEntityId(self);
+    }
+
+    @Override
+    public CompactNode withSelf(final String self)
+    {
+        setSelf(self);
+        return this;
+    }
+
+    public long getNodeId()
+    {
+        return nodeId;
+    }
+
+    @Override
+    public String getId()
+    {
+        return baseUri == null ? null : Long.toString(nodeId);
+    }
+
+    @Override
+    public void setId(final String id)
+    {
+        // derived from self
+    }
+
+    @Override
+    public String getProperty()
+    {
+        return getSelfRelativeUri("/properties/{key}");
+    }
+
+    @Override
+    public void setProperty(final String property)
+    {
+        // derived from self
+    }
+
+    @Override
+    public String getProperties()
+    {
+        return getSelfRelativeUri("/properties");
+    }
+
+    @Override
+    public void setProperties(final String properties)
+    {
+        // derived from self
+    }
+
+    @Override
+    public String getPagedTraverse()
+    {
+        return getSelfRelativeUri("/paged/traverse/{returnType}{?pageSize,leaseTime}");
+    }
+
+    @Override
+    public void setPagedTraverse(final String pagedTraverse)
+    {
+        // derived from self
+    }
+
+    @Override
+    public String getOutgoingRelationships()
+    {
+        return getSelfRelativeUri("/relationships/out");
+    }
+
+    @Override
+    public void setOutgoingRelationships(final String outgoingRelationships)
+    {
+        // derived from self
+    }
+
+    @Override
+    public String getTraverse()
+    {
+        return getSelfRelativeUri("/traverse/{returnType}");
+    }
+
+    @Override
+    public void setTraverse(final String traverse)
+    {
+        // derived from self
+    }
+
+    @Override
+    public String getAllTypedRelationships()
+    {
+        return getSelfRelativeUri("/relationships/all/{-list|&|types}");
+    }
+
+    @Override
+    public void setAllTypedRelationships(final String allTypedRelationships)
+    {
+        // derived from self
+    }
+
+    @Override
+    public String getAllRelationships()
+    {
+        return getSelfRelativeUri("/relationships/all");
+    }
+
+    @Override
+    public void setAllRelationships(final String allRelationships)
+    {
+        // derived from self
+    }
+
+    @Override
+    public String getOutgoingTypedRelationships()
+    {
+        return getSelfRelativeUri("/relationships/out/{-list|&|types}");
+    }
+
+    @Override
+    public void setOutgoingTypedRelationships(final String outgoingTypedRelationships)
+    {
+        // derived from self
+    }
+
+    @Override
+    public String getIncomingRelationships()
+    {
+        return getSelfRelativeUri("/relationships/in");
+    }
+
+    @Override
+    public void setIncomingRelationships(final String incomingRelationships)
+    {
+        // derived from self
+    }
+
+    @Override
+    public String getIncomingTypedRelationships()
+    {
+        return getSelfRelativeUri("/relationships/in/{-list|&|types}");
+    }
+
+    @Override
+    public void setIncomingTypedRelationships(final String incomingTypedRelationships)
+    {
+        // derived from self
+    }
+
+    @Override
+    public String getCreateRelationship()
+    {
+        return getSelfRelativeUri("/relationships");
+    }
+
+    @Override
+    public void setCreateRelationship(final String createRelationship)
+    {
+        // derived from self
+    }
+
+    @Override
+    public String getLabels()
+    {
+        return getSelfRelativeUri("/labels");
+    }
+
+    @Override
+    public void setLabels(final String labels)
+    {
+        // derived from self
+    }
+
+    @Override
+    public String getPath()
+    {
+        return getSelfRelativeUri("/path");
+    }
+
+    @Override
+    public void setPath(final String path)
+    {
+        // derived from self
+    }
+
+    @Override
+    public String getPaths()
+    {
+        return getSelfRelativeUri("/paths");
+    }
+
+    @Override
+    public void setPaths(final String paths)
+    {
+        // derived from self
+    }
+
+    /**
+     * @return the part of the URI of an entity that precedes the path of its kind of entity, as a
+     *         canonical {@link String} shared by all the entities of the same server.
+     */
+    static String getBaseUri(final String self, final String entityPath)
+    {
+        final int entityPathIndex = self == null ? -1 : self.lastIndexOf(entityPath);
+        return entityPathIndex < 0 ? null : self.substring(0, entityPathIndex).intern();
+    }
+
+    static long getEntityId(final String uri)
+    {
+        return uri == null ? -1L : Long.parseLong(StringUtils.substringAfterLast(uri, "/"));
+    }
+
+    private String getSelfRelativeUri(final String path)
+    {
+        return baseUri == null ? null : baseUri + NODE_PATH + nodeId + path;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return (int) (nodeId ^ (nodeId >>> 32));
+    }
+
+    @Override
+    public boolean equals(final Object other)
+    {
+        if (other == this)
+        {
+            return true;
+        }
+        if (!(other instanceof CompactNode))
+        {
+            return false;
+        }
+
+        final CompactNode otherNode = (CompactNode) other;
+        return (nodeId == otherNode.nodeId) && (ObjectUtils.equals(baseUri, otherNode.baseUri))
+               && (ObjectUtils.equals(getData(), otherNode.getData()));
+    }
+
+    @Override
+    public String toString()
+    {
+        return getClass().getSimpleName() + "[self=" + getSelf() + ",data=" + getData() + "]";
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) MuleSoft, Inc. All rights reserved. http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.md file.
+ */
+
+package org.mule.modules.neo4j.model;
+
+import org.apache.commons.lang.ObjectUtils;
+
+/**
+ * A {@link Relationship} that only retains its id, the ids of its start and end nodes, its type and
+ * a reference to the base URI of the server, shared with all the other compact entities of the same
+ * server. Its URIs are derived from these ids when their getters are called, while their setters
+ * only extract the ids.
+ */
+public class CompactRelationship extends Relationship
+{
+    private static final String RELATIONSHIP_PATH = "/relationship/";
+
+    private String baseUri;
+    private long relationshipId = -1L;
+    private long startNodeId = -1L;
+    private long endNodeId = -1L;
+
+    @Override
+    public String getSelf()
+    {
+        return getSelfRelativeUri("");
+    }
+
+    @Override
+    public void setSelf(final String self)
+    {
+        baseUri = CompactNode.getBaseUri(self, RELATIONSHIP_PATH);
+        relationshipId = CompactNode.getEntityId(self);
+    }
+
+    @Override
+    public CompactRelationship withSelf(final String self)
+    {
+        setSelf(self);
+        return this;
+    }
+
+    public long getRelationshipId()
+    {
+        return relationshipId;
+    }
+
+    @Override
+    public String getId()
+    {
+        return baseUri == null ? null : Long.toString(relationshipId);
+    }
+
+    @Override
+    public void setId(final String id)
+    {
+        // derived from self
+    }
+
+    @Override
+    public String getProperty()
+    {
+        return getSelfRelativeUri("/properties/{key}");
+    }
+
+    @Override
+    public void setProperty(final String property)
+    {
+        // derived from self
+    }
+
+    @Override
+    public String getProperties()
+    {
+        return getSelfRelativeUri("/properties");
+    }
+
+    @Override
+    public void setProperties(final String properties)
+    {
+        // derived from self
+    }
+
+    public long getStartNodeId()
+    {
+        return startNodeId;
+    }
+
+    @Override
+    public String getStart()
+    {
+        return baseUri == null ? null : baseUri + CompactNode.NODE_PATH + startNodeId;
+    }
+
+    @Override
+    public void setStart(final String start)
+    {
+        startNodeId = CompactNode.getEntityId(start);
+    }
+
+    public long getEndNodeId()
+    {
+        return endNodeId;
+    }
+
+    @Override
+    public String getEnd()
+    {
+        return baseUri == null ? null : baseUri + CompactNode.NODE_PATH + endNodeId;
+    }
+
+    @Override
+    public void setEnd(final String end)
+    {
+        endNodeId = CompactNode.getEntityId(end);
+    }
+
+    @Override
+    public void setType(final String type)
+    {
+        // the few distinct types are shared by all relationships
+        super.setType(type == null ? null : type.intern());
+    }
+
+    private String getSelfRelativeUri(final String path)
+    {
+        return baseUri == null ? null : baseUri + RELATIONSHIP_PATH + relationshipId + path;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return (int) (relationshipId ^ (relationshipId >>> 32));
+    }
+
+    @Override
+    public boolean equals(final Object other)
+    {
+        if (other == this)
+        {
+            return true;
+        }
+        if (!(other instanceof CompactRelationship))
+        {
+            return false;
+        }
+
+        final CompactRelationship otherRelationship = (CompactRelationship) other;
+        return (relationshipId == otherRelationship.relationshipId)
+               && (startNodeId == otherRelationship.startNodeId) && (endNodeId == otherRelationship.endNodeId)
+               && (ObjectUtils.equals(baseUri, otherRelationship.baseUri))
+               && (ObjectUtils.equals(getType(), otherRelationship.getType()))
+               && (ObjectUtils.equals(getData(), otherRelationship.getData()));
+    }
+
+    @Override
+    public String toString()
+    {
+        return getClass().getSimpleName() + "[self=" + getSelf() + ",type=" + getType() + ",start="
+               + getStart() + ",end=" + getEnd() + ",data=" + getData() + "]";
+    }
+}
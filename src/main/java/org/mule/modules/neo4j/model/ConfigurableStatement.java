@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) MuleSoft, Inc. All rights reserved. http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.md file.
+ */
+
+package org.mule.modules.neo4j.model;
+
+import java.util.List;
+import java.util.Map;
+
+import org.mule.util.CollectionUtils;
+import org.mule.util.MapUtils;
+
+/**
+ * Same as {@link ConfigurableBatchJob}, this class allows {@link Statement}s to be configured as
+ * <code>@Processor</code> parameters.
+ */
+public class ConfigurableStatement
+{
+    private String statement;
+    private Map<String, Object> parameters;
+    private List<String> resultDataContents;
+    private boolean includeStats;
+
+    public Statement toStatement()
+    {
+        final Statement result = new Statement().withStatement(getStatement());
+
+        if (MapUtils.isNotEmpty(parameters))
+        {
+            final CypherQueryParams cypherQueryParams = new CypherQueryParams();
+            cypherQueryParams.getAdditionalProperties().putAll(parameters);
+            result.setParameters(cypherQueryParams);
+        }
+
+        if (!CollectionUtils.isEmpty(resultDataContents))
+        {
+            result.setResultDataContents(resultDataContents);
+        }
+
+        if (includeStats)
+        {
+            result.setIncludeStats(Boolean.TRUE);
+        }
+
+        return result;
+    }
+
+    public String getStatement()
+    {
+        return statement;
+    }
+
+    public void setStatement(final String statement)
+    {
+        this.statement = statement;
+    }
+
+    public Map<String, Object> getParameters()
+    {
+        return parameters;
+    }
+
+    public void setParameters(final Map<String, Object> parameters)
+    {
+        this.parameters = parameters;
+    }
+
+    public List<String> getResultDataContents()
+    {
+        return resultDataContents;
+    }
+
+    public void setResultDataContents(final List<String> resultDataContents)
+    {
+        this.resultDataContents = resultDataContents;
+    }
+
+    public boolean isIncludeStats()
+    {
+        return includeStats;
+    }
+
+    public void setIncludeStats(final boolean includeStats)
+    {
+        this.includeStats = includeStats;
+    }
+}
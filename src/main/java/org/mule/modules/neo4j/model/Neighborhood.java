@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) MuleSoft, Inc. All rights reserved. http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.md file.
+ */
+
+package org.mule.modules.neo4j.model;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * The nodes and relationships found around seed nodes, held in parallel arrays instead of
+ * {@link Node} and {@link Relationship} instances.
+ * <p>
+ * The relationship at index <code>i</code> has the id <code>relationshipIds[i]</code>, goes from
+ * <code>startNodeIds[i]</code> to <code>endNodeIds[i]</code> and has the type
+ * <code>relationshipTypes[i]</code>. The selected properties of the node at index <code>i</code>
+ * of <code>nodeIds</code> are at index <code>i</code> of the arrays of <code>nodeProperties</code>,
+ * which are null for the nodes that don't have them.
+ */
+public class Neighborhood
+{
+    private final long[] nodeIds;
+    private final Map<String, Object[]> nodeProperties;
+    private final long[] relationshipIds;
+    private final long[] startNodeIds;
+    private final long[] endNodeIds;
+    private final String[] relationshipTypes;
+
+    public Neighborhood(final long[] nodeIds,
+                        final Map<String, Object[]> nodeProperties,
+                        final long[] relationshipIds,
+                        final long[] startNodeIds,
+                        final long[] endNodeIds,
+                        final String[] relationshipTypes)
+    {
+        this.nodeIds = nodeIds;
+        this.nodeProperties = Collections.unmodifiableMap(nodeProperties);
+        this.relationshipIds = relationshipIds;
+        this.startNodeIds = startNodeIds;
+        this.endNodeIds = endNodeIds;
+        this.relationshipTypes = relationshipTypes;
+    }
+
+    public long[] getNodeIds()
+    {
+        return nodeIds;
+    }
+
+    public Map<String, Object[]> getNodeProperties()
+    {
+        return nodeProperties;
+    }
+
+    public long[] getRelationshipIds()
+    {
+        return relationshipIds;
+    }
+
+    public long[] getStartNodeIds()
+    {
+        return startNodeIds;
+    }
+
+    public long[] getEndNodeIds()
+    {
+        return endNodeIds;
+    }
+
+    public String[] getRelationshipTypes()
+    {
+        return relationshipTypes;
+    }
+
+    public int getNodeCount()
+    {
+        return nodeIds.length;
+    }
+
+    public int getRelationshipCount()
+    {
+        return relationshipIds.length;
+    }
+
+    @Override
+    public String toString()
+    {
+        return getClass().getSimpleName() + "[nodeIds=" + Arrays.toString(nodeIds) + ",relationshipIds="
+               + Arrays.toString(relationshipIds) + ",nodeProperties=" + nodeProperties.keySet() + "]";
+    }
+}
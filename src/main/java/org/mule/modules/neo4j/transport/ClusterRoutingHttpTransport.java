@@ -0,0 +1,436 @@
+/*
+ * Copyright (c) MuleSoft, Inc. All rights reserved. http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.md file.
+ */
+
+package org.mule.modules.neo4j.transport;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+import org.apache.commons.lang.Validate;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.mule.api.DefaultMuleException;
+import org.mule.api.MuleException;
+import org.mule.transport.http.HttpConstants;
+import org.mule.util.StringUtils;
+import org.mule.util.concurrent.DaemonThreadFactory;
+
+/**
+ * A {@link HttpTransport} that routes requests across the instances of a Neo4j HA cluster, sending
+ * them through another {@link HttpTransport}.
+ * <p>
+ * The role of each instance is discovered, then periodically probed, with the HA management
+ * endpoint: <code>/db/manage/server/ha/available</code>. Instances without this endpoint are
+ * considered as standalone masters and instances that have not joined the cluster yet as
+ * unavailable. Requests that are not read-only go to the master, read-only ones are load balanced
+ * across the available slaves, or go to the master if there are none, by picking the least loaded
+ * of two random slaves, the load being the average latency of the slave weighted by its number of
+ * requests in flight.
+ * <p>
+ * Requests are redirected by replacing the base URI of their target, whichever instance it is, with
+ * the one of the selected instance, except for paged traverser requests which are kept on the
+ * instance that holds the traverser. An instance that fails to answer is considered as unavailable
+ * until the next successful probe. A read-only request that fails this way is retried on another
+ * instance while other requests are not, as they may have been applied.
+ */
+public class ClusterRoutingHttpTransport implements HttpTransport
+{
+    private static final Log LOGGER = LogFactory.getLog(ClusterRoutingHttpTransport.class);
+
+    private static final String HA_AVAILABLE_PATH = "/manage/server/ha/available";
+    private static final String HA_MASTER_ROLE = "master";
+    private static final String HA_SLAVE_ROLE = "slave";
+    private static final String HA_UNKNOWN_ROLE = "UNKNOWN";
+    private static final Pattern PINNED_URI_PATTERN = Pattern.compile("^.*/paged/traverse/\\w+/[^/?]+(?:\\?.*)?$");
+    private static final double LATENCY_SMOOTHING_FACTOR = 0.2d;
+
+    private enum Role
+    {
+        MASTER, SLAVE, UNKNOWN
+    }
+
+    private static class ClusterMember
+    {
+        private final String baseUri;
+        private final String basePath;
+        private final String haAvailableUri;
+        private final AtomicInteger requestsInFlight = new AtomicInteger();
+        private volatile Role role = Role.UNKNOWN;
+        private volatile boolean available = true;
+        private volatile double averageLatencyMicros;
+
+        public ClusterMember(final String baseUri)
+        {
+            this.baseUri = StringUtils.removeEnd(baseUri, "/");
+            basePath = "/" + StringUtils.substringAfter(StringUtils.substringAfter(this.baseUri, "://"), "/");
+            haAvailableUri = StringUtils.substringBeforeLast(this.baseUri, "/") + HA_AVAILABLE_PATH;
+        }
+
+        public double getLoad()
+        {
+            return averageLatencyMicros * (requestsInFlight.get() + 1);
+        }
+
+        public synchronized void recordLatency(final long latencyMicros)
+        {
+            averageLatencyMicros = averageLatencyMicros == 0.0d
+                                                                ? latencyMicros
+                                                                : averageLatencyMicros
+                                                                  + LATENCY_SMOOTHING_FACTOR
+                                                                  * (latencyMicros - averageLatencyMicros);
+        }
+
+        @Override
+        public String toString()
+        {
+            return baseUri + "[role=" + role + ", available=" + available + ", averageLatencyMicros="
+                   + Math.round(averageLatencyMicros) + "]";
+        }
+    }
+
+    private final HttpTransport httpTransport;
+    private final List<ClusterMember> members;
+    private final long healthCheckIntervalMillis;
+    private final Map<String, String> probeHeaders;
+    private final String name;
+    private final Random random = new Random();
+
+    private ScheduledExecutorService healthChecker;
+
+    /**
+     * @param authorization the value of the Authorization header of the health probes, or null if
+     *            the instances don't require authentication.
+     */
+    public ClusterRoutingHttpTransport(final HttpTransport httpTransport,
+                                       final List<String> memberBaseUris,
+                                       final long healthCheckIntervalMillis,
+                                       final String authorization,
+                                       final String name)
+    {
+        Validate.notNull(httpTransport, "httpTransport can't be null");
+        Validate.notEmpty(memberBaseUris, "memberBaseUris can't be empty");
+        Validate.isTrue(healthCheckIntervalMillis > 0, "healthCheckIntervalMillis must be strictly positive");
+
+        this.httpTransport = httpTransport;
+        this.healthCheckIntervalMillis = healthCheckIntervalMillis;
+        this.name = name;
+
+        if (StringUtils.isBlank(authorization))
+        {
+            probeHeaders = Collections.emptyMap();
+        }
+        else
+        {
+            probeHeaders = Collections.singletonMap(HttpConstants.HEADER_AUTHORIZATION, authorization);
+        }
+
+        final List<ClusterMember> clusterMembers = new ArrayList<ClusterMember>();
+        for (final String memberBaseUri : memberBaseUris)
+        {
+            clusterMembers.add(new ClusterMember(memberBaseUri));
+        }
+        members = Collections.unmodifiableList(clusterMembers);
+    }
+
+    public void start() throws MuleException
+    {
+        httpTransport.start();
+
+        probeMembers();
+
+        healthChecker = new ScheduledThreadPoolExecutor(1, new DaemonThreadFactory("neo4j-cluster-health["
+                                                                                   + name + "]"));
+        healthChecker.scheduleWithFixedDelay(new Runnable()
+        {
+            public void run()
+            {
+                probeMembers();
+            }
+        }, healthCheckIntervalMillis, healthCheckIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop()
+    {
+        try
+        {
+            if (healthChecker != null)
+            {
+                healthChecker.shutdownNow();
+                healthChecker = null;
+            }
+        }
+        finally
+        {
+            httpTransport.stop();
+        }
+    }
+
+    /**
+     * @return the role, availability and average latency of each instance, by base URI.
+     */
+    public Map<String, String> getMemberStatuses()
+    {
+        final Map<String, String> memberStatuses = new LinkedHashMap<String, String>();
+        for (final ClusterMember member : members)
+        {
+            memberStatuses.put(member.baseUri, member.toString());
+        }
+        return memberStatuses;
+    }
+
+    public HttpTransportResponse send(final HttpTransportRequest request) throws MuleException
+    {
+        if (PINNED_URI_PATTERN.matcher(request.getUri()).matches())
+        {
+            return httpTransport.send(request);
+        }
+
+        if (!request.isReadOnly())
+        {
+            final ClusterMember master = selectMaster();
+            try
+            {
+                return sendTo(master, request);
+            }
+            catch (final MuleException me)
+            {
+                markUnavailable(master, me);
+                throw me;
+            }
+        }
+
+        final Set<ClusterMember> failedMembers = new HashSet<ClusterMember>();
+        MuleException lastFailure = null;
+
+        ClusterMember member;
+        while ((member = selectReader(failedMembers)) != null)
+        {
+            try
+            {
+                return sendTo(member, request);
+            }
+            catch (final MuleException me)
+            {
+                markUnavailable(member, me);
+                failedMembers.add(member);
+                lastFailure = me;
+            }
+        }
+
+        throw lastFailure;
+    }
+
+    private HttpTransportResponse sendTo(final ClusterMember member, final HttpTransportRequest request)
+        throws MuleException
+    {
+        final long startNanos = System.nanoTime();
+        member.requestsInFlight.incrementAndGet();
+
+        try
+        {
+            final HttpTransportResponse response = httpTransport.send(request.withUri(rewriteUri(
+                request.getUri(), member)));
+
+            member.recordLatency(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos));
+            return response;
+        }
+        finally
+        {
+            member.requestsInFlight.decrementAndGet();
+        }
+    }
+
+    /**
+     * @return the URI with its base URI replaced by the one of the member, or unchanged if it
+     *         doesn't target the base path of the member.
+     */
+    private static String rewriteUri(final String uri, final ClusterMember member)
+    {
+        final int schemeEnd = uri.indexOf("://");
+        if (schemeEnd == -1)
+        {
+            return uri;
+        }
+
+        final int pathStart = uri.indexOf('/', schemeEnd + 3);
+        if ((pathStart == -1) || (!uri.startsWith(member.basePath, pathStart)))
+        {
+            return uri;
+        }
+
+        return member.baseUri + uri.substring(pathStart + member.basePath.length());
+    }
+
+    private ClusterMember selectMaster()
+    {
+        ClusterMember candidate = null;
+
+        for (final ClusterMember member : members)
+        {
+            if ((member.available) && (member.role == Role.MASTER))
+            {
+                return member;
+            }
+
+            // while the master is unknown, fall back to the first instance that may be it
+            if ((candidate == null) && (member.available) && (member.role != Role.SLAVE))
+            {
+                candidate = member;
+            }
+        }
+
+        return candidate != null ? candidate : members.get(0);
+    }
+
+    /**
+     * @return the least loaded of two random available slaves, or the master if there are none, or
+     *         any instance that hasn't failed yet as a last resort, or null if they all failed.
+     */
+    private ClusterMember selectReader(final Set<ClusterMember> failedMembers)
+    {
+        final List<ClusterMember> slaves = new ArrayList<ClusterMember>();
+        final List<ClusterMember> others = new ArrayList<ClusterMember>();
+
+        for (final ClusterMember member : members)
+        {
+            if (failedMembers.contains(member))
+            {
+                continue;
+            }
+
+            if ((member.available) && (member.role == Role.SLAVE))
+            {
+                slaves.add(member);
+            }
+            else
+            {
+                others.add(member);
+            }
+        }
+
+        if (slaves.size() == 1)
+        {
+            return slaves.get(0);
+        }
+        else if (slaves.size() > 1)
+        {
+            final int first = random.nextInt(slaves.size());
+            final int second = (first + 1 + random.nextInt(slaves.size() - 1)) % slaves.size();
+
+            return slaves.get(first).getLoad() <= slaves.get(second).getLoad()
+                                                                               ? slaves.get(first)
+                                                                               : slaves.get(second);
+        }
+
+        for (final ClusterMember member : others)
+        {
+            if ((member.available) && (member.role == Role.MASTER))
+            {
+                return member;
+            }
+        }
+
+        return others.isEmpty() ? null : others.get(0);
+    }
+
+    private void markUnavailable(final ClusterMember member, final MuleException cause)
+    {
+        if (member.available)
+        {
+            LOGGER.warn("Cluster member unavailable until next successful health check: " + member.baseUri,
+                cause);
+            member.available = false;
+        }
+    }
+
+    private void probeMembers()
+    {
+        for (final ClusterMember member : members)
+        {
+            try
+            {
+                probeMember(member);
+            }
+            catch (final Exception e)
+            {
+                if ((member.available) && (LOGGER.isWarnEnabled()))
+                {
+                    LOGGER.warn("Health check failed for cluster member: " + member.baseUri, e);
+                }
+                member.available = false;
+            }
+        }
+
+        if (LOGGER.isDebugEnabled())
+        {
+            LOGGER.debug("Cluster members after health check: " + getMemberStatuses());
+        }
+    }
+
+    private void probeMember(final ClusterMember member) throws MuleException
+    {
+        final long startNanos = System.nanoTime();
+        final HttpTransportResponse response = httpTransport.send(new HttpTransportRequest(
+            HttpConstants.METHOD_GET, member.haAvailableUri, probeHeaders, (String) null, true));
+
+        // refreshes the latency of the slaves that are not selected because of a past slow request
+        member.recordLatency(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos));
+
+        try
+        {
+            final int statusCode = response.getStatusCode();
+
+            if (statusCode == HttpConstants.SC_NOT_FOUND)
+            {
+                // an HA instance that is neither master nor slave yet can't serve requests, while
+                // an instance without this endpoint is not part of an HA cluster
+                if (HA_UNKNOWN_ROLE.equalsIgnoreCase(StringUtils.trim(response.getBodyAsString())))
+                {
+                    member.role = Role.UNKNOWN;
+                    member.available = false;
+                    return;
+                }
+
+                member.role = Role.MASTER;
+            }
+            else if (statusCode == HttpConstants.SC_OK)
+            {
+                final String role = StringUtils.trim(response.getBodyAsString());
+                member.role = HA_MASTER_ROLE.equalsIgnoreCase(role) ? Role.MASTER : HA_SLAVE_ROLE
+                    .equalsIgnoreCase(role) ? Role.SLAVE : Role.UNKNOWN;
+            }
+            else if (statusCode >= HttpConstants.SC_INTERNAL_SERVER_ERROR)
+            {
+                throw new DefaultMuleException("Received status code: " + statusCode + " from: "
+                                               + member.haAvailableUri);
+            }
+            else
+            {
+                // for example if the probe is not authorized: the instance is up but its role unknown
+                member.role = Role.UNKNOWN;
+            }
+
+            member.available = true;
+        }
+        finally
+        {
+            response.close();
+        }
+    }
+}
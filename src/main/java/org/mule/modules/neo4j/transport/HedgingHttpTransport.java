@@ -0,0 +1,345 @@
+/*
+ * Copyright (c) MuleSoft, Inc. All rights reserved. http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.md file.
+ */
+
+package org.mule.modules.neo4j.transport;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.lang.Validate;
+import org.mule.api.DefaultMuleException;
+import org.mule.api.MuleException;
+import org.mule.modules.neo4j.metrics.LatencyHistogram;
+import org.mule.util.StringUtils;
+import org.mule.util.concurrent.DaemonThreadFactory;
+
+/**
+ * A {@link HttpTransport} that hedges idempotent requests sent through another one: if a response
+ * hasn't been received after the configured percentile of the recent latencies of the same kind of
+ * request, a duplicate request is sent and the first response received is returned, the other one
+ * being discarded. Behind a {@link ClusterRoutingHttpTransport} the duplicate usually goes to another
+ * instance, otherwise it goes through another connection.
+ * <p>
+ * Duplicates are limited by a budget: each idempotent request earns
+ * <code>budgetPercent / 100</code> of a duplicate, up to a small burst, so hedging can't add more
+ * than <code>budgetPercent</code>% of extra read load, even when the server is slow as a whole.
+ * Requests are not hedged until {@value #MIN_SAMPLES} latencies of their kind have been recorded.
+ * <p>
+ * Idempotent requests are sent from a pool of threads, which wait for a response while the caller
+ * waits for the first one of them to succeed. Other requests are sent directly.
+ */
+public class HedgingHttpTransport implements HttpTransport
+{
+    private static final int MIN_SAMPLES = 100;
+    private static final int WINDOW_SAMPLES = 1000;
+    private static final int MAX_OPERATIONS = 256;
+    private static final String OTHER_OPERATIONS = "*";
+    private static final double MAX_BUDGET_TOKENS = 10.0d;
+    private static final long THREAD_KEEP_ALIVE_SECONDS = 60L;
+
+    /**
+     * Keeps the latencies of the current window and of the previous one, so percentiles reflect
+     * recent conditions without being computed from too few samples.
+     */
+    private static class LatencyWindow
+    {
+        private volatile LatencyHistogram current = new LatencyHistogram();
+        private volatile LatencyHistogram previous;
+
+        public void record(final long micros)
+        {
+            final LatencyHistogram histogram = current;
+            histogram.record(micros);
+
+            if (histogram.getCount() >= WINDOW_SAMPLES)
+            {
+                synchronized (this)
+                {
+                    if (current == histogram)
+                    {
+                        previous = histogram;
+                        current = new LatencyHistogram();
+                    }
+                }
+            }
+        }
+
+        /**
+         * @return the percentile of the latencies or -1 if there are too few of them.
+         */
+        public long getPercentile(final double percentile)
+        {
+            final LatencyHistogram histogram = previous != null ? previous : current;
+            return histogram.getCount() < MIN_SAMPLES ? -1L : histogram.getPercentile(percentile);
+        }
+    }
+
+    /**
+     * The attempts made to get a response to a request, the first successful one settling it.
+     */
+    private class HedgedCall
+    {
+        private final HttpTransportRequest request;
+        private final LatencyWindow latencyWindow;
+        private final CountDownLatch settled = new CountDownLatch(1);
+        private final AtomicBoolean done = new AtomicBoolean();
+        private final AtomicInteger pendingAttempts = new AtomicInteger();
+        private volatile HttpTransportResponse response;
+        private volatile Exception failure;
+        private volatile boolean wonByHedge;
+
+        public HedgedCall(final HttpTransportRequest request, final LatencyWindow latencyWindow)
+        {
+            this.request = request;
+            this.latencyWindow = latencyWindow;
+        }
+
+        public void attempt(final boolean hedge)
+        {
+            pendingAttempts.incrementAndGet();
+
+            executor.execute(new Runnable()
+            {
+                public void run()
+                {
+                    final long startNanos = System.nanoTime();
+                    try
+                    {
+                        final HttpTransportResponse attemptResponse = httpTransport.send(request);
+                        latencyWindow.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos));
+
+                        if (done.compareAndSet(false, true))
+                        {
+                            wonByHedge = hedge;
+                            response = attemptResponse;
+                            settled.countDown();
+                        }
+                        else
+                        {
+                            attemptResponse.close();
+                        }
+                    }
+                    catch (final Exception e)
+                    {
+                        failure = e;
+
+                        // a failure only settles the call if no other attempt can succeed
+                        if ((pendingAttempts.decrementAndGet() == 0) && (done.compareAndSet(false, true)))
+                        {
+                            settled.countDown();
+                        }
+                    }
+                }
+            });
+        }
+
+        public boolean await(final long timeoutMicros) throws MuleException
+        {
+            try
+            {
+                return settled.await(timeoutMicros, TimeUnit.MICROSECONDS);
+            }
+            catch (final InterruptedException ie)
+            {
+                Thread.currentThread().interrupt();
+                throw new DefaultMuleException("Interrupted while waiting for: " + request, ie);
+            }
+        }
+
+        public HttpTransportResponse getResponse() throws MuleException
+        {
+            if (response != null)
+            {
+                return response;
+            }
+            else if (failure instanceof MuleException)
+            {
+                throw (MuleException) failure;
+            }
+            else if (failure instanceof RuntimeException)
+            {
+                throw (RuntimeException) failure;
+            }
+            else
+            {
+                throw new DefaultMuleException("Failed to send: " + request, failure);
+            }
+        }
+    }
+
+    private final HttpTransport httpTransport;
+    private final double percentile;
+    private final double budgetTokensPerRequest;
+    private final String name;
+    private final ConcurrentMap<String, LatencyWindow> latencyWindows = new ConcurrentHashMap<String, LatencyWindow>();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong hedges = new AtomicLong();
+    private final AtomicLong hedgeWins = new AtomicLong();
+    private final AtomicLong hedgesDeniedByBudget = new AtomicLong();
+    private double budgetTokens;
+    private ThreadPoolExecutor executor;
+
+    public HedgingHttpTransport(final HttpTransport httpTransport,
+                                final double percentile,
+                                final double budgetPercent,
+                                final String name)
+    {
+        Validate.notNull(httpTransport, "httpTransport can't be null");
+        Validate.isTrue((percentile > 0.0d) && (percentile < 100.0d), "percentile must be between 0 and 100");
+        Validate.isTrue(budgetPercent > 0.0d, "budgetPercent must be strictly positive");
+
+        this.httpTransport = httpTransport;
+        this.percentile = percentile;
+        this.name = name;
+        budgetTokensPerRequest = budgetPercent / 100.0d;
+    }
+
+    public void start() throws MuleException
+    {
+        httpTransport.start();
+
+        executor = new ThreadPoolExecutor(0, Integer.MAX_VALUE, THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+            new SynchronousQueue<Runnable>(), new DaemonThreadFactory("neo4j-hedging[" + name + "]"));
+    }
+
+    public void stop()
+    {
+        try
+        {
+            if (executor != null)
+            {
+                executor.shutdownNow();
+                executor = null;
+            }
+        }
+        finally
+        {
+            httpTransport.stop();
+        }
+    }
+
+    /**
+     * @return the number of idempotent requests, of duplicates sent, of duplicates that answered first
+     *         and of duplicates not sent because the budget was exhausted.
+     */
+    public Map<String, Long> getStatistics()
+    {
+        final Map<String, Long> statistics = new LinkedHashMap<String, Long>();
+        statistics.put("requests", requests.get());
+        statistics.put("hedges", hedges.get());
+        statistics.put("hedgeWins", hedgeWins.get());
+        statistics.put("hedgesDeniedByBudget", hedgesDeniedByBudget.get());
+        return statistics;
+    }
+
+    public HttpTransportResponse send(final HttpTransportRequest request) throws MuleException
+    {
+        // duplicating a non-idempotent request, like the fetching of the next page of a paged
+        // traverser, would lose the result of the attempt that doesn't win
+        if (!request.isIdempotent())
+        {
+            return httpTransport.send(request);
+        }
+
+        requests.incrementAndGet();
+        earnBudget();
+
+        final LatencyWindow latencyWindow = getLatencyWindow(request);
+        final long hedgeDelayMicros = latencyWindow.getPercentile(percentile);
+
+        final HedgedCall hedgedCall = new HedgedCall(request, latencyWindow);
+        hedgedCall.attempt(false);
+
+        if ((hedgeDelayMicros >= 0L) && (!hedgedCall.await(hedgeDelayMicros)))
+        {
+            if (spendBudget())
+            {
+                hedges.incrementAndGet();
+                hedgedCall.attempt(true);
+            }
+            else
+            {
+                hedgesDeniedByBudget.incrementAndGet();
+            }
+        }
+
+        // the underlying transport enforces its own timeouts
+        hedgedCall.await(Long.MAX_VALUE);
+
+        if (hedgedCall.wonByHedge)
+        {
+            hedgeWins.incrementAndGet();
+        }
+
+        return hedgedCall.getResponse();
+    }
+
+    private synchronized void earnBudget()
+    {
+        budgetTokens = Math.min(MAX_BUDGET_TOKENS, budgetTokens + budgetTokensPerRequest);
+    }
+
+    private synchronized boolean spendBudget()
+    {
+        if (budgetTokens < 1.0d)
+        {
+            return false;
+        }
+
+        budgetTokens -= 1.0d;
+        return true;
+    }
+
+    private LatencyWindow getLatencyWindow(final HttpTransportRequest request)
+    {
+        String operation = getOperation(request);
+
+        LatencyWindow latencyWindow = latencyWindows.get(operation);
+        if (latencyWindow != null)
+        {
+            return latencyWindow;
+        }
+
+        if (latencyWindows.size() >= MAX_OPERATIONS)
+        {
+            operation = OTHER_OPERATIONS;
+        }
+
+        latencyWindow = new LatencyWindow();
+        final LatencyWindow existingLatencyWindow = latencyWindows.putIfAbsent(operation, latencyWindow);
+        return existingLatencyWindow != null ? existingLatencyWindow : latencyWindow;
+    }
+
+    /**
+     * @return the method and path of the request, without host and with ids replaced by a
+     *         placeholder, so requests for different entities share their latencies.
+     */
+    private static String getOperation(final HttpTransportRequest request)
+    {
+        final String path = "/"
+                            + StringUtils.substringAfter(
+                                StringUtils.substringAfter(StringUtils.substringBefore(request.getUri(), "?"),
+                                    "://"), "/");
+
+        final StringBuilder operation = new StringBuilder(request.getMethod()).append(' ');
+        for (final String segment : StringUtils.split(path, '/'))
+        {
+            operation.append('/').append(StringUtils.isNumeric(segment) ? "{id}" : segment);
+        }
+        return operation.toString();
+    }
+}
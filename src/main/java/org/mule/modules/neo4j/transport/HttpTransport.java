@@ -0,0 +1,31 @@
+/*
+ * Copyright (c) MuleSoft, Inc. All rights reserved. http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.md file.
+ */
+
+package org.mule.modules.neo4j.transport;
+
+import org.mule.api.MuleException;
+
+/**
+ * The component that actually sends HTTP requests to the Neo4j server.
+ * <p>
+ * Implementations must be thread safe: {@link #start()} is called when the connector connects,
+ * {@link #stop()} when it disconnects and {@link #send(HttpTransportRequest)} concurrently in
+ * between.
+ */
+public interface HttpTransport
+{
+    void start() throws MuleException;
+
+    void stop();
+
+    /**
+     * Send a request and return its response, whatever its status code. The caller is responsible
+     * for closing the returned {@link HttpTransportResponse}.
+     */
+    HttpTransportResponse send(HttpTransportRequest request) throws MuleException;
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) MuleSoft, Inc. All rights reserved. http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.md file.
+ */
+
+package org.mule.modules.neo4j.transport;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.Map;
+
+import org.mule.api.MuleRuntimeException;
+
+/**
+ * An HTTP request to send through a {@link HttpTransport}.
+ */
+public class HttpTransportRequest
+{
+    private static final String CHARSET = "UTF-8";
+
+    private static class StringJsonEntityWriter implements JsonEntityWriter
+    {
+        private final String json;
+
+        public StringJsonEntityWriter(final String json)
+        {
+            this.json = json;
+        }
+
+        public void writeTo(final OutputStream out) throws IOException
+        {
+            out.write(json.getBytes(CHARSET));
+        }
+    }
+
+    private final String method;
+    private final String uri;
+    private final Map<String, String> headers;
+    private final String jsonEntityOrNull;
+    private final JsonEntityWriter jsonEntityWriterOrNull;
+    private final boolean readOnly;
+    private final boolean idempotent;
+
+    public HttpTransportRequest(final String method,
+                                final String uri,
+                                final Map<String, String> headers,
+                                final String jsonEntityOrNull)
+    {
+        this(method, uri, headers, jsonEntityOrNull, false);
+    }
+
+    /**
+     * @param readOnly true if the request doesn't change the graph, so it can be sent to any
+     *            instance of a cluster.
+     */
+    public HttpTransportRequest(final String method,
+                                final String uri,
+                                final Map<String, String> headers,
+                                final String jsonEntityOrNull,
+                                final boolean readOnly)
+    {
+        this(method, uri, headers, jsonEntityOrNull, toJsonEntityWriter(jsonEntityOrNull), readOnly, readOnly);
+    }
+
+    /**
+     * @param jsonEntityWriterOrNull writes the entity straight into the HTTP request.
+     * @param readOnly true if the request doesn't change the graph, so it can be sent to any
+     *            instance of a cluster.
+     */
+    public HttpTransportRequest(final String method,
+                                final String uri,
+                                final Map<String, String> headers,
+                                final JsonEntityWriter jsonEntityWriterOrNull,
+                                final boolean readOnly)
+    {
+        this(method, uri, headers, jsonEntityWriterOrNull, readOnly, readOnly);
+    }
+
+    /**
+     * @param jsonEntityWriterOrNull writes the entity straight into the HTTP request.
+     * @param readOnly true if the request doesn't change the graph, so it can be sent to any
+     *            instance of a cluster.
+     * @param idempotent true if sending the request more than once has the same effect as sending
+     *            it once, so it can be duplicated. Read-only requests that change state held by the
+     *            server, like the creation of a paged traverser or the fetching of its next page,
+     *            are not idempotent.
+     */
+    public HttpTransportRequest(final String method,
+                                final String uri,
+                                final Map<String, String> headers,
+                                final JsonEntityWriter jsonEntityWriterOrNull,
+                                final boolean readOnly,
+                                final boolean idempotent)
+    {
+        this(method, uri, headers, null, jsonEntityWriterOrNull, readOnly, idempotent);
+    }
+
+    private HttpTransportRequest(final String method,
+                                 final String uri,
+                                 final Map<String, String> headers,
+                                 final String jsonEntityOrNull,
+                                 final JsonEntityWriter jsonEntityWriterOrNull,
+                                 final boolean readOnly,
+                                 final boolean idempotent)
+    {
+        this.method = method;
+        this.uri = uri;
+        this.headers = Collections.unmodifiableMap(headers);
+        this.jsonEntityOrNull = jsonEntityOrNull;
+        this.jsonEntityWriterOrNull = jsonEntityWriterOrNull;
+        this.readOnly = readOnly;
+        this.idempotent = idempotent;
+    }
+
+    private static JsonEntityWriter toJsonEntityWriter(final String jsonEntityOrNull)
+    {
+        return jsonEntityOrNull == null ? null : new StringJsonEntityWriter(jsonEntityOrNull);
+    }
+
+    /**
+     * @return a copy of this request sent to another URI.
+     */
+    public HttpTransportRequest withUri(final String otherUri)
+    {
+        return new HttpTransportRequest(method, otherUri, headers, jsonEntityOrNull, jsonEntityWriterOrNull,
+            readOnly, idempotent);
+    }
+
+    /**
+     * @return a copy of this request whose entity is written by another {@link JsonEntityWriter}.
+     */
+    public HttpTransportRequest withJsonEntityWriter(final JsonEntityWriter otherJsonEntityWriter)
+    {
+        return new HttpTransportRequest(method, uri, headers, null, otherJsonEntityWriter, readOnly,
+            idempotent);
+    }
+
+    public String getMethod()
+    {
+        return method;
+    }
+
+    public String getUri()
+    {
+        return uri;
+    }
+
+    public Map<String, String> getHeaders()
+    {
+        return headers;
+    }
+
+    public boolean hasJsonEntity()
+    {
+        return jsonEntityWriterOrNull != null;
+    }
+
+    /**
+     * @return the entity rendered as a {@link String}, which requires holding it in memory: transports
+     *         should rather use {@link #getJsonEntityWriterOrNull()}.
+     */
+    public String getJsonEntityOrNull()
+    {
+        if ((jsonEntityOrNull != null) || (jsonEntityWriterOrNull == null))
+        {
+            return jsonEntityOrNull;
+        }
+
+        try
+        {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            jsonEntityWriterOrNull.writeTo(out);
+            return out.toString(CHARSET);
+        }
+        catch (final IOException ioe)
+        {
+            throw new MuleRuntimeException(ioe);
+        }
+    }
+
+    public JsonEntityWriter getJsonEntityWriterOrNull()
+    {
+        return jsonEntityWriterOrNull;
+    }
+
+    public boolean isReadOnly()
+    {
+        return readOnly;
+    }
+
+    public boolean isIdempotent()
+    {
+        return idempotent;
+    }
+
+    @Override
+    public String toString()
+    {
+        return method + " " + uri + " " + headers;
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) MuleSoft, Inc. All rights reserved. http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.md file.
+ */
+
+package org.mule.modules.neo4j.transport;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+import org.mule.util.CaseInsensitiveHashMap;
+import org.mule.util.IOUtils;
+
+/**
+ * An HTTP response received through a {@link HttpTransport}, which must be closed once its body
+ * has been consumed.
+ */
+public class HttpTransportResponse
+{
+    private static final String CHARSET = "UTF-8";
+
+    private final int statusCode;
+    private final Map<String, String> headers;
+    private InputStream body;
+    private byte[] bufferedBody;
+
+    @SuppressWarnings("unchecked")
+    public HttpTransportResponse(final int statusCode, final Map<String, String> headers, final InputStream body)
+    {
+        this.statusCode = statusCode;
+        this.headers = new CaseInsensitiveHashMap(headers);
+        this.body = body;
+    }
+
+    public int getStatusCode()
+    {
+        return statusCode;
+    }
+
+    /**
+     * @return the response headers, with case-insensitive names.
+     */
+    public Map<String, String> getHeaders()
+    {
+        return headers;
+    }
+
+    public InputStream getBody()
+    {
+        return bufferedBody == null ? body : new ByteArrayInputStream(bufferedBody);
+    }
+
+    /**
+     * Read the complete body in memory so it can be consumed more than once.
+     */
+    public void bufferBody() throws IOException
+    {
+        if ((bufferedBody == null) && (body == null))
+        {
+            bufferedBody = new byte[0];
+        }
+        else if (bufferedBody == null)
+        {
+            try
+            {
+                bufferedBody = IOUtils.toByteArray(body);
+            }
+            finally
+            {
+                close();
+            }
+        }
+    }
+
+    /**
+     * @return the body as a {@link String}, or whatever remains of it if it has been partially
+     *         consumed and wasn't buffered.
+     */
+    public String getBodyAsString()
+    {
+        try
+        {
+            bufferBody();
+            return new String(bufferedBody, CHARSET);
+        }
+        catch (final IOException ioe)
+        {
+            return "<unreadable body: " + ioe.getMessage() + ">";
+        }
+    }
+
+    public void close()
+    {
+        IOUtils.closeQuietly(body);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "HttpTransportResponse[statusCode=" + statusCode + ", headers=" + headers + "]";
+    }
+}
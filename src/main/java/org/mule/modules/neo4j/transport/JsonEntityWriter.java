@@ -0,0 +1,28 @@
+/*
+ * Copyright (c) MuleSoft, Inc. All rights reserved. http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.md file.
+ */
+
+package org.mule.modules.neo4j.transport;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes the JSON entity of a {@link HttpTransportRequest}, encoded in UTF-8, straight into the
+ * stream of the HTTP request, so large entities are never held in memory as a whole.
+ * <p>
+ * Implementations must be thread safe and able to write the same entity any number of times, as a
+ * request can be sent several times, possibly concurrently, for example when it is retried or
+ * hedged.
+ */
+public interface JsonEntityWriter
+{
+    /**
+     * Write the entity to the stream, without closing it.
+     */
+    void writeTo(OutputStream out) throws IOException;
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) MuleSoft, Inc. All rights reserved. http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.md file.
+ */
+
+package org.mule.modules.neo4j.transport;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.mule.api.DefaultMuleException;
+import org.mule.api.MuleContext;
+import org.mule.api.MuleEvent;
+import org.mule.api.MuleException;
+import org.mule.api.MuleMessage;
+import org.mule.api.MuleRuntimeException;
+import org.mule.api.transport.Connector;
+import org.mule.api.transport.OutputHandler;
+import org.mule.transport.http.HttpConnector;
+import org.mule.transport.http.HttpConstants;
+
+/**
+ * {@link HttpTransport} that sends requests with the Mule client, ie. through the HTTP/HTTPS
+ * transport of the Mule application.
+ */
+public class MuleClientHttpTransport implements HttpTransport
+{
+    private final MuleContext muleContext;
+    private final Connector connector;
+
+    /**
+     * @param muleContext the {@link MuleContext} of the application.
+     * @param connector the HTTP/HTTPS connector to use, or null to let Mule select it.
+     */
+    public MuleClientHttpTransport(final MuleContext muleContext, final Connector connector)
+    {
+        this.muleContext = muleContext;
+        this.connector = connector;
+    }
+
+    public void start()
+    {
+        // NOOP
+    }
+
+    public void stop()
+    {
+        // NOOP
+    }
+
+    public HttpTransportResponse send(final HttpTransportRequest request) throws MuleException
+    {
+        final Map<String, Object> requestProperties = new HashMap<String, Object>(request.getHeaders());
+        requestProperties.put(HttpConnector.HTTP_METHOD_PROPERTY, request.getMethod());
+
+        final MuleMessage response = muleContext.getClient().send(getEndpointUri(request.getUri()),
+            getPayload(request), requestProperties);
+
+        final Map<String, String> responseHeaders = new HashMap<String, String>();
+        for (final String headerName : response.getInboundPropertyNames())
+        {
+            if (HttpConstants.RESPONSE_HEADER_NAMES.containsKey(headerName))
+            {
+                responseHeaders.put(headerName, response.<String> getInboundProperty(headerName));
+            }
+        }
+
+        final int statusCode = Integer.parseInt((String) response.getInboundProperty(HttpConnector.HTTP_STATUS_PROPERTY));
+
+        return new HttpTransportResponse(statusCode, responseHeaders, getBody(response));
+    }
+
+    /**
+     * @return an {@link OutputHandler} that writes the entity straight into the HTTP request, or null
+     *         if there is no entity.
+     */
+    private static OutputHandler getPayload(final HttpTransportRequest request)
+    {
+        if (!request.hasJsonEntity())
+        {
+            return null;
+        }
+
+        final JsonEntityWriter jsonEntityWriter = request.getJsonEntityWriterOrNull();
+
+        return new OutputHandler()
+        {
+            public void write(final MuleEvent event, final OutputStream out) throws IOException
+            {
+                jsonEntityWriter.writeTo(out);
+            }
+        };
+    }
+
+    private String getEndpointUri(final String uri)
+    {
+        if (connector == null)
+        {
+            return uri;
+        }
+
+        return uri + (uri.indexOf('?') == -1 ? "?" : "&") + "connector=" + urlEncode(connector.getName());
+    }
+
+    private static InputStream getBody(final MuleMessage response) throws MuleException
+    {
+        if (response.getPayload() instanceof InputStream)
+        {
+            return (InputStream) response.getPayload();
+        }
+
+        try
+        {
+            return new ByteArrayInputStream(response.getPayloadAsBytes());
+        }
+        catch (final Exception e)
+        {
+            throw new DefaultMuleException("Failed to read response payload of: " + response, e);
+        }
+    }
+
+    private static String urlEncode(final String s)
+    {
+        try
+        {
+            return URLEncoder.encode(s, "UTF-8");
+        }
+        catch (final UnsupportedEncodingException uee)
+        {
+            throw new MuleRuntimeException(uee);
+        }
+    }
+}
@@ -0,0 +1,281 @@
+/*
+ * Copyright (c) MuleSoft, Inc. All rights reserved. http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.md file.
+ */
+
+package org.mule.modules.neo4j.transport;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.apache.commons.httpclient.Header;
+import org.apache.commons.httpclient.HttpClient;
+import org.apache.commons.httpclient.HttpMethod;
+import org.apache.commons.httpclient.MultiThreadedHttpConnectionManager;
+import org.apache.commons.httpclient.methods.DeleteMethod;
+import org.apache.commons.httpclient.methods.EntityEnclosingMethod;
+import org.apache.commons.httpclient.methods.GetMethod;
+import org.apache.commons.httpclient.methods.PostMethod;
+import org.apache.commons.httpclient.methods.PutMethod;
+import org.apache.commons.httpclient.methods.RequestEntity;
+import org.apache.commons.httpclient.params.HttpConnectionManagerParams;
+import org.apache.commons.httpclient.util.IdleConnectionTimeoutThread;
+import org.apache.commons.lang.Validate;
+import org.mule.api.DefaultMuleException;
+import org.mule.api.MuleException;
+import org.mule.transformer.types.MimeTypes;
+import org.mule.transport.http.HttpConstants;
+
+/**
+ * {@link HttpTransport} that sends requests directly with Commons HttpClient, over a bounded pool of
+ * keep-alive connections. This bypasses the endpoint resolution performed by the Mule client on
+ * each call and reuses TCP/TLS connections across requests.
+ */
+public class PooledHttpTransport implements HttpTransport
+{
+    private static class PatchMethod extends EntityEnclosingMethod
+    {
+        public PatchMethod(final String uri)
+        {
+            super(uri);
+        }
+
+        @Override
+        public String getName()
+        {
+            return HttpConstants.METHOD_PATCH;
+        }
+    }
+
+    /**
+     * Releases the pooled connection when the response body is closed.
+     */
+    private static class ConnectionReleasingInputStream extends FilterInputStream
+    {
+        private final HttpMethod method;
+
+        public ConnectionReleasingInputStream(final InputStream in, final HttpMethod method)
+        {
+            super(in);
+            this.method = method;
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            try
+            {
+                super.close();
+            }
+            finally
+            {
+                method.releaseConnection();
+            }
+        }
+    }
+
+    /**
+     * Writes the JSON entity straight into the connection, chunked since its length is not known in
+     * advance.
+     */
+    private static class JsonWriterRequestEntity implements RequestEntity
+    {
+        private final JsonEntityWriter jsonEntityWriter;
+
+        public JsonWriterRequestEntity(final JsonEntityWriter jsonEntityWriter)
+        {
+            this.jsonEntityWriter = jsonEntityWriter;
+        }
+
+        public boolean isRepeatable()
+        {
+            return true;
+        }
+
+        public void writeRequest(final OutputStream out) throws IOException
+        {
+            jsonEntityWriter.writeTo(out);
+        }
+
+        public long getContentLength()
+        {
+            return -1L;
+        }
+
+        public String getContentType()
+        {
+            return MimeTypes.JSON + "; charset=" + CHARSET;
+        }
+    }
+
+    private static final String CHARSET = "UTF-8";
+
+    private final int maxConnectionsPerHost;
+    private final int maxTotalConnections;
+    private final int connectionTimeoutMillis;
+    private final int readTimeoutMillis;
+    private final int idleConnectionTimeoutMillis;
+
+    private MultiThreadedHttpConnectionManager connectionManager;
+    private IdleConnectionTimeoutThread idleConnectionTimeoutThread;
+    private HttpClient httpClient;
+
+    /**
+     * @param maxConnectionsPerHost the maximum number of connections opened to a single host.
+     * @param maxTotalConnections the maximum number of connections opened to all hosts.
+     * @param connectionTimeoutMillis the maximum time to establish a connection or to wait for a
+     *            pooled one to become available.
+     * @param readTimeoutMillis the maximum time to wait for data on an established connection.
+     * @param idleConnectionTimeoutMillis the time after which an idle connection is closed.
+     */
+    public PooledHttpTransport(final int maxConnectionsPerHost,
+                               final int maxTotalConnections,
+                               final int connectionTimeoutMillis,
+                               final int readTimeoutMillis,
+                               final int idleConnectionTimeoutMillis)
+    {
+        Validate.isTrue(maxConnectionsPerHost > 0, "maxConnectionsPerHost must be strictly positive");
+        Validate.isTrue(maxTotalConnections >= maxConnectionsPerHost,
+            "maxTotalConnections can not be lower than maxConnectionsPerHost");
+        Validate.isTrue(idleConnectionTimeoutMillis > 0, "idleConnectionTimeoutMillis must be strictly positive");
+
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+        this.maxTotalConnections = maxTotalConnections;
+        this.connectionTimeoutMillis = connectionTimeoutMillis;
+        this.readTimeoutMillis = readTimeoutMillis;
+        this.idleConnectionTimeoutMillis = idleConnectionTimeoutMillis;
+    }
+
+    public synchronized void start()
+    {
+        if (httpClient != null)
+        {
+            return;
+        }
+
+        connectionManager = new MultiThreadedHttpConnectionManager();
+
+        final HttpConnectionManagerParams params = connectionManager.getParams();
+        params.setDefaultMaxConnectionsPerHost(maxConnectionsPerHost);
+        params.setMaxTotalConnections(maxTotalConnections);
+        params.setConnectionTimeout(connectionTimeoutMillis);
+        params.setSoTimeout(readTimeoutMillis);
+        params.setStaleCheckingEnabled(true);
+
+        idleConnectionTimeoutThread = new IdleConnectionTimeoutThread();
+        idleConnectionTimeoutThread.setName("neo4j-idle-connection-evictor");
+        idleConnectionTimeoutThread.setConnectionTimeout(idleConnectionTimeoutMillis);
+        idleConnectionTimeoutThread.setTimeoutInterval(Math.max(idleConnectionTimeoutMillis / 2, 1));
+        idleConnectionTimeoutThread.addConnectionManager(connectionManager);
+        idleConnectionTimeoutThread.start();
+
+        httpClient = new HttpClient(connectionManager);
+        httpClient.getParams().setConnectionManagerTimeout(connectionTimeoutMillis);
+    }
+
+    public synchronized void stop()
+    {
+        if (httpClient == null)
+        {
+            return;
+        }
+
+        idleConnectionTimeoutThread.shutdown();
+        connectionManager.shutdown();
+
+        idleConnectionTimeoutThread = null;
+        connectionManager = null;
+        httpClient = null;
+    }
+
+    public HttpTransportResponse send(final HttpTransportRequest request) throws MuleException
+    {
+        final HttpClient client = httpClient;
+        if (client == null)
+        {
+            throw new IllegalStateException("Transport is not started");
+        }
+
+        final HttpMethod method = newHttpMethod(request);
+
+        for (final Entry<String, String> header : request.getHeaders().entrySet())
+        {
+            method.setRequestHeader(header.getKey(), header.getValue());
+        }
+
+        try
+        {
+            final int statusCode = client.executeMethod(method);
+
+            final Map<String, String> responseHeaders = new HashMap<String, String>();
+            for (final Header header : method.getResponseHeaders())
+            {
+                responseHeaders.put(header.getName(), header.getValue());
+            }
+
+            final InputStream responseBody = method.getResponseBodyAsStream();
+
+            if (responseBody == null)
+            {
+                method.releaseConnection();
+                return new HttpTransportResponse(statusCode, responseHeaders, null);
+            }
+
+            return new HttpTransportResponse(statusCode, responseHeaders, new ConnectionReleasingInputStream(
+                responseBody, method));
+        }
+        catch (final IOException ioe)
+        {
+            method.releaseConnection();
+            throw new DefaultMuleException("Failed to send: " + request, ioe);
+        }
+    }
+
+    private static HttpMethod newHttpMethod(final HttpTransportRequest request) throws MuleException
+    {
+        final String httpMethod = request.getMethod();
+
+        if (HttpConstants.METHOD_GET.equals(httpMethod))
+        {
+            return new GetMethod(request.getUri());
+        }
+        if (HttpConstants.METHOD_DELETE.equals(httpMethod))
+        {
+            return new DeleteMethod(request.getUri());
+        }
+
+        final EntityEnclosingMethod entityEnclosingMethod;
+        if (HttpConstants.METHOD_POST.equals(httpMethod))
+        {
+            entityEnclosingMethod = new PostMethod(request.getUri());
+        }
+        else if (HttpConstants.METHOD_PUT.equals(httpMethod))
+        {
+            entityEnclosingMethod = new PutMethod(request.getUri());
+        }
+        else if (HttpConstants.METHOD_PATCH.equals(httpMethod))
+        {
+            entityEnclosingMethod = new PatchMethod(request.getUri());
+        }
+        else
+        {
+            throw new DefaultMuleException("Unsupported HTTP method: " + httpMethod);
+        }
+
+        if (request.hasJsonEntity())
+        {
+            entityEnclosingMethod.setRequestEntity(new JsonWriterRequestEntity(
+                request.getJsonEntityWriterOrNull()));
+        }
+
+        return entityEnclosingMethod;
+    }
+}
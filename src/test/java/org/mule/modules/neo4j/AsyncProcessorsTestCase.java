@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) MuleSoft, Inc. All rights reserved. http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.md file.
+ */
+
+package org.mule.modules.neo4j;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mule.api.MuleException;
+import org.mule.modules.neo4j.model.Node;
+
+public class AsyncProcessorsTestCase
+{
+    private final StubHttpTransport stubHttpTransport = new StubHttpTransport();
+    private final Neo4jConnector connector = StubHttpTransport.newConnector(stubHttpTransport);
+
+    @Before
+    public void connect() throws Exception
+    {
+        stubHttpTransport.connect(connector, "2.1.5");
+
+        stubHttpTransport.respond("GET", StubHttpTransport.BASE_URI + "/node/1", 200, "{\"self\":\""
+                                                                                   + StubHttpTransport.BASE_URI
+                                                                                   + "/node/1\",\"data\":{}}");
+        stubHttpTransport.respond("GET", StubHttpTransport.BASE_URI + "/node/2", 404, "{}");
+    }
+
+    @After
+    public void disconnect() throws Exception
+    {
+        connector.disconnect();
+    }
+
+    private List<Future<?>> getNodesByIdAsync(final Long... nodeIds)
+    {
+        return new ArrayList<Future<?>>(connector.getNodesByIdAsync(Arrays.asList(nodeIds), false));
+    }
+
+    @Test
+    public void awaitsResultsInTheOrderOfTheFutures() throws Exception
+    {
+        final List<Object> nodes = connector.awaitAll(getNodesByIdAsync(2L, 1L), 10000L);
+
+        assertThat(nodes.size(), is(2));
+        assertThat(nodes.get(0), is(nullValue()));
+        assertThat(((Node) nodes.get(1)).getId(), is("1"));
+    }
+
+    @Test
+    public void cancelsPendingFuturesWhenOneFails() throws Exception
+    {
+        // no response is stubbed for the third node, so its request fails
+        final List<Future<?>> futureNodes = getNodesByIdAsync(3L, 1L);
+
+        try
+        {
+            connector.awaitAll(futureNodes, 10000L);
+            fail("Failed request ignored");
+        }
+        catch (final MuleException me)
+        {
+            assertThat(me.getMessage().contains("/node/3"), is(true));
+        }
+
+        assertThat(futureNodes.get(1).isDone(), is(true));
+    }
+
+    @Test
+    public void awaitsSingleResults() throws Exception
+    {
+        final Node node = (Node) connector.awaitResult(connector.getNodeByIdAsync(1L, true), 10000L);
+
+        assertThat(node.getSelf(), is(StubHttpTransport.BASE_URI + "/node/1"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void rejectsRequestsOnceDisconnected() throws Exception
+    {
+        connector.disconnect();
+
+        connector.getNodeByIdAsync(1L, false);
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) MuleSoft, Inc. All rights reserved. http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.md file.
+ */
+
+package org.mule.modules.neo4j;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+import org.mule.modules.neo4j.model.BatchJob;
+import org.mule.modules.neo4j.model.BatchJobResult;
+import org.mule.modules.neo4j.model.Data;
+
+public class BatchJobMergerTestCase
+{
+    private static List<List<BatchJob>> newJobGroups()
+    {
+        final Data relationship = new Data();
+        relationship.getAdditionalProperties().put("to", "{1}");
+        relationship.getAdditionalProperties().put("type", "KNOWS");
+
+        final List<BatchJob> createNode = Collections.singletonList(new BatchJob().withMethod(
+            BatchJob.Method.POST).withTo("/node"));
+
+        final List<BatchJob> createRelatedNodes = Arrays.asList(
+            new BatchJob().withId(0).withMethod(BatchJob.Method.POST).withTo("/node"),
+            new BatchJob().withId(1).withMethod(BatchJob.Method.POST).withTo("/node"),
+            new BatchJob().withId(2)
+                .withMethod(BatchJob.Method.POST)
+                .withTo("{0}/relationships")
+                .withBody(relationship),
+            new BatchJob().withId(3).withMethod(BatchJob.Method.POST).withTo("{0}/labels").withBody("{7}"));
+
+        return Arrays.asList(createNode, createRelatedNodes);
+    }
+
+    @Test
+    public void renumbersReferencesWithinGroups()
+    {
+        final List<BatchJob> jobs = BatchJobMerger.merge(newJobGroups());
+
+        assertThat(jobs.size(), is(5));
+        for (int i = 0; i < jobs.size(); i++)
+        {
+            assertThat(jobs.get(i).getId(), is(i));
+        }
+
+        assertThat(jobs.get(0).getTo(), is("/node"));
+        assertThat(jobs.get(3).getTo(), is("{1}/relationships"));
+        assertThat(((Data) jobs.get(3).getBody()).getAdditionalProperties().get("to"), is((Object) "{2}"));
+        assertThat(((Data) jobs.get(3).getBody()).getAdditionalProperties().get("type"), is((Object) "KNOWS"));
+
+        // references to jobs outside of the group are left alone
+        assertThat(jobs.get(4).getTo(), is("{1}/labels"));
+        assertThat(jobs.get(4).getBody(), is((Object) "{7}"));
+    }
+
+    @Test
+    public void splitsResultsByGroup()
+    {
+        final List<List<BatchJob>> jobGroups = newJobGroups();
+        final List<BatchJobResult> results = Arrays.asList(new BatchJobResult().withId(4).withStatus(204),
+            new BatchJobResult().withId(0).withStatus(201), new BatchJobResult().withId(2).withStatus(201),
+            new BatchJobResult().withId(1).withStatus(201));
+
+        final List<List<BatchJobResult>> groupResults = BatchJobMerger.split(jobGroups, results);
+
+        assertThat(groupResults.size(), is(2));
+        assertThat(groupResults.get(0).size(), is(1));
+        assertThat(groupResults.get(0).get(0).getId(), is(nullValue()));
+        assertThat(groupResults.get(0).get(0).getStatus(), is(201));
+
+        final List<BatchJobResult> relatedNodesResults = groupResults.get(1);
+        assertThat(relatedNodesResults.get(0).getId(), is(0));
+        assertThat(relatedNodesResults.get(1).getId(), is(1));
+        assertThat(relatedNodesResults.get(2), is(nullValue()));
+        assertThat(relatedNodesResults.get(3).getId(), is(3));
+        assertThat(relatedNodesResults.get(3).getStatus(), is(204));
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) MuleSoft, Inc. All rights reserved. http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.md file.
+ */
+
+package org.mule.modules.neo4j;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+import org.mule.api.MuleException;
+import org.mule.modules.neo4j.model.StatementError;
+import org.mule.modules.neo4j.model.TransactionResult;
+
+public class BulkImporterTestCase
+{
+    private static final BulkImporter.RowMapper IDENTITY_ROW_MAPPER = new BulkImporter.RowMapper()
+    {
+        public Map<String, Object> map(final Map<String, Object> record)
+        {
+            if (!record.containsKey("name"))
+            {
+                throw new IllegalArgumentException("Missing name");
+            }
+            return record;
+        }
+    };
+
+    @Test
+    public void rejectsMalformedAndUnmappableRecordsWithoutStopping() throws Exception
+    {
+        final List<Map<String, Object>> writtenRows = new ArrayList<Map<String, Object>>();
+        final BulkImporter bulkImporter = new BulkImporter(new BulkImporter.ChunkWriter()
+        {
+            public Map<String, Long> write(final List<Map<String, Object>> rows) throws MuleException
+            {
+                writtenRows.addAll(rows);
+                return Collections.singletonMap("nodesCreated", (long) rows.size());
+            }
+        }, 2, 1, "test");
+
+        final Map<String, Object> summary = bulkImporter.run(ImportRecordReader.newNdjsonRecordReader(
+            new StringReader("{\"name\":\"Alice\"}\nnot json\n{\"age\":42}\n{\"name\":\"Bob\"}\n")),
+            IDENTITY_ROW_MAPPER);
+
+        assertThat(summary.get("rowsRead"), is((Object) 4L));
+        assertThat(summary.get("rowsImported"), is((Object) 2L));
+        assertThat(summary.get("rowsRejected"), is((Object) 2L));
+        assertThat(summary.get("nodesCreated"), is((Object) 2L));
+        assertThat(writtenRows.size(), is(2));
+
+        final List<?> failures = (List<?>) summary.get("failures");
+        assertThat(failures.size(), is(2));
+        assertThat(((Map<?, ?>) failures.get(0)).get("firstRow"), is((Object) 2L));
+        assertThat(((Map<?, ?>) failures.get(1)).get("firstRow"), is((Object) 3L));
+    }
+
+    @Test
+    public void retriesChunksThatOnlyFailedWithTransientErrors()
+    {
+        final StatementError deadlock = new StatementError().withCode(
+            "Neo.TransientError.Transaction.DeadlockDetected").withMessage("Deadlock");
+        final StatementError syntaxError = new StatementError().withCode("Neo.ClientError.Statement.InvalidSyntax")
+            .withMessage("[Neo.TransientError.Transaction.DeadlockDetected] quoted in the message");
+
+        assertThat(Neo4jConnector.hasOnlyTransientErrors(new TransactionResult().withErrors(
+            Collections.singletonList(deadlock))), is(true));
+        assertThat(Neo4jConnector.hasOnlyTransientErrors(new TransactionResult().withErrors(
+            Collections.singletonList(syntaxError))), is(false));
+        assertThat(Neo4jConnector.hasOnlyTransientErrors(new TransactionResult().withErrors(Arrays.asList(
+            deadlock, syntaxError))), is(false));
+        assertThat(Neo4jConnector.hasOnlyTransientErrors(new TransactionResult().withErrors(
+            Collections.<StatementError> emptyList())), is(false));
+    }
+}
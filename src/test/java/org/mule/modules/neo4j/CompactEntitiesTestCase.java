@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) MuleSoft, Inc. All rights reserved. http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.md file.
+ */
+
+package org.mule.modules.neo4j;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import org.codehaus.jackson.map.ObjectMapper;
+import org.junit.After;
+import org.junit.Test;
+import org.mule.modules.neo4j.model.CompactNode;
+import org.mule.modules.neo4j.model.CompactRelationship;
+import org.mule.modules.neo4j.model.Node;
+import org.mule.modules.neo4j.model.Relationship;
+
+public class CompactEntitiesTestCase
+{
+    private static final String NODE_URI = StubHttpTransport.BASE_URI + "/node/12";
+    private static final String RELATIONSHIP_URI = StubHttpTransport.BASE_URI + "/relationship/34";
+
+    // as sent by the server
+    private static final String NODE_JSON = ("{\"self\":\"{node}\",\"property\":\"{node}/properties/{key}\","
+                                             + "\"properties\":\"{node}/properties\","
+                                             + "\"paged_traverse\":\"{node}/paged/traverse/{returnType}"
+                                             + "{?pageSize,leaseTime}\","
+                                             + "\"outgoing_relationships\":\"{node}/relationships/out\","
+                                             + "\"traverse\":\"{node}/traverse/{returnType}\","
+                                             + "\"all_typed_relationships\":\"{node}/relationships/all/"
+                                             + "{-list|&|types}\","
+                                             + "\"all_relationships\":\"{node}/relationships/all\","
+                                             + "\"outgoing_typed_relationships\":\"{node}/relationships/out/"
+                                             + "{-list|&|types}\","
+                                             + "\"incoming_relationships\":\"{node}/relationships/in\","
+                                             + "\"incoming_typed_relationships\":\"{node}/relationships/in/"
+                                             + "{-list|&|types}\","
+                                             + "\"create_relationship\":\"{node}/relationships\","
+                                             + "\"labels\":\"{node}/labels\",\"data\":{\"name\":\"ann\"}}").replace(
+        "{node}", NODE_URI);
+
+    private static final String RELATIONSHIP_JSON = ("{\"self\":\"{relationship}\","
+                                                     + "\"property\":\"{relationship}/properties/{key}\","
+                                                     + "\"properties\":\"{relationship}/properties\","
+                                                     + "\"start\":\"{base}/node/12\",\"end\":\"{base}/node/56\","
+                                                     + "\"type\":\"KNOWS\",\"data\":{\"since\":2001}}").replace(
+        "{relationship}", RELATIONSHIP_URI).replace("{base}", StubHttpTransport.BASE_URI);
+
+    private final StubHttpTransport stubHttpTransport = new StubHttpTransport();
+    private final Neo4jConnector connector = StubHttpTransport.newConnector(stubHttpTransport);
+
+    @After
+    public void disconnect() throws Exception
+    {
+        connector.disconnect();
+    }
+
+    private void connect(final boolean compactEntities) throws Exception
+    {
+        connector.setCompactEntities(compactEntities);
+        stubHttpTransport.connect(connector, "2.2.5");
+        stubHttpTransport.respond("GET", NODE_URI, 200, NODE_JSON);
+        stubHttpTransport.respond("GET", RELATIONSHIP_URI, 200, RELATIONSHIP_JSON);
+    }
+
+    @Test
+    public void derivesTheUrisOfCompactNodes() throws Exception
+    {
+        connect(true);
+
+        final Node node = connector.getNodeById(12L, true);
+        final Node fullNode = new ObjectMapper().readValue(NODE_JSON, Node.class);
+
+        assertThat(node, is(instanceOf(CompactNode.class)));
+        assertThat(((CompactNode) node).getNodeId(), is(12L));
+        assertThat(node.getId(), is("12"));
+        assertThat(node.getSelf(), is(fullNode.getSelf()));
+        assertThat(node.getProperty(), is(fullNode.getProperty()));
+        assertThat(node.getProperties(), is(fullNode.getProperties()));
+        assertThat(node.getPagedTraverse(), is(fullNode.getPagedTraverse()));
+        assertThat(node.getTraverse(), is(fullNode.getTraverse()));
+        assertThat(node.getAllRelationships(), is(fullNode.getAllRelationships()));
+        assertThat(node.getAllTypedRelationships(), is(fullNode.getAllTypedRelationships()));
+        assertThat(node.getOutgoingRelationships(), is(fullNode.getOutgoingRelationships()));
+        assertThat(node.getOutgoingTypedRelationships(), is(fullNode.getOutgoingTypedRelationships()));
+        assertThat(node.getIncomingRelationships(), is(fullNode.getIncomingRelationships()));
+        assertThat(node.getIncomingTypedRelationships(), is(fullNode.getIncomingTypedRelationships()));
+        assertThat(node.getCreateRelationship(), is(fullNode.getCreateRelationship()));
+        assertThat(node.getLabels(), is(fullNode.getLabels()));
+        assertThat(node.getData().getAdditionalProperties().get("name"), is((Object) "ann"));
+    }
+
+    @Test
+    public void derivesTheUrisOfCompactRelationships() throws Exception
+    {
+        connect(true);
+
+        final Relationship relationship = connector.getRelationshipById(34L, true);
+
+        assertThat(relationship, is(instanceOf(CompactRelationship.class)));
+        final CompactRelationship compactRelationship = (CompactRelationship) relationship;
+        assertThat(compactRelationship.getRelationshipId(), is(34L));
+        assertThat(compactRelationship.getStartNodeId(), is(12L));
+        assertThat(compactRelationship.getEndNodeId(), is(56L));
+        assertThat(relationship.getId(), is("34"));
+        assertThat(relationship.getSelf(), is(RELATIONSHIP_URI));
+        assertThat(relationship.getProperties(), is(RELATIONSHIP_URI + "/properties"));
+        assertThat(relationship.getStart(), is(NODE_URI));
+        assertThat(relationship.getEnd(), is(StubHttpTransport.BASE_URI + "/node/56"));
+        assertThat(relationship.getType(), is(sameInstance("KNOWS")));
+    }
+
+    @Test
+    public void keepsFullEntitiesByDefault() throws Exception
+    {
+        connect(false);
+
+        final Node node = connector.getNodeById(12L, true);
+
+        assertThat(node, is(not(instanceOf(CompactNode.class))));
+        assertThat(node.getId(), is("12"));
+        assertThat(node.getLabels(), is(NODE_URI + "/labels"));
+    }
+
+    @Test
+    public void comparesCompactEntitiesByIdAndContent() throws Exception
+    {
+        final ObjectMapper objectMapper = new ObjectMapper();
+        final CompactNode node = objectMapper.readValue(NODE_JSON, CompactNode.class);
+
+        assertThat(node, is(objectMapper.readValue(NODE_JSON, CompactNode.class)));
+        assertThat(node.hashCode(), is(objectMapper.readValue(NODE_JSON, CompactNode.class).hashCode()));
+        assertThat(node, is(not(objectMapper.readValue(NODE_JSON.replace("ann", "bob"), CompactNode.class))));
+        assertThat(objectMapper.readValue(RELATIONSHIP_JSON, CompactRelationship.class),
+            is(objectMapper.readValue(RELATIONSHIP_JSON, CompactRelationship.class)));
+    }
+
+    @Test
+    public void hasNoUrisWithoutSelf() throws Exception
+    {
+        final CompactNode node = new ObjectMapper().readValue("{\"data\":{}}", CompactNode.class);
+
+        assertThat(node.getSelf(), is(nullValue()));
+        assertThat(node.getId(), is(nullValue()));
+        assertThat(node.getLabels(), is(nullValue()));
+        assertThat(node.getData().getAdditionalProperties().isEmpty(), is(true));
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) MuleSoft, Inc. All rights reserved. http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.md file.
+ */
+
+package org.mule.modules.neo4j;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Test;
+import org.mule.modules.neo4j.CypherParameterizer.ParameterizedQuery;
+
+public class CypherParameterizerTestCase
+{
+    private final CypherParameterizer cypherParameterizer = new CypherParameterizer();
+
+    private static Map<String, Object> newParams(final Object... namesAndValues)
+    {
+        final Map<String, Object> params = new LinkedHashMap<String, Object>();
+        for (int i = 0; i < namesAndValues.length; i += 2)
+        {
+            params.put((String) namesAndValues[i], namesAndValues[i + 1]);
+        }
+        return params;
+    }
+
+    private void assertParameterized(final String query, final String template, final Object... namesAndValues)
+    {
+        final ParameterizedQuery parameterizedQuery = cypherParameterizer.parameterize(query);
+
+        assertThat(parameterizedQuery.getQuery(), is(template));
+        assertThat(parameterizedQuery.mergeParams(null), is(newParams(namesAndValues)));
+    }
+
+    private void assertUnchanged(final String query)
+    {
+        final ParameterizedQuery parameterizedQuery = cypherParameterizer.parameterize(query);
+
+        assertThat(parameterizedQuery.getQuery(), is(query));
+        assertThat(parameterizedQuery.mergeParams(null), is((Map<String, Object>) null));
+    }
+
+    @Test
+    public void liftsStringAndNumberLiterals()
+    {
+        assertParameterized("MATCH (n:Person {name: 'Alice'}) WHERE n.age > 42 AND n.score < 1.5 RETURN n",
+            "MATCH (n:Person {name: {p0}}) WHERE n.age > {p1} AND n.score < {p2} RETURN n", "p0", "Alice", "p1",
+            42L, "p2", 1.5d);
+        assertParameterized("MATCH (n) WHERE n.name = \"Bob\" RETURN n",
+            "MATCH (n) WHERE n.name = {p0} RETURN n", "p0", "Bob");
+    }
+
+    @Test
+    public void sharesTheTemplateOfQueriesThatOnlyDifferByTheirLiterals()
+    {
+        final String template = cypherParameterizer.parameterize("MATCH (n) WHERE id(n) = 1 RETURN n").getQuery();
+
+        assertThat(cypherParameterizer.parameterize("MATCH (n) WHERE id(n) = 2 RETURN n").getQuery(),
+            is(template));
+        assertThat(cypherParameterizer.getStatistics().get("distinctTemplates"), is(1L));
+        assertThat(cypherParameterizer.getStatistics().get("liftedLiterals"), is(2L));
+    }
+
+    @Test
+    public void leavesCommentsUntouched()
+    {
+        assertParameterized("MATCH (n) // only 'adults' over 18\nWHERE n.age > 18 /* not 'minors' */ RETURN n",
+            "MATCH (n) // only 'adults' over 18\nWHERE n.age > {p0} /* not 'minors' */ RETURN n", "p0", 18L);
+    }
+
+    @Test
+    public void leavesBacktickIdentifiersUntouched()
+    {
+        assertParameterized("MATCH (n:`Label 1`) WHERE n.`it's 2` = 'x' RETURN n",
+            "MATCH (n:`Label 1`) WHERE n.`it's 2` = {p0} RETURN n", "p0", "x");
+    }
+
+    @Test
+    public void leavesRangesUntouched()
+    {
+        assertUnchanged("MATCH (a)-[*1..3]->(b) RETURN b");
+        assertUnchanged("MATCH (a)-[:KNOWS*2]->(b) RETURN b");
+        assertUnchanged("MATCH (a)-[r*..5]->(b) RETURN b");
+        assertParameterized("MATCH (n) WHERE n.name = 'a' RETURN n.tags[1..3] AS tags",
+            "MATCH (n) WHERE n.name = {p0} RETURN n.tags[1..3] AS tags", "p0", "a");
+    }
+
+    @Test
+    public void leavesPeriodicCommitUntouched()
+    {
+        assertParameterized("USING PERIODIC COMMIT 500 LOAD CSV FROM 'file:///x.csv' AS line CREATE (:X)",
+            "USING PERIODIC COMMIT 500 LOAD CSV FROM {p0} AS line CREATE (:X)", "p0", "file:///x.csv");
+    }
+
+    @Test
+    public void unescapesStrings()
+    {
+        assertParameterized("MATCH (n) WHERE n.name = 'It\\'s \\\"quoted\\\"\\n' RETURN n",
+            "MATCH (n) WHERE n.name = {p0} RETURN n", "p0", "It's \"quoted\"\n");
+        assertParameterized("MATCH (n) WHERE n.name = \"caf\\u00e9 \\\\ \\q\" RETURN n",
+            "MATCH (n) WHERE n.name = {p0} RETURN n", "p0", "caf\u00e9 \\ \\q");
+    }
+
+    @Test
+    public void leavesUnterminatedStringsToTheServer()
+    {
+        assertUnchanged("MATCH (n) WHERE n.name = 'Alice RETURN n");
+    }
+
+    @Test
+    public void avoidsCollisionsWithExistingParameters()
+    {
+        assertParameterized("MATCH (n) WHERE n.a = {p0} AND n.b = $p1 AND n.c = 'x' RETURN n",
+            "MATCH (n) WHERE n.a = {p0} AND n.b = $p1 AND n.c = {p2} RETURN n", "p2", "x");
+
+        final Map<String, Object> params = cypherParameterizer.parameterize(
+            "MATCH (n) WHERE n.a = { p0 } AND n.c = 'x' RETURN n").mergeParams(Collections.<String, Object> singletonMap(
+            "p0", "given"));
+        assertThat(params, is(newParams("p0", "given", "p1", "x")));
+    }
+
+    @Test
+    public void leavesUnparameterizableNumbersUntouched()
+    {
+        assertUnchanged("MATCH (n) WHERE n.flags = 0xFF RETURN n");
+        assertUnchanged("MATCH (n) WHERE n.big = 123456789012345678901234567890 RETURN n");
+        assertUnchanged("MATCH (n) WHERE n.x = 2 * n.y RETURN n");
+        assertParameterized("MATCH (n) WHERE n.big = 9223372036854775807 AND n.e = 1e3 RETURN n",
+            "MATCH (n) WHERE n.big = {p0} AND n.e = {p1} RETURN n", "p0", Long.MAX_VALUE, "p1", 1000.0d);
+    }
+
+    @Test
+    public void leavesUnaliasedProjectionsUntouched()
+    {
+        assertUnchanged("RETURN 1, 'a'");
+        assertParameterized("MATCH (n) WHERE n.age > 18 RETURN n.age > 21, 'x' AS x, n ORDER BY n.age SKIP 5",
+            "MATCH (n) WHERE n.age > {p0} RETURN n.age > 21, {p2} AS x, n ORDER BY n.age SKIP {p3}", "p0", 18L,
+            "p2", "x", "p3", 5L);
+        assertParameterized("WITH 'a' AS a, [1, 2] AS b MATCH (n {name: a}) WHERE n.x IN b RETURN count(n), {k: 3}",
+            "WITH {p0} AS a, [{p1}, {p2}] AS b MATCH (n {name: a}) WHERE n.x IN b RETURN count(n), {k: 3}", "p0",
+            "a", "p1", 1L, "p2", 2L);
+    }
+
+    @Test
+    public void reusesCachedTemplates()
+    {
+        final String query = "MATCH (n) WHERE n.name = 'Alice' RETURN n";
+
+        assertThat(cypherParameterizer.parameterize(query), is(sameInstance(cypherParameterizer.parameterize(query))));
+        assertThat(cypherParameterizer.getStatistics().get("templateCacheHits"), is(1L));
+    }
+
+    @Test
+    public void normalizesWhitespaceOutsideOfStringsAndIdentifiers()
+    {
+        assertThat(CypherParameterizer.normalizeWhitespace("  MATCH (n)\n\tWHERE n.name = 'a  b'  RETURN n  "),
+            is("MATCH (n) WHERE n.name = 'a  b' RETURN n"));
+        assertThat(CypherParameterizer.normalizeWhitespace("MATCH (n:`My  Label`) RETURN n.`a\tb`"),
+            is("MATCH (n:`My  Label`) RETURN n.`a\tb`"));
+        assertThat(CypherParameterizer.normalizeWhitespace("MATCH (n) // all  nodes\nRETURN n /* as is */"),
+            is("MATCH (n) RETURN n"));
+        assertThat(CypherParameterizer.normalizeWhitespace("MATCH (n) WHERE n.name = \"it\\\"s  \" RETURN n"),
+            is("MATCH (n) WHERE n.name = \"it\\\"s  \" RETURN n"));
+        assertThat(CypherParameterizer.normalizeWhitespace("RETURN 'a  b"), is("RETURN 'a  b"));
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) MuleSoft, Inc. All rights reserved. http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.md file.
+ */
+
+package org.mule.modules.neo4j;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.codehaus.jackson.JsonParseException;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.junit.Test;
+
+public class CypherResultStreamParserTestCase
+{
+    private final CypherResultStreamParser streamParser = new CypherResultStreamParser(new ObjectMapper());
+
+    /**
+     * Records the chunks it receives, with the columns they come with.
+     */
+    private class RecordingRowHandler extends CypherResultStreamParser.ChunkingRowHandler
+    {
+        private final List<List<String>> columns = new ArrayList<List<String>>();
+        private final List<List<List<Object>>> chunks = new ArrayList<List<List<Object>>>();
+
+        public RecordingRowHandler(final int rowsPerChunk)
+        {
+            super(streamParser, rowsPerChunk);
+        }
+
+        @Override
+        void handleChunk(final List<String> chunkColumns, final List<List<Object>> rows)
+        {
+            columns.add(chunkColumns);
+            chunks.add(rows);
+        }
+    }
+
+    private RecordingRowHandler parse(final String json, final int rowsPerChunk) throws Exception
+    {
+        final RecordingRowHandler rowHandler = new RecordingRowHandler(rowsPerChunk);
+        streamParser.parse(new ByteArrayInputStream(json.getBytes("UTF-8")), rowHandler);
+        rowHandler.flushChunk();
+        return rowHandler;
+    }
+
+    private static List<Object> row(final Object... cells)
+    {
+        return Arrays.asList(cells);
+    }
+
+    @Test
+    public void dispatchesFullChunksThenTheRemainingRows() throws Exception
+    {
+        final RecordingRowHandler rowHandler = parse(
+            "{\"columns\":[\"name\",\"age\"],\"data\":[[\"a\",1],[\"b\",2],[\"c\",3],[\"d\",4],[\"e\",null]]}", 2);
+
+        assertThat(rowHandler.chunks.size(), is(3));
+        assertThat(rowHandler.chunks.get(0), is(Arrays.asList(row("a", 1), row("b", 2))));
+        assertThat(rowHandler.chunks.get(1), is(Arrays.asList(row("c", 3), row("d", 4))));
+        assertThat(rowHandler.chunks.get(2), is(Collections.singletonList(row("e", null))));
+        assertThat(rowHandler.columns, is(Collections.nCopies(3, Arrays.asList("name", "age"))));
+    }
+
+    @Test
+    public void readsNestedCellsAndSkipsOtherMembers() throws Exception
+    {
+        final RecordingRowHandler rowHandler = parse(
+            "{\"columns\":[\"n\"],\"data\":[[{\"data\":{\"tags\":[\"x\",\"y\"]}}]],"
+                            + "\"stats\":{\"nodes_created\":0,\"contains_updates\":false}}", 10);
+
+        assertThat(rowHandler.chunks.size(), is(1));
+        assertThat(rowHandler.chunks.get(0).get(0).get(0).toString(), is("{data={tags=[x, y]}}"));
+    }
+
+    @Test
+    public void dispatchesNothingForAnEmptyResult() throws Exception
+    {
+        final RecordingRowHandler rowHandler = parse("{\"columns\":[\"n\"],\"data\":[]}", 1);
+
+        assertThat(rowHandler.chunks.isEmpty(), is(true));
+    }
+
+    @Test(expected = JsonParseException.class)
+    public void rejectsRowsThatAreNotArrays() throws Exception
+    {
+        parse("{\"columns\":[\"n\"],\"data\":[{\"n\":1}]}", 1);
+    }
+}
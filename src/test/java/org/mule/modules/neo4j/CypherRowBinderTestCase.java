@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) MuleSoft, Inc. All rights reserved. http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.md file.
+ */
+
+package org.mule.modules.neo4j;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.codehaus.jackson.map.ObjectMapper;
+import org.junit.Test;
+import org.mule.modules.neo4j.model.Node;
+
+public class CypherRowBinderTestCase
+{
+    private static final String PERSON_NODE = "{\"self\":\"http://localhost:7474/db/data/node/5\","
+                                              + "\"labels\":\"http://localhost:7474/db/data/node/5/labels\","
+                                              + "\"data\":{\"name\":\"ann\",\"age\":42}}";
+
+    public static class Person
+    {
+        private String name;
+        private int age = -1;
+
+        public String getName()
+        {
+            return name;
+        }
+
+        public void setName(final String name)
+        {
+            this.name = name;
+        }
+
+        public int getAge()
+        {
+            return age;
+        }
+
+        public void setAge(final int age)
+        {
+            this.age = age;
+        }
+    }
+
+    private static List<Object> bind(final String json,
+                                     final Class<?> targetClass,
+                                     final Map<String, Class<?>> columnTypes) throws Exception
+    {
+        final CypherRowBinder rowBinder = new CypherRowBinder(targetClass, columnTypes);
+        new CypherResultStreamParser(new ObjectMapper()).parse(new ByteArrayInputStream(json.getBytes("UTF-8")),
+            rowBinder);
+        return rowBinder.getResults();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void bindsRowsToMapsOfConfiguredColumnTypes() throws Exception
+    {
+        final List<Object> rows = bind("{\"columns\":[\"n.name\",\"n.age\"],\"data\":[[\"ann\",42],[\"bob\",null]]}",
+            null, Collections.<String, Class<?>> singletonMap("n.age", Long.class));
+
+        assertThat(rows.size(), is(2));
+        final Map<String, Object> firstRow = (Map<String, Object>) rows.get(0);
+        assertThat(firstRow.get("n.name"), is((Object) "ann"));
+        assertThat(firstRow.get("n.age"), is((Object) Long.valueOf(42L)));
+        assertThat(((Map<String, Object>) rows.get(1)).get("n.age"), is(nullValue()));
+    }
+
+    @Test
+    public void bindsColumnsToPropertiesOfTheSameName() throws Exception
+    {
+        final List<Object> persons = bind("{\"columns\":[\"n.name\",\"id(n)\",\"n.age\"],"
+                                          + "\"data\":[[\"ann\",{\"ignored\":[1]},42],[\"bob\",2,null]]}",
+            Person.class, Collections.<String, Class<?>> emptyMap());
+
+        assertThat(persons.size(), is(2));
+        assertThat(((Person) persons.get(0)).getName(), is("ann"));
+        assertThat(((Person) persons.get(0)).getAge(), is(42));
+        assertThat(((Person) persons.get(1)).getName(), is("bob"));
+        // null is not set on primitive properties
+        assertThat(((Person) persons.get(1)).getAge(), is(-1));
+    }
+
+    @Test
+    public void bindsTheDataOfNodesInASingleColumn() throws Exception
+    {
+        final List<Object> persons = bind("{\"columns\":[\"n\"],\"data\":[[" + PERSON_NODE + "]]}",
+            Person.class, Collections.<String, Class<?>> emptyMap());
+
+        assertThat(persons.size(), is(1));
+        assertThat(((Person) persons.get(0)).getName(), is("ann"));
+        assertThat(((Person) persons.get(0)).getAge(), is(42));
+    }
+
+    @Test
+    public void bindsPlainObjectsInASingleColumn() throws Exception
+    {
+        final List<Object> persons = bind("{\"columns\":[\"p\"],\"data\":[[{\"name\":\"ann\",\"data\":1}]]}",
+            Person.class, Collections.<String, Class<?>> emptyMap());
+
+        assertThat(((Person) persons.get(0)).getName(), is("ann"));
+    }
+
+    @Test
+    public void completesEntitiesBoundAsSuch() throws Exception
+    {
+        final List<Object> rows = bind("{\"columns\":[\"n\"],\"data\":[[" + PERSON_NODE + "]]}", Node.class,
+            Collections.<String, Class<?>> emptyMap());
+
+        assertThat(((Node) rows.get(0)).getId(), is("5"));
+    }
+}
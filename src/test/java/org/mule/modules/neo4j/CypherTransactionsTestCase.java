@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) MuleSoft, Inc. All rights reserved. http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.md file.
+ */
+
+package org.mule.modules.neo4j;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mule.api.MuleException;
+import org.mule.modules.neo4j.model.ConfigurableStatement;
+import org.mule.modules.neo4j.model.TransactionResult;
+
+public class CypherTransactionsTestCase
+{
+    private static final String TRANSACTION_URI = StubHttpTransport.BASE_URI + "/transaction/7";
+    private static final String OPEN_TRANSACTION_RESULT = "{\"commit\":\"" + TRANSACTION_URI + "/commit\","
+                                                          + "\"results\":[{\"columns\":[\"id(n)\"],"
+                                                          + "\"data\":[{\"row\":[1]}]}],\"errors\":[]}";
+
+    private final StubHttpTransport stubHttpTransport = new StubHttpTransport();
+    private final Neo4jConnector connector = StubHttpTransport.newConnector(stubHttpTransport);
+
+    @Before
+    public void connect() throws Exception
+    {
+        stubHttpTransport.connect(connector, "2.1.5");
+    }
+
+    @After
+    public void disconnect() throws Exception
+    {
+        connector.disconnect();
+    }
+
+    private static ConfigurableStatement newStatement(final String cypher)
+    {
+        final ConfigurableStatement statement = new ConfigurableStatement();
+        statement.setStatement(cypher);
+        return statement;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> getPostedStatements(final String uri, final int request)
+    {
+        final Map<String, Object> jsonEntity = (Map<String, Object>) stubHttpTransport.getJsonEntities("POST",
+            uri).get(request);
+
+        final List<String> statements = new ArrayList<String>();
+        for (final Map<String, Object> statement : (List<Map<String, Object>>) jsonEntity.get("statements"))
+        {
+            statements.add((String) statement.get("statement"));
+        }
+        return statements;
+    }
+
+    @Test
+    public void pipelinesStatementsInAnOpenTransaction() throws Exception
+    {
+        stubHttpTransport.respond("POST", StubHttpTransport.BASE_URI + "/transaction", 201,
+            OPEN_TRANSACTION_RESULT);
+        stubHttpTransport.respond("POST", TRANSACTION_URI, 200, OPEN_TRANSACTION_RESULT);
+        stubHttpTransport.respond("POST", TRANSACTION_URI + "/commit", 200, "{\"results\":[],\"errors\":[]}");
+
+        final TransactionResult transaction = connector.beginTransaction(Collections.singletonList(newStatement(
+            "CREATE (n) RETURN id(n)")));
+        assertThat(transaction.getSelf(), is(TRANSACTION_URI));
+        assertThat(transaction.getResults().get(0).getData().get(0).getRow(), is(Arrays.<Object> asList(1)));
+
+        connector.executeInTransaction(transaction,
+            Arrays.asList(newStatement("MATCH (n) SET n.a = 1"), newStatement("MATCH (n) RETURN count(n)")));
+        connector.commitTransaction(transaction, null);
+
+        assertThat(getPostedStatements(StubHttpTransport.BASE_URI + "/transaction", 0),
+            is(Collections.singletonList("CREATE (n) RETURN id(n)")));
+        assertThat(getPostedStatements(TRANSACTION_URI, 0),
+            is(Arrays.asList("MATCH (n) SET n.a = 1", "MATCH (n) RETURN count(n)")));
+        assertThat(getPostedStatements(TRANSACTION_URI + "/commit", 0).isEmpty(), is(true));
+    }
+
+    @Test
+    public void rollsBackOpenTransactions() throws Exception
+    {
+        stubHttpTransport.respond("POST", StubHttpTransport.BASE_URI + "/transaction", 201,
+            OPEN_TRANSACTION_RESULT);
+        stubHttpTransport.respond("DELETE", TRANSACTION_URI, 200, "{\"results\":[],\"errors\":[]}");
+
+        connector.rollbackTransaction(connector.beginTransaction(null));
+
+        assertThat(stubHttpTransport.getRequests().get(stubHttpTransport.getRequests().size() - 1).getUri(),
+            is(TRANSACTION_URI));
+    }
+
+    @Test
+    public void failsOnStatementErrors() throws Exception
+    {
+        stubHttpTransport.respond("POST", StubHttpTransport.BASE_URI + "/transaction/commit", 200,
+            "{\"results\":[],\"errors\":[{\"code\":\"Neo.ClientError.Statement.InvalidSyntax\","
+                            + "\"message\":\"Invalid input\"}]}");
+
+        try
+        {
+            connector.runCypherStatements(Collections.singletonList(newStatement("MATCH n RETURN")));
+            fail("Statement errors ignored");
+        }
+        catch (final MuleException me)
+        {
+            assertThat(me.getMessage().contains("Neo.ClientError.Statement.InvalidSyntax"), is(true));
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) MuleSoft, Inc. All rights reserved. http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.md file.
+ */
+
+package org.mule.modules.neo4j;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Test;
+import org.mule.api.MuleException;
+import org.mule.modules.neo4j.model.Node;
+import org.mule.modules.neo4j.model.Relationship;
+
+public class EntitiesByIdsTestCase
+{
+    private static final String CYPHER_URI = StubHttpTransport.BASE_URI + "/cypher";
+
+    private final StubHttpTransport stubHttpTransport = new StubHttpTransport();
+    private final Neo4jConnector connector = StubHttpTransport.newConnector(stubHttpTransport);
+
+    @After
+    public void disconnect() throws Exception
+    {
+        connector.disconnect();
+    }
+
+    private static String newNodeRow(final long id)
+    {
+        return "[" + id + ",{\"self\":\"" + StubHttpTransport.BASE_URI + "/node/" + id + "\",\"data\":{}}]";
+    }
+
+    private static String newRelationshipRow(final long id)
+    {
+        return "[" + id + ",{\"self\":\"" + StubHttpTransport.BASE_URI + "/relationship/" + id + "\",\"start\":\""
+               + StubHttpTransport.BASE_URI + "/node/1\",\"end\":\"" + StubHttpTransport.BASE_URI
+               + "/node/2\",\"type\":\"KNOWS\",\"data\":{}}]";
+    }
+
+    private static String newCypherResult(final String... rows)
+    {
+        final StringBuilder result = new StringBuilder("{\"columns\":[\"id\",\"entity\"],\"data\":[");
+        for (int i = 0; i < rows.length; i++)
+        {
+            result.append(i == 0 ? "" : ",").append(rows[i]);
+        }
+        return result.append("]}").toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<List<Object>> getPostedQueriesAndIds()
+    {
+        final List<List<Object>> queriesAndIds = new ArrayList<List<Object>>();
+        for (final Object jsonEntity : stubHttpTransport.getJsonEntities("POST", CYPHER_URI))
+        {
+            final Map<String, Object> cypherQuery = (Map<String, Object>) jsonEntity;
+            queriesAndIds.add(Arrays.asList(cypherQuery.get("query"),
+                ((Map<String, Object>) cypherQuery.get("params")).get("ids")));
+        }
+        return queriesAndIds;
+    }
+
+    @Test
+    public void looksUpUniqueIdsByChunksInTheRequestedOrder() throws Exception
+    {
+        stubHttpTransport.connect(connector, "2.2.5");
+        stubHttpTransport.respond("POST", CYPHER_URI, 200, newCypherResult(newNodeRow(1L), newNodeRow(3L)));
+        stubHttpTransport.respond("POST", CYPHER_URI, 200, newCypherResult());
+
+        final Map<Long, Node> nodes = connector.getNodesByIds(Arrays.asList(3L, 1L, 3L, 2L), 2, false);
+
+        assertThat(new ArrayList<Long>(nodes.keySet()), is(Arrays.asList(3L, 1L)));
+        assertThat(nodes.get(3L).getId(), is("3"));
+        assertThat(getPostedQueriesAndIds(), is(Arrays.asList(
+            Arrays.<Object> asList("MATCH (n) WHERE id(n) IN {ids} RETURN id(n), n", Arrays.asList(3, 1)),
+            Arrays.<Object> asList("MATCH (n) WHERE id(n) IN {ids} RETURN id(n), n", Arrays.asList(2)))));
+    }
+
+    @Test(expected = MuleException.class)
+    public void failsOnMissingIdsIfRequested() throws Exception
+    {
+        stubHttpTransport.connect(connector, "2.2.5");
+        stubHttpTransport.respond("POST", CYPHER_URI, 200, newCypherResult(newNodeRow(1L)));
+
+        connector.getNodesByIds(Arrays.asList(1L, 2L), 1000, true);
+    }
+
+    @Test
+    public void seeksRelationshipsWithStartBeforeNeo4j22() throws Exception
+    {
+        stubHttpTransport.connect(connector, "2.1.5");
+        // START fails as soon as one of the relationships is missing
+        stubHttpTransport.respond("POST", CYPHER_URI, 400, "{\"message\":\"Relationship 9 not found\"}");
+        stubHttpTransport.respond("POST", CYPHER_URI, 200, newCypherResult(newRelationshipRow(5L)));
+
+        final Map<Long, Relationship> relationships = connector.getRelationshipsByIds(Arrays.asList(5L, 9L),
+            1000, false);
+
+        assertThat(relationships.size(), is(1));
+        assertThat(relationships.get(5L).getType(), is("KNOWS"));
+        assertThat(getPostedQueriesAndIds(), is(Arrays.asList(
+            Arrays.<Object> asList("START r = relationship({ids}) RETURN id(r), r", Arrays.asList(5, 9)),
+            Arrays.<Object> asList("MATCH ()-[r]->() WHERE id(r) IN {ids} RETURN id(r), r", Arrays.asList(5, 9)))));
+    }
+
+    @Test
+    public void seeksRelationshipsWithMatchFromNeo4j22() throws Exception
+    {
+        stubHttpTransport.connect(connector, "2.2.5");
+        stubHttpTransport.respond("POST", CYPHER_URI, 200, newCypherResult(newRelationshipRow(5L)));
+
+        connector.getRelationshipsByIds(Arrays.asList(5L), 1000, true);
+
+        assertThat(getPostedQueriesAndIds(), is(Arrays.<List<Object>> asList(Arrays.<Object> asList(
+            "MATCH ()-[r]->() WHERE id(r) IN {ids} RETURN id(r), r", Arrays.asList(5)))));
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) MuleSoft, Inc. All rights reserved. http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.md file.
+ */
+
+package org.mule.modules.neo4j;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Test;
+import org.mule.api.MuleEvent;
+import org.mule.api.callback.SourceCallback;
+import org.mule.modules.neo4j.Neo4jConnector.RelationshipDirection;
+import org.mule.modules.neo4j.model.Node;
+import org.mule.modules.neo4j.model.Relationship;
+import org.mule.tck.junit4.AbstractMuleContextTestCase;
+
+public class ExpandNodeRelationshipsTestCase extends AbstractMuleContextTestCase
+{
+    private static final String CYPHER_URI = StubHttpTransport.BASE_URI + "/cypher";
+
+    private final StubHttpTransport stubHttpTransport = new StubHttpTransport();
+    private final Neo4jConnector connector = StubHttpTransport.newConnector(stubHttpTransport);
+
+    /**
+     * Records the pages of relationships it receives, by relationship id.
+     */
+    private static class RecordingSourceCallback implements SourceCallback
+    {
+        private final List<List<String>> pages = new ArrayList<List<String>>();
+
+        public Object process() throws Exception
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        public Object process(final Object payload) throws Exception
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        public Object process(final Object payload, final Map<String, Object> properties) throws Exception
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @SuppressWarnings("unchecked")
+        public MuleEvent processEvent(final MuleEvent event)
+        {
+            final List<String> page = new ArrayList<String>();
+            for (final Relationship relationship : (List<Relationship>) event.getMessage().getPayload())
+            {
+                page.add(relationship.getId());
+            }
+            pages.add(page);
+            return event;
+        }
+    }
+
+    @After
+    public void disconnect() throws Exception
+    {
+        connector.disconnect();
+    }
+
+    private void connect(final String neo4jVersion) throws Exception
+    {
+        connector.setMuleContext(muleContext);
+        stubHttpTransport.connect(connector, neo4jVersion);
+    }
+
+    private static Node newNode(final long nodeId)
+    {
+        final Node node = new Node();
+        node.setId(Long.toString(nodeId));
+        return node;
+    }
+
+    private static String newResult(final long... relationshipIds)
+    {
+        final StringBuilder result = new StringBuilder("{\"columns\":[\"r\"],\"data\":[");
+        for (int i = 0; i < relationshipIds.length; i++)
+        {
+            result.append(i == 0 ? "" : ",")
+                .append("[{\"self\":\"" + StubHttpTransport.BASE_URI + "/relationship/")
+                .append(relationshipIds[i])
+                .append("\",\"start\":\"" + StubHttpTransport.BASE_URI + "/node/12\",\"end\":\"")
+                .append(StubHttpTransport.BASE_URI + "/node/34\",\"type\":\"KNOWS\",\"data\":{}}]");
+        }
+        return result.append("]}").toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> getPostedCypherQuery()
+    {
+        return (Map<String, Object>) stubHttpTransport.getJsonEntities("POST", CYPHER_URI).get(0);
+    }
+
+    @Test
+    public void dispatchesTheRelationshipsInPages() throws Exception
+    {
+        connect("2.2.5");
+        stubHttpTransport.respond("POST", CYPHER_URI, 200, newResult(1L, 2L, 3L, 4L, 5L));
+        final RecordingSourceCallback sourceCallback = new RecordingSourceCallback();
+
+        connector.expandNodeRelationships(newNode(12L), RelationshipDirection.OUT, Arrays.asList("KNOWS", "LIKES"),
+            2, 10, getTestEvent(""), sourceCallback);
+
+        assertThat(sourceCallback.pages, is(Arrays.asList(Arrays.asList("1", "2"), Arrays.asList("3", "4"),
+            Arrays.asList("5"))));
+        assertThat(getPostedCypherQuery().get("query"), is((Object) ("MATCH (n) WHERE id(n) = {nodeId} MATCH "
+                                                                    + "(n)-[r:`KNOWS`|`LIKES`]->() RETURN r "
+                                                                    + "LIMIT {maxRows}")));
+        final Map<String, Object> expectedParams = new HashMap<String, Object>();
+        expectedParams.put("nodeId", 12);
+        expectedParams.put("maxRows", 10);
+        assertThat(getPostedCypherQuery().get("params"), is((Object) expectedParams));
+    }
+
+    @Test
+    public void startsFromTheNodeBeforeNeo4j2() throws Exception
+    {
+        connect("1.9.5");
+        stubHttpTransport.respond("POST", CYPHER_URI, 200, newResult(7L));
+        final RecordingSourceCallback sourceCallback = new RecordingSourceCallback();
+
+        connector.expandNodeRelationships(newNode(12L), RelationshipDirection.ALL, null, 100, 0,
+            getTestEvent(""), sourceCallback);
+
+        assertThat(sourceCallback.pages, is(Collections.singletonList(Collections.singletonList("7"))));
+        assertThat(getPostedCypherQuery().get("query"),
+            is((Object) "START n = node({nodeId}) MATCH (n)-[r]-() RETURN r"));
+    }
+
+    @Test
+    public void dispatchesNothingWithoutRelationships() throws Exception
+    {
+        connect("2.2.5");
+        stubHttpTransport.respond("POST", CYPHER_URI, 200, newResult());
+        final RecordingSourceCallback sourceCallback = new RecordingSourceCallback();
+
+        connector.expandNodeRelationships(newNode(12L), RelationshipDirection.IN, null, 100, 0,
+            getTestEvent(""), sourceCallback);
+
+        assertThat(sourceCallback.pages.isEmpty(), is(true));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsEmptyPages() throws Exception
+    {
+        connect("2.2.5");
+
+        connector.expandNodeRelationships(newNode(12L), RelationshipDirection.IN, null, 0, 0, getTestEvent(""),
+            new RecordingSourceCallback());
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) MuleSoft, Inc. All rights reserved. http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.md file.
+ */
+
+package org.mule.modules.neo4j;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+import org.mule.modules.neo4j.model.CypherQueryResult;
+
+public class ExpiringLruCacheTestCase
+{
+    @Test
+    public void evictsLeastRecentlyUsed()
+    {
+        final ExpiringLruCache<String, String> cache = new ExpiringLruCache<String, String>(2, 60000L);
+        cache.put("a", "A");
+        cache.put("b", "B");
+        cache.get("a");
+        cache.put("c", "C");
+
+        assertThat(cache.get("a"), is("A"));
+        assertThat(cache.get("b"), is(nullValue()));
+        assertThat(cache.get("c"), is("C"));
+        assertThat(cache.size(), is(2));
+        assertThat(cache.getHits(), is(3L));
+        assertThat(cache.getMisses(), is(1L));
+        assertThat(cache.getEvictions(), is(1L));
+    }
+
+    @Test
+    public void expiresEntries() throws Exception
+    {
+        final ExpiringLruCache<String, String> cache = new ExpiringLruCache<String, String>(2, 1L);
+        cache.put("a", "A");
+        Thread.sleep(5L);
+
+        assertThat(cache.get("a"), is(nullValue()));
+        assertThat(cache.size(), is(0));
+        assertThat(cache.getEvictions(), is(1L));
+    }
+
+    @Test
+    public void invalidatesEntries()
+    {
+        final ExpiringLruCache<String, String> cache = new ExpiringLruCache<String, String>(2, 60000L);
+        cache.put("a", "A");
+        cache.put("b", "B");
+
+        cache.invalidate("a");
+        assertThat(cache.get("a"), is(nullValue()));
+        assertThat(cache.get("b"), is("B"));
+
+        cache.invalidateAll();
+        assertThat(cache.size(), is(0));
+    }
+
+    @Test
+    public void dropsValuesReadBeforeAnInvalidation()
+    {
+        final ExpiringLruCache<String, String> cache = new ExpiringLruCache<String, String>(2, 60000L);
+        final long generation = cache.getGeneration();
+
+        cache.invalidate("a");
+        assertThat(cache.putIfNotInvalidated("a", "stale A", generation), is(false));
+        assertThat(cache.get("a"), is(nullValue()));
+
+        assertThat(cache.putIfNotInvalidated("a", "A", cache.getGeneration()), is(true));
+        assertThat(cache.get("a"), is("A"));
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedByWeight()
+    {
+        final ExpiringLruCache<String, String> cache = new ExpiringLruCache<String, String>(10L, 60000L,
+            new ExpiringLruCache.Weigher<String>()
+            {
+                public long weigh(final String value)
+                {
+                    return value.length();
+                }
+            });
+        cache.put("a", "AAAAA");
+        cache.put("b", "BBBB");
+        assertThat(cache.getWeight(), is(9L));
+
+        cache.put("c", "CCC");
+        assertThat(cache.get("a"), is(nullValue()));
+        assertThat(cache.get("b"), is("BBBB"));
+        assertThat(cache.get("c"), is("CCC"));
+        assertThat(cache.getWeight(), is(7L));
+        assertThat(cache.getEvictions(), is(1L));
+
+        // replacing a value only counts its new weight
+        cache.put("b", "BB");
+        assertThat(cache.getWeight(), is(5L));
+    }
+
+    @Test
+    public void ignoresValuesHeavierThanTheCache()
+    {
+        final ExpiringLruCache<String, String> cache = new ExpiringLruCache<String, String>(4L, 60000L,
+            new ExpiringLruCache.Weigher<String>()
+            {
+                public long weigh(final String value)
+                {
+                    return value.length();
+                }
+            });
+        cache.put("a", "AA");
+        cache.put("b", "BBBBB");
+
+        assertThat(cache.get("a"), is("AA"));
+        assertThat(cache.get("b"), is(nullValue()));
+        assertThat(cache.getWeight(), is(2L));
+        assertThat(cache.getEvictions(), is(0L));
+    }
+
+    @Test
+    public void weighsCypherQueryResultsByTheirContent()
+    {
+        final List<List<Object>> data = Collections.singletonList(Arrays.<Object> asList("ab"));
+        final CypherQueryResult result = new CypherQueryResult().withColumns(Collections.singletonList("n"))
+            .withData(data);
+
+        // a list of 1 string of 1 character, and a list of 1 list of 1 string of 2 characters
+        assertThat(Neo4jConnector.CYPHER_QUERY_RESULT_WEIGHER.weigh(result), is(74L + 108L));
+
+        final List<List<Object>> moreData = Arrays.asList(Arrays.<Object> asList("ab"), Arrays.<Object> asList(
+            "cd"));
+        final CypherQueryResult largerResult = new CypherQueryResult().withColumns(
+            Collections.singletonList("n")).withData(moreData);
+        assertThat(Neo4jConnector.CYPHER_QUERY_RESULT_WEIGHER.weigh(largerResult) > 182L, is(true));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void copiesCachedCypherQueryResults()
+    {
+        final Map<String, Object> node = new LinkedHashMap<String, Object>();
+        node.put("name", "Alice");
+        final List<List<Object>> data = new ArrayList<List<Object>>();
+        data.add(new ArrayList<Object>(Arrays.<Object> asList(node, 42L)));
+        final CypherQueryResult result = new CypherQueryResult().withColumns(
+            new ArrayList<String>(Arrays.asList("n", "age"))).withData(data);
+
+        final CypherQueryResult copy = Neo4jConnector.copyCypherQueryResult(result);
+        assertThat(copy, is(not(sameInstance(result))));
+        assertThat(copy.getColumns(), is(result.getColumns()));
+        assertThat(copy.getData(), is(result.getData()));
+
+        copy.getColumns().clear();
+        copy.getData().get(0).add("extra");
+        ((Map<String, Object>) copy.getData().get(0).get(0)).put("name", "Bob");
+
+        assertThat(result.getColumns(), is(Arrays.asList("n", "age")));
+        assertThat(result.getData().get(0).size(), is(2));
+        assertThat(node.get("name"), is((Object) "Alice"));
+    }
+}
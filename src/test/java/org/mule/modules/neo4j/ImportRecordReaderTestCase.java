@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) MuleSoft, Inc. All rights reserved. http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.md file.
+ */
+
+package org.mule.modules.neo4j;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.StringReader;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class ImportRecordReaderTestCase
+{
+    private static ImportRecordReader newCsvRecordReader(final String csv)
+    {
+        return ImportRecordReader.newCsvRecordReader(new StringReader(csv), ',');
+    }
+
+    private static Map<String, Object> newRecord(final Object... keysAndValues)
+    {
+        final Map<String, Object> record = new LinkedHashMap<String, Object>();
+        for (int i = 0; i < keysAndValues.length; i += 2)
+        {
+            record.put((String) keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return record;
+    }
+
+    private static void assertMalformed(final ImportRecordReader recordReader) throws Exception
+    {
+        try
+        {
+            recordReader.next();
+            fail("Malformed record read");
+        }
+        catch (final IllegalArgumentException iae)
+        {
+            // expected
+        }
+    }
+
+    @Test
+    public void readsCsvRecordsByHeader() throws Exception
+    {
+        final ImportRecordReader recordReader = newCsvRecordReader("name,age\nAlice,42\nBob,7\n");
+
+        assertThat(recordReader.next(), is(newRecord("name", "Alice", "age", "42")));
+        assertThat(recordReader.next(), is(newRecord("name", "Bob", "age", "7")));
+        assertThat(recordReader.next(), is(nullValue()));
+    }
+
+    @Test
+    public void readsQuotedCsvFields() throws Exception
+    {
+        final ImportRecordReader recordReader = newCsvRecordReader("name,quote\n"
+                                                                   + "\"Smith, John\",\"He said \"\"hi\"\"\"\n"
+                                                                   + "\"\"\"\",\"multi\nline\r\nfield\"\n");
+
+        assertThat(recordReader.next(), is(newRecord("name", "Smith, John", "quote", "He said \"hi\"")));
+        assertThat(recordReader.next(), is(newRecord("name", "\"", "quote", "multi\nline\r\nfield")));
+        assertThat(recordReader.next(), is(nullValue()));
+    }
+
+    @Test
+    public void readsCrlfCsvLines() throws Exception
+    {
+        final ImportRecordReader recordReader = newCsvRecordReader("name,age\r\nAlice,42\r\n\r\nBob,7");
+
+        assertThat(recordReader.next(), is(newRecord("name", "Alice", "age", "42")));
+        assertThat(recordReader.next(), is(newRecord("name", "Bob", "age", "7")));
+        assertThat(recordReader.next(), is(nullValue()));
+    }
+
+    @Test
+    public void omitsEmptyCsvFields() throws Exception
+    {
+        final ImportRecordReader recordReader = newCsvRecordReader("a,b,c\n,2,\n\"\",,3\n1\n");
+
+        assertThat(recordReader.next(), is(newRecord("b", "2")));
+        assertThat(recordReader.next(), is(newRecord("c", "3")));
+        assertThat(recordReader.next(), is(newRecord("a", "1")));
+        assertThat(recordReader.next(), is(nullValue()));
+    }
+
+    @Test
+    public void ignoresByteOrderMarks() throws Exception
+    {
+        final ImportRecordReader csvRecordReader = newCsvRecordReader("\uFEFFname\nAlice\n");
+        assertThat(csvRecordReader.next(), is(newRecord("name", "Alice")));
+
+        final ImportRecordReader ndjsonRecordReader = ImportRecordReader.newNdjsonRecordReader(new StringReader(
+            "\uFEFF{\"name\":\"Alice\"}\n"));
+        assertThat(ndjsonRecordReader.next(), is(newRecord("name", "Alice")));
+    }
+
+    @Test
+    public void readsNdjsonRecordsWithTheirTypes() throws Exception
+    {
+        final ImportRecordReader recordReader = ImportRecordReader.newNdjsonRecordReader(new StringReader(
+            "{\"name\":\"Alice\",\"age\":42,\"admin\":true}\n\n  \n{\"name\":\"Bob\"}"));
+
+        assertThat(recordReader.next(), is(newRecord("name", "Alice", "age", 42, "admin", true)));
+        assertThat(recordReader.next(), is(newRecord("name", "Bob")));
+        assertThat(recordReader.next(), is(nullValue()));
+    }
+
+    @Test
+    public void rejectsMalformedNdjsonRecords() throws Exception
+    {
+        final ImportRecordReader recordReader = ImportRecordReader.newNdjsonRecordReader(new StringReader(
+            "{\"name\":\"Alice\"}\n{\"name\":\n[1,2]\n42\n{\"name\":\"Bob\"}\n"));
+
+        assertThat(recordReader.next(), is(newRecord("name", "Alice")));
+        assertMalformed(recordReader);
+        assertMalformed(recordReader);
+        assertMalformed(recordReader);
+        assertThat(recordReader.next(), is(newRecord("name", "Bob")));
+        assertThat(recordReader.next(), is(nullValue()));
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) MuleSoft, Inc. All rights reserved. http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.md file.
+ */
+
+package org.mule.modules.neo4j;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class NamedQueryRegistryTestCase
+{
+    private static final String DIRECTORY = "named-queries";
+
+    private static List<String> getNames(final NamedQueryRegistry namedQueryRegistry)
+    {
+        final List<String> names = new ArrayList<String>();
+        for (final NamedQueryRegistry.NamedQuery namedQuery : namedQueryRegistry.getAll())
+        {
+            names.add(namedQuery.getName());
+        }
+        return names;
+    }
+
+    private static String render(final NamedQueryRegistry.NamedQuery namedQuery, final Map<String, Object> params)
+        throws IOException
+    {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        namedQuery.newJsonEntityWriter(params).writeTo(out);
+        return out.toString("UTF-8");
+    }
+
+    @Test
+    public void registersDeclaredQueriesThenQueryFilesOfTheDirectory() throws Exception
+    {
+        final NamedQueryRegistry namedQueryRegistry = new NamedQueryRegistry(Collections.singletonMap(
+            "deleteAll", " MATCH (n) DETACH DELETE n "), DIRECTORY);
+
+        assertThat(getNames(namedQueryRegistry), is(Arrays.asList("deleteAll", "countNodes", "findPerson")));
+        assertThat(namedQueryRegistry.get("deleteAll").getQuery(), is("MATCH (n) DETACH DELETE n"));
+        assertThat(namedQueryRegistry.get("findPerson").getQuery(),
+            is("MATCH (p:Person)\nWHERE p.name = {name}\nRETURN p"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnknownNames() throws Exception
+    {
+        new NamedQueryRegistry(null, DIRECTORY).get("countRelationships");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsDuplicateNames() throws Exception
+    {
+        new NamedQueryRegistry(Collections.singletonMap("countNodes", "MATCH (n) RETURN count(*)"), DIRECTORY);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsBlankQueries() throws Exception
+    {
+        new NamedQueryRegistry(Collections.singletonMap("blank", " "), null);
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsMissingDirectories() throws Exception
+    {
+        new NamedQueryRegistry(null, "no-such-queries");
+    }
+
+    @Test
+    public void rendersTheQueryWithItsParameters() throws Exception
+    {
+        final NamedQueryRegistry.NamedQuery namedQuery = new NamedQueryRegistry(Collections.singletonMap(
+            "byName", "MATCH (p) WHERE p.name = {name} RETURN p"), null).get("byName");
+
+        assertThat(render(namedQuery, Collections.<String, Object> singletonMap("name", "ann \"a\"")),
+            is("{\"query\":\"MATCH (p) WHERE p.name = {name} RETURN p\",\"params\":{\"name\":\"ann \\\"a\\\"\"}}"));
+        assertThat(render(namedQuery, null),
+            is("{\"query\":\"MATCH (p) WHERE p.name = {name} RETURN p\",\"params\":{}}"));
+    }
+}
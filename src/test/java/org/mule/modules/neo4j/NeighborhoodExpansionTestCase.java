@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) MuleSoft, Inc. All rights reserved. http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.md file.
+ */
+
+package org.mule.modules.neo4j;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+import org.mule.modules.neo4j.Neo4jConnector.RelationshipDirection;
+import org.mule.modules.neo4j.model.Neighborhood;
+
+public class NeighborhoodExpansionTestCase
+{
+    private static List<Object> newRow(final long nodeId, final String name, final List<?>... relationships)
+    {
+        return Arrays.<Object> asList(nodeId, Arrays.asList(relationships), name);
+    }
+
+    private static List<?> newRelationship(final long id, final long startNodeId, final long endNodeId)
+    {
+        return Arrays.<Object> asList(id, startNodeId, endNodeId, "KNOWS");
+    }
+
+    @Test
+    public void expandsOneHopAtATimeWithoutVariableLengthPatterns()
+    {
+        final String query = NeighborhoodExpansion.newQuery(RelationshipDirection.OUT, ":`KNOWS`", 2,
+            Collections.singletonList("na`me"));
+
+        assertThat(query, is("MATCH (n) WHERE id(n) IN {seedIds} WITH collect(DISTINCT n) AS nodes"
+                             + " UNWIND nodes AS m WITH DISTINCT m OPTIONAL MATCH (m)-[:`KNOWS`]->(o)"
+                             + " WITH collect(DISTINCT m) + collect(DISTINCT o) AS nodes"
+                             + " UNWIND nodes AS m WITH DISTINCT m OPTIONAL MATCH (m)-[:`KNOWS`]->(o)"
+                             + " WITH collect(DISTINCT m) + collect(DISTINCT o) AS nodes"
+                             + " UNWIND nodes AS m WITH DISTINCT m OPTIONAL MATCH (m)-[r:`KNOWS`]->()"
+                             + " WITH m, collect(r) AS rs RETURN id(m),"
+                             + " [r IN rs | [id(r), id(startNode(r)), id(endNode(r)), type(r)]], m.`na``me`"));
+    }
+
+    @Test
+    public void keepsRelationshipsBetweenNodesAtMaxDepthAndDropsTheOnesLeadingOut()
+    {
+        // seed 1 at depth 0, 2 and 3 at depth 1, 4 beyond maxDepth 1: relationships are found from both ends
+        final List<?> seedToA = newRelationship(10, 1, 2);
+        final List<?> seedToB = newRelationship(11, 1, 3);
+        final List<?> aToB = newRelationship(12, 2, 3);
+        final List<?> bToOut = newRelationship(13, 3, 4);
+
+        final List<List<Object>> rows = new ArrayList<List<Object>>();
+        rows.add(newRow(1, "seed", seedToA, seedToB));
+        rows.add(newRow(2, "a", seedToA, aToB));
+        rows.add(newRow(3, "b", seedToB, aToB, bToOut));
+
+        final Neighborhood neighborhood = NeighborhoodExpansion.toNeighborhood(rows,
+            Collections.singletonList("name"));
+
+        assertThat(neighborhood.getNodeCount(), is(3));
+        assertThat(Arrays.toString(neighborhood.getNodeIds()), is("[1, 2, 3]"));
+        assertThat(Arrays.asList(neighborhood.getNodeProperties().get("name")),
+            is(Arrays.<Object> asList("seed", "a", "b")));
+
+        assertThat(neighborhood.getRelationshipCount(), is(3));
+        assertThat(Arrays.toString(neighborhood.getRelationshipIds()), is("[10, 11, 12]"));
+        assertThat(Arrays.toString(neighborhood.getStartNodeIds()), is("[1, 1, 2]"));
+        assertThat(Arrays.toString(neighborhood.getEndNodeIds()), is("[2, 3, 3]"));
+        assertThat(neighborhood.getRelationshipTypes()[2], is("KNOWS"));
+    }
+
+    @Test
+    public void returnsAnEmptyNeighborhoodForMissingSeeds()
+    {
+        final Neighborhood neighborhood = NeighborhoodExpansion.toNeighborhood(
+            Collections.<List<Object>> emptyList(), null);
+
+        assertThat(neighborhood.getNodeCount(), is(0));
+        assertThat(neighborhood.getRelationshipCount(), is(0));
+    }
+}
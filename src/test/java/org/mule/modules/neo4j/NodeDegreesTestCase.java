@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) MuleSoft, Inc. All rights reserved. http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.md file.
+ */
+
+package org.mule.modules.neo4j;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Test;
+import org.mule.modules.neo4j.Neo4jConnector.RelationshipDirection;
+import org.mule.modules.neo4j.model.Node;
+
+public class NodeDegreesTestCase
+{
+    private static final String CYPHER_URI = StubHttpTransport.BASE_URI + "/cypher";
+
+    private final StubHttpTransport stubHttpTransport = new StubHttpTransport();
+    private final Neo4jConnector connector = StubHttpTransport.newConnector(stubHttpTransport);
+
+    @After
+    public void disconnect() throws Exception
+    {
+        connector.disconnect();
+    }
+
+    private static String newDegreesResult(final String rows)
+    {
+        return "{\"columns\":[\"id(n)\",\"count(r)\"],\"data\":[" + rows + "]}";
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<List<Object>> getPostedQueriesAndIds()
+    {
+        final List<List<Object>> queriesAndIds = new ArrayList<List<Object>>();
+        for (final Object jsonEntity : stubHttpTransport.getJsonEntities("POST", CYPHER_URI))
+        {
+            final Map<String, Object> cypherQuery = (Map<String, Object>) jsonEntity;
+            queriesAndIds.add(Arrays.asList(cypherQuery.get("query"),
+                ((Map<String, Object>) cypherQuery.get("params")).get("ids")));
+        }
+        return queriesAndIds;
+    }
+
+    @Test
+    public void countsRelationshipsByChunksInTheRequestedOrder() throws Exception
+    {
+        stubHttpTransport.connect(connector, "2.2.5");
+        stubHttpTransport.respond("POST", CYPHER_URI, 200, newDegreesResult("[1,0],[3,250000]"));
+        stubHttpTransport.respond("POST", CYPHER_URI, 200, newDegreesResult(""));
+
+        final Map<Long, Long> degrees = connector.getNodeDegrees(Arrays.asList(3L, 1L, 3L, 2L),
+            RelationshipDirection.OUT, Arrays.asList("KNOWS", "LIKES"), 2);
+
+        assertThat(new ArrayList<Long>(degrees.keySet()), is(Arrays.asList(3L, 1L)));
+        assertThat(degrees.get(3L), is(250000L));
+        assertThat(degrees.get(1L), is(0L));
+
+        final String query = "MATCH (n) WHERE id(n) IN {ids} OPTIONAL MATCH (n)-[r:`KNOWS`|`LIKES`]->() "
+                             + "RETURN id(n), count(r)";
+        assertThat(getPostedQueriesAndIds(), is(Arrays.asList(Arrays.<Object> asList(query, Arrays.asList(3, 1)),
+            Arrays.<Object> asList(query, Arrays.asList(2)))));
+    }
+
+    @Test
+    public void marksRelationshipsOptionalBeforeNeo4j2() throws Exception
+    {
+        stubHttpTransport.connect(connector, "1.9.5");
+        stubHttpTransport.respond("POST", CYPHER_URI, 200, newDegreesResult("[5,2]"));
+
+        connector.getNodeDegrees(Arrays.asList(5L), RelationshipDirection.IN, null, 1000);
+
+        assertThat(getPostedQueriesAndIds().get(0).get(0),
+            is((Object) "START n = node({ids}) MATCH (n)<-[r?]-() RETURN id(n), count(r)"));
+    }
+
+    @Test
+    public void countsTheRelationshipsOfASingleNode() throws Exception
+    {
+        stubHttpTransport.connect(connector, "2.2.5");
+        stubHttpTransport.respond("POST", CYPHER_URI, 200, newDegreesResult("[12,3]"));
+
+        final Node node = new Node();
+        node.setId("12");
+
+        assertThat(connector.getNodeDegree(node, RelationshipDirection.ALL, null), is(3L));
+        assertThat(getPostedQueriesAndIds().get(0).get(0),
+            is((Object) "MATCH (n) WHERE id(n) IN {ids} OPTIONAL MATCH (n)-[r]-() RETURN id(n), count(r)"));
+    }
+
+    @Test
+    public void countsNothingForMissingNodes() throws Exception
+    {
+        stubHttpTransport.connect(connector, "2.2.5");
+        stubHttpTransport.respond("POST", CYPHER_URI, 200, newDegreesResult(""));
+
+        final Node node = new Node();
+        node.setId("12");
+
+        assertThat(connector.getNodeDegree(node, RelationshipDirection.ALL, null), is(0L));
+    }
+}
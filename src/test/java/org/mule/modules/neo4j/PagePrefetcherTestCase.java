@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) MuleSoft, Inc. All rights reserved. http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.md file.
+ */
+
+package org.mule.modules.neo4j;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+import org.mule.api.DefaultMuleException;
+import org.mule.api.MuleException;
+
+public class PagePrefetcherTestCase
+{
+    private Thread fetchingThread;
+    private PagePrefetcher<Integer> pagePrefetcher;
+
+    /**
+     * Fetches single-element pages numbered from 1, up to a maximum number of pages after which it
+     * fails or reports the end of the pages.
+     */
+    private static class CountingPageFetcher implements PagePrefetcher.PageFetcher<Integer>
+    {
+        private final AtomicInteger fetchedPages = new AtomicInteger();
+        private final int maxPages;
+        private final boolean failingAfterMaxPages;
+
+        public CountingPageFetcher(final int maxPages, final boolean failingAfterMaxPages)
+        {
+            this.maxPages = maxPages;
+            this.failingAfterMaxPages = failingAfterMaxPages;
+        }
+
+        public Collection<Integer> fetchNextPage() throws MuleException
+        {
+            final int page = fetchedPages.incrementAndGet();
+            if (page <= maxPages)
+            {
+                return Collections.singletonList(page);
+            }
+            if (failingAfterMaxPages)
+            {
+                throw new DefaultMuleException("Failed to fetch page: " + page);
+            }
+            return null;
+        }
+    }
+
+    private void start(final CountingPageFetcher pageFetcher, final int prefetchPages, final int leaseTimeSeconds)
+    {
+        pagePrefetcher = new PagePrefetcher<Integer>(pageFetcher, prefetchPages, leaseTimeSeconds);
+        pagePrefetcher.start(new ThreadFactory()
+        {
+            public Thread newThread(final Runnable runnable)
+            {
+                fetchingThread = new Thread(runnable);
+                return fetchingThread;
+            }
+        });
+    }
+
+    @After
+    public void stop()
+    {
+        if (pagePrefetcher != null)
+        {
+            pagePrefetcher.stop();
+        }
+    }
+
+    @Test
+    public void returnsPagesInOrderThenNoMorePages() throws Exception
+    {
+        start(new CountingPageFetcher(3, false), 2, 60);
+
+        assertThat(pagePrefetcher.nextPage(), is((Collection<Integer>) Collections.singletonList(1)));
+        assertThat(pagePrefetcher.nextPage(), is((Collection<Integer>) Collections.singletonList(2)));
+        assertThat(pagePrefetcher.nextPage(), is((Collection<Integer>) Collections.singletonList(3)));
+        assertThat(pagePrefetcher.nextPage(), is(nullValue()));
+        assertThat(pagePrefetcher.nextPage(), is(nullValue()));
+    }
+
+    @Test
+    public void stopsFetchingOnceStopped() throws Exception
+    {
+        final CountingPageFetcher pageFetcher = new CountingPageFetcher(Integer.MAX_VALUE, false);
+        start(pageFetcher, 2, 60);
+
+        assertThat(pagePrefetcher.nextPage(), is((Collection<Integer>) Collections.singletonList(1)));
+        pagePrefetcher.stop();
+        fetchingThread.join(10000L);
+
+        assertThat(fetchingThread.isAlive(), is(false));
+        // the consumed page, the buffered pages and the page blocked on the full buffer
+        assertThat(pageFetcher.fetchedPages.get() <= 4, is(true));
+    }
+
+    @Test
+    public void reportsFetchFailuresAfterTheFetchedPages() throws Exception
+    {
+        start(new CountingPageFetcher(1, true), 2, 60);
+
+        assertThat(pagePrefetcher.nextPage(), is((Collection<Integer>) Collections.singletonList(1)));
+        try
+        {
+            pagePrefetcher.nextPage();
+            fail("Fetch failure ignored");
+        }
+        catch (final MuleException me)
+        {
+            assertThat(me.getMessage().contains("page: 2"), is(true));
+        }
+    }
+
+    @Test(expected = MuleException.class)
+    public void reportsNoMorePagesAfterTheLeaseTimeAsALeaseExpiration() throws Exception
+    {
+        start(new CountingPageFetcher(0, false), 1, 0);
+
+        pagePrefetcher.nextPage();
+    }
+}
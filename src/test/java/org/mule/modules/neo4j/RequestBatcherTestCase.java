@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) MuleSoft, Inc. All rights reserved. http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.md file.
+ */
+
+package org.mule.modules.neo4j;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class RequestBatcherTestCase
+{
+    /**
+     * Doubles the requests, blocking each batch until released.
+     */
+    private static class RecordingBatchExecutor implements RequestBatcher.BatchExecutor<Integer, Integer>
+    {
+        private final List<List<Integer>> batches = Collections.synchronizedList(new ArrayList<List<Integer>>());
+        private final CountDownLatch released;
+        private final CountDownLatch started;
+
+        public RecordingBatchExecutor(final int releases, final int starts)
+        {
+            released = new CountDownLatch(releases);
+            started = new CountDownLatch(starts);
+        }
+
+        public List<Integer> execute(final List<Integer> requests) throws Exception
+        {
+            batches.add(requests);
+            started.countDown();
+            released.await();
+
+            if (requests.contains(-1))
+            {
+                throw new IllegalArgumentException("Negative request");
+            }
+
+            final List<Integer> results = new ArrayList<Integer>(requests.size());
+            for (final Integer request : requests)
+            {
+                results.add(request * 2);
+            }
+            return results;
+        }
+    }
+
+    private RequestBatcher<Integer, Integer> requestBatcher;
+
+    @After
+    public void stopRequestBatcher()
+    {
+        if (requestBatcher != null)
+        {
+            requestBatcher.stop();
+        }
+    }
+
+    @Test
+    public void flushesAtOnceWhenIdle() throws Exception
+    {
+        requestBatcher = new RequestBatcher<Integer, Integer>("test", 10, 60000L,
+            new RecordingBatchExecutor(0, 0));
+        requestBatcher.start();
+
+        assertThat(requestBatcher.submit(21).get(5L, TimeUnit.SECONDS), is(42));
+    }
+
+    @Test
+    public void batchesRequestsQueuedWhileBusy() throws Exception
+    {
+        final RecordingBatchExecutor batchExecutor = new RecordingBatchExecutor(1, 1);
+        requestBatcher = new RequestBatcher<Integer, Integer>("test", 10, 10L, batchExecutor);
+        requestBatcher.start();
+
+        final Future<Integer> first = requestBatcher.submit(1);
+        assertTrue(batchExecutor.started.await(5L, TimeUnit.SECONDS));
+
+        final List<Future<Integer>> next = new ArrayList<Future<Integer>>();
+        for (int i = 2; i <= 4; i++)
+        {
+            next.add(requestBatcher.submit(i));
+        }
+        batchExecutor.released.countDown();
+
+        assertThat(first.get(5L, TimeUnit.SECONDS), is(2));
+        for (int i = 0; i < next.size(); i++)
+        {
+            assertThat(next.get(i).get(5L, TimeUnit.SECONDS), is((i + 2) * 2));
+        }
+        assertThat(batchExecutor.batches, is(Arrays.asList(Arrays.asList(1), Arrays.asList(2, 3, 4))));
+    }
+
+    @Test
+    public void gathersConcurrentCallersInOneBatch() throws Exception
+    {
+        final RecordingBatchExecutor batchExecutor = new RecordingBatchExecutor(1, 1);
+        requestBatcher = new RequestBatcher<Integer, Integer>("test", 100, 10L, batchExecutor);
+        requestBatcher.start();
+
+        final Future<Integer> first = requestBatcher.submit(0);
+        assertTrue(batchExecutor.started.await(5L, TimeUnit.SECONDS));
+
+        final CountDownLatch go = new CountDownLatch(1);
+        final ExecutorService callers = Executors.newFixedThreadPool(8);
+        final List<Future<Future<Integer>>> submissions = new ArrayList<Future<Future<Integer>>>();
+        try
+        {
+            for (int i = 1; i <= 8; i++)
+            {
+                final int request = i;
+                submissions.add(callers.submit(new Callable<Future<Integer>>()
+                {
+                    public Future<Integer> call() throws Exception
+                    {
+                        go.await();
+                        return requestBatcher.submit(request);
+                    }
+                }));
+            }
+            go.countDown();
+
+            final List<Future<Integer>> futures = new ArrayList<Future<Integer>>();
+            for (final Future<Future<Integer>> submission : submissions)
+            {
+                futures.add(submission.get(5L, TimeUnit.SECONDS));
+            }
+            batchExecutor.released.countDown();
+
+            assertThat(first.get(5L, TimeUnit.SECONDS), is(0));
+            for (int i = 0; i < futures.size(); i++)
+            {
+                assertThat(futures.get(i).get(5L, TimeUnit.SECONDS), is((i + 1) * 2));
+            }
+        }
+        finally
+        {
+            callers.shutdownNow();
+        }
+
+        assertThat(batchExecutor.batches.size(), is(2));
+        assertThat(batchExecutor.batches.get(1).size(), is(8));
+    }
+
+    @Test
+    public void executesSeveralBatchesConcurrently() throws Exception
+    {
+        final RecordingBatchExecutor batchExecutor = new RecordingBatchExecutor(1, 2);
+        requestBatcher = new RequestBatcher<Integer, Integer>("test", 1, 0L, 2, batchExecutor);
+        requestBatcher.start();
+
+        final Future<Integer> first = requestBatcher.submit(1);
+        final Future<Integer> second = requestBatcher.submit(2);
+
+        // both batches are blocked in the executor at the same time
+        assertTrue(batchExecutor.started.await(5L, TimeUnit.SECONDS));
+        batchExecutor.released.countDown();
+
+        assertThat(first.get(5L, TimeUnit.SECONDS), is(2));
+        assertThat(second.get(5L, TimeUnit.SECONDS), is(4));
+    }
+
+    @Test
+    public void failsEveryRequestOfAFailedBatch() throws Exception
+    {
+        final RecordingBatchExecutor batchExecutor = new RecordingBatchExecutor(1, 1);
+        requestBatcher = new RequestBatcher<Integer, Integer>("test", 10, 10L, batchExecutor);
+        requestBatcher.start();
+
+        final Future<Integer> first = requestBatcher.submit(1);
+        assertTrue(batchExecutor.started.await(5L, TimeUnit.SECONDS));
+        final Future<Integer> failing = requestBatcher.submit(-1);
+        final Future<Integer> other = requestBatcher.submit(3);
+        batchExecutor.released.countDown();
+
+        assertThat(first.get(5L, TimeUnit.SECONDS), is(2));
+        for (final Future<Integer> future : Arrays.asList(failing, other))
+        {
+            try
+            {
+                future.get(5L, TimeUnit.SECONDS);
+                fail("Request of failed batch succeeded");
+            }
+            catch (final ExecutionException ee)
+            {
+                assertTrue(ee.getCause() instanceof IllegalArgumentException);
+            }
+        }
+    }
+
+    @Test
+    public void flushesQueuedRequestsWhenStopped() throws Exception
+    {
+        final RecordingBatchExecutor batchExecutor = new RecordingBatchExecutor(0, 0);
+        requestBatcher = new RequestBatcher<Integer, Integer>("test", 10, 60000L, batchExecutor);
+        requestBatcher.start();
+
+        final List<Future<Integer>> futures = new ArrayList<Future<Integer>>();
+        for (int i = 1; i <= 5; i++)
+        {
+            futures.add(requestBatcher.submit(i));
+        }
+        requestBatcher.stop();
+
+        for (int i = 0; i < futures.size(); i++)
+        {
+            assertTrue(futures.get(i).isDone());
+            assertThat(futures.get(i).get(), is((i + 1) * 2));
+        }
+    }
+}
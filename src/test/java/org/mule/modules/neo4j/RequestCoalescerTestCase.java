@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) MuleSoft, Inc. All rights reserved. http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.md file.
+ */
+
+package org.mule.modules.neo4j;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class RequestCoalescerTestCase
+{
+    /**
+     * Counts its executions, blocking each until released.
+     */
+    private static class CountingRequest implements Callable<Integer>
+    {
+        private final AtomicInteger executions = new AtomicInteger();
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch released = new CountDownLatch(1);
+        private final Exception failure;
+
+        public CountingRequest(final Exception failure)
+        {
+            this.failure = failure;
+        }
+
+        public Integer call() throws Exception
+        {
+            final int execution = executions.incrementAndGet();
+            started.countDown();
+            released.await();
+
+            if (failure != null)
+            {
+                throw failure;
+            }
+            return execution;
+        }
+    }
+
+    private final RequestCoalescer requestCoalescer = new RequestCoalescer();
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+
+    @After
+    public void stopCallers()
+    {
+        callers.shutdownNow();
+    }
+
+    private Future<Integer> call(final Object key, final Callable<Integer> request)
+    {
+        return callers.submit(new Callable<Integer>()
+        {
+            public Integer call() throws Exception
+            {
+                return requestCoalescer.execute(key, request);
+            }
+        });
+    }
+
+    private List<Future<Integer>> callWhileInFlight(final Object key,
+                                                    final CountingRequest request,
+                                                    final int callerCount) throws Exception
+    {
+        final List<Future<Integer>> futures = new ArrayList<Future<Integer>>();
+        futures.add(call(key, request));
+        assertTrue(request.started.await(5L, TimeUnit.SECONDS));
+
+        for (int i = 1; i < callerCount; i++)
+        {
+            futures.add(call(key, request));
+        }
+        awaitStatistic("coalescedRequests", callerCount - 1L);
+        return futures;
+    }
+
+    private void awaitStatistic(final String name, final long value) throws InterruptedException
+    {
+        final long deadline = System.currentTimeMillis() + 5000L;
+        while ((requestCoalescer.getStatistics().get(name) < value) && (System.currentTimeMillis() < deadline))
+        {
+            Thread.sleep(10L);
+        }
+        assertThat(requestCoalescer.getStatistics().get(name), is(value));
+    }
+
+    @Test
+    public void executesConcurrentIdenticalRequestsOnce() throws Exception
+    {
+        final CountingRequest request = new CountingRequest(null);
+        final List<Future<Integer>> futures = callWhileInFlight("key", request, 4);
+        request.released.countDown();
+
+        for (final Future<Integer> future : futures)
+        {
+            assertThat(future.get(5L, TimeUnit.SECONDS), is(1));
+        }
+        assertThat(request.executions.get(), is(1));
+        assertThat(requestCoalescer.getStatistics().get("executedRequests"), is(1L));
+        assertThat(requestCoalescer.getStatistics().get("coalescedRequests"), is(3L));
+        assertThat(requestCoalescer.getStatistics().get("inFlightRequests"), is(0L));
+    }
+
+    @Test
+    public void propagatesTheFailureToAllCallers() throws Exception
+    {
+        final CountingRequest request = new CountingRequest(new IllegalStateException("Server unavailable"));
+        final List<Future<Integer>> futures = callWhileInFlight("key", request, 3);
+        request.released.countDown();
+
+        for (final Future<Integer> future : futures)
+        {
+            try
+            {
+                future.get(5L, TimeUnit.SECONDS);
+                fail("Failed request succeeded");
+            }
+            catch (final ExecutionException ee)
+            {
+                assertTrue(ee.getCause() instanceof IllegalStateException);
+            }
+        }
+        assertThat(request.executions.get(), is(1));
+    }
+
+    @Test
+    public void executesAgainAfterDetachment() throws Exception
+    {
+        final CountingRequest request = new CountingRequest(null);
+        final Future<Integer> first = call("key", request);
+        assertTrue(request.started.await(5L, TimeUnit.SECONDS));
+
+        requestCoalescer.detachAll();
+        final Future<Integer> second = call("key", request);
+        awaitStatistic("requests", 2L);
+        request.released.countDown();
+
+        assertThat(first.get(5L, TimeUnit.SECONDS), is(1));
+        assertThat(second.get(5L, TimeUnit.SECONDS), is(2));
+        assertThat(requestCoalescer.getStatistics().get("coalescedRequests"), is(0L));
+    }
+
+    @Test
+    public void doesNotCacheCompletedRequests() throws Exception
+    {
+        final CountingRequest request = new CountingRequest(null);
+        request.released.countDown();
+
+        assertThat(requestCoalescer.execute("key", request), is(1));
+        assertThat(requestCoalescer.execute("key", request), is(2));
+        assertThat(requestCoalescer.getStatistics().get("coalescedRequests"), is(0L));
+    }
+
+    @Test
+    public void doesNotCoalesceDifferentKeys() throws Exception
+    {
+        final CountingRequest request = new CountingRequest(null);
+        final Future<Integer> first = call("first", request);
+        assertTrue(request.started.await(5L, TimeUnit.SECONDS));
+        final Future<Integer> second = call("second", request);
+        awaitStatistic("requests", 2L);
+        request.released.countDown();
+
+        assertThat(first.get(5L, TimeUnit.SECONDS) + second.get(5L, TimeUnit.SECONDS), is(3));
+        assertThat(requestCoalescer.getStatistics().get("coalescedRequests"), is(0L));
+    }
+}
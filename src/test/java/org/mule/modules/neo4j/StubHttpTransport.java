@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) MuleSoft, Inc. All rights reserved. http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.md file.
+ */
+
+package org.mule.modules.neo4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import org.codehaus.jackson.map.ObjectMapper;
+import org.mule.api.ConnectionException;
+import org.mule.api.DefaultMuleException;
+import org.mule.api.MuleException;
+import org.mule.api.MuleRuntimeException;
+import org.mule.modules.neo4j.transport.HttpTransport;
+import org.mule.modules.neo4j.transport.HttpTransportRequest;
+import org.mule.modules.neo4j.transport.HttpTransportResponse;
+
+/**
+ * An {@link HttpTransport} that answers with canned responses instead of a Neo4j server, and records
+ * the requests it receives, so processors can be tested without a server.
+ */
+class StubHttpTransport implements HttpTransport
+{
+    static final String BASE_URI = "http://localhost:7474/db/data";
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private static class CannedResponse
+    {
+        private final int statusCode;
+        private final String json;
+
+        public CannedResponse(final int statusCode, final String json)
+        {
+            this.statusCode = statusCode;
+            this.json = json;
+        }
+    }
+
+    private final Map<String, List<CannedResponse>> cannedResponses = new HashMap<String, List<CannedResponse>>();
+    private final List<HttpTransportRequest> requests = new ArrayList<HttpTransportRequest>();
+
+    /**
+     * @return a connector that sends its requests through the provided transport, configured with the
+     *         defaults that Mule applies to the connector configuration.
+     */
+    static Neo4jConnector newConnector(final StubHttpTransport stubHttpTransport)
+    {
+        final Neo4jConnector connector = new Neo4jConnector();
+        connector.setHttpTransport(stubHttpTransport);
+        connector.setStreaming(true);
+        connector.setAsyncThreads(2);
+        connector.setAsyncQueueSize(100);
+        connector.setWriteBehindBatchSize(100);
+        connector.setWriteBehindFlushIntervalMillis(10);
+        connector.setEntityReadBatchSize(100);
+        connector.setEntityReadBatchDelayMillis(2);
+        connector.setEntityCacheMaxEntries(10000);
+        connector.setEntityCacheTtlMillis(60000);
+        connector.setCypherResultCacheMaxBytes(16777216);
+        connector.setCypherResultCacheTtlMillis(10000);
+        return connector;
+    }
+
+    /**
+     * Connect the connector to a server of the provided version.
+     */
+    void connect(final Neo4jConnector connector, final String neo4jVersion) throws ConnectionException
+    {
+        final String serviceRoot = ("{\"neo4j_version\":\"" + neo4jVersion + "\",\"node\":\"{base}/node\","
+                                    + "\"node_index\":\"{base}/index/node\","
+                                    + "\"relationship_index\":\"{base}/index/relationship\","
+                                    + "\"relationship_types\":\"{base}/relationship/types\","
+                                    + "\"batch\":\"{base}/batch\",\"cypher\":\"{base}/cypher\","
+                                    + "\"transaction\":\"{base}/transaction\","
+                                    + "\"extensions_info\":\"{base}/ext\",\"extensions\":{}}").replace("{base}",
+            BASE_URI);
+
+        respond("GET", BASE_URI + "/", 200, serviceRoot);
+        connector.connect(BASE_URI);
+    }
+
+    /**
+     * Answer the requests with the provided method and URI with a response, the last response
+     * provided for a request being repeated.
+     */
+    synchronized void respond(final String method, final String uri, final int statusCode, final String json)
+    {
+        final String key = method + " " + uri;
+        if (!cannedResponses.containsKey(key))
+        {
+            cannedResponses.put(key, new LinkedList<CannedResponse>());
+        }
+        cannedResponses.get(key).add(new CannedResponse(statusCode, json));
+    }
+
+    synchronized List<HttpTransportRequest> getRequests()
+    {
+        return new ArrayList<HttpTransportRequest>(requests);
+    }
+
+    /**
+     * @return the JSON entities of the requests with the provided method and URI, parsed.
+     */
+    synchronized List<Object> getJsonEntities(final String method, final String uri)
+    {
+        final List<Object> jsonEntities = new ArrayList<Object>();
+        for (final HttpTransportRequest request : requests)
+        {
+            if ((request.getMethod().equals(method)) && (request.getUri().equals(uri)))
+            {
+                try
+                {
+                    jsonEntities.add(OBJECT_MAPPER.readValue(request.getJsonEntityOrNull(), Object.class));
+                }
+                catch (final Exception e)
+                {
+                    throw new MuleRuntimeException(e);
+                }
+            }
+        }
+        return jsonEntities;
+    }
+
+    public void start()
+    {
+        // nothing to start
+    }
+
+    public void stop()
+    {
+        // nothing to stop
+    }
+
+    public synchronized HttpTransportResponse send(final HttpTransportRequest request) throws MuleException
+    {
+        requests.add(request);
+
+        final List<CannedResponse> responses = cannedResponses.get(request.getMethod() + " "
+                                                                         + request.getUri());
+        if (responses == null)
+        {
+            throw new DefaultMuleException("No response stubbed for: " + request);
+        }
+
+        final CannedResponse response = responses.size() > 1 ? responses.remove(0) : responses.get(0);
+        try
+        {
+            return new HttpTransportResponse(response.statusCode, Collections.singletonMap("Content-Type",
+                "application/json"), new ByteArrayInputStream(response.json.getBytes("UTF-8")));
+        }
+        catch (final UnsupportedEncodingException uee)
+        {
+            throw new DefaultMuleException("Failed to encode response to: " + request, uee);
+        }
+    }
+}
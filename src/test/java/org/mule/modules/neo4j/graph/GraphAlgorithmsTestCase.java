@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) MuleSoft, Inc. All rights reserved. http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.md file.
+ */
+
+package org.mule.modules.neo4j.graph;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mule.modules.neo4j.graph.GraphSnapshot.Direction;
+
+public class GraphAlgorithmsTestCase
+{
+    private ExecutorService executor;
+    private GraphAlgorithms graphAlgorithms;
+
+    @Before
+    public void startExecutor()
+    {
+        executor = Executors.newFixedThreadPool(4);
+        graphAlgorithms = new GraphAlgorithms(executor, 4);
+    }
+
+    @After
+    public void stopExecutor()
+    {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 10 -> 20 -> 30 -> 10, 30 -> 40 and 50 -> 60, where 70 is isolated and 99 is missing.
+     */
+    private static GraphSnapshot newSnapshot(final boolean offHeap)
+    {
+        final GraphSnapshotBuilder builder = new GraphSnapshotBuilder(offHeap);
+        for (final long nodeId : new long[]{70, 10, 30, 20, 40, 60, 50, 10})
+        {
+            builder.addNode(nodeId);
+        }
+        builder.addRelationship(10, 20);
+        builder.addRelationship(20, 30);
+        builder.addRelationship(30, 10);
+        builder.addRelationship(30, 40);
+        builder.addRelationship(50, 60);
+        builder.addRelationship(60, 99);
+
+        assertThat(builder.getSkippedRelationshipCount(), is(1L));
+        return builder.build();
+    }
+
+    @Test
+    public void buildsRows()
+    {
+        for (final boolean offHeap : new boolean[]{false, true})
+        {
+            final GraphSnapshot snapshot = newSnapshot(offHeap);
+
+            assertThat(snapshot.isOffHeap(), is(offHeap));
+            assertThat(snapshot.getNodeCount(), is(7));
+            assertThat(snapshot.getRelationshipCount(), is(5));
+            assertThat(snapshot.getNodeId(0), is(10L));
+            assertThat(snapshot.indexOf(40L), is(3));
+            assertTrue(snapshot.indexOf(99L) < 0);
+
+            final int node30 = snapshot.indexOf(30L);
+            assertThat(snapshot.getOutDegree(node30), is(2));
+            assertThat(snapshot.getInDegree(node30), is(1));
+            assertThat(snapshot.getOutTarget(snapshot.getOutOffset(node30)), is(snapshot.indexOf(10L)));
+            assertThat(snapshot.getOutTarget(snapshot.getOutOffset(node30) + 1), is(snapshot.indexOf(40L)));
+        }
+    }
+
+    @Test
+    public void computesBreadthFirstDistances() throws Exception
+    {
+        final GraphSnapshot snapshot = newSnapshot(false);
+
+        final int[] outDistances = graphAlgorithms.breadthFirstDistances(snapshot, snapshot.indexOf(20L),
+            Direction.OUT, -1);
+        assertThat(outDistances[snapshot.indexOf(20L)], is(0));
+        assertThat(outDistances[snapshot.indexOf(30L)], is(1));
+        assertThat(outDistances[snapshot.indexOf(10L)], is(2));
+        assertThat(outDistances[snapshot.indexOf(40L)], is(2));
+        assertThat(outDistances[snapshot.indexOf(50L)], is(-1));
+
+        final int[] inDistances = graphAlgorithms.breadthFirstDistances(snapshot, snapshot.indexOf(40L),
+            Direction.IN, 2);
+        assertThat(inDistances[snapshot.indexOf(30L)], is(1));
+        assertThat(inDistances[snapshot.indexOf(20L)], is(2));
+        assertThat(inDistances[snapshot.indexOf(10L)], is(-1));
+    }
+
+    @Test
+    public void computesPageRank() throws Exception
+    {
+        final GraphSnapshot snapshot = newSnapshot(true);
+
+        final double[] ranks = graphAlgorithms.pageRank(snapshot, 0.85d, 100, 1e-10d);
+
+        double sum = 0.0d;
+        for (final double rank : ranks)
+        {
+            sum += rank;
+        }
+        assertEquals(1.0d, sum, 1e-9d);
+        assertTrue(ranks[snapshot.indexOf(10L)] > ranks[snapshot.indexOf(70L)]);
+        assertTrue(ranks[snapshot.indexOf(60L)] > ranks[snapshot.indexOf(50L)]);
+    }
+
+    @Test
+    public void computesConnectedComponents() throws Exception
+    {
+        final GraphSnapshot snapshot = newSnapshot(false);
+
+        final int[] components = graphAlgorithms.connectedComponents(snapshot);
+
+        assertThat(components[snapshot.indexOf(40L)], is(snapshot.indexOf(10L)));
+        assertThat(components[snapshot.indexOf(20L)], is(snapshot.indexOf(10L)));
+        assertThat(components[snapshot.indexOf(60L)], is(snapshot.indexOf(50L)));
+        assertThat(components[snapshot.indexOf(70L)], is(snapshot.indexOf(70L)));
+    }
+
+    @Test
+    public void splitsLargeGraphsIntoRanges() throws Exception
+    {
+        // a chain long enough to be processed by several threads
+        final int nodeCount = 20000;
+        final GraphSnapshotBuilder builder = new GraphSnapshotBuilder(false);
+        for (int i = 0; i < nodeCount; i++)
+        {
+            builder.addNode(i);
+        }
+        for (int i = 1; i < nodeCount; i++)
+        {
+            builder.addRelationship(i - 1, i);
+        }
+        final GraphSnapshot snapshot = builder.build();
+
+        final int[] components = graphAlgorithms.connectedComponents(snapshot);
+        assertThat(components[nodeCount - 1], is(0));
+
+        final int[] distances = graphAlgorithms.breadthFirstDistances(snapshot, 0, Direction.BOTH, -1);
+        assertThat(distances[nodeCount - 1], is(nodeCount - 1));
+    }
+}
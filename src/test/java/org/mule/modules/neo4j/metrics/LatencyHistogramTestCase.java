@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) MuleSoft, Inc. All rights reserved. http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.md file.
+ */
+
+package org.mule.modules.neo4j.metrics;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class LatencyHistogramTestCase
+{
+    private static void assertWithinRelativeError(final long actual, final long expected)
+    {
+        assertTrue(actual + " is not within 12.5% above " + expected,
+            (actual >= expected) && (actual - expected <= expected / 8L));
+    }
+
+    @Test
+    public void isEmptyInitially()
+    {
+        final LatencyHistogram histogram = new LatencyHistogram();
+
+        assertThat(histogram.getCount(), is(0L));
+        assertThat(histogram.getMean(), is(0.0d));
+        assertThat(histogram.getPercentile(50.0d), is(0L));
+        assertThat(histogram.getMax(), is(0L));
+    }
+
+    @Test
+    public void computesPercentiles()
+    {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (long micros = 1000L; micros >= 1L; micros--)
+        {
+            histogram.record(micros);
+        }
+
+        assertThat(histogram.getCount(), is(1000L));
+        assertThat(histogram.getMean(), is(500.5d));
+        assertThat(histogram.getMax(), is(1000L));
+        assertThat(histogram.getPercentile(0.0d), is(1L));
+        assertWithinRelativeError(histogram.getPercentile(50.0d), 500L);
+        assertWithinRelativeError(histogram.getPercentile(95.0d), 950L);
+        assertWithinRelativeError(histogram.getPercentile(99.0d), 990L);
+        assertThat(histogram.getPercentile(100.0d), is(1000L));
+    }
+
+    @Test
+    public void recordsSmallValuesExactly()
+    {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5L);
+        histogram.record(3L);
+        histogram.record(7L);
+
+        assertThat(histogram.getPercentile(30.0d), is(0L));
+        assertThat(histogram.getPercentile(60.0d), is(3L));
+        assertThat(histogram.getPercentile(100.0d), is(7L));
+    }
+
+    @Test
+    public void boundsTheRelativeErrorOfEveryMagnitude()
+    {
+        for (int exponent = 3; exponent < 63; exponent++)
+        {
+            for (final long value : new long[]{1L << exponent, (1L << exponent) + (1L << exponent) / 3L,
+                (1L << exponent) - 1L + (1L << exponent)})
+            {
+                final int index = LatencyHistogram.bucketIndex(value);
+                assertTrue(index > LatencyHistogram.bucketIndex(value / 2L));
+                assertWithinRelativeError(LatencyHistogram.bucketUpperBound(index), value);
+            }
+        }
+    }
+
+    @Test
+    public void keepsTheLargestValuesInTheLastBucket()
+    {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(Long.MAX_VALUE);
+        histogram.record(Long.MAX_VALUE - 1L);
+
+        assertThat(LatencyHistogram.bucketUpperBound(LatencyHistogram.bucketIndex(Long.MAX_VALUE)),
+            is(Long.MAX_VALUE));
+        assertThat(histogram.getMax(), is(Long.MAX_VALUE));
+        assertThat(histogram.getPercentile(50.0d), is(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void resets()
+    {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(42L);
+        histogram.reset();
+
+        assertThat(histogram.getCount(), is(0L));
+        assertThat(histogram.getMax(), is(0L));
+        assertThat(histogram.getPercentile(99.0d), is(0L));
+    }
+}
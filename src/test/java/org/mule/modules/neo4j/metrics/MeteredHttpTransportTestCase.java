@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) MuleSoft, Inc. All rights reserved. http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.md file.
+ */
+
+package org.mule.modules.neo4j.metrics;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mule.api.DefaultMuleException;
+import org.mule.api.MuleException;
+import org.mule.modules.neo4j.transport.HttpTransport;
+import org.mule.modules.neo4j.transport.HttpTransportRequest;
+import org.mule.modules.neo4j.transport.HttpTransportResponse;
+import org.mule.modules.neo4j.transport.JsonEntityWriter;
+
+public class MeteredHttpTransportTestCase
+{
+    private static final String BASE_URI = "http://localhost:7676/db/data";
+    private static final String RESPONSE_BODY = "{\"columns\":[],\"data\":[]}";
+
+    /**
+     * Writes the entity of the requests it receives like a real transport would, then answers with a
+     * canned response.
+     */
+    private static class WritingHttpTransport implements HttpTransport
+    {
+        private final ByteArrayOutputStream writtenEntities = new ByteArrayOutputStream();
+
+        public void start()
+        {
+            // nothing to start
+        }
+
+        public void stop()
+        {
+            // nothing to stop
+        }
+
+        public HttpTransportResponse send(final HttpTransportRequest request) throws MuleException
+        {
+            try
+            {
+                if (request.hasJsonEntity())
+                {
+                    request.getJsonEntityWriterOrNull().writeTo(writtenEntities);
+                }
+                return new HttpTransportResponse(200, Collections.<String, String> emptyMap(),
+                    new ByteArrayInputStream(RESPONSE_BODY.getBytes("UTF-8")));
+            }
+            catch (final IOException ioe)
+            {
+                throw new DefaultMuleException("Failed to send: " + request, ioe);
+            }
+        }
+    }
+
+    private final WritingHttpTransport writingHttpTransport = new WritingHttpTransport();
+    private final MeteredHttpTransport meteredHttpTransport = new MeteredHttpTransport(writingHttpTransport,
+        BASE_URI, BASE_URI);
+
+    @Before
+    public void start() throws Exception
+    {
+        meteredHttpTransport.start();
+    }
+
+    @After
+    public void stop()
+    {
+        meteredHttpTransport.stop();
+    }
+
+    @Test
+    public void countsStreamedBytesOnceTheResponseIsClosed() throws Exception
+    {
+        final String jsonEntity = "{\"query\":\"MATCH (n) RETURN n\",\"params\":{}}";
+
+        final HttpTransportResponse response = meteredHttpTransport.send(new HttpTransportRequest("POST",
+            BASE_URI + "/cypher", Collections.<String, String> emptyMap(), jsonEntity));
+        final OperationMetrics operationMetrics = meteredHttpTransport.getRequestMetrics().getOperationMetrics(
+            "POST /cypher");
+        assertThat(operationMetrics.getCalls(), is(0L));
+
+        response.bufferBody();
+        response.close();
+
+        assertThat(writingHttpTransport.writtenEntities.toString("UTF-8"), is(jsonEntity));
+        assertThat(operationMetrics.getCalls(), is(1L));
+        assertThat(operationMetrics.getBytesSent(), is((long) jsonEntity.length()));
+        assertThat(operationMetrics.getBytesReceived(), is((long) RESPONSE_BODY.length()));
+    }
+
+    @Test
+    public void countsNoBytesSentForRequestsWithoutEntity() throws Exception
+    {
+        meteredHttpTransport.send(
+            new HttpTransportRequest("GET", BASE_URI + "/node/12", Collections.<String, String> emptyMap(),
+                (JsonEntityWriter) null, true)).close();
+
+        final OperationMetrics operationMetrics = meteredHttpTransport.getRequestMetrics().getOperationMetrics(
+            "GET /node/{id}");
+        assertThat(operationMetrics.getCalls(), is(1L));
+        assertThat(operationMetrics.getBytesSent(), is(0L));
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) MuleSoft, Inc. All rights reserved. http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.md file.
+ */
+
+package org.mule.modules.neo4j.metrics;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThat;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Test;
+
+public class RequestMetricsTestCase
+{
+    private final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+
+    private static ObjectName getObjectName(final String name, final String operation) throws Exception
+    {
+        return new ObjectName("org.mule.modules.neo4j:type=RequestMetrics,name=" + ObjectName.quote(name)
+                              + ",operation=" + ObjectName.quote(operation));
+    }
+
+    @Test
+    public void registersOperationMBeansUntilLastRelease() throws Exception
+    {
+        final String name = "http://localhost:7474/db/data";
+        final String operation = "GET /node/{id}";
+
+        final RequestMetrics requestMetrics = RequestMetrics.acquire(name);
+        assertSame(requestMetrics, RequestMetrics.acquire(name));
+
+        final OperationMetrics operationMetrics = requestMetrics.getOperationMetrics(operation);
+        operationMetrics.recordCall(1500L, 10L, 100L);
+        assertSame(operationMetrics, requestMetrics.getOperationMetrics(operation));
+        assertThat(mBeanServer.isRegistered(getObjectName(name, operation)), is(true));
+        assertThat(mBeanServer.getAttribute(getObjectName(name, operation), "Calls"), is((Object) 1L));
+
+        requestMetrics.release();
+        assertThat(mBeanServer.isRegistered(getObjectName(name, operation)), is(true));
+
+        requestMetrics.release();
+        assertThat(mBeanServer.isRegistered(getObjectName(name, operation)), is(false));
+        assertThat(requestMetrics.getAllOperationMetrics().isEmpty(), is(true));
+    }
+
+    @Test
+    public void startsAfreshOnceReleased() throws Exception
+    {
+        final String name = "http://localhost:7575/db/data";
+
+        final RequestMetrics requestMetrics = RequestMetrics.acquire(name);
+        requestMetrics.getOperationMetrics("POST /cypher").recordError(500);
+        requestMetrics.release();
+
+        final RequestMetrics newRequestMetrics = RequestMetrics.acquire(name);
+        try
+        {
+            assertThat(newRequestMetrics, is(not(sameInstance(requestMetrics))));
+            assertThat(newRequestMetrics.getOperationMetrics("POST /cypher").getErrors(), is(0L));
+            assertThat(mBeanServer.isRegistered(getObjectName(name, "POST /cypher")), is(true));
+        }
+        finally
+        {
+            newRequestMetrics.release();
+        }
+        assertThat(mBeanServer.isRegistered(getObjectName(name, "POST /cypher")), is(false));
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) MuleSoft, Inc. All rights reserved. http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.md file.
+ */
+
+package org.mule.modules.neo4j.transport;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mule.api.DefaultMuleException;
+import org.mule.api.MuleException;
+
+public class ClusterRoutingHttpTransportTestCase
+{
+    private static final String AUTHORIZATION = "Basic bmVvNGo6c2VjcmV0";
+
+    /**
+     * Plays a three instances cluster whose second instance is the master, recording the requests
+     * it receives.
+     */
+    private static class ClusterHttpTransport implements HttpTransport
+    {
+        private final Map<String, String> roles = new ConcurrentHashMap<String, String>();
+        private final List<String> failingHosts = new CopyOnWriteArrayList<String>();
+        private final List<HttpTransportRequest> probes = new CopyOnWriteArrayList<HttpTransportRequest>();
+        private final List<String> uris = new CopyOnWriteArrayList<String>();
+
+        public ClusterHttpTransport()
+        {
+            roles.put("a", "slave");
+            roles.put("b", "master");
+            roles.put("c", "slave");
+        }
+
+        public void start()
+        {
+            // nothing to start
+        }
+
+        public void stop()
+        {
+            // nothing to stop
+        }
+
+        public HttpTransportResponse send(final HttpTransportRequest request) throws MuleException
+        {
+            final String host = request.getUri().substring("http://".length(), request.getUri().indexOf(':', 7));
+
+            if (request.getUri().endsWith("/manage/server/ha/available"))
+            {
+                probes.add(request);
+                return newResponse(200, roles.get(host));
+            }
+
+            if (failingHosts.contains(host))
+            {
+                throw new DefaultMuleException("Connection refused: " + request.getUri());
+            }
+
+            uris.add(request.getUri());
+            return newResponse(200, "{}");
+        }
+
+        private static HttpTransportResponse newResponse(final int statusCode, final String body)
+        {
+            return new HttpTransportResponse(statusCode, Collections.<String, String> emptyMap(),
+                new ByteArrayInputStream(body.getBytes()));
+        }
+    }
+
+    private final ClusterHttpTransport clusterHttpTransport = new ClusterHttpTransport();
+    private ClusterRoutingHttpTransport clusterRoutingHttpTransport;
+
+    @Before
+    public void startTransport() throws Exception
+    {
+        clusterRoutingHttpTransport = new ClusterRoutingHttpTransport(clusterHttpTransport, Arrays.asList(
+            "http://a:7474/db/data/", "http://b:7474/db/data/", "http://c:7474/db/data/"), 60000L,
+            AUTHORIZATION, "test");
+        clusterRoutingHttpTransport.start();
+    }
+
+    @After
+    public void stopTransport()
+    {
+        clusterRoutingHttpTransport.stop();
+    }
+
+    private static HttpTransportRequest newRequest(final String method, final String uri, final boolean readOnly)
+    {
+        return new HttpTransportRequest(method, uri, Collections.<String, String> emptyMap(), (String) null,
+            readOnly);
+    }
+
+    @Test
+    public void probesEveryInstanceWithTheConfiguredCredentials()
+    {
+        assertThat(clusterHttpTransport.probes.size(), is(3));
+        for (final HttpTransportRequest probe : clusterHttpTransport.probes)
+        {
+            assertThat(probe.getHeaders().get("Authorization"), is(AUTHORIZATION));
+        }
+    }
+
+    @Test
+    public void sendsWritesToTheMaster() throws Exception
+    {
+        clusterRoutingHttpTransport.send(newRequest("POST", "http://a:7474/db/data/node", false)).close();
+        clusterRoutingHttpTransport.send(newRequest("DELETE", "http://c:7474/db/data/node/1", false)).close();
+
+        assertThat(clusterHttpTransport.uris, is(Arrays.asList("http://b:7474/db/data/node",
+            "http://b:7474/db/data/node/1")));
+    }
+
+    @Test
+    public void sendsReadsToTheSlaves() throws Exception
+    {
+        for (int i = 0; i < 50; i++)
+        {
+            clusterRoutingHttpTransport.send(newRequest("GET", "http://b:7474/db/data/node/1", true)).close();
+        }
+
+        assertThat(clusterHttpTransport.uris.size(), is(50));
+        for (final String uri : clusterHttpTransport.uris)
+        {
+            assertThat(uri, uri.startsWith("http://b:7474/"), is(false));
+        }
+    }
+
+    @Test
+    public void retriesFailedReadsOnAnotherInstance() throws Exception
+    {
+        clusterHttpTransport.failingHosts.add("a");
+
+        for (int i = 0; i < 5; i++)
+        {
+            clusterRoutingHttpTransport.send(newRequest("GET", "http://a:7474/db/data/node/1", true)).close();
+        }
+
+        assertThat(clusterHttpTransport.uris, is(Collections.nCopies(5, "http://c:7474/db/data/node/1")));
+    }
+
+    @Test(expected = MuleException.class)
+    public void neverRetriesFailedWrites() throws Exception
+    {
+        clusterHttpTransport.failingHosts.add("b");
+
+        clusterRoutingHttpTransport.send(newRequest("POST", "http://a:7474/db/data/node", false));
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) MuleSoft, Inc. All rights reserved. http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.md file.
+ */
+
+package org.mule.modules.neo4j.transport;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mule.api.DefaultMuleException;
+import org.mule.api.MuleException;
+
+public class HedgingHttpTransportTestCase
+{
+    private static final String URI = "http://localhost:7474/db/data/node/42";
+    private static final int WARM_UP_REQUESTS = 200;
+
+    /**
+     * Answers after a configurable delay and counts the attempts it receives.
+     */
+    private static class DelayingHttpTransport implements HttpTransport
+    {
+        private final AtomicInteger sends = new AtomicInteger();
+        private volatile long delayMillis;
+
+        public void start()
+        {
+            // nothing to start
+        }
+
+        public void stop()
+        {
+            // nothing to stop
+        }
+
+        public HttpTransportResponse send(final HttpTransportRequest request) throws MuleException
+        {
+            sends.incrementAndGet();
+            try
+            {
+                Thread.sleep(delayMillis);
+            }
+            catch (final InterruptedException ie)
+            {
+                Thread.currentThread().interrupt();
+                throw new DefaultMuleException("Interrupted while sending: " + request, ie);
+            }
+            return new HttpTransportResponse(200, Collections.<String, String> emptyMap(), null);
+        }
+    }
+
+    private final DelayingHttpTransport delayingHttpTransport = new DelayingHttpTransport();
+    private HedgingHttpTransport hedgingHttpTransport;
+
+    @Before
+    public void startTransport() throws Exception
+    {
+        hedgingHttpTransport = new HedgingHttpTransport(delayingHttpTransport, 50.0d, 10.0d, "test");
+        hedgingHttpTransport.start();
+
+        // enough fast requests for the latency percentile to be known and the budget to be full
+        for (int i = 0; i < WARM_UP_REQUESTS; i++)
+        {
+            hedgingHttpTransport.send(newRequest(true)).close();
+        }
+        awaitSends(WARM_UP_REQUESTS + hedgingHttpTransport.getStatistics().get("hedges").intValue());
+
+        delayingHttpTransport.delayMillis = 20L;
+    }
+
+    @After
+    public void stopTransport()
+    {
+        hedgingHttpTransport.stop();
+    }
+
+    private static HttpTransportRequest newRequest(final boolean idempotent)
+    {
+        return new HttpTransportRequest("GET", URI, Collections.<String, String> emptyMap(), null, true,
+            idempotent);
+    }
+
+    private void awaitSends(final int expectedSends) throws InterruptedException
+    {
+        // the losing attempt of a hedged call may still be on its way to the transport
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5L);
+        while ((delayingHttpTransport.sends.get() < expectedSends) && (System.nanoTime() < deadline))
+        {
+            Thread.sleep(10L);
+        }
+        assertThat(delayingHttpTransport.sends.get(), is(expectedSends));
+    }
+
+    @Test
+    public void neverDuplicatesNonIdempotentRequests() throws Exception
+    {
+        final int sendsBefore = delayingHttpTransport.sends.get();
+        final long hedgesBefore = hedgingHttpTransport.getStatistics().get("hedges");
+
+        for (int i = 0; i < 5; i++)
+        {
+            hedgingHttpTransport.send(newRequest(false)).close();
+        }
+
+        awaitSends(sendsBefore + 5);
+        assertThat(hedgingHttpTransport.getStatistics().get("hedges"), is(hedgesBefore));
+        assertThat(hedgingHttpTransport.getStatistics().get("requests"), is((long) WARM_UP_REQUESTS));
+    }
+
+    @Test
+    public void hedgesSlowIdempotentRequestsWithinTheBudget() throws Exception
+    {
+        final int slowRequests = 20;
+        for (int i = 0; i < slowRequests; i++)
+        {
+            hedgingHttpTransport.send(newRequest(true)).close();
+        }
+
+        final long requests = hedgingHttpTransport.getStatistics().get("requests");
+        final long hedges = hedgingHttpTransport.getStatistics().get("hedges");
+        final long hedgesDeniedByBudget = hedgingHttpTransport.getStatistics().get("hedgesDeniedByBudget");
+
+        assertThat(requests, is((long) WARM_UP_REQUESTS + slowRequests));
+        assertTrue("no slow request was hedged", hedges > 0L);
+        // 10% of the requests may be duplicated
+        assertTrue(hedges + " hedges exceed the budget", hedges <= requests / 10L);
+        assertTrue("the budget was never exhausted", hedgesDeniedByBudget > 0L);
+        awaitSends((int) (requests + hedges));
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) MuleSoft, Inc. All rights reserved. http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.md file.
+ */
+
+package org.mule.modules.neo4j.transport;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class HttpTransportRequestTestCase
+{
+    private static final String URI = "http://localhost:7474/db/data/cypher";
+    private static final String JSON_ENTITY = "{\"query\":\"RETURN {name}\",\"params\":{\"name\":\"Zo\u00eb\"}}";
+
+    /**
+     * Writes the same entity each time it is asked to, counting how many times it has been.
+     */
+    private static class CountingJsonEntityWriter implements JsonEntityWriter
+    {
+        private final AtomicInteger writes = new AtomicInteger();
+
+        public void writeTo(final OutputStream out) throws IOException
+        {
+            writes.incrementAndGet();
+            out.write(JSON_ENTITY.getBytes("UTF-8"));
+        }
+    }
+
+    private static HttpTransportRequest newRequest(final JsonEntityWriter jsonEntityWriter)
+    {
+        return new HttpTransportRequest("POST", URI, Collections.singletonMap("Accept", "application/json"),
+            jsonEntityWriter, true, false);
+    }
+
+    private static String write(final JsonEntityWriter jsonEntityWriter) throws IOException
+    {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        jsonEntityWriter.writeTo(out);
+        return out.toString("UTF-8");
+    }
+
+    @Test
+    public void writesStringEntitiesEncodedInUtf8() throws Exception
+    {
+        final HttpTransportRequest request = new HttpTransportRequest("POST", URI,
+            Collections.<String, String> emptyMap(), JSON_ENTITY);
+
+        assertThat(request.hasJsonEntity(), is(true));
+        assertThat(request.getJsonEntityOrNull(), is(JSON_ENTITY));
+        assertThat(write(request.getJsonEntityWriterOrNull()), is(JSON_ENTITY));
+        assertThat(write(request.withUri(URI + "/other").getJsonEntityWriterOrNull()), is(JSON_ENTITY));
+    }
+
+    @Test
+    public void rendersStreamedEntitiesOnlyOnDemand() throws Exception
+    {
+        final CountingJsonEntityWriter jsonEntityWriter = new CountingJsonEntityWriter();
+        final HttpTransportRequest request = newRequest(jsonEntityWriter);
+
+        assertThat(request.hasJsonEntity(), is(true));
+        assertThat(jsonEntityWriter.writes.get(), is(0));
+
+        assertThat(request.getJsonEntityOrNull(), is(JSON_ENTITY));
+        assertThat(request.getJsonEntityOrNull(), is(JSON_ENTITY));
+        assertThat(jsonEntityWriter.writes.get(), is(2));
+    }
+
+    @Test
+    public void keepsTheEntityWriterAndFlagsOnOtherUris() throws Exception
+    {
+        final CountingJsonEntityWriter jsonEntityWriter = new CountingJsonEntityWriter();
+        final HttpTransportRequest request = newRequest(jsonEntityWriter).withUri(URI + "/other");
+
+        assertThat(request.getUri(), is(URI + "/other"));
+        assertThat(request.getHeaders().get("Accept"), is("application/json"));
+        assertThat(request.getJsonEntityWriterOrNull(), is(sameInstance((JsonEntityWriter) jsonEntityWriter)));
+        assertThat(request.isReadOnly(), is(true));
+        assertThat(request.isIdempotent(), is(false));
+    }
+
+    @Test
+    public void replacesTheEntityWriter() throws Exception
+    {
+        final HttpTransportRequest request = new HttpTransportRequest("POST", URI,
+            Collections.<String, String> emptyMap(), "{}").withJsonEntityWriter(new CountingJsonEntityWriter());
+
+        assertThat(request.getJsonEntityOrNull(), is(JSON_ENTITY));
+    }
+
+    @Test
+    public void hasNoEntityWithoutWriter() throws Exception
+    {
+        final HttpTransportRequest request = new HttpTransportRequest("GET", URI,
+            Collections.<String, String> emptyMap(), null);
+
+        assertThat(request.hasJsonEntity(), is(false));
+        assertThat(request.getJsonEntityOrNull(), is(nullValue()));
+        assertThat(request.getJsonEntityWriterOrNull(), is(nullValue()));
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) MuleSoft, Inc. All rights reserved. http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.md file.
+ */
+
+package org.mule.modules.neo4j.transport;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mule.api.MuleException;
+import org.mule.util.IOUtils;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+public class PooledHttpTransportTestCase
+{
+    private final Set<Integer> clientPorts = new CopyOnWriteArraySet<Integer>();
+    private final List<String> receivedRequests = new CopyOnWriteArrayList<String>();
+    private HttpServer httpServer;
+    private PooledHttpTransport pooledHttpTransport;
+    private String baseUri;
+
+    @Before
+    public void startServerAndTransport() throws Exception
+    {
+        httpServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        httpServer.createContext("/", new HttpHandler()
+        {
+            public void handle(final HttpExchange exchange) throws IOException
+            {
+                clientPorts.add(exchange.getRemoteAddress().getPort());
+                receivedRequests.add(exchange.getRequestMethod() + " " + exchange.getRequestURI() + " "
+                                     + exchange.getRequestHeaders().getFirst("Authorization") + " "
+                                     + IOUtils.toString(exchange.getRequestBody(), "UTF-8"));
+
+                final byte[] body = "{\"ok\":true}".getBytes("UTF-8");
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, body.length);
+                final OutputStream responseBody = exchange.getResponseBody();
+                responseBody.write(body);
+                responseBody.close();
+            }
+        });
+        httpServer.start();
+        baseUri = "http://localhost:" + httpServer.getAddress().getPort() + "/db/data";
+
+        pooledHttpTransport = new PooledHttpTransport(2, 2, 5000, 5000, 60000);
+        pooledHttpTransport.start();
+    }
+
+    @After
+    public void stopServerAndTransport()
+    {
+        pooledHttpTransport.stop();
+        httpServer.stop(0);
+    }
+
+    @Test
+    public void reusesKeepAliveConnections() throws Exception
+    {
+        for (int i = 0; i < 10; i++)
+        {
+            final HttpTransportResponse response = pooledHttpTransport.send(new HttpTransportRequest("GET",
+                baseUri + "/node/" + i, Collections.<String, String> emptyMap(), null));
+
+            assertThat(response.getStatusCode(), is(200));
+            assertThat(response.getHeaders().get("content-type"), is("application/json"));
+            assertThat(response.getBodyAsString(), is("{\"ok\":true}"));
+        }
+
+        assertThat(receivedRequests.size(), is(10));
+        // closing each response gives its connection back to the pool for the next request
+        assertThat(clientPorts.size(), is(1));
+    }
+
+    @Test
+    public void streamsJsonEntitiesWithTheRequestHeaders() throws Exception
+    {
+        final JsonEntityWriter jsonEntityWriter = new JsonEntityWriter()
+        {
+            public void writeTo(final OutputStream out) throws IOException
+            {
+                out.write("{\"name\":\"neo\"}".getBytes("UTF-8"));
+            }
+        };
+
+        pooledHttpTransport.send(
+            new HttpTransportRequest("POST", baseUri + "/node", Collections.singletonMap("Authorization",
+                "Basic bmVvNGo6c2VjcmV0"), jsonEntityWriter, false)).close();
+
+        assertThat(receivedRequests, is(Collections.singletonList("POST /db/data/node Basic bmVvNGo6c2VjcmV0 "
+                                                                  + "{\"name\":\"neo\"}")));
+    }
+
+    @Test(expected = MuleException.class)
+    public void rejectsUnsupportedMethods() throws Exception
+    {
+        pooledHttpTransport.send(new HttpTransportRequest("TRACE", baseUri, Collections.<String, String> emptyMap(),
+            null));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void rejectsRequestsOnceStopped() throws Exception
+    {
+        pooledHttpTransport.stop();
+
+        pooledHttpTransport.send(new HttpTransportRequest("GET", baseUri, Collections.<String, String> emptyMap(),
+            null));
+    }
+}
@@ -0,0 +1,4 @@
+
+MATCH (p:Person)
+WHERE p.name = {name}
+RETURN p